@@ -4,10 +4,14 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import org.bson.types.ObjectId;
+
 import com.ac.games.data.BGGGame;
 import com.ac.games.data.CompactSearchData;
 import com.ac.games.data.GameTypeConverter;
 import com.ac.games.data.ReviewStateConverter;
+import com.ac.games.db.mongo.codec.BGGGameCodec;
+import com.ac.games.db.mongo.codec.CodecDBObject;
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
@@ -46,6 +50,45 @@ public class BGGGameConverter {
     return dbObject;
   }
 
+  /**
+   * Helper method that will construct a query matching any of the provided bggIDs.
+   * 
+   * @param bggIDs The game IDs we want to build a query for.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this query, or null if no IDs were provided
+   */
+  public static BasicDBObject convertGameIDsToQuery(long[] bggIDs) {
+    if (bggIDs == null || bggIDs.length == 0) return null;
+    
+    BasicDBList idList = new BasicDBList();
+    for (long id : bggIDs)
+      idList.add(id);
+    
+    BasicDBObject dbObject = new BasicDBObject("bggID", new BasicDBObject("$in", idList));
+    return dbObject;
+  }
+  
+  /**
+   * Helper method that will construct the projection used for summary reads.  A summary only carries
+   * what a list card needs: the IDs, name, year, thumbnail, player counts, playing times and game type.
+   * The large description and list fields are never sent over the wire.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this projection
+   */
+  public static BasicDBObject convertSummaryProjection() {
+    BasicDBObject dbObject = new BasicDBObject("_id", 0);
+    dbObject.append("bggID", 1);
+    dbObject.append("name", 1);
+    dbObject.append("yearPublished", 1);
+    dbObject.append("minPlayers", 1);
+    dbObject.append("maxPlayers", 1);
+    dbObject.append("minPlayingTime", 1);
+    dbObject.append("maxPlayingTime", 1);
+    dbObject.append("imageThumbnailURL", 1);
+    dbObject.append("gameType", 1);
+    return dbObject;
+  }
+
   /**
    * Helper method that will construct a basic database record for the provided game object.
    * 
@@ -85,8 +128,24 @@ public class BGGGameConverter {
     return dbObject;
   }
   
+  /**
+   * Helper method that will stream the provided game straight into a database record through the
+   * {@link BGGGameCodec}, without building an intermediate map.  The record is byte-for-byte the same as the one
+   * produced by {@link #convertGameToMongo(BGGGame)}.
+   * 
+   * @param game The game we want to build a database record for.
+   * @param docID The _id to write at the front of the record, or null for update replacement records.
+   * 
+   * @return Returns a {@link DBObject} object that represents this object, or null if no game was provided
+   */
+  public static DBObject encodeGameToMongo(BGGGame game, ObjectId docID) {
+    return BGGGameCodec.INSTANCE.toDBObject(game, docID);
+  }
+  
   public static BGGGame convertMongoToGame(DBObject dbObject) {
     if (dbObject == null) return null;
+    //Raw documents from the codec decoder are streamed straight into the object
+    if (dbObject instanceof CodecDBObject) return BGGGameCodec.INSTANCE.fromDBObject((CodecDBObject)dbObject);
     
     BGGGame game = new BGGGame();
     
@@ -118,6 +177,35 @@ public class BGGGameConverter {
     return game;
   }
   
+  /**
+   * Convert a Mongo BSON record back into a {@link BGGGame} object, optionally leaving the description and list fields
+   * undecoded until they are first read.  Laziness only applies to raw records read through the codec
+   * decoder; any other record is converted eagerly.
+   * 
+   * @param dbObject The Mongo DBObject result
+   * @param lazy true to defer decoding of the large fields
+   * 
+   * @return a {@link BGGGame} object, or null if the dbObject was null
+   */
+  public static BGGGame convertMongoToGame(DBObject dbObject, boolean lazy) {
+    if (dbObject instanceof CodecDBObject) return BGGGameCodec.INSTANCE.fromDBObject((CodecDBObject)dbObject, lazy);
+    return convertMongoToGame(dbObject);
+  }
+  
+  /**
+   * Helper method that will construct the projection used for compact search results: the ID, name,
+   * year published and thumbnail, and nothing else.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this projection
+   */
+  public static BasicDBObject convertCompactProjection() {
+    BasicDBObject dbObject = new BasicDBObject("bggID", 1);
+    dbObject.append("name", 1);
+    dbObject.append("yearPublished", 1);
+    dbObject.append("imageThumbnailURL", 1);
+    return dbObject;
+  }
+  
   public static CompactSearchData convertMongoToCompact(DBObject dbObject) {
     if (dbObject == null) return null;
       
@@ -0,0 +1,160 @@
+package com.ac.games.db.mongo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.ac.games.data.GameAvailabilityConverter;
+import com.ac.games.db.mongo.price.PriceOffer;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * @author ac010168
+ * This converter builds the batched queries behind the best price lookups.  A lookup reads the
+ * relationships for every requested game in one $in, then every linked CoolStuffInc and Miniature
+ * Market item in one $in per retailer.  Projections keep each read to the handful of fields needed.
+ *
+ * The best offer can also be stored on the gamereltn document as a bestPrice field, so listing pages
+ * can read it without touching the retailer collections.
+ */
+public class BestPriceConverter {
+
+  /**
+   * Helper method that builds the query for the relationships of many games.
+   *
+   * @param gameIDs The games to look up.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertGameIDsToReltnQuery(long[] gameIDs) {
+    BasicDBList idList = new BasicDBList();
+    for (long gameID : gameIDs)
+      idList.add(gameID);
+    return new BasicDBObject("gameID", new BasicDBObject("$in", idList));
+  }
+
+  /**
+   * @return the projection for the stored best offer of a game
+   */
+  public static BasicDBObject convertBestPriceProjection() {
+    BasicDBObject dbObject = new BasicDBObject("_id", 0);
+    dbObject.append("gameID", 1);
+    dbObject.append("bestPrice", 1);
+    return dbObject;
+  }
+
+  /**
+   * Helper method that builds the query for the in-stock, priced retailer items among a set of IDs.
+   *
+   * @param idField The retailer ID field, i.e. csiID.
+   * @param itemIDs The retailer item IDs.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertItemIDsToOfferQuery(String idField, Collection<Long> itemIDs) {
+    BasicDBList idList = new BasicDBList();
+    idList.addAll(itemIDs);
+
+    BasicDBObject dbObject = new BasicDBObject(idField, new BasicDBObject("$in", idList));
+    dbObject.append("availability", GameAvailabilityConverter.INSTOCK_FLAG);
+    dbObject.append("curPrice", new BasicDBObject("$gte", 0.0));
+    return dbObject;
+  }
+
+  /**
+   * Helper method that builds the projection for a retailer item's offer fields.
+   *
+   * @param idField The retailer ID field, i.e. csiID.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this projection.
+   */
+  public static BasicDBObject convertOfferProjection(String idField) {
+    BasicDBObject dbObject = new BasicDBObject("_id", 0);
+    dbObject.append(idField, 1);
+    dbObject.append("curPrice", 1);
+    return dbObject;
+  }
+
+  /**
+   * Helper method that adds a game to the game list of each of its linked items.  An item can be linked
+   * to more than one game, so each item maps to every game it belongs to.
+   *
+   * @param itemGames The item to games map being built.
+   * @param itemIDs The items linked to the game, or null.
+   * @param gameID The game.
+   */
+  public static void mapItemsToGame(Map<Long, List<Long>> itemGames, List<Long> itemIDs, long gameID) {
+    if (itemIDs == null) return;
+
+    for (Long itemID : itemIDs) {
+      List<Long> games = itemGames.get(itemID);
+      if (games == null) {
+        games = new ArrayList<Long>(1);
+        itemGames.put(itemID, games);
+      }
+      games.add(gameID);
+    }
+  }
+
+  /**
+   * Helper method that offers a retailer item to each of its games, keeping it as a game's best offer if
+   * it is cheaper than the one found so far.  On a tie the offer found first is kept.
+   *
+   * @param offers The best offer per gameID found so far.
+   * @param games The games the item is linked to, or null.
+   * @param source The retailer source, i.e. {@link PriceHistoryConverter#SOURCE_CSI}.
+   * @param itemID The retailer item ID.
+   * @param price The item's current price.
+   */
+  public static void keepBestOffers(Map<Long, PriceOffer> offers, List<Long> games, String source, long itemID, double price) {
+    if (games == null) return;
+
+    for (Long gameID : games) {
+      PriceOffer best = offers.get(gameID);
+      if (best == null || price < best.getPrice())
+        offers.put(gameID, new PriceOffer(gameID, source, itemID, price));
+    }
+  }
+
+  /**
+   * Helper method that builds the update storing a game's best offer on its relationship, or clearing
+   * it if there is no offer.
+   *
+   * @param offer The best offer, or null.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this update.
+   */
+  public static BasicDBObject convertBestPriceToUpdate(PriceOffer offer) {
+    if (offer == null) return new BasicDBObject("$unset", new BasicDBObject("bestPrice", ""));
+
+    BasicDBObject priceObject = new BasicDBObject("source", offer.getSource());
+    priceObject.append("itemID", offer.getItemID());
+    priceObject.append("price", offer.getPrice());
+    return new BasicDBObject("$set", new BasicDBObject("bestPrice", priceObject));
+  }
+
+  /**
+   * Convert a relationship carrying a stored bestPrice back into a {@link PriceOffer}.
+   *
+   * @param dbObject The Mongo DBObject result
+   *
+   * @return a {@link PriceOffer} object, or null if there is no stored best price
+   */
+  public static PriceOffer convertMongoToBestPrice(DBObject dbObject) {
+    if (dbObject == null) return null;
+
+    DBObject priceObject = (DBObject)dbObject.get("bestPrice");
+    if (priceObject == null) return null;
+
+    PriceOffer offer = new PriceOffer();
+    if (dbObject.containsField("gameID"))    offer.setGameID((Long)dbObject.get("gameID"));
+    if (priceObject.containsField("source")) offer.setSource((String)priceObject.get("source"));
+    if (priceObject.containsField("itemID")) offer.setItemID((Long)priceObject.get("itemID"));
+    if (priceObject.containsField("price"))  offer.setPrice(((Number)priceObject.get("price")).doubleValue());
+
+    return offer;
+  }
+}
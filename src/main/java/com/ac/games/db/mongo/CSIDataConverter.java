@@ -2,6 +2,7 @@ package com.ac.games.db.mongo;
 
 import java.util.Date;
 
+import com.ac.games.data.CompactSearchData;
 import com.ac.games.data.CoolStuffIncCategoryConverter;
 import com.ac.games.data.CoolStuffIncPriceData;
 import com.ac.games.data.GameAvailabilityConverter;
@@ -92,4 +93,44 @@ public class CSIDataConverter {
     
     return data;
   }
+  
+  /**
+   * Helper method that will construct the projection used for compact search results: the ID, title,
+   * publisher and image, and nothing else.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this projection
+   */
+  public static BasicDBObject convertCompactProjection() {
+    BasicDBObject dbObject = new BasicDBObject("csiID", 1);
+    dbObject.append("title", 1);
+    dbObject.append("publisher", 1);
+    dbObject.append("imageURL", 1);
+    return dbObject;
+  }
+  
+  /**
+   * Convert a Mongo BSON record, read with {@link #convertCompactProjection()}, into a {@link CompactSearchData} object.
+   * 
+   * @param dbObject The Mongo DBObject result
+   * 
+   * @return a {@link CompactSearchData} object, or null if the dbObject was null
+   */
+  public static CompactSearchData convertMongoToCompact(DBObject dbObject) {
+    if (dbObject == null) return null;
+    
+    CompactSearchData data = new CompactSearchData();
+    
+    if (dbObject.containsField("csiID")) {
+      data.setSourceID((Long)dbObject.get("csiID"));
+      data.setSourceField("csiID");
+    }
+    String nameText = "Unavailable";
+    if (dbObject.containsField("title")) nameText = (String)dbObject.get("title");
+    if (dbObject.containsField("publisher")) nameText += " (" + (String)dbObject.get("publisher") + ")";
+    data.setDisplayString(nameText);
+    
+    if (dbObject.containsField("imageURL")) data.setThumbnailURL((String)dbObject.get("imageURL"));
+    
+    return data;
+  }
 }
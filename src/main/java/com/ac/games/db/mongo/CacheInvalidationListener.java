@@ -0,0 +1,27 @@
+package com.ac.games.db.mongo;
+
+/**
+ * Receives the changes seen by the {@link OplogCacheInvalidator}, so a cache in front of the database
+ * can drop what another node has changed.  Calls arrive on the invalidator's own thread.
+ * 
+ * @author ac010168
+ */
+public interface CacheInvalidationListener {
+  
+  /**
+   * Called when a single document has been inserted, updated or deleted.
+   * 
+   * @param collection The collection, or table name, that changed.
+   * @param documentID The Mongo _id of the document that changed.
+   * @param operation The oplog operation: 'i' for insert, 'u' for update or 'd' for delete.
+   */
+  public void documentChanged(String collection, Object documentID, char operation);
+  
+  /**
+   * Called when changes to a collection may have been missed, or the whole collection changed, i.e.
+   * it was dropped.  Everything cached from the collection should be dropped.
+   * 
+   * @param collection The collection, or table name, that changed.
+   */
+  public void collectionChanged(String collection);
+}
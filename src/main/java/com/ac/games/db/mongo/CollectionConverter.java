@@ -5,6 +5,7 @@ import java.util.List;
 
 import com.ac.games.data.Collection;
 import com.ac.games.data.CollectionItem;
+import com.ac.games.data.GameType;
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
@@ -43,6 +44,138 @@ public class CollectionConverter {
     return dbObject;
   }
   
+  /**
+   * Helper method that will construct a query for one item inside a collection.  When used with an
+   * update, the item can then be addressed with the positional "games.$" operator.
+   * 
+   * @param collectionID The collection holding the item.
+   * @param itemID The item we want.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this query
+   */
+  public static BasicDBObject convertCollectionItemToQuery(long collectionID, long itemID) {
+    BasicDBObject dbObject = new BasicDBObject("collectionID", collectionID);
+    dbObject.append("games.itemID", itemID);
+    return dbObject;
+  }
+  
+  /**
+   * Helper method that will construct a query for a collection that does not yet hold the given item,
+   * so that adding the item is safe to repeat.
+   * 
+   * @param collectionID The collection we want to add to.
+   * @param itemID The item being added.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this query
+   */
+  public static BasicDBObject convertCollectionWithoutItemToQuery(long collectionID, long itemID) {
+    BasicDBObject dbObject = new BasicDBObject("collectionID", collectionID);
+    dbObject.append("games.itemID", new BasicDBObject("$ne", itemID));
+    return dbObject;
+  }
+  
+  /**
+   * Helper method that will construct a projection returning only one item of a collection.
+   * 
+   * @param itemID The item we want.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this projection
+   */
+  public static BasicDBObject convertCollectionItemToProjection(long itemID) {
+    BasicDBObject dbObject = new BasicDBObject("_id", 0);
+    dbObject.append("games", new BasicDBObject("$elemMatch", new BasicDBObject("itemID", itemID)));
+    return dbObject;
+  }
+  
+  /**
+   * Helper method that will construct the pipeline returning the newest items of a collection by
+   * dateAcquired.  The $sort and $limit run together as a top-K on the server, and only the item level
+   * fields come back, flattened to the top of each result, so the embedded game bodies never leave the
+   * database.  An embedded game's gameID stands in for the item's own when the item has none.
+   * 
+   * @param collectionID The collection holding the items.
+   * @param topX The number of items wanted.
+   * 
+   * @return The aggregation pipeline.
+   */
+  public static List<DBObject> convertNewestItemsToPipeline(long collectionID, int topX) {
+    BasicDBList gameIDList = new BasicDBList();
+    gameIDList.add("$games.gameID");
+    gameIDList.add("$games.game.gameID");
+    
+    BasicDBObject projectObject = new BasicDBObject("_id", 0);
+    projectObject.append("itemID", "$games.itemID");
+    projectObject.append("gameID", new BasicDBObject("$ifNull", gameIDList));
+    projectObject.append("weights", "$games.weights");
+    projectObject.append("dateAcquired", "$games.dateAcquired");
+    projectObject.append("whereAcquired", "$games.whereAcquired");
+    projectObject.append("overrideMinPlayers", "$games.overrideMinPlayers");
+    projectObject.append("overrideMaxPlayers", "$games.overrideMaxPlayers");
+    projectObject.append("overrideMinTime", "$games.overrideMinTime");
+    projectObject.append("overrideMaxTime", "$games.overrideMaxTime");
+    
+    List<DBObject> pipeline = new ArrayList<DBObject>(5);
+    pipeline.add(new BasicDBObject("$match", convertCollectionToIDQuery(collectionID)));
+    pipeline.add(new BasicDBObject("$unwind", "$games"));
+    pipeline.add(new BasicDBObject("$sort", new BasicDBObject("games.dateAcquired", -1)));
+    pipeline.add(new BasicDBObject("$limit", topX));
+    pipeline.add(new BasicDBObject("$project", projectObject));
+    return pipeline;
+  }
+  
+  /**
+   * Helper method that will construct the update used to add one item to a collection: the item is
+   * pushed onto the games array and the matching game count is incremented.
+   * 
+   * @param item The item being added.
+   * @param embedGame true to embed a full copy of the game, false to store only the gameID reference.
+   * @param gameType The type of the item's game, used to pick the count to increment.  May be null.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this update
+   */
+  public static BasicDBObject convertAddItemToUpdate(CollectionItem item, boolean embedGame, GameType gameType) {
+    BasicDBObject dbObject = new BasicDBObject("$push", new BasicDBObject("games", CollectionItemConverter.convertCollectionItemToMongo(item, embedGame)));
+    
+    String countField = convertGameTypeToCountField(gameType);
+    if (countField != null) dbObject.append("$inc", new BasicDBObject(countField, 1));
+    return dbObject;
+  }
+  
+  /**
+   * Helper method that will construct the update used to remove one item from a collection: the item
+   * is pulled from the games array and the matching game count is decremented.
+   * 
+   * @param itemID The item being removed.
+   * @param gameType The type of the item's game, used to pick the count to decrement.  May be null.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this update
+   */
+  public static BasicDBObject convertRemoveItemToUpdate(long itemID, GameType gameType) {
+    BasicDBObject dbObject = new BasicDBObject("$pull", new BasicDBObject("games", new BasicDBObject("itemID", itemID)));
+    
+    String countField = convertGameTypeToCountField(gameType);
+    if (countField != null) dbObject.append("$inc", new BasicDBObject(countField, -1));
+    return dbObject;
+  }
+  
+  /**
+   * Helper method to find the count field tracking games of the given type.
+   * 
+   * @param gameType The type of game.
+   * 
+   * @return The count field name, or null if this type is not counted
+   */
+  public static String convertGameTypeToCountField(GameType gameType) {
+    if (gameType == null) return null;
+    
+    switch (gameType) {
+      case BASE:        return "baseGameCount";
+      case EXPANSION:   return "expansionGameCount";
+      case COLLECTIBLE: return "collectibleGameCount";
+      default:          return null;
+    }
+  }
+  
   /**
    * Helper method that will construct a basic database object representing the provided data.
    * 
@@ -51,10 +184,22 @@ public class CollectionConverter {
    * @return Returns a {@link BasicDBObject} object that represents this object, or null if nothing was provided
    */
   public static BasicDBObject convertCollectionToMongo(Collection collection) {
+    return convertCollectionToMongo(collection, true);
+  }
+  
+  /**
+   * Helper method that will construct a basic database object representing the provided data.
+   * 
+   * @param collection The object we want to add to the database.
+   * @param embedGames true to embed a full copy of each game, false to store only gameID references.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this object, or null if nothing was provided
+   */
+  public static BasicDBObject convertCollectionToMongo(Collection collection, boolean embedGames) {
     if (collection == null) return null;
     
     BasicDBObject dbObject = new BasicDBObject("collectionID", collection.getCollectionID());
-    if (collection.getGames() != null) dbObject.append("games", convertList(collection.getGames()));
+    if (collection.getGames() != null) dbObject.append("games", convertList(collection.getGames(), embedGames));
     //Default values are always 0, so we should write them no matter what
     dbObject.append("baseGameCount", collection.getBaseGameCount());
     dbObject.append("collectibleGameCount", collection.getCollectibleGameCount());
@@ -88,14 +233,15 @@ public class CollectionConverter {
    * allow for generic mapping, provided those objects are simple objects.
    * 
    * @param curList The List of elements (not null) to be converted into an array.
+   * @param embedGames true to embed a full copy of each game, false to store only gameID references.
    * @return A new list in BasicDBList format.
    */
-  private static BasicDBList convertList(List<CollectionItem> curList) {
+  private static BasicDBList convertList(List<CollectionItem> curList, boolean embedGames) {
     if (curList == null) return null;
     
     BasicDBList newList = new BasicDBList();
     for (CollectionItem obj : curList)
-      newList.add(CollectionItemConverter.convertCollectionItemToMongo(obj));
+      newList.add(CollectionItemConverter.convertCollectionItemToMongo(obj, embedGames));
     return newList;
   }
 
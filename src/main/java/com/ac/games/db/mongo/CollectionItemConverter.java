@@ -4,9 +4,13 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import org.bson.types.ObjectId;
+
 import com.ac.games.data.CollectionItem;
 import com.ac.games.data.GameWeight;
 import com.ac.games.data.GameWeightConverter;
+import com.ac.games.db.mongo.codec.CodecDBObject;
+import com.ac.games.db.mongo.codec.CollectionItemCodec;
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
@@ -53,11 +57,31 @@ public class CollectionItemConverter {
    * @return Returns a {@link BasicDBObject} object that represents this object, or null if nothing was provided
    */
   public static BasicDBObject convertCollectionItemToMongo(CollectionItem item) {
+    return convertCollectionItemToMongo(item, true);
+  }
+  
+  /**
+   * Helper method that will construct a basic database object representing the provided data.  When the
+   * game is not embedded, only the gameID is stored, and the game must be looked up from the game
+   * collection on read.
+   * 
+   * @param item The object we want to add to the database.
+   * @param embedGame true to embed a full copy of the game, false to store only the gameID reference.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this object, or null if nothing was provided
+   */
+  public static BasicDBObject convertCollectionItemToMongo(CollectionItem item, boolean embedGame) {
     if (item == null) return null;
     
+    //A reference is useless without the ID, so take it from the game itself if the item doesn't carry it,
+    //and keep the embedded copy if neither has one
+    long gameID = item.getGameID();
+    if (!embedGame && gameID == -1 && item.getGame() != null) gameID = item.getGame().getGameID();
+    
     BasicDBObject dbObject = new BasicDBObject("itemID", item.getItemID());
-    if (item.getGameID() != -1)          dbObject.append("gameID", item.getGameID());
-    if (item.getGame() != null)          dbObject.append("game", GameConverter.convertGameToMongo(item.getGame()));
+    if (gameID != -1)                    dbObject.append("gameID", gameID);
+    if (item.getGame() != null && (embedGame || gameID == -1))
+                                         dbObject.append("game", GameConverter.convertGameToMongo(item.getGame()));
     if (item.getWeights() != null)       dbObject.append("weights", convertList(item.getWeights()));
     if (item.getDateAcquired() != null)  dbObject.append("dateAcquired", item.getDateAcquired());
     if (item.getWhereAcquired() != null) dbObject.append("whereAcquired", item.getWhereAcquired());
@@ -70,6 +94,57 @@ public class CollectionItemConverter {
     return dbObject;
   }
   
+  /**
+   * Helper method that will construct a positional update for an item held inside a collection document.
+   * Every item level field is either set or unset through "games.$", just as a full rewrite would leave
+   * it, but the game itself and the other items in the collection are not touched.
+   * 
+   * @param item The item we want to write.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this update, or null if nothing was provided
+   */
+  public static BasicDBObject convertCollectionItemToPositionalUpdate(CollectionItem item) {
+    if (item == null) return null;
+    
+    BasicDBObject setObject   = new BasicDBObject();
+    BasicDBObject unsetObject = new BasicDBObject();
+    
+    if (item.getWeights() != null)       setObject.append("games.$.weights", convertList(item.getWeights()));
+    else                                 unsetObject.append("games.$.weights", "");
+    if (item.getDateAcquired() != null)  setObject.append("games.$.dateAcquired", item.getDateAcquired());
+    else                                 unsetObject.append("games.$.dateAcquired", "");
+    if (item.getWhereAcquired() != null) setObject.append("games.$.whereAcquired", item.getWhereAcquired());
+    else                                 unsetObject.append("games.$.whereAcquired", "");
+    
+    if (item.getOverrideMinPlayers() != -1) setObject.append("games.$.overrideMinPlayers", item.getOverrideMinPlayers());
+    else                                    unsetObject.append("games.$.overrideMinPlayers", "");
+    if (item.getOverrideMaxPlayers() != -1) setObject.append("games.$.overrideMaxPlayers", item.getOverrideMaxPlayers());
+    else                                    unsetObject.append("games.$.overrideMaxPlayers", "");
+    if (item.getOverrideMinTime() != -1)    setObject.append("games.$.overrideMinTime", item.getOverrideMinTime());
+    else                                    unsetObject.append("games.$.overrideMinTime", "");
+    if (item.getOverrideMaxTime() != -1)    setObject.append("games.$.overrideMaxTime", item.getOverrideMaxTime());
+    else                                    unsetObject.append("games.$.overrideMaxTime", "");
+    
+    BasicDBObject dbObject = new BasicDBObject();
+    if (!setObject.isEmpty())   dbObject.append("$set", setObject);
+    if (!unsetObject.isEmpty()) dbObject.append("$unset", unsetObject);
+    return dbObject;
+  }
+  
+  /**
+   * Helper method that will stream the provided item straight into a database record through the
+   * {@link CollectionItemCodec}, without building an intermediate map.  The record is byte-for-byte the same as the one
+   * produced by {@link #convertCollectionItemToMongo(CollectionItem)}.
+   * 
+   * @param item The item we want to build a database record for.
+   * @param docID The _id to write at the front of the record, or null for update replacement records.
+   * 
+   * @return Returns a {@link DBObject} object that represents this object, or null if no item was provided
+   */
+  public static DBObject encodeCollectionItemToMongo(CollectionItem item, ObjectId docID) {
+    return CollectionItemCodec.INSTANCE.toDBObject(item, docID);
+  }
+  
   /**
    * Convert a Mongo BSON record back into a {@link CollectionItem} object.
    * 
@@ -79,6 +154,8 @@ public class CollectionItemConverter {
    */
   public static CollectionItem convertMongoToCollectionItem(DBObject dbObject) {
     if (dbObject == null) return null;
+    //Raw documents from the codec decoder are streamed straight into the object
+    if (dbObject instanceof CodecDBObject) return CollectionItemCodec.INSTANCE.fromDBObject((CodecDBObject)dbObject);
     
     CollectionItem item = new CollectionItem();
     if (dbObject.containsField("itemID"))        item.setItemID((Long)dbObject.get("itemID"));
@@ -96,6 +173,21 @@ public class CollectionItemConverter {
     return item;
   }
   
+  /**
+   * Convert a Mongo BSON record back into a {@link CollectionItem} object, optionally leaving the description and list fields of the embedded game
+   * undecoded until they are first read.  Laziness only applies to raw records read through the codec
+   * decoder; any other record is converted eagerly.
+   * 
+   * @param dbObject The Mongo DBObject result
+   * @param lazy true to defer decoding of the large fields
+   * 
+   * @return a {@link CollectionItem} object, or null if the dbObject was null
+   */
+  public static CollectionItem convertMongoToCollectionItem(DBObject dbObject, boolean lazy) {
+    if (dbObject instanceof CodecDBObject) return CollectionItemCodec.INSTANCE.fromDBObject((CodecDBObject)dbObject, lazy);
+    return convertMongoToCollectionItem(dbObject);
+  }
+  
   /**
    * Helper method to parse Lists into List format for Mongo.  Parameterized as <?> to
    * allow for generic mapping, provided those objects are simple objects.
@@ -0,0 +1,71 @@
+package com.ac.games.db.mongo;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.bson.BasicBSONEncoder;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Works out the content hash we store on crawler documents, so a re-crawl that produces exactly the
+ * same document can be spotted in the write's own query and the full rewrite skipped.  The hash is
+ * an MD5 of the document's BSON bytes, so any change to any field, including field order, counts as
+ * a change.
+ * 
+ * @author ac010168
+ */
+public class ContentHash {
+  
+  /** The document field holding the hash. */
+  public static final String FIELD = "contentHash";
+  
+  /** Hex digits used to print the hash. */
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  
+  /**
+   * Works out the hash of a converted document.  The document must not already hold a hash.
+   * 
+   * @param dbObject The converted document.
+   * @return the hash, as a hex string
+   */
+  public static String hashDocument(DBObject dbObject) {
+    byte[] digest = newDigest().digest(new BasicBSONEncoder().encode(dbObject));
+    
+    char[] hex = new char[digest.length * 2];
+    for (int i = 0; i < digest.length; i++) {
+      hex[i * 2]     = HEX[(digest[i] >> 4) & 0x0F];
+      hex[i * 2 + 1] = HEX[digest[i] & 0x0F];
+    }
+    return new String(hex);
+  }
+  
+  /**
+   * Matches the document only if its stored hash differs from the one given, including documents stored
+   * without a hash at all.
+   * 
+   * @param queryObject The ID query for the document, which is left as it is.
+   * @param contentHash The hash of the document about to be written.
+   * @return the ID query plus {contentHash: {$ne: contentHash}}
+   */
+  public static BasicDBObject convertChangedQuery(BasicDBObject queryObject, String contentHash) {
+    BasicDBObject changedQuery = new BasicDBObject(queryObject);
+    changedQuery.append(FIELD, new BasicDBObject("$ne", contentHash));
+    return changedQuery;
+  }
+  
+  /**
+   * Helper method that creates the digest.  MD5 is always present in the JRE, so a failure here is a
+   * broken runtime rather than something to recover from.
+   * 
+   * @return a new MD5 digest
+   */
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException nsae) {
+      throw new IllegalStateException("MD5 is not available", nsae);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.ac.games.db.mongo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of collection document counts.  Each count is loaded from the database, adjusted in place by our
+ * own inserts and deletes, and reloaded once it is older than the staleness bound, which also puts a
+ * limit on how long writes from other processes can go unnoticed.
+ * 
+ * @author ac010168
+ */
+public class CountCache {
+  
+  /** How long, in milliseconds, a loaded count may be served before it must be reloaded. */
+  private final long maxAgeMillis;
+  /** The cached counts, keyed by collection name. */
+  private final Map<String, CachedCount> counts;
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param maxAgeMillis How long, in milliseconds, a loaded count may be served before it must be reloaded.
+   */
+  public CountCache(long maxAgeMillis) {
+    this.maxAgeMillis = maxAgeMillis;
+    this.counts       = new HashMap<String, CachedCount>();
+  }
+  
+  /**
+   * @return the maxAgeMillis
+   */
+  public long getMaxAgeMillis() {
+    return maxAgeMillis;
+  }
+  
+  /**
+   * @param collection The collection we want the count of.
+   * @return the cached count, or -1 if it isn't cached or has gone stale
+   */
+  public synchronized long get(String collection) {
+    CachedCount count = counts.get(collection);
+    if (count == null) return -1;
+    if (System.currentTimeMillis() - count.loadedAt > maxAgeMillis) {
+      counts.remove(collection);
+      return -1;
+    }
+    return count.count;
+  }
+  
+  /**
+   * @param collection The collection the count is for.
+   * @param count The exact count just loaded from the database.
+   */
+  public synchronized void put(String collection, long count) {
+    CachedCount cached = new CachedCount();
+    cached.count    = count;
+    cached.loadedAt = System.currentTimeMillis();
+    counts.put(collection, cached);
+  }
+  
+  /**
+   * Applies one of our own writes to a cached count.  Counts that aren't cached are left alone, and the
+   * load time is not changed, so the count is still reloaded on schedule.
+   * 
+   * @param collection The collection that was written to.
+   * @param delta The number of documents added, or negative for documents removed.
+   */
+  public synchronized void adjust(String collection, long delta) {
+    CachedCount cached = counts.get(collection);
+    if (cached == null) return;
+    cached.count = Math.max(0, cached.count + delta);
+  }
+  
+  /**
+   * Drops one cached count, i.e. after another process added or removed documents.
+   * 
+   * @param collection The collection whose count should be reloaded.
+   */
+  public synchronized void remove(String collection) {
+    counts.remove(collection);
+  }
+  
+  /**
+   * Drops every cached count.
+   */
+  public synchronized void clear() {
+    counts.clear();
+  }
+  
+  /**
+   * A count and when it was loaded.
+   */
+  private static class CachedCount {
+    /** The document count. */
+    long count;
+    /** When the count was loaded from the database. */
+    long loadedAt;
+  }
+}
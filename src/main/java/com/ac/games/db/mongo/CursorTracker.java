@@ -0,0 +1,124 @@
+package com.ac.games.db.mongo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mongodb.DBCursor;
+
+/**
+ * Hands out {@link ManagedCursor}s and keeps track of the ones still open, so we can watch the number of
+ * open cursors and report any that have been left open too long.  Recording where each cursor was
+ * opened costs a stack trace per read, so it is off unless leaks are being chased.
+ * 
+ * @author ac010168
+ */
+public class CursorTracker {
+  
+  /** Stack frames to skip when recording an opener: getStackTrace and open itself. */
+  private static final int SKIPPED_FRAMES = 2;
+  /** The most stack frames recorded per opener. */
+  private static final int RECORDED_FRAMES = 8;
+  
+  /** The cursors currently open. */
+  private final Map<ManagedCursor, Boolean> openCursors;
+  /** How many cursors have been opened in total. */
+  private final AtomicLong openedCount;
+  /** Set to record where each cursor is opened. */
+  private volatile boolean recordOpeners;
+  
+  /**
+   * Basic Constructor.
+   */
+  public CursorTracker() {
+    openCursors   = new ConcurrentHashMap<ManagedCursor, Boolean>();
+    openedCount   = new AtomicLong();
+    recordOpeners = false;
+  }
+  
+  /**
+   * @param cursor The driver cursor to manage.
+   * @return the managed cursor, which must be closed when the read is done
+   */
+  public ManagedCursor open(DBCursor cursor) {
+    StackTraceElement[] openedBy = null;
+    if (recordOpeners) {
+      StackTraceElement[] stack = Thread.currentThread().getStackTrace();
+      int from = Math.min(SKIPPED_FRAMES, stack.length);
+      openedBy = new StackTraceElement[Math.min(RECORDED_FRAMES, stack.length - from)];
+      System.arraycopy(stack, from, openedBy, 0, openedBy.length);
+    }
+    
+    ManagedCursor managed = new ManagedCursor(cursor, this, openedBy);
+    openCursors.put(managed, Boolean.TRUE);
+    openedCount.incrementAndGet();
+    return managed;
+  }
+  
+  /**
+   * Called by a cursor once it has closed.
+   * 
+   * @param cursor The cursor that closed.
+   */
+  void closed(ManagedCursor cursor) {
+    openCursors.remove(cursor);
+  }
+  
+  /**
+   * @return the number of cursors currently open
+   */
+  public int getOpenCount() {
+    return openCursors.size();
+  }
+  
+  /**
+   * @return the number of cursors opened since the tracker was created
+   */
+  public long getOpenedCount() {
+    return openedCount.get();
+  }
+  
+  /**
+   * @param thresholdMillis How long, in milliseconds, a cursor may stay open before it counts as leaked.
+   * @return a description of every cursor open longer than the threshold, oldest first
+   */
+  public List<String> findLeaks(long thresholdMillis) {
+    long cutoff = System.currentTimeMillis() - thresholdMillis;
+    
+    List<ManagedCursor> leaked = new ArrayList<ManagedCursor>();
+    for (ManagedCursor cursor : openCursors.keySet()) {
+      if (cursor.getOpenedAt() <= cutoff) leaked.add(cursor);
+    }
+    
+    //Oldest first, as those are the likeliest culprits
+    Collections.sort(leaked, new Comparator<ManagedCursor>() {
+      public int compare(ManagedCursor first, ManagedCursor second) {
+        long diff = first.getOpenedAt() - second.getOpenedAt();
+        return (diff < 0 ? -1 : (diff > 0 ? 1 : 0));
+      }
+    });
+    
+    List<String> descriptions = new ArrayList<String>(leaked.size());
+    for (ManagedCursor cursor : leaked)
+      descriptions.add(cursor.describe());
+    return descriptions;
+  }
+  
+  /**
+   * @return true if each cursor records where it was opened
+   */
+  public boolean isRecordOpeners() {
+    return recordOpeners;
+  }
+  
+  /**
+   * @param recordOpeners true to record where each cursor is opened, for leak reports
+   */
+  public void setRecordOpeners(boolean recordOpeners) {
+    this.recordOpeners = recordOpeners;
+  }
+}
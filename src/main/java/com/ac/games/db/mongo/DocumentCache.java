@@ -0,0 +1,165 @@
+package com.ac.games.db.mongo;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ac.games.db.mongo.codec.CodecDBObject;
+
+/**
+ * Small least-recently-used cache of raw documents, keyed by our own long IDs.  We hold on to the
+ * raw bytes rather than the decoded objects, so every hit decodes into a fresh object and callers
+ * are free to modify what they get back.
+ * <p>
+ * Documents can also be dropped by their Mongo _id, which is all an oplog entry gives us, and can be
+ * given a maximum age for when no invalidation feed is available.
+ * 
+ * @author ac010168
+ */
+public class DocumentCache {
+  
+  /** The maximum number of documents to hold. */
+  private final int maxEntries;
+  /** The cached documents, in access order. */
+  private final LinkedHashMap<Long, CachedDocument> documents;
+  /** Our long IDs, keyed by each cached document's Mongo _id. */
+  private final Map<Object, Long> documentIDs;
+  /** How long, in milliseconds, a document may be served, or 0 for no limit. */
+  private volatile long maxAgeMillis;
+  
+  /** Number of lookups that found a document. */
+  private long hitCount;
+  /** Number of lookups that did not find a document. */
+  private long missCount;
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param maxEntries The maximum number of documents to hold before evicting the least recently used.
+   */
+  public DocumentCache(int maxEntries) {
+    this.maxEntries   = maxEntries;
+    this.documentIDs  = new HashMap<Object, Long>();
+    this.maxAgeMillis = 0;
+    this.documents    = new LinkedHashMap<Long, CachedDocument>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      protected boolean removeEldestEntry(Map.Entry<Long, CachedDocument> eldest) {
+        if (size() <= DocumentCache.this.maxEntries) return false;
+        documentIDs.remove(eldest.getValue().documentID);
+        return true;
+      }
+    };
+  }
+  
+  /**
+   * @param id The ID of the document we want.
+   * @return the cached document, or null if it is not cached or has outlived the max age
+   */
+  public synchronized CodecDBObject get(long id) {
+    CachedDocument cached = documents.get(id);
+    if (cached != null && maxAgeMillis > 0 && System.currentTimeMillis() - cached.loadedAt > maxAgeMillis) {
+      remove(id);
+      cached = null;
+    }
+
+    if (cached == null) missCount++;
+    else                hitCount++;
+    return (cached == null ? null : cached.document);
+  }
+  
+  /**
+   * @param id The ID of the document.
+   * @param document The raw document to cache.
+   */
+  public synchronized void put(long id, CodecDBObject document) {
+    if (document == null) return;
+
+    CachedDocument cached = new CachedDocument();
+    cached.document   = document;
+    cached.documentID = document.get("_id");
+    cached.loadedAt   = System.currentTimeMillis();
+
+    CachedDocument previous = documents.put(id, cached);
+    if (previous != null) documentIDs.remove(previous.documentID);
+    if (cached.documentID != null) documentIDs.put(cached.documentID, id);
+  }
+  
+  /**
+   * @param id The ID of the document to drop.
+   */
+  public synchronized void remove(long id) {
+    CachedDocument cached = documents.remove(id);
+    if (cached != null) documentIDs.remove(cached.documentID);
+  }
+  
+  /**
+   * @param documentID The Mongo _id of the document to drop.
+   */
+  public synchronized void removeByDocumentID(Object documentID) {
+    Long id = documentIDs.get(documentID);
+    if (id != null) remove(id);
+  }
+  
+  /**
+   * Drops every cached document.
+   */
+  public synchronized void clear() {
+    documents.clear();
+    documentIDs.clear();
+  }
+  
+  /**
+   * @return the number of documents currently cached
+   */
+  public synchronized int size() {
+    return documents.size();
+  }
+  
+  /**
+   * @return the maxEntries
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+  
+  /**
+   * @return the maxAgeMillis, or 0 if documents don't expire
+   */
+  public long getMaxAgeMillis() {
+    return maxAgeMillis;
+  }
+  
+  /**
+   * @param maxAgeMillis How long, in milliseconds, a document may be served, or 0 for no limit
+   */
+  public void setMaxAgeMillis(long maxAgeMillis) {
+    this.maxAgeMillis = (maxAgeMillis < 0 ? 0 : maxAgeMillis);
+  }
+  
+  /**
+   * @return the hitCount
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+  
+  /**
+   * @return the missCount
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+  
+  /**
+   * A cached document, its _id and when it was loaded.
+   */
+  private static class CachedDocument {
+    /** The raw document. */
+    CodecDBObject document;
+    /** The document's Mongo _id. */
+    Object documentID;
+    /** When the document was loaded from the database. */
+    long loadedAt;
+  }
+}
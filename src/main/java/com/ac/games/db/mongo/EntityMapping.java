@@ -0,0 +1,86 @@
+package com.ac.games.db.mongo;
+
+import org.bson.types.ObjectId;
+
+import com.mongodb.DBDecoderFactory;
+import com.mongodb.DBObject;
+
+/**
+ * Describes how one of our entity types is stored: the collection it lives in, the field holding our long
+ * ID, and how to turn an entity into a document and back.  An {@link EntityStore} does the rest.
+ * <p>
+ * Entities with a hand-written codec encode straight to a {@link com.ac.games.db.mongo.codec.CodecDBObject}
+ * and return the codec decoder factory, so their documents never pass through a BasicDBObject map.  The
+ * rest go through their converter and the driver's default decoder.
+ *
+ * @author ac010168
+ *
+ * @param <T> The entity type.
+ */
+public abstract class EntityMapping<T> {
+
+  /** The name of the collection, i.e. table. */
+  private final String collectionName;
+  /** The field holding our long ID. */
+  private final String idField;
+
+  /**
+   * Basic Constructor.
+   *
+   * @param collectionName The name of the collection, i.e. table.
+   * @param idField The field holding our long ID.
+   */
+  protected EntityMapping(String collectionName, String idField) {
+    this.collectionName = collectionName;
+    this.idField        = idField;
+  }
+
+  /**
+   * @param entity The entity.
+   * @return the entity's long ID
+   */
+  public abstract long getID(T entity);
+
+  /**
+   * @param entity The entity.
+   * @param docID The _id to give the document, or null to leave it off, as for a replacement.
+   * @return the entity as a document
+   */
+  public abstract DBObject encode(T entity, ObjectId docID);
+
+  /**
+   * @param dbObject The document.
+   * @param lazy true to leave large fields undecoded until they are first read, where the codec allows it.
+   * @return the entity
+   */
+  public abstract T decode(DBObject dbObject, boolean lazy);
+
+  /**
+   * @param entity The entity.
+   * @return a short description of the entity, for the debug output
+   */
+  public String describe(T entity) {
+    return idField + " " + getID(entity);
+  }
+
+  /**
+   * @return the decoder factory reads should use, or null for the driver's default
+   */
+  public DBDecoderFactory getDecoderFactory() {
+    return null;
+  }
+
+  /**
+   * @return the collectionName
+   */
+  public String getCollectionName() {
+    return collectionName;
+  }
+
+  /**
+   * @return the idField
+   */
+  public String getIDField() {
+    return idField;
+  }
+}
@@ -0,0 +1,250 @@
+package com.ac.games.db.mongo;
+
+import org.bson.types.ObjectId;
+
+import com.ac.games.data.BGGGame;
+import com.ac.games.data.Collection;
+import com.ac.games.data.CollectionItem;
+import com.ac.games.data.CoolStuffIncPriceData;
+import com.ac.games.data.Game;
+import com.ac.games.data.GameReltn;
+import com.ac.games.data.MediaItem;
+import com.ac.games.data.MiniatureMarketPriceData;
+import com.ac.games.data.PlaythruItem;
+import com.ac.games.data.User;
+import com.ac.games.data.UserDetail;
+import com.ac.games.data.WishlistItem;
+import com.ac.games.db.mongo.codec.CodecDBDecoder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBDecoderFactory;
+import com.mongodb.DBObject;
+
+/**
+ * The {@link EntityMapping} for each of our entity types, built on the existing converters and codecs.
+ *
+ * @author ac010168
+ */
+public class EntityMappings {
+
+  /** The BoardGameGeek records, read through the BGGGame codec. */
+  public static final EntityMapping<BGGGame> BGG_GAME = new EntityMapping<BGGGame>("bgggame", "bggID") {
+    public long getID(BGGGame entity) {
+      return entity.getBggID();
+    }
+    public DBObject encode(BGGGame entity, ObjectId docID) {
+      return BGGGameConverter.encodeGameToMongo(entity, docID);
+    }
+    public BGGGame decode(DBObject dbObject, boolean lazy) {
+      return BGGGameConverter.convertMongoToGame(dbObject, lazy);
+    }
+    public String describe(BGGGame entity) {
+      return entity.getName();
+    }
+    public DBDecoderFactory getDecoderFactory() {
+      return CodecDBDecoder.FACTORY;
+    }
+  };
+  
+  /** The CoolStuffInc records. */
+  public static final EntityMapping<CoolStuffIncPriceData> CSI_DATA = new EntityMapping<CoolStuffIncPriceData>("csidata", "csiID") {
+    public long getID(CoolStuffIncPriceData entity) {
+      return entity.getCsiID();
+    }
+    public DBObject encode(CoolStuffIncPriceData entity, ObjectId docID) {
+      return withDocID(CSIDataConverter.convertCSIToMongo(entity), docID);
+    }
+    public CoolStuffIncPriceData decode(DBObject dbObject, boolean lazy) {
+      return CSIDataConverter.convertMongoToCSI(dbObject);
+    }
+    public String describe(CoolStuffIncPriceData entity) {
+      return entity.getTitle();
+    }
+  };
+  
+  /** The Miniature Market records. */
+  public static final EntityMapping<MiniatureMarketPriceData> MM_DATA = new EntityMapping<MiniatureMarketPriceData>("mmdata", "mmID") {
+    public long getID(MiniatureMarketPriceData entity) {
+      return entity.getMmID();
+    }
+    public DBObject encode(MiniatureMarketPriceData entity, ObjectId docID) {
+      return withDocID(MMDataConverter.convertMMToMongo(entity), docID);
+    }
+    public MiniatureMarketPriceData decode(DBObject dbObject, boolean lazy) {
+      return MMDataConverter.convertMongoToMM(dbObject);
+    }
+    public String describe(MiniatureMarketPriceData entity) {
+      return entity.getTitle();
+    }
+  };
+  
+  /** Our own games, read through the Game codec. */
+  public static final EntityMapping<Game> GAME = new EntityMapping<Game>("game", "gameID") {
+    public long getID(Game entity) {
+      return entity.getGameID();
+    }
+    public DBObject encode(Game entity, ObjectId docID) {
+      return GameConverter.encodeGameToMongo(entity, docID);
+    }
+    public Game decode(DBObject dbObject, boolean lazy) {
+      return GameConverter.convertMongoToGame(dbObject, lazy);
+    }
+    public String describe(Game entity) {
+      return entity.getName();
+    }
+    public DBDecoderFactory getDecoderFactory() {
+      return CodecDBDecoder.FACTORY;
+    }
+  };
+  
+  /** The links between our games and the retailer records. */
+  public static final EntityMapping<GameReltn> GAME_RELTN = new EntityMapping<GameReltn>("gamereltn", "reltnID") {
+    public long getID(GameReltn entity) {
+      return entity.getReltnID();
+    }
+    public DBObject encode(GameReltn entity, ObjectId docID) {
+      return withDocID(GameReltnConverter.convertGameReltnToMongo(entity), docID);
+    }
+    public GameReltn decode(DBObject dbObject, boolean lazy) {
+      return GameReltnConverter.convertMongoToGameReltn(dbObject);
+    }
+  };
+  
+  /** The users. */
+  public static final EntityMapping<User> USER = new EntityMapping<User>("user", "userID") {
+    public long getID(User entity) {
+      return entity.getUserID();
+    }
+    public DBObject encode(User entity, ObjectId docID) {
+      return withDocID(UserConverter.convertUserToMongo(entity), docID);
+    }
+    public User decode(DBObject dbObject, boolean lazy) {
+      return UserConverter.convertMongoToUser(dbObject);
+    }
+    public String describe(User entity) {
+      return entity.getUserName();
+    }
+  };
+  
+  /** The user details, keyed by the userID they belong to. */
+  public static final EntityMapping<UserDetail> USER_DETAIL = new EntityMapping<UserDetail>("userdetail", "userID") {
+    public long getID(UserDetail entity) {
+      return entity.getUserID();
+    }
+    public DBObject encode(UserDetail entity, ObjectId docID) {
+      return withDocID(UserDetailConverter.convertUserDetailToMongo(entity), docID);
+    }
+    public UserDetail decode(DBObject dbObject, boolean lazy) {
+      return UserDetailConverter.convertMongoToUserDetail(dbObject);
+    }
+  };
+  
+  /** The collection items, read through the CollectionItem codec. */
+  public static final EntityMapping<CollectionItem> COLLECTION_ITEM = new EntityMapping<CollectionItem>("collectionitem", "itemID") {
+    public long getID(CollectionItem entity) {
+      return entity.getItemID();
+    }
+    public DBObject encode(CollectionItem entity, ObjectId docID) {
+      return CollectionItemConverter.encodeCollectionItemToMongo(entity, docID);
+    }
+    public CollectionItem decode(DBObject dbObject, boolean lazy) {
+      return CollectionItemConverter.convertMongoToCollectionItem(dbObject, lazy);
+    }
+    public DBDecoderFactory getDecoderFactory() {
+      return CodecDBDecoder.FACTORY;
+    }
+  };
+  
+  /** The media items. */
+  public static final EntityMapping<MediaItem> MEDIA_ITEM = new EntityMapping<MediaItem>("media", "mediaID") {
+    public long getID(MediaItem entity) {
+      return entity.getMediaID();
+    }
+    public DBObject encode(MediaItem entity, ObjectId docID) {
+      return withDocID(MediaItemConverter.convertMediaItemToMongo(entity), docID);
+    }
+    public MediaItem decode(DBObject dbObject, boolean lazy) {
+      return MediaItemConverter.convertMongoToMediaItem(dbObject);
+    }
+  };
+  
+  /** The wishlist items. */
+  public static final EntityMapping<WishlistItem> WISHLIST_ITEM = new EntityMapping<WishlistItem>("wishlist", "wishID") {
+    public long getID(WishlistItem entity) {
+      return entity.getWishID();
+    }
+    public DBObject encode(WishlistItem entity, ObjectId docID) {
+      return withDocID(WishlistItemConverter.convertWishlistItemToMongo(entity), docID);
+    }
+    public WishlistItem decode(DBObject dbObject, boolean lazy) {
+      return WishlistItemConverter.convertMongoToWishlistItem(dbObject);
+    }
+  };
+  
+  /** The playthru items. */
+  public static final EntityMapping<PlaythruItem> PLAYTHRU_ITEM = new EntityMapping<PlaythruItem>("playthru", "playthruID") {
+    public long getID(PlaythruItem entity) {
+      return entity.getPlaythruID();
+    }
+    public DBObject encode(PlaythruItem entity, ObjectId docID) {
+      return withDocID(PlaythruItemConverter.convertPlaythruItemToMongo(entity), docID);
+    }
+    public PlaythruItem decode(DBObject dbObject, boolean lazy) {
+      return PlaythruItemConverter.convertMongoToPlaythruItem(dbObject);
+    }
+  };
+
+  /**
+   * The mapping for the collections.  Games are embedded or stored as references, following the owning
+   * database's {@link MongoGamesDatabase#setReferenceCollectionMode(boolean)}, so unlike the other mappings
+   * each database holds its own instance.
+   */
+  public static class CollectionMapping extends EntityMapping<Collection> {
+
+    /** Whether items are written as gameID references instead of embedding a full copy of each game. */
+    private volatile boolean referenceGames;
+
+    /**
+     * Basic Constructor.  Games are embedded until {@link #setReferenceGames(boolean)} says otherwise.
+     */
+    public CollectionMapping() {
+      super("collection", "collectionID");
+    }
+
+    /**
+     * @return true if items are written as gameID references
+     */
+    public boolean isReferenceGames() {
+      return referenceGames;
+    }
+
+    /**
+     * @param referenceGames true to write items as gameID references instead of embedding their games.
+     */
+    public void setReferenceGames(boolean referenceGames) {
+      this.referenceGames = referenceGames;
+    }
+
+    public long getID(Collection entity) {
+      return entity.getCollectionID();
+    }
+    public DBObject encode(Collection entity, ObjectId docID) {
+      return withDocID(CollectionConverter.convertCollectionToMongo(entity, !referenceGames), docID);
+    }
+    public Collection decode(DBObject dbObject, boolean lazy) {
+      return CollectionConverter.convertMongoToCollection(dbObject);
+    }
+  }
+
+  /**
+   * Helper method that gives a converted document its _id, when there is one to give.
+   *
+   * @param dbObject The converted document.
+   * @param docID The _id, or null.
+   *
+   * @return the document
+   */
+  private static DBObject withDocID(BasicDBObject dbObject, ObjectId docID) {
+    if (docID != null) dbObject.append("_id", docID);
+    return dbObject;
+  }
+}
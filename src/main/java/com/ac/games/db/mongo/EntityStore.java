@@ -0,0 +1,533 @@
+package com.ac.games.db.mongo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.types.ObjectId;
+
+import com.ac.games.db.exception.ConfigurationException;
+import com.ac.games.db.exception.DatabaseOperationException;
+import com.ac.games.db.mongo.codec.CodecDBEncoder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.BulkWriteResult;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.mongodb.WriteResult;
+
+/**
+ * The one copy of the read, insert, update and delete paths every entity type used to carry its own copy
+ * of.  Each store is driven by an {@link EntityMapping}, reads through the {@link CursorTracker} so its
+ * cursors always close, writes through the codec encoder so codec documents go to the wire untouched, and
+ * keeps counts and timings of what it has done.
+ * <p>
+ * The public methods on {@link MongoGamesDatabase} keep their own argument checks and any side effects,
+ * like stats or cache upkeep, and hand the database work to their store.  The database is passed on every
+ * call, since it changes when the connection is reopened.
+ *
+ * @author ac010168
+ *
+ * @param <T> The entity type.
+ */
+public class EntityStore<T> {
+
+  /** How the entity is stored. */
+  private final EntityMapping<T> mapping;
+  /** The tracker every cursor is opened through. */
+  private final CursorTracker cursorTracker;
+  /** Whether reads leave large fields undecoded until they are first read, set by the owning database. */
+  private volatile boolean lazyDecode;
+
+  /** Number of reads run. */
+  private final AtomicLong readCount      = new AtomicLong();
+  /** Number of documents those reads returned. */
+  private final AtomicLong documentCount  = new AtomicLong();
+  /** Number of inserts and updates run, counting each document of a bulk write. */
+  private final AtomicLong writeCount     = new AtomicLong();
+  /** Number of deletes run. */
+  private final AtomicLong deleteCount    = new AtomicLong();
+  /** Total time spent in reads, in nanoseconds. */
+  private final AtomicLong readNanos      = new AtomicLong();
+  /** Total time spent in writes and deletes, in nanoseconds. */
+  private final AtomicLong writeNanos     = new AtomicLong();
+
+  /**
+   * Basic Constructor.
+   *
+   * @param mapping How the entity is stored.
+   * @param cursorTracker The tracker every cursor is opened through.
+   */
+  public EntityStore(EntityMapping<T> mapping, CursorTracker cursorTracker) {
+    this.mapping       = mapping;
+    this.cursorTracker = cursorTracker;
+  }
+
+  /**
+   * @return true if reads leave large fields undecoded until they are first read
+   */
+  public boolean isLazyDecode() {
+    return lazyDecode;
+  }
+
+  /**
+   * @param lazyDecode true to leave large fields undecoded until they are first read, where the mapping
+   * allows it.
+   */
+  public void setLazyDecode(boolean lazyDecode) {
+    this.lazyDecode = lazyDecode;
+  }
+
+  /**
+   * Reads one entity by its long ID.
+   *
+   * @param db The database.
+   * @param id The ID of the entity.
+   *
+   * @return The entity, or null if not found.
+   *
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public T read(DB db, long id) throws ConfigurationException, DatabaseOperationException {
+    return readOne(db, convertIDToQuery(id));
+  }
+
+  /**
+   * Reads the entity matching a query.  If more than one matches, the last one read is returned.
+   *
+   * @param db The database.
+   * @param queryObject The query.
+   *
+   * @return The entity, or null if not found.
+   *
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public T readOne(DB db, DBObject queryObject) throws ConfigurationException, DatabaseOperationException {
+    checkConnection(db);
+
+    long startTime = System.nanoTime();
+    try {
+      //Open the collection, i.e. table
+      DBCollection curCollection = db.getCollection(mapping.getCollectionName());
+
+      ManagedCursor cursor = cursorTracker.open(openCursor(curCollection, queryObject));
+      T entity = null;
+      int found = 0;
+      try {
+        while (cursor.hasNext()) {
+          entity = mapping.decode(cursor.next(), lazyDecode);
+          found++;
+        }
+      } finally {
+        cursor.close();
+      }
+      recordRead(found, startTime);
+
+      if (MongoGamesDatabase.debugMode)
+        System.out.println ("The document found by this query was:               " + (entity == null ? "Nothing Found" : mapping.describe(entity)));
+      return entity;
+
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /**
+   * Reads a batch of entities by their long IDs, with one $in query per chunk of IDs.  IDs that aren't
+   * found are left out of the map.
+   *
+   * @param db The database.
+   * @param ids The IDs of the entities.
+   * @param chunkSize The most IDs to send in a single query.
+   *
+   * @return The entities found, keyed by ID.
+   *
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, T> readAll(DB db, long[] ids, int chunkSize) throws ConfigurationException, DatabaseOperationException {
+    List<T> found = readAllBy(db, mapping.getIDField(), ids, chunkSize);
+
+    Map<Long, T> entities = new HashMap<Long, T>(found.size() * 2);
+    for (T entity : found)
+      entities.put(mapping.getID(entity), entity);
+    return entities;
+  }
+
+  /**
+   * Reads every entity whose value in a long field is one of those given, with one $in query per chunk
+   * of values.  This is the multi-get for entities looked up by something other than their own ID, like
+   * relations by gameID.
+   *
+   * @param db The database.
+   * @param field The long field to match.
+   * @param values The values to match.
+   * @param chunkSize The most values to send in a single query.
+   *
+   * @return The entities found, in the order read.
+   *
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public List<T> readAllBy(DB db, String field, long[] values, int chunkSize) throws ConfigurationException, DatabaseOperationException {
+    checkConnection(db);
+    if (chunkSize < 1)
+      throw new DatabaseOperationException("The provided chunk size was not valid.");
+
+    List<T> entities = new ArrayList<T>(values.length);
+    if (values.length == 0) return entities;
+
+    try {
+      //Open the collection, i.e. table
+      DBCollection curCollection = db.getCollection(mapping.getCollectionName());
+
+      for (Long[] chunk : splitIntoChunks(values, chunkSize)) {
+        long startTime = System.nanoTime();
+
+        BasicDBObject queryObject = new BasicDBObject(field, new BasicDBObject("$in", chunk));
+        ManagedCursor cursor = cursorTracker.open(openCursor(curCollection, queryObject));
+        int found = 0;
+        try {
+          while (cursor.hasNext()) {
+            entities.add(mapping.decode(cursor.next(), lazyDecode));
+            found++;
+          }
+        } finally {
+          cursor.close();
+        }
+        recordRead(found, startTime);
+      }
+
+      if (MongoGamesDatabase.debugMode)
+        System.out.println ("Total documents found during this query:            " + entities.size());
+      return entities;
+
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /**
+   * Splits a batch of IDs into the chunks a multi-get sends, one $in query each.  Every chunk but the
+   * last holds exactly chunkSize IDs, and the order of the IDs is kept.
+   *
+   * @param ids The IDs.
+   * @param chunkSize The most IDs in a chunk, at least 1.
+   *
+   * @return The chunks, boxed ready for the query.
+   */
+  public static List<Long[]> splitIntoChunks(long[] ids, int chunkSize) {
+    List<Long[]> chunks = new ArrayList<Long[]>((ids.length + chunkSize - 1) / chunkSize);
+    for (int offset = 0; offset < ids.length; offset += chunkSize) {
+      Long[] chunk = new Long[Math.min(chunkSize, ids.length - offset)];
+      for (int i = 0; i < chunk.length; i++)
+        chunk[i] = ids[offset + i];
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+
+  /**
+   * Looks up the Mongo _id of an entity, reading nothing else.  This is the existence check behind
+   * {@link #insert(DB, Object)}, and is left unwrapped so callers can run it inside their own try.
+   *
+   * @param db The database.
+   * @param id The ID of the entity.
+   *
+   * @return The "_id" key of the existing document, or null if not found.
+   */
+  public ObjectId readDocID(DB db, long id) throws MongoException {
+    //Open the collection, i.e. table
+    DBCollection curCollection = db.getCollection(mapping.getCollectionName());
+
+    ManagedCursor cursor = cursorTracker.open(curCollection.find(convertIDToQuery(id), new BasicDBObject("_id", 1)));
+    ObjectId docID = null;
+    try {
+      while (cursor.hasNext()) {
+        docID = (ObjectId)cursor.next().get("_id");
+      }
+    } finally {
+      cursor.close();
+    }
+    return docID;
+  }
+
+  /**
+   * Inserts an entity, as long as no document with its ID exists yet.  Because we are using non-Mongo
+   * based primary keys, the check has to be made first; when it finds a document nothing is written and
+   * false is returned, so the caller can run its own update instead.
+   *
+   * @param db The database.
+   * @param entity The entity.
+   *
+   * @return true if the entity was inserted, false if a document with its ID already exists.
+   *
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public boolean insert(DB db, T entity) throws ConfigurationException, DatabaseOperationException {
+    checkConnection(db);
+
+    long startTime = System.nanoTime();
+    try {
+      if (readDocID(db, mapping.getID(entity)) != null) {
+        if (MongoGamesDatabase.debugMode)
+          System.out.println ("Converting insert into update because of prior document");
+        return false;
+      }
+
+      //Open the collection, i.e. table
+      DBCollection curCollection = db.getCollection(mapping.getCollectionName());
+
+      DBObject addObject = mapping.encode(entity, new ObjectId());
+      WriteResult result = curCollection.insert(Collections.singletonList(addObject), curCollection.getWriteConcern(), CodecDBEncoder.FACTORY.create());
+      recordWrite(writeCount, 1, startTime);
+
+      if (MongoGamesDatabase.debugMode) {
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+        System.out.println ("Was this insert converted to an upsert?             " + result.isUpdateOfExisting());
+        System.out.println ("The new document _id value added:                   " + addObject.get("_id"));
+      }
+      return true;
+
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the insert", t);
+    }
+  }
+
+  /**
+   * Replaces the stored document for an entity, inserting it if there isn't one.
+   *
+   * @param db The database.
+   * @param entity The entity.
+   *
+   * @return The result of the write, which tells an update from an insert.
+   *
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public WriteResult update(DB db, T entity) throws ConfigurationException, DatabaseOperationException {
+    checkConnection(db);
+
+    long startTime = System.nanoTime();
+    try {
+      //Open the collection, i.e. table
+      DBCollection curCollection = db.getCollection(mapping.getCollectionName());
+      DBObject queryObject  = convertIDToQuery(mapping.getID(entity));
+      DBObject updateObject = mapping.encode(entity, null);
+      WriteResult result = curCollection.update(queryObject, updateObject, true, false, curCollection.getWriteConcern(), CodecDBEncoder.FACTORY.create());
+      recordWrite(writeCount, 1, startTime);
+
+      if (MongoGamesDatabase.debugMode) {
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
+      }
+      return result;
+
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
+    }
+  }
+
+  /**
+   * Replaces, or inserts, the stored documents for a batch of entities in one unordered bulk write.  Only
+   * the documents are written, so MongoGamesDatabase offers this for entities whose writes keep nothing
+   * else in step, like stats, caches or the retailer links.
+   *
+   * @param db The database.
+   * @param entities The entities.
+   *
+   * @return The result of the bulk write, or null if there was nothing to write.
+   *
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public BulkWriteResult upsertAll(DB db, List<T> entities) throws ConfigurationException, DatabaseOperationException {
+    checkConnection(db);
+    if (entities == null || entities.isEmpty()) return null;
+
+    long startTime = System.nanoTime();
+    try {
+      //Open the collection, i.e. table
+      DBCollection curCollection = db.getCollection(mapping.getCollectionName());
+
+      BulkWriteOperation bulkWrite = curCollection.initializeUnorderedBulkOperation();
+      for (T entity : entities)
+        bulkWrite.find(convertIDToQuery(mapping.getID(entity))).upsert().replaceOne(mapping.encode(entity, null));
+      BulkWriteResult result = bulkWrite.execute();
+      recordWrite(writeCount, entities.size(), startTime);
+
+      if (MongoGamesDatabase.debugMode) {
+        System.out.println ("The number of documents matched by this operation:  " + result.getMatchedCount());
+        System.out.println ("The number of documents inserted by this operation: " + result.getUpserts().size());
+      }
+      return result;
+
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
+    }
+  }
+
+  /**
+   * Deletes an entity by its long ID.
+   *
+   * @param db The database.
+   * @param id The ID of the entity.
+   *
+   * @return The number of documents removed.
+   *
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public int delete(DB db, long id) throws ConfigurationException, DatabaseOperationException {
+    checkConnection(db);
+
+    long startTime = System.nanoTime();
+    try {
+      //Open the collection, i.e. table
+      DBCollection curCollection = db.getCollection(mapping.getCollectionName());
+      WriteResult result = curCollection.remove(convertIDToQuery(id));
+      recordWrite(deleteCount, 1, startTime);
+
+      if (MongoGamesDatabase.debugMode)
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+      return result.getN();
+
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the delete", t);
+    }
+  }
+
+  /**
+   * @return a one-line summary of the store's counts and average timings
+   */
+  public String describe() {
+    long reads  = readCount.get();
+    long writes = writeCount.get() + deleteCount.get();
+    return mapping.getCollectionName() + ": " + reads + " reads (" + documentCount.get() + " documents, "
+        + (reads == 0 ? 0 : readNanos.get() / reads / 1000) + "us avg), " + writeCount.get() + " writes, "
+        + deleteCount.get() + " deletes (" + (writes == 0 ? 0 : writeNanos.get() / writes / 1000) + "us avg)";
+  }
+
+  /**
+   * @return the mapping
+   */
+  public EntityMapping<T> getMapping() {
+    return mapping;
+  }
+
+  /**
+   * @return the readCount
+   */
+  public long getReadCount() {
+    return readCount.get();
+  }
+
+  /**
+   * @return the number of documents returned by all reads
+   */
+  public long getDocumentCount() {
+    return documentCount.get();
+  }
+
+  /**
+   * @return the writeCount
+   */
+  public long getWriteCount() {
+    return writeCount.get();
+  }
+
+  /**
+   * @return the deleteCount
+   */
+  public long getDeleteCount() {
+    return deleteCount.get();
+  }
+
+  /**
+   * Helper method that builds the query for one entity by its long ID.
+   *
+   * @param id The ID of the entity.
+   *
+   * @return The query.
+   */
+  private BasicDBObject convertIDToQuery(long id) {
+    return new BasicDBObject(mapping.getIDField(), id);
+  }
+
+  /**
+   * Helper method that opens a cursor with the mapping's decoder, if it has one.
+   *
+   * @param curCollection The collection.
+   * @param queryObject The query.
+   *
+   * @return The cursor.
+   */
+  private DBCursor openCursor(DBCollection curCollection, DBObject queryObject) {
+    DBCursor cursor = curCollection.find(queryObject);
+    if (mapping.getDecoderFactory() != null) cursor.setDecoderFactory(mapping.getDecoderFactory());
+    return cursor;
+  }
+
+  /**
+   * Helper method that fails fast when there is no open connection.
+   *
+   * @param db The database.
+   */
+  private static void checkConnection(DB db) throws ConfigurationException {
+    if (db == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+  }
+
+  /**
+   * Helper method that counts a read.
+   *
+   * @param documents The number of documents it returned.
+   * @param startTime When it started, from {@link System#nanoTime()}.
+   */
+  private void recordRead(int documents, long startTime) {
+    readCount.incrementAndGet();
+    documentCount.addAndGet(documents);
+    readNanos.addAndGet(System.nanoTime() - startTime);
+  }
+
+  /**
+   * Helper method that counts a write or delete.
+   *
+   * @param counter The counter to bump.
+   * @param documents The number of documents written.
+   * @param startTime When it started, from {@link System#nanoTime()}.
+   */
+  private void recordWrite(AtomicLong counter, int documents, long startTime) {
+    counter.addAndGet(documents);
+    writeNanos.addAndGet(System.nanoTime() - startTime);
+  }
+}
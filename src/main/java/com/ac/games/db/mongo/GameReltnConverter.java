@@ -58,6 +58,81 @@ public class GameReltnConverter {
     return dbObject;
   }
   
+  /**
+   * Helper method that will construct a query for the relation listing a CoolStuffInc item.  csiIDs is
+   * an array, so the index on it is multikey and this is a single index lookup.
+   * 
+   * @param csiID The CoolStuffInc ID we want to build a query for.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertCsiIDToReltnQuery(long csiID) {
+    return new BasicDBObject("csiIDs", csiID);
+  }
+
+  /**
+   * Helper method that will construct a query for the relation listing a Miniature Market item.
+   * 
+   * @param mmID The Miniature Market ID we want to build a query for.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertMmIDToReltnQuery(long mmID) {
+    return new BasicDBObject("mmIDs", mmID);
+  }
+
+  /**
+   * Helper method that will construct a query for the relation listing an Amazon ASIN.
+   * 
+   * @param asinKey The ASIN we want to build a query for.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this query, or null if no key was provided
+   */
+  public static BasicDBObject convertAsinKeyToReltnQuery(String asinKey) {
+    if (asinKey == null) return null;
+    
+    return new BasicDBObject("asinKeys", asinKey);
+  }
+
+  /**
+   * Helper method that will construct a query for every relation listing any of a batch of retailer items.
+   * Each side of the $or runs on its own multikey index.
+   * 
+   * @param csiIDs The CoolStuffInc IDs, which may be empty.
+   * @param mmIDs The Miniature Market IDs, which may be empty.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertItemIDsToReltnQuery(List<Long> csiIDs, List<Long> mmIDs) {
+    BasicDBList orList = new BasicDBList();
+    if (!csiIDs.isEmpty()) orList.add(new BasicDBObject("csiIDs", new BasicDBObject("$in", csiIDs)));
+    if (!mmIDs.isEmpty())  orList.add(new BasicDBObject("mmIDs", new BasicDBObject("$in", mmIDs)));
+    
+    if (orList.size() == 1) return (BasicDBObject)orList.get(0);
+    return new BasicDBObject("$or", orList);
+  }
+
+  /**
+   * @return the projection for the gameID and retailer links of a relation
+   */
+  public static BasicDBObject convertRetailerLinksProjection() {
+    BasicDBObject dbObject = new BasicDBObject("_id", 0);
+    dbObject.append("gameID", 1);
+    dbObject.append("csiIDs", 1);
+    dbObject.append("mmIDs", 1);
+    return dbObject;
+  }
+
+  /**
+   * @return the index keys behind the reverse lookups, one index per retailer list
+   */
+  public static BasicDBObject[] convertReverseLookupIndexKeys() {
+    return new BasicDBObject[] { new BasicDBObject("csiIDs", 1), 
+                                 new BasicDBObject("mmIDs", 1), 
+                                 new BasicDBObject("asinKeys", 1), 
+                                 new BasicDBObject("gameID", 1) };
+  }
+
   /**
    * Helper method that will construct a basic database record for the provided game object.
    * 
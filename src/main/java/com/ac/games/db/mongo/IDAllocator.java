@@ -0,0 +1,163 @@
+package com.ac.games.db.mongo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+/**
+ * Hands out new IDs for our non-Mongo primary keys.  Each sequence is backed by a document in the
+ * counters collection, which is only ever changed with an atomic findAndModify $inc, so no two callers
+ * (in this JVM or any other) can be handed the same ID.
+ * <p>
+ * IDs are reserved from the counter in blocks (the hi-lo pattern), and handed out from memory until the
+ * block runs out, so most allocations don't touch the database at all.  IDs left in a block when the
+ * JVM shuts down are simply skipped.
+ * 
+ * @author ac010168
+ */
+public class IDAllocator {
+  
+  /** The number of IDs reserved per round trip, unless told otherwise. */
+  public static final int DEFAULT_BLOCK_SIZE = 20;
+  /** The collection holding our sequence counters. */
+  public static final String COUNTER_COLLECTION = "counters";
+  
+  /** The IDs reserved for each sequence, keyed by sequence name. */
+  private final Map<String, IDBlock> blocks;
+  /** The number of IDs to reserve per round trip. */
+  private volatile int blockSize;
+  
+  /**
+   * Basic Constructor.
+   */
+  public IDAllocator() {
+    blocks    = new HashMap<String, IDBlock>();
+    blockSize = DEFAULT_BLOCK_SIZE;
+  }
+  
+  /**
+   * @return the blockSize
+   */
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * @param blockSize the blockSize to set.  A size of 1 makes every allocation a round trip.
+   */
+  public void setBlockSize(int blockSize) {
+    this.blockSize = (blockSize < 1 ? 1 : blockSize);
+  }
+  
+  /**
+   * Allocates the next ID for a collection.  The sequence is named after the collection, and the first
+   * time it is used from this JVM, it is raised to at least the largest ID already stored, so IDs
+   * handed out by the old max + 1 approach are never reused.
+   * 
+   * @param mongoDB The database to work with.
+   * @param collection The collection the ID is for, which also names the sequence.
+   * @param fieldName The ID field in that collection.
+   * 
+   * @return A new, unused ID.
+   */
+  public long nextID(DB mongoDB, String collection, String fieldName) throws MongoException {
+    IDBlock block = null;
+    synchronized (blocks) {
+      block = blocks.get(collection);
+      if (block == null) {
+        block = new IDBlock();
+        blocks.put(collection, block);
+      }
+    }
+    
+    synchronized (block) {
+      if (block.nextID > block.lastID)
+        reserveBlock(mongoDB, collection, fieldName, block);
+      return block.nextID++;
+    }
+  }
+  
+  /**
+   * Drops every reserved block, so the next allocation of each sequence goes back to the counters.
+   */
+  public void reset() {
+    synchronized (blocks) {
+      blocks.clear();
+    }
+  }
+  
+  /**
+   * Helper method to reserve a new block of IDs from the counter.
+   * 
+   * @param mongoDB The database to work with.
+   * @param collection The collection the IDs are for, which also names the sequence.
+   * @param fieldName The ID field in that collection.
+   * @param block The block to fill.
+   */
+  private void reserveBlock(DB mongoDB, String collection, String fieldName, IDBlock block) throws MongoException {
+    DBCollection counterCollection = mongoDB.getCollection(COUNTER_COLLECTION);
+    BasicDBObject counterQuery     = new BasicDBObject("_id", collection);
+    
+    if (!block.seeded) {
+      //$max only ever raises the counter, so it's safe for several JVMs to seed at once
+      long maxValue = queryMaxID(mongoDB.getCollection(collection), fieldName);
+      counterCollection.update(counterQuery, new BasicDBObject("$max", new BasicDBObject("seq", maxValue)), true, false);
+      block.seeded = true;
+    }
+    
+    int size = blockSize;
+    DBObject counter = counterCollection.findAndModify(counterQuery, new BasicDBObject("seq", 1), null, false, 
+                                                      new BasicDBObject("$inc", new BasicDBObject("seq", (long)size)), true, true);
+    //findAndModify goes out as a command, which never takes the write concern, so wait for the journal
+    //here; a block that was handed out must not come back after a crash
+    if (counterCollection.getWriteConcern().getJ())
+      mongoDB.command(new BasicDBObject("getlasterror", 1).append("j", true)).throwOnError();
+    long lastID = ((Number)counter.get("seq")).longValue();
+    
+    block.nextID = lastID - size + 1;
+    block.lastID = lastID;
+  }
+  
+  /**
+   * Helper method to find the largest ID currently stored in a collection.
+   * 
+   * @param idCollection The collection to check.
+   * @param fieldName The ID field in that collection.
+   * 
+   * @return The largest ID found, or 0 if the collection is empty.
+   */
+  private static long queryMaxID(DBCollection idCollection, String fieldName) throws MongoException {
+    BasicDBObject fieldObject = new BasicDBObject(fieldName, 1);
+    fieldObject.append("_id", 0);
+    
+    long maxValue = 0;
+    DBCursor cursor = idCollection.find(new BasicDBObject(), fieldObject).sort(new BasicDBObject(fieldName, -1)).limit(1);
+    try {
+      while (cursor.hasNext()) {
+        Object value = cursor.next().get(fieldName);
+        if (value instanceof Number) maxValue = ((Number)value).longValue();
+      }
+    } finally {
+      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
+    }
+    return maxValue;
+  }
+  
+  /**
+   * The range of IDs currently reserved for one sequence.
+   */
+  private static class IDBlock {
+    /** The next ID to hand out. */
+    long    nextID = 1;
+    /** The last ID in this block. */
+    long    lastID = 0;
+    /** Whether the counter has been raised past the existing data yet. */
+    boolean seeded = false;
+  }
+}
@@ -0,0 +1,208 @@
+package com.ac.games.db.mongo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.BSONObject;
+
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+
+/**
+ * A read-only {@link DBObject}, used for the query fragments and projections we build once and share
+ * between every call and every thread.  Nested documents and lists are frozen along with it, and every
+ * method that would change it throws {@link UnsupportedOperationException}, so a shared fragment can't
+ * be altered by one caller underneath another.
+ * <p>
+ * The driver only reads the documents it is handed, so these can be passed straight to find, or used
+ * as the value of a field in a query built per call.
+ *
+ * @author ac010168
+ */
+public final class ImmutableDBObject implements DBObject {
+
+  /** The fields, in the order they were given. */
+  private final Map<String, Object> fields;
+
+  /**
+   * Basic Constructor.
+   *
+   * @param fields The fields, which have already been frozen.
+   */
+  private ImmutableDBObject(Map<String, Object> fields) {
+    this.fields = Collections.unmodifiableMap(fields);
+  }
+
+  /**
+   * @param key The field name.
+   * @param value The field value.
+   * @return a frozen document holding the single field
+   */
+  public static ImmutableDBObject of(String key, Object value) {
+    Map<String, Object> fields = new LinkedHashMap<String, Object>(2);
+    fields.put(key, freeze(value));
+    return new ImmutableDBObject(fields);
+  }
+
+  /**
+   * @param source The document to copy.
+   * @return a frozen copy of the document, including any nested documents and lists
+   */
+  public static ImmutableDBObject copyOf(BSONObject source) {
+    if (source instanceof ImmutableDBObject) return (ImmutableDBObject)source;
+
+    Map<String, Object> fields = new LinkedHashMap<String, Object>();
+    for (String key : source.keySet())
+      fields.put(key, freeze(source.get(key)));
+    return new ImmutableDBObject(fields);
+  }
+
+  /**
+   * @param keys The field names.
+   * @return a frozen projection that includes each of the fields
+   */
+  public static ImmutableDBObject projectionOf(String... keys) {
+    Map<String, Object> fields = new LinkedHashMap<String, Object>();
+    for (String key : keys)
+      fields.put(key, 1);
+    return new ImmutableDBObject(fields);
+  }
+
+  /**
+   * @param values The values.
+   * @return a frozen list of the values, for use with $in and the like
+   */
+  public static List<Object> listOf(Object... values) {
+    List<Object> list = new ArrayList<Object>(values.length);
+    for (Object value : values)
+      list.add(freeze(value));
+    return Collections.unmodifiableList(list);
+  }
+
+  /**
+   * Helper method that freezes a field value: documents are copied into an {@link ImmutableDBObject},
+   * lists into an unmodifiable list, and anything else is returned as is.
+   *
+   * @param value The value.
+   * @return the frozen value
+   */
+  private static Object freeze(Object value) {
+    if (value instanceof BSONObject && !(value instanceof List))
+      return copyOf((BSONObject)value);
+    if (value instanceof List) {
+      List<?> source = (List<?>)value;
+      List<Object> list = new ArrayList<Object>(source.size());
+      for (Object element : source)
+        list.add(freeze(element));
+      return Collections.unmodifiableList(list);
+    }
+    return value;
+  }
+
+  /* (non-Javadoc)
+   * @see org.bson.BSONObject#get(java.lang.String)
+   */
+  public Object get(String key) {
+    return fields.get(key);
+  }
+
+  /* (non-Javadoc)
+   * @see org.bson.BSONObject#containsField(java.lang.String)
+   */
+  public boolean containsField(String key) {
+    return fields.containsKey(key);
+  }
+
+  /* (non-Javadoc)
+   * @see org.bson.BSONObject#containsKey(java.lang.String)
+   */
+  @Deprecated
+  public boolean containsKey(String key) {
+    return fields.containsKey(key);
+  }
+
+  /* (non-Javadoc)
+   * @see org.bson.BSONObject#keySet()
+   */
+  public Set<String> keySet() {
+    return fields.keySet();
+  }
+
+  /* (non-Javadoc)
+   * @see org.bson.BSONObject#toMap()
+   */
+  @SuppressWarnings("rawtypes")
+  public Map toMap() {
+    return fields;
+  }
+
+  /* (non-Javadoc)
+   * @see com.mongodb.DBObject#isPartialObject()
+   */
+  public boolean isPartialObject() {
+    return false;
+  }
+
+  /* (non-Javadoc)
+   * @see com.mongodb.DBObject#markAsPartialObject()
+   */
+  public void markAsPartialObject() {
+    throw new UnsupportedOperationException("This document is read-only.");
+  }
+
+  /* (non-Javadoc)
+   * @see org.bson.BSONObject#put(java.lang.String, java.lang.Object)
+   */
+  public Object put(String key, Object v) {
+    throw new UnsupportedOperationException("This document is read-only.");
+  }
+
+  /* (non-Javadoc)
+   * @see org.bson.BSONObject#putAll(org.bson.BSONObject)
+   */
+  public void putAll(BSONObject o) {
+    throw new UnsupportedOperationException("This document is read-only.");
+  }
+
+  /* (non-Javadoc)
+   * @see org.bson.BSONObject#putAll(java.util.Map)
+   */
+  @SuppressWarnings("rawtypes")
+  public void putAll(Map m) {
+    throw new UnsupportedOperationException("This document is read-only.");
+  }
+
+  /* (non-Javadoc)
+   * @see org.bson.BSONObject#removeField(java.lang.String)
+   */
+  public Object removeField(String key) {
+    throw new UnsupportedOperationException("This document is read-only.");
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  public boolean equals(Object o) {
+    if (o == this) return true;
+    if (!(o instanceof ImmutableDBObject)) return false;
+    return fields.equals(((ImmutableDBObject)o).fields);
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#hashCode()
+   */
+  public int hashCode() {
+    return fields.hashCode();
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  public String toString() {
+    return JSON.serialize(this);
+  }
+}
@@ -0,0 +1,101 @@
+package com.ac.games.db.mongo;
+
+import java.util.Date;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * @author ac010168
+ * This converter builds the queries behind keyset pagination.  Pages run newest first on a date field,
+ * with the record's own ID breaking ties, and each page starts strictly after the last record of the
+ * page before.  With a compound index on (filter field, date, ID) every page is a bounded index scan,
+ * so a late page costs the same as the first one, where skip() would walk every record before it.
+ * 
+ * Records without a date sort after every dated record.  The continuation token carries the last date
+ * and ID seen, written in base 36 so callers are not tempted to build their own.
+ */
+public class KeysetConverter {
+  
+  /** Separates the date from the ID in a continuation token. */
+  private static final char TOKEN_SEPARATOR = '.';
+  /** Stands in for a missing date in a continuation token. */
+  private static final String NO_DATE = "~";
+  
+  /**
+   * Helper method that narrows a query to the records after a continuation token.
+   * 
+   * @param filterObject The query selecting the records being paged through, i.e. one user's items.
+   * @param dateField The date field pages are ordered on.
+   * @param idField The ID field breaking ties between equal dates.
+   * @param token The continuation token from the previous page, or null for the first page.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   * 
+   * @throws IllegalArgumentException if the token was not one we produced.
+   */
+  public static BasicDBObject convertTokenToPageQuery(BasicDBObject filterObject, String dateField, String idField, String token) {
+    if (token == null) return filterObject;
+    
+    int split = token.indexOf(TOKEN_SEPARATOR);
+    if (split <= 0 || split == token.length() - 1)
+      throw new IllegalArgumentException("Malformed continuation token: " + token);
+    
+    String datePart = token.substring(0, split);
+    long   lastID   = Long.parseLong(token.substring(split + 1), 36);
+    
+    BasicDBObject dbObject = new BasicDBObject(filterObject);
+    if (datePart.equals(NO_DATE)) {
+      //Already among the undated records, which only the ID orders now
+      dbObject.append(dateField, null);
+      dbObject.append(idField, new BasicDBObject("$lt", lastID));
+      return dbObject;
+    }
+    
+    Date lastDate = new Date(Long.parseLong(datePart, 36));
+    
+    BasicDBList afterList = new BasicDBList();
+    afterList.add(new BasicDBObject(dateField, new BasicDBObject("$lt", lastDate)));
+    afterList.add(new BasicDBObject(dateField, lastDate).append(idField, new BasicDBObject("$lt", lastID)));
+    afterList.add(new BasicDBObject(dateField, null));
+    dbObject.append("$or", afterList);
+    return dbObject;
+  }
+  
+  /**
+   * Helper method that writes the continuation token for the page after a record.
+   * 
+   * @param lastObject The last record on the current page.
+   * @param dateField The date field pages are ordered on.
+   * @param idField The ID field breaking ties between equal dates.
+   * 
+   * @return The continuation token.
+   */
+  public static String convertRecordToToken(DBObject lastObject, String dateField, String idField) {
+    Date date = (Date)lastObject.get(dateField);
+    long id   = ((Number)lastObject.get(idField)).longValue();
+    
+    String datePart = (date == null ? NO_DATE : Long.toString(date.getTime(), 36));
+    return datePart + TOKEN_SEPARATOR + Long.toString(id, 36);
+  }
+  
+  /**
+   * @param dateField The date field pages are ordered on.
+   * @param idField The ID field breaking ties between equal dates.
+   * @return the sort putting records in page order, newest first
+   */
+  public static BasicDBObject convertPageSort(String dateField, String idField) {
+    return new BasicDBObject(dateField, -1).append(idField, -1);
+  }
+  
+  /**
+   * @param filterField The field selecting the records being paged through, i.e. userID.
+   * @param dateField The date field pages are ordered on.
+   * @param idField The ID field breaking ties between equal dates.
+   * @return the keys of the compound index behind the paged reads
+   */
+  public static BasicDBObject convertPageIndexKeys(String filterField, String dateField, String idField) {
+    return new BasicDBObject(filterField, 1).append(dateField, -1).append(idField, -1);
+  }
+}
@@ -0,0 +1,155 @@
+package com.ac.games.db.mongo;
+
+import java.util.Arrays;
+
+/**
+ * Small open-addressing hash map from long keys to long values, used to hold ID lookups in memory
+ * without boxing a Long for every key and value.  Keys are probed linearly, and removals shift the
+ * following entries back, so there are no tombstones to clean up.
+ * <p>
+ * Keys must not be {@link Long#MIN_VALUE}, which marks an empty slot.  All methods are synchronized.
+ *
+ * @author ac010168
+ */
+public class LongLongMap {
+
+  /** Marks an empty slot in the key table. */
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  /** The key table, sized to a power of two. */
+  private long[] keys;
+  /** The value table, parallel to the key table. */
+  private long[] values;
+  /** The number of entries held. */
+  private int size;
+
+  /**
+   * Basic Constructor.
+   *
+   * @param expectedSize The number of entries expected, used to size the tables up front.
+   */
+  public LongLongMap(int expectedSize) {
+    int capacity = 16;
+    while (capacity < expectedSize * 2)
+      capacity <<= 1;
+    allocate(capacity);
+  }
+
+  /**
+   * @param key The key to look up.
+   * @return the value held for the key, or -1 if there is none
+   */
+  public synchronized long get(long key) {
+    int slot = findSlot(key);
+    return (keys[slot] == EMPTY ? -1 : values[slot]);
+  }
+
+  /**
+   * @param key The key to store.
+   * @param value The value to store against it.
+   */
+  public synchronized void put(long key, long value) {
+    int slot = findSlot(key);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+
+    if (size * 2 > keys.length) rehash(keys.length << 1);
+  }
+
+  /**
+   * @param key The key to remove.
+   */
+  public synchronized void remove(long key) {
+    int slot = findSlot(key);
+    if (keys[slot] != EMPTY) removeSlot(slot);
+  }
+
+  /**
+   * @return the number of entries held
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Helper method that finds the slot holding a key, or the empty slot where it would go.
+   *
+   * @param key The key.
+   * @return the slot index
+   */
+  private int findSlot(long key) {
+    int mask = keys.length - 1;
+    int slot = hash(key) & mask;
+    while (keys[slot] != EMPTY && keys[slot] != key)
+      slot = (slot + 1) & mask;
+    return slot;
+  }
+
+  /**
+   * Helper method that empties a slot and shifts back any entries whose probe run passed through it.
+   *
+   * @param slot The slot to empty.
+   */
+  private void removeSlot(int slot) {
+    int mask = keys.length - 1;
+    int hole = slot;
+    int next = (hole + 1) & mask;
+    while (keys[next] != EMPTY) {
+      int home = hash(keys[next]) & mask;
+      //Move the entry back if its home slot isn't cyclically between the hole and where it sits now
+      boolean movable = (hole <= next) ? (home <= hole || home > next) : (home <= hole && home > next);
+      if (movable) {
+        keys[hole]   = keys[next];
+        values[hole] = values[next];
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[hole] = EMPTY;
+    size--;
+  }
+
+  /**
+   * Helper method that moves every entry into tables of a new size.
+   *
+   * @param capacity The new table size, a power of two.
+   */
+  private void rehash(int capacity) {
+    long[] oldKeys   = keys;
+    long[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] == EMPTY) continue;
+      int slot = findSlot(oldKeys[i]);
+      keys[slot]   = oldKeys[i];
+      values[slot] = oldValues[i];
+      size++;
+    }
+  }
+
+  /**
+   * Helper method that creates empty tables.
+   *
+   * @param capacity The table size, a power of two.
+   */
+  private void allocate(int capacity) {
+    keys   = new long[capacity];
+    values = new long[capacity];
+    size   = 0;
+    Arrays.fill(keys, EMPTY);
+  }
+
+  /**
+   * Helper method that spreads a key's bits, since our IDs are mostly small and sequential.
+   *
+   * @param key The key.
+   * @return the hash
+   */
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int)(h ^ (h >>> 32));
+  }
+}
@@ -2,6 +2,7 @@ package com.ac.games.db.mongo;
 
 import java.util.Date;
 
+import com.ac.games.data.CompactSearchData;
 import com.ac.games.data.MiniatureMarketCategoryConverter;
 import com.ac.games.data.MiniatureMarketPriceData;
 import com.ac.games.data.GameAvailabilityConverter;
@@ -90,4 +91,44 @@ public class MMDataConverter {
     
     return data;
   }
+  
+  /**
+   * Helper method that will construct the projection used for compact search results: the ID, title,
+   * manufacturer and image, and nothing else.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this projection
+   */
+  public static BasicDBObject convertCompactProjection() {
+    BasicDBObject dbObject = new BasicDBObject("mmID", 1);
+    dbObject.append("title", 1);
+    dbObject.append("manufacturer", 1);
+    dbObject.append("imageURL", 1);
+    return dbObject;
+  }
+  
+  /**
+   * Convert a Mongo BSON record, read with {@link #convertCompactProjection()}, into a {@link CompactSearchData} object.
+   * 
+   * @param dbObject The Mongo DBObject result
+   * 
+   * @return a {@link CompactSearchData} object, or null if the dbObject was null
+   */
+  public static CompactSearchData convertMongoToCompact(DBObject dbObject) {
+    if (dbObject == null) return null;
+    
+    CompactSearchData data = new CompactSearchData();
+    
+    if (dbObject.containsField("mmID")) {
+      data.setSourceID((Long)dbObject.get("mmID"));
+      data.setSourceField("mmID");
+    }
+    String nameText = "Unavailable";
+    if (dbObject.containsField("title")) nameText = (String)dbObject.get("title");
+    if (dbObject.containsField("manufacturer")) nameText += " (" + (String)dbObject.get("manufacturer") + ")";
+    data.setDisplayString(nameText);
+    
+    if (dbObject.containsField("imageURL")) data.setThumbnailURL((String)dbObject.get("imageURL"));
+    
+    return data;
+  }
 }
@@ -0,0 +1,112 @@
+package com.ac.games.db.mongo;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
+/**
+ * A {@link DBCursor} handed out by a {@link CursorTracker}.  The cursor closes itself as soon as it runs
+ * out of results, and closing it again is harmless, so reads can always close it in a finally block.
+ * Until it is closed, the tracker counts it as open and can report it if it stays open too long.
+ * 
+ * @author ac010168
+ */
+public class ManagedCursor implements Iterator<DBObject> {
+  
+  /** The driver cursor being managed. */
+  private final DBCursor cursor;
+  /** The tracker to tell when we close. */
+  private final CursorTracker tracker;
+  /** When the cursor was opened. */
+  private final long openedAt;
+  /** Where the cursor was opened, or null if the tracker isn't recording openers. */
+  private final StackTraceElement[] openedBy;
+  /** Set once the cursor has been closed. */
+  private final AtomicBoolean closed;
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param cursor The driver cursor being managed.
+   * @param tracker The tracker to tell when we close.
+   * @param openedBy Where the cursor was opened, or null if not recorded.
+   */
+  ManagedCursor(DBCursor cursor, CursorTracker tracker, StackTraceElement[] openedBy) {
+    this.cursor   = cursor;
+    this.tracker  = tracker;
+    this.openedAt = System.currentTimeMillis();
+    this.openedBy = openedBy;
+    this.closed   = new AtomicBoolean(false);
+  }
+  
+  /* (non-Javadoc)
+   * @see java.util.Iterator#hasNext()
+   */
+  public boolean hasNext() {
+    if (closed.get()) return false;
+    
+    boolean more = cursor.hasNext();
+    //Nothing left, so there's no reason to hold the server cursor any longer
+    if (!more) close();
+    return more;
+  }
+  
+  /* (non-Javadoc)
+   * @see java.util.Iterator#next()
+   */
+  public DBObject next() {
+    return cursor.next();
+  }
+  
+  /* (non-Javadoc)
+   * @see java.util.Iterator#remove()
+   */
+  public void remove() {
+    cursor.remove();
+  }
+  
+  /**
+   * Closes the driver cursor and tells the tracker.  Safe to call more than once.
+   */
+  public void close() {
+    if (!closed.compareAndSet(false, true)) return;
+    
+    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
+    tracker.closed(this);
+  }
+  
+  /**
+   * @return true once the cursor has been closed
+   */
+  public boolean isClosed() {
+    return closed.get();
+  }
+  
+  /**
+   * @return when the cursor was opened
+   */
+  public long getOpenedAt() {
+    return openedAt;
+  }
+  
+  /**
+   * @return a short description of the cursor for leak reports: its namespace, query, age and, if
+   * recorded, where it was opened
+   */
+  public String describe() {
+    StringBuilder builder = new StringBuilder();
+    try {
+      builder.append(cursor.getCollection().getFullName()).append(" ").append(cursor.getQuery());
+    } catch (Throwable t) {
+      builder.append("unknown cursor");
+    }
+    builder.append(", open for ").append(System.currentTimeMillis() - openedAt).append("ms");
+    if (openedBy != null) {
+      for (StackTraceElement element : openedBy)
+        builder.append("\n\tat ").append(element);
+    }
+    return builder.toString();
+  }
+}
@@ -53,8 +53,8 @@ public class MediaItemConverter {
     if (item == null) return null;
     
     BasicDBObject dbObject = new BasicDBObject("mediaID", item.getMediaID());
-    if (item.getGameID() <= -1)             dbObject.append("gameID", item.getGameID());
-    if (item.getUserID() <= -1)             dbObject.append("userID", item.getUserID());
+    if (item.getGameID() >= -1)             dbObject.append("gameID", item.getGameID());
+    if (item.getUserID() >= -1)             dbObject.append("userID", item.getUserID());
     if (item.getUserName() != null)         dbObject.append("userName", item.getUserName());
     if (item.getItemType() != null)         dbObject.append("itemType", MediaItemTypeConverter.convertMediaItemTypeToFlag(item.getItemType()));
     if (item.getMediaLink() != null)        dbObject.append("mediaLink", item.getMediaLink());
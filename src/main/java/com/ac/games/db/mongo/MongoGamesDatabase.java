@@ -2,9 +2,23 @@ package com.ac.games.db.mongo;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.types.BSONTimestamp;
 import org.bson.types.ObjectId;
 
 import com.ac.games.data.BGGGame;
@@ -15,10 +29,10 @@ import com.ac.games.data.CollectionItem;
 import com.ac.games.data.CompactSearchData;
 import com.ac.games.data.CoolStuffIncCategoryConverter;
 import com.ac.games.data.CoolStuffIncPriceData;
+import com.ac.games.data.GameAvailability;
 import com.ac.games.data.Game;
 import com.ac.games.data.GameReltn;
 import com.ac.games.data.GameType;
-import com.ac.games.data.GameTypeConverter;
 import com.ac.games.data.MMDataStats;
 import com.ac.games.data.MediaItem;
 import com.ac.games.data.MiniatureMarketCategoryConverter;
@@ -34,12 +48,19 @@ import com.ac.games.data.WishlistItem;
 import com.ac.games.db.GamesDatabase;
 import com.ac.games.db.exception.ConfigurationException;
 import com.ac.games.db.exception.DatabaseOperationException;
+import com.ac.games.db.mongo.codec.CodecDBDecoder;
+import com.ac.games.db.mongo.codec.CodecDBObject;
+import com.ac.games.db.mongo.codec.CodecDBEncoder;
+import com.ac.games.db.mongo.price.PriceDropMatch;
+import com.ac.games.db.mongo.price.PriceObservation;
+import com.ac.games.db.mongo.price.PriceOffer;
+import com.ac.games.db.mongo.price.PriceRollup;
 import com.mongodb.AggregationOutput;
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
+import com.mongodb.CommandResult;
 import com.mongodb.DB;
 import com.mongodb.DBCollection;
-import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoException;
@@ -67,6 +88,78 @@ public class MongoGamesDatabase implements GamesDatabase {
   
   /** Global setting to help manage debug println statements */
   public static boolean debugMode = false;
+  /** Whether to defer decoding of large game fields (description, publisher lists, etc.) until first read */
+  private volatile boolean lazyDecodeMode;
+  /** Whether to store collection items as gameID references instead of embedding a full copy of each game */
+  private volatile boolean referenceCollectionMode;
+  /** Whether to append each CSI/MM price written to the monthly price history buckets */
+  private volatile boolean priceHistoryMode;
+  /** Whether to keep the best price stored on each gamereltn current as CSI/MM prices are written */
+  private volatile boolean bestPriceMode;
+  /** Whether to store a content hash on BGG/CSI/MM documents and skip updates that wouldn't change them */
+  private volatile boolean changeDetectionMode;
+  
+  /** Optional cache of raw game documents used when hydrating collection items.  Null when disabled. */
+  private volatile DocumentCache gameCache;
+  /** Allocator handing out new IDs from the counters collection. */
+  private final IDAllocator idAllocator;
+  /** The collections that feed the review queue. */
+  private static final String[] REVIEW_COLLECTIONS = { "bgggame", "csidata", "mmdata" };
+  /** Background task clearing expired review leases, or null if none is running. */
+  private volatile ScheduledExecutorService leaseReaper;
+  /** In-memory csiID to gameID links, or null when lookups go to the database. */
+  private volatile LongLongMap csiGameIndex;
+  /** In-memory mmID to gameID links, or null when lookups go to the database. */
+  private volatile LongLongMap mmGameIndex;
+  /** Held while both retailer link maps are changed or read together, so neither is seen half updated. */
+  private final Object retailerIndexLock = new Object();
+  /** Number of updates skipped by change detection because the stored document was already identical. */
+  private final AtomicLong skippedWriteCount = new AtomicLong();
+  /** Cache of collection counts, kept current by our writes.  Null when counts are always exact. */
+  private volatile CountCache countCache;
+  /** The collections whose changes by other nodes we listen for. */
+  public static final String[] INVALIDATION_COLLECTIONS = { "game", "bgggame", "user", "collection" };
+  /** Oplog tail dropping cached documents other nodes have changed, or null if none is running. */
+  private volatile OplogCacheInvalidator cacheInvalidator;
+  /** Outside caches to tell about changes seen by the oplog tail. */
+  private final List<CacheInvalidationListener> invalidationListeners = new CopyOnWriteArrayList<CacheInvalidationListener>();
+  /** Max age applied to cached game documents when there is no oplog to tail, or 0 for none. */
+  private volatile long gameCacheMaxAgeMillis;
+  /** The most IDs sent in a single $in by the price drop matcher. */
+  private static final int NOTIFY_BATCH_SIZE = 1000;
+  /** Every read cursor is opened through here, so open cursors can be counted and leaks reported. */
+  private final CursorTracker cursorTracker = new CursorTracker();
+  /** Background task reporting cursors left open too long, or null if none is running. */
+  private volatile ScheduledExecutorService cursorLeakCheck;
+  /** Stats rows a failed delta has left wrong, which stay wrong until they are recomputed. */
+  private final ConcurrentHashMap<String, Boolean> staleStatTypes = new ConcurrentHashMap<String, Boolean>();
+  /** How many times a stats recompute is run before giving up on a row that keeps moving. */
+  private static final int MAX_STATS_RECOMPUTE_ATTEMPTS = 3;
+  /** How many times a collection is migrated to references before giving up on one that keeps changing. */
+  private static final int MAX_MIGRATION_ATTEMPTS = 3;
+  /** The default for the most IDs sent in a single $in by the multi-get reads. */
+  public static final int DEFAULT_MULTI_GET_CHUNK_SIZE = 1000;
+  /** The most IDs sent in a single $in by the multi-get reads. */
+  private volatile int multiGetChunkSize = DEFAULT_MULTI_GET_CHUNK_SIZE;
+  /** The collection mapping, which follows this database's {@link #setReferenceCollectionMode(boolean)}. */
+  private final EntityMappings.CollectionMapping collectionMapping = new EntityMappings.CollectionMapping();
+  /** The stores each entity type's reads and writes go through. */
+  private final EntityStore<BGGGame> bggGameStore                 = new EntityStore<BGGGame>(EntityMappings.BGG_GAME, cursorTracker);
+  private final EntityStore<CoolStuffIncPriceData> csiDataStore   = new EntityStore<CoolStuffIncPriceData>(EntityMappings.CSI_DATA, cursorTracker);
+  private final EntityStore<MiniatureMarketPriceData> mmDataStore = new EntityStore<MiniatureMarketPriceData>(EntityMappings.MM_DATA, cursorTracker);
+  private final EntityStore<Game> gameStore                       = new EntityStore<Game>(EntityMappings.GAME, cursorTracker);
+  private final EntityStore<GameReltn> gameReltnStore             = new EntityStore<GameReltn>(EntityMappings.GAME_RELTN, cursorTracker);
+  private final EntityStore<User> userStore                       = new EntityStore<User>(EntityMappings.USER, cursorTracker);
+  private final EntityStore<UserDetail> userDetailStore           = new EntityStore<UserDetail>(EntityMappings.USER_DETAIL, cursorTracker);
+  private final EntityStore<Collection> collectionStore           = new EntityStore<Collection>(collectionMapping, cursorTracker);
+  private final EntityStore<CollectionItem> collectionItemStore   = new EntityStore<CollectionItem>(EntityMappings.COLLECTION_ITEM, cursorTracker);
+  private final EntityStore<MediaItem> mediaItemStore             = new EntityStore<MediaItem>(EntityMappings.MEDIA_ITEM, cursorTracker);
+  private final EntityStore<WishlistItem> wishlistItemStore       = new EntityStore<WishlistItem>(EntityMappings.WISHLIST_ITEM, cursorTracker);
+  private final EntityStore<PlaythruItem> playthruItemStore       = new EntityStore<PlaythruItem>(EntityMappings.PLAYTHRU_ITEM, cursorTracker);
+  /** Every store, for reporting. */
+  private final EntityStore<?>[] entityStores = { bggGameStore, csiDataStore, mmDataStore, gameStore, gameReltnStore, userStore,
+                                                   userDetailStore, collectionStore, collectionItemStore, mediaItemStore,
+                                                   wishlistItemStore, playthruItemStore };
   
   /**
    * Basic Constructor for a MongoGameDatabase Object.
@@ -78,6 +171,7 @@ public class MongoGamesDatabase implements GamesDatabase {
     this.mongoHostAddress = mongoHostAddress;
     this.mongoPort        = mongoPort;
     this.databaseName     = databaseName;
+    this.idAllocator      = new IDAllocator();
     
     setMongoClient(null);
     setMongoDB(null);
@@ -132,6 +226,192 @@ public class MongoGamesDatabase implements GamesDatabase {
     this.mongoDB = mongoDB;
   }
 
+  /**
+   * @return the gameCache, or null if game caching is disabled
+   */
+  public DocumentCache getGameCache() {
+    return gameCache;
+  }
+  
+  /**
+   * @return the number of BGG/CSI/MM updates skipped by change detection since the last reset
+   */
+  public long getSkippedWriteCount() {
+    return skippedWriteCount.get();
+  }
+  
+  /**
+   * @return the statTypes of the stats rows a failed $inc delta has left wrong since they were last
+   * recomputed, i.e. the rows that need a recompute
+   */
+  public Set<String> getStaleStatTypes() {
+    return new HashSet<String>(staleStatTypes.keySet());
+  }
+  
+  /**
+   * Resets the skipped write count, i.e. at the start of a crawl.
+   * 
+   * @return the count before the reset
+   */
+  public long resetSkippedWriteCount() {
+    return skippedWriteCount.getAndSet(0);
+  }
+  
+  /**
+   * Switches the count methods between exact and cached mode.  In exact mode (a max age of 0), every
+   * call asks the database, which answers from collection metadata.  In cached mode, a count is kept in
+   * memory, adjusted by our own inserts and deletes, and reloaded once it is older than the max age.
+   * <p>
+   * Only this process's writes adjust a cached count.  Documents other processes insert or delete are
+   * not seen until the count is reloaded, so a cached count can be off by their writes for up to the
+   * max age.  While {@link #startCacheInvalidation(long)} is running, their inserts and deletes drop the
+   * cached count instead, and it is reloaded on the next call.
+   * 
+   * @param maxAgeMillis How stale, in milliseconds, a cached count may be, or 0 for exact counts.
+   */
+  public void setCountCacheMaxAge(long maxAgeMillis) {
+    if (maxAgeMillis <= 0) countCache = null;
+    else                   countCache = new CountCache(maxAgeMillis);
+  }
+  
+  /**
+   * @return the count cache staleness bound in milliseconds, or 0 if counts are always exact
+   */
+  public long getCountCacheMaxAge() {
+    CountCache cache = countCache;
+    return (cache == null ? 0 : cache.getMaxAgeMillis());
+  }
+  
+  /**
+   * Enables the game cache used when hydrating collection items, or disables it with a size of 0.
+   * Any previously cached games are dropped.
+   * 
+   * @param maxEntries The maximum number of games to hold, or 0 to disable the cache.
+   */
+  public void setGameCacheSize(int maxEntries) {
+    if (maxEntries <= 0) {
+      gameCache = null;
+    } else {
+      DocumentCache cache = new DocumentCache(maxEntries);
+      cache.setMaxAgeMillis(gameCacheMaxAgeMillis);
+      gameCache = cache;
+    }
+  }
+  
+  /**
+   * @return the most IDs sent in a single $in by the multi-get reads
+   */
+  public int getMultiGetChunkSize() {
+    return multiGetChunkSize;
+  }
+  
+  /**
+   * Sets how many IDs the multi-get reads send in a single $in.  Larger inputs are split into chunks of
+   * this size, one query each, which keeps every query document well under the server's size limit.
+   * 
+   * @param chunkSize The most IDs per query, or 0 to go back to {@link #DEFAULT_MULTI_GET_CHUNK_SIZE}.
+   */
+  public void setMultiGetChunkSize(int chunkSize) {
+    multiGetChunkSize = (chunkSize < 1 ? DEFAULT_MULTI_GET_CHUNK_SIZE : chunkSize);
+  }
+  
+  /**
+   * @return true if large game fields are left undecoded until they are first read
+   */
+  public boolean isLazyDecodeMode() {
+    return lazyDecodeMode;
+  }
+  
+  /**
+   * Switches lazy decoding of large game fields (description, publisher lists, etc.) on or off for this
+   * database and its entity stores.  Each database keeps its own setting, so two connections in one process
+   * no longer share it.  It can be switched at any time; reads already running finish with the setting they
+   * started with or the new one, and every read after the call uses the new one.
+   * 
+   * @param lazyDecodeMode true to leave large fields undecoded until they are first read.
+   */
+  public void setLazyDecodeMode(boolean lazyDecodeMode) {
+    this.lazyDecodeMode = lazyDecodeMode;
+    for (EntityStore<?> store : entityStores)
+      store.setLazyDecode(lazyDecodeMode);
+  }
+  
+  /**
+   * @return true if collection items are stored as gameID references
+   */
+  public boolean isReferenceCollectionMode() {
+    return referenceCollectionMode;
+  }
+  
+  /**
+   * Switches between storing collection items as gameID references and embedding a full copy of each
+   * game, for both whole collection writes and single item adds.  Reads handle either form, so this can
+   * be switched at any time, and {@link #migrateCollectionsToReferences()} converts what was written
+   * before.  Each database keeps its own setting.
+   * 
+   * @param referenceCollectionMode true to store items as gameID references.
+   */
+  public void setReferenceCollectionMode(boolean referenceCollectionMode) {
+    this.referenceCollectionMode = referenceCollectionMode;
+    collectionMapping.setReferenceGames(referenceCollectionMode);
+  }
+  
+  /**
+   * @return true if each CSI/MM price written is appended to the price history
+   */
+  public boolean isPriceHistoryMode() {
+    return priceHistoryMode;
+  }
+  
+  /**
+   * Switches recording of price history on or off.  While it is on, every CSI/MM insert and update also
+   * appends the item's current price to its monthly bucket.  Each database keeps its own setting, and a
+   * write running when it changes records its price under either setting.
+   * 
+   * @param priceHistoryMode true to record a price observation with each CSI/MM write.
+   */
+  public void setPriceHistoryMode(boolean priceHistoryMode) {
+    this.priceHistoryMode = priceHistoryMode;
+  }
+  
+  /**
+   * @return true if the best price stored on each gamereltn is kept current as prices are written
+   */
+  public boolean isBestPriceMode() {
+    return bestPriceMode;
+  }
+  
+  /**
+   * Switches upkeep of the stored best prices on or off.  While it is on, every CSI/MM write or delete
+   * refreshes the stored offer of each game linked to the item, and every GameReltn write refreshes its
+   * own.  Offers stored before it was switched on, or changed while it was off, are brought up to date
+   * with {@link #refreshBestPrices(long[])}.  Each database keeps its own setting.
+   * 
+   * @param bestPriceMode true to keep the stored best prices current.
+   */
+  public void setBestPriceMode(boolean bestPriceMode) {
+    this.bestPriceMode = bestPriceMode;
+  }
+  
+  /**
+   * @return true if BGG/CSI/MM updates that wouldn't change the stored document are skipped
+   */
+  public boolean isChangeDetectionMode() {
+    return changeDetectionMode;
+  }
+  
+  /**
+   * Switches change detection on or off.  While it is on, BGG/CSI/MM documents carry a hash of their
+   * content, and an update whose hash matches the stored one is skipped and counted in
+   * {@link #getSkippedWriteCount()}.  Documents written while it was off have no hash, so their next
+   * update always goes through and stores one.  Each database keeps its own setting.
+   * 
+   * @param changeDetectionMode true to skip updates that wouldn't change the stored document.
+   */
+  public void setChangeDetectionMode(boolean changeDetectionMode) {
+    this.changeDetectionMode = changeDetectionMode;
+  }
+
   /*
    * (non-Javadoc)
    * @see com.ac.games.db.GamesDatabase#initializeDBConnection()
@@ -167,6 +447,9 @@ public class MongoGamesDatabase implements GamesDatabase {
    * @see com.ac.games.db.GamesDatabase#closeDBConnection()
    */
   public void closeDBConnection() throws ConfigurationException {
+    //The oplog tail reads through the client we are about to close
+    stopCacheInvalidation();
+    
     //Close the current collection
     try {
       if (mongoClient != null)
@@ -177,6 +460,12 @@ public class MongoGamesDatabase implements GamesDatabase {
     
     mongoClient = null;
     mongoDB     = null;
+    //Reserved ID blocks belong to the old connection's database
+    idAllocator.reset();
+    if (countCache != null) countCache.clear();
+    stopReviewLeaseReaper();
+    stopCursorLeakCheck();
+    dropRetailerGameIndex();
   }
 
   /*
@@ -188,6 +477,44 @@ public class MongoGamesDatabase implements GamesDatabase {
     if (bggID < 0)
       throw new DatabaseOperationException("The provided game object was not valid.");
     
+    return bggGameStore.read(mongoDB, bggID);
+  }
+  
+  /**
+   * Reads a batch of BGG games by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
+   * 
+   * @param bggIDs The IDs of the BGG games we want.
+   * 
+   * @return The BGG games found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, BGGGame> readBGGGameData(long[] bggIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (bggIDs == null)
+      throw new DatabaseOperationException("The provided bggIDs object was not valid.");
+    
+    return bggGameStore.readAll(mongoDB, bggIDs, multiGetChunkSize);
+  }
+  
+  /**
+   * Reads a summary of the BGG game data: only the fields needed to render a list card are fetched and decoded.
+   * See {@link BGGGameConverter#convertSummaryProjection()} for what is included.
+   * 
+   * @param bggID The bggID of the game we want.
+   * 
+   * @return A partially populated {@link BGGGame}, or null if not found
+   * 
+   * @throws ConfigurationException Thrown if the database connection is not open
+   * @throws DatabaseOperationException Thrown if the query fails
+   */
+  public BGGGame readBGGGameSummary(long bggID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (bggID < 0)
+      throw new DatabaseOperationException("The provided game object was not valid.");
+    
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
@@ -197,17 +524,17 @@ public class MongoGamesDatabase implements GamesDatabase {
       DBCollection gameCollection = mongoDB.getCollection("bgggame");
       BasicDBObject searchObject  = BGGGameConverter.convertGameToIDQuery(bggID);
       
-      DBCursor cursor = gameCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject, BGGGameConverter.convertSummaryProjection()).setDecoderFactory(CodecDBDecoder.FACTORY));
       
       BGGGame game = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        game = BGGGameConverter.convertMongoToGame(object);
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          game = BGGGameConverter.convertMongoToGame(object);
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
       
       if (debugMode)
         System.out.println ("The game found by this query was:                   " + (game == null ? "Nothing Found" : game.getName()));
@@ -220,6 +547,65 @@ public class MongoGamesDatabase implements GamesDatabase {
     }
   }
   
+  /**
+   * Reads summaries for a batch of BGG games in a single query.  Only the fields needed to render a list
+   * card are fetched and decoded.  See {@link BGGGameConverter#convertSummaryProjection()} for what is included.
+   * 
+   * @param bggIDs The bggIDs of the games we want.
+   * 
+   * @return The partially populated games, in the order requested.  IDs that were not found are skipped.
+   * 
+   * @throws ConfigurationException Thrown if the database connection is not open
+   * @throws DatabaseOperationException Thrown if the query fails
+   */
+  public List<BGGGame> readBGGGameSummaries(long[] bggIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (bggIDs == null)
+      throw new DatabaseOperationException("The provided bggIDs object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    if (bggIDs.length == 0)
+      return new ArrayList<BGGGame>(0);
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection gameCollection = mongoDB.getCollection("bgggame");
+      BasicDBObject searchObject  = BGGGameConverter.convertGameIDsToQuery(bggIDs);
+      
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject, BGGGameConverter.convertSummaryProjection()).setDecoderFactory(CodecDBDecoder.FACTORY));
+      
+      Map<Long, BGGGame> gameMap = new HashMap<Long, BGGGame>(bggIDs.length * 2);
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          BGGGame game = BGGGameConverter.convertMongoToGame(object);
+          gameMap.put(game.getBggID(), game);
+        }
+      } finally {
+        cursor.close();
+      }
+      
+      //Put the results back in the order they were asked for
+      List<BGGGame> games = new ArrayList<BGGGame>(gameMap.size());
+      for (long id : bggIDs) {
+        BGGGame game = gameMap.get(id);
+        if (game != null) games.add(game);
+      }
+      
+      if (debugMode)
+        System.out.println ("Total documents found during this query:            " + games.size());
+      return games;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+  
   /*
    * (non-Javadoc)
    * @see com.ac.games.db.GamesDatabase#insertBGGGameData(com.ac.games.data.BGGGame)
@@ -236,7 +622,7 @@ public class MongoGamesDatabase implements GamesDatabase {
     try {
       //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
       //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingBGGDocID(game.getBggID());
+      ObjectId prevDocID = bggGameStore.readDocID(mongoDB, game.getBggID());
       if (prevDocID != null) {
         if (debugMode)
           System.out.println ("Converting insert into update because of prior document");
@@ -247,8 +633,15 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("bgggame");
       
-      BasicDBObject addObject = BGGGameConverter.convertGameToMongo(game);
-      WriteResult result = gameCollection.insert(addObject);
+      //The codec's output can't take an extra field, so a hashed insert goes through the plain converter
+      DBObject addObject = null;
+      if (changeDetectionMode) {
+        addObject = BGGGameConverter.convertGameToMongo(game);
+        addObject.put(ContentHash.FIELD, ContentHash.hashDocument(addObject));
+      } else addObject = BGGGameConverter.encodeGameToMongo(game, new ObjectId());
+      WriteResult result = gameCollection.insert(Collections.singletonList(addObject), gameCollection.getWriteConcern(), CodecDBEncoder.FACTORY.create());
+      recordCountChange("bgggame", 1);
+      applyStatsChange(BGGGameStats.BGG_GAME_STATS, StatsConverter.convertBGGGameChangeToStatsUpdate(null, addObject));
       
       if (debugMode) {
         System.out.println ("The number of documents impacted by this operation: " + result.getN());
@@ -280,13 +673,27 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("bgggame");
       BasicDBObject queryObject  = BGGGameConverter.convertGameToIDQuery(game);
-      BasicDBObject updateObject = BGGGameConverter.convertGameToMongo(game);
-      WriteResult result = gameCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
+      //The codec's output can't take an extra field, so a hashed update goes through the plain converter
+      DBObject updateObject = null;
+      DBObject prevObject   = null;
+      if (changeDetectionMode) {
+        BasicDBObject hashedObject = BGGGameConverter.convertGameToMongo(game);
+        HashedWrite write = replaceIfChanged(gameCollection, queryObject, hashedObject);
+        if (write == null) return;
+        updateObject = hashedObject;
+        prevObject   = write.getPrevObject();
+      } else {
+        //findAndModify hands back the stats fields of the document this write replaced, so the stats deltas
+        //are taken against exactly the state we overwrote, even with other writers in flight
+        updateObject = BGGGameConverter.encodeGameToMongo(game, null);
+        prevObject   = findAndReplace(gameCollection, queryObject, StatsConverter.convertStatsFieldsProjection(), updateObject);
       }
+      if (prevObject == null) recordCountChange("bgggame", 1);
+      applyStatsChange(BGGGameStats.BGG_GAME_STATS, StatsConverter.convertBGGGameChangeToStatsUpdate(prevObject, updateObject));
+      awaitJournal(gameCollection);
+      
+      if (debugMode)
+        System.out.println ("Was this update converted to an insert?             " + (prevObject == null));
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
@@ -312,10 +719,27 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("bgggame");
       BasicDBObject deleteObject  = BGGGameConverter.convertGameToIDQuery(bggID);
+      //Read the stats fields of everything the delete matches, then take it all with one remove, so the
+      //stats row moves by the total in a single $inc
+      BasicDBObject statsUpdate = null;
+      int matched = 0;
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(deleteObject, StatsConverter.convertStatsFieldsProjection()));
+      try {
+        while (cursor.hasNext()) {
+          statsUpdate = StatsConverter.combineStatsUpdates(statsUpdate, StatsConverter.convertBGGGameChangeToStatsUpdate(cursor.next(), null));
+          matched++;
+        }
+      } finally {
+        cursor.close();
+      }
+      
       WriteResult result = gameCollection.remove(deleteObject);
+      int removed = result.getN();
+      recordCountChange("bgggame", -removed);
+      applyRemovalStatsChange(BGGGameStats.BGG_GAME_STATS, statsUpdate, matched, removed);
       
       if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+        System.out.println ("The number of documents impacted by this operation: " + removed);
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
@@ -324,30 +748,6 @@ public class MongoGamesDatabase implements GamesDatabase {
     }
   }
   
-  /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
-   * 
-   * @param bggID The game we want to verify if it exists or not.
-   * 
-   * @return The "_id" key from our existing object, or null if not found
-   */
-  private ObjectId queryForExistingBGGDocID(long bggID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection gameCollection = mongoDB.getCollection("bgggame");
-    BasicDBObject searchObject  = BGGGameConverter.convertGameToIDQuery(bggID);
-    
-    DBCursor cursor = gameCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
-    }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
-  }
-  
   /*
    * (non-Javadoc)
    * @see com.ac.games.db.GamesDatabase#readCSIPriceData(long)
@@ -357,36 +757,26 @@ public class MongoGamesDatabase implements GamesDatabase {
     if (csiID < 0)
       throw new DatabaseOperationException("The provided price data object was not valid.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    return csiDataStore.read(mongoDB, csiID);
+  }
+  
+  /**
+   * Reads a batch of CoolStuffInc items by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
+   * 
+   * @param csiIDs The IDs of the CoolStuffInc items we want.
+   * 
+   * @return The CoolStuffInc items found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, CoolStuffIncPriceData> readCSIPriceData(long[] csiIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (csiIDs == null)
+      throw new DatabaseOperationException("The provided csiIDs object was not valid.");
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection gameCollection = mongoDB.getCollection("csidata");
-      BasicDBObject searchObject  = CSIDataConverter.convertCSIToIDQuery(csiID);
-      
-      DBCursor cursor = gameCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      CoolStuffIncPriceData data = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        data = CSIDataConverter.convertMongoToCSI(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      if (debugMode)
-        System.out.println ("The game found by this query was:                   " + (data == null ? "Nothing Found" : data.getTitle()));
-      return data;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
-    }
+    return csiDataStore.readAll(mongoDB, csiIDs, multiGetChunkSize);
   }
 
   /*
@@ -405,7 +795,7 @@ public class MongoGamesDatabase implements GamesDatabase {
     try {
       //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
       //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingCSIDocID(csiData.getCsiID());
+      ObjectId prevDocID = csiDataStore.readDocID(mongoDB, csiData.getCsiID());
       if (prevDocID != null) {
         if (debugMode)
           System.out.println ("Converting insert into update because of prior document");
@@ -417,7 +807,12 @@ public class MongoGamesDatabase implements GamesDatabase {
       DBCollection gameCollection = mongoDB.getCollection("csidata");
       
       BasicDBObject addObject = CSIDataConverter.convertCSIToMongo(csiData);
+      if (changeDetectionMode) addObject.append(ContentHash.FIELD, ContentHash.hashDocument(addObject));
       WriteResult result = gameCollection.insert(addObject);
+      recordCountChange("csidata", 1);
+      applyStatsChange(CSIDataStats.CSI_DATA_STATS, StatsConverter.convertCSIDataChangeToStatsUpdate(null, addObject));
+      if (priceHistoryMode) recordGenericPriceObservation(PriceHistoryConverter.SOURCE_CSI, csiData.getCsiID(), csiData.getCurPrice(), csiData.getAvailability());
+      if (bestPriceMode)    refreshBestPricesForItem(GameReltnConverter.convertCsiIDToReltnQuery(csiData.getCsiID()));
       
       if (debugMode) {
         System.out.println ("The number of documents impacted by this operation: " + result.getN());
@@ -450,12 +845,27 @@ public class MongoGamesDatabase implements GamesDatabase {
       DBCollection gameCollection = mongoDB.getCollection("csidata");
       BasicDBObject queryObject  = CSIDataConverter.convertCSIToIDQuery(csiData);
       BasicDBObject updateObject = CSIDataConverter.convertCSIToMongo(csiData);
-      WriteResult result = gameCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
+      DBObject prevObject = null;
+      if (changeDetectionMode) {
+        HashedWrite write = replaceIfChanged(gameCollection, queryObject, updateObject);
+        if (write == null) {
+          //The price was still seen tonight, even though nothing about the item changed
+          if (priceHistoryMode) recordGenericPriceObservation(PriceHistoryConverter.SOURCE_CSI, csiData.getCsiID(), csiData.getCurPrice(), csiData.getAvailability());
+          return;
+        }
+        prevObject = write.getPrevObject();
+      } else {
+        //As with bgggame, take the replaced document's stats fields back so the stats deltas stay exact
+        prevObject = gameCollection.findAndModify(queryObject, StatsConverter.convertStatsFieldsProjection(), null, false, updateObject, false, true);
       }
+      if (prevObject == null) recordCountChange("csidata", 1);
+      applyStatsChange(CSIDataStats.CSI_DATA_STATS, StatsConverter.convertCSIDataChangeToStatsUpdate(prevObject, updateObject));
+      awaitJournal(gameCollection);
+      if (priceHistoryMode) recordGenericPriceObservation(PriceHistoryConverter.SOURCE_CSI, csiData.getCsiID(), csiData.getCurPrice(), csiData.getAvailability());
+      if (bestPriceMode)    refreshBestPricesForItem(GameReltnConverter.convertCsiIDToReltnQuery(csiData.getCsiID()));
+      
+      if (debugMode)
+        System.out.println ("Was this update converted to an insert?             " + (prevObject == null));
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
@@ -481,10 +891,28 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("csidata");
       BasicDBObject deleteObject  = CSIDataConverter.convertCSIToIDQuery(csiID);
+      //Read the stats fields of everything the delete matches, then take it all with one remove, so the
+      //stats row moves by the total in a single $inc
+      BasicDBObject statsUpdate = null;
+      int matched = 0;
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(deleteObject, StatsConverter.convertStatsFieldsProjection()));
+      try {
+        while (cursor.hasNext()) {
+          statsUpdate = StatsConverter.combineStatsUpdates(statsUpdate, StatsConverter.convertCSIDataChangeToStatsUpdate(cursor.next(), null));
+          matched++;
+        }
+      } finally {
+        cursor.close();
+      }
+      
       WriteResult result = gameCollection.remove(deleteObject);
+      int removed = result.getN();
+      recordCountChange("csidata", -removed);
+      applyRemovalStatsChange(CSIDataStats.CSI_DATA_STATS, statsUpdate, matched, removed);
+      if (bestPriceMode && removed > 0) refreshBestPricesForItem(GameReltnConverter.convertCsiIDToReltnQuery(csiID));
       
       if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+        System.out.println ("The number of documents impacted by this operation: " + removed);
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
@@ -493,80 +921,45 @@ public class MongoGamesDatabase implements GamesDatabase {
     }
   }
 
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readMMPriceData(long)
+   */
+  public MiniatureMarketPriceData readMMPriceData(long mmID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (mmID < 0)
+      throw new DatabaseOperationException("The provided price data object was not valid.");
+    
+    return mmDataStore.read(mongoDB, mmID);
+  }
+  
   /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
+   * Reads a batch of Miniature Market items by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
    * 
-   * @param csiID The game we want to verify if it exists or not.
+   * @param mmIDs The IDs of the Miniature Market items we want.
    * 
-   * @return The "_id" key from our existing object, or null if not found
+   * @return The Miniature Market items found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  private ObjectId queryForExistingCSIDocID(long csiID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection gameCollection = mongoDB.getCollection("csidata");
-    BasicDBObject searchObject  = CSIDataConverter.convertCSIToIDQuery(csiID);
+  public Map<Long, MiniatureMarketPriceData> readMMPriceData(long[] mmIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (mmIDs == null)
+      throw new DatabaseOperationException("The provided mmIDs object was not valid.");
     
-    DBCursor cursor = gameCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
-    }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
+    return mmDataStore.readAll(mongoDB, mmIDs, multiGetChunkSize);
   }
-  
+
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readMMPriceData(long)
+   * @see com.ac.games.db.GamesDatabase#insertMMPriceData(com.ac.games.data.MiniatureMarketPriceData)
    */
-  public MiniatureMarketPriceData readMMPriceData(long mmID) throws ConfigurationException, DatabaseOperationException {
+  public void insertMMPriceData(MiniatureMarketPriceData mmData) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (mmID < 0)
-      throw new DatabaseOperationException("The provided price data object was not valid.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection gameCollection = mongoDB.getCollection("mmdata");
-      BasicDBObject searchObject  = MMDataConverter.convertMMToIDQuery(mmID);
-      
-      DBCursor cursor = gameCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      MiniatureMarketPriceData data = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        data = MMDataConverter.convertMongoToMM(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      
-      if (debugMode)
-        System.out.println ("The game found by this query was:                   " + (data == null ? "Nothing Found" : data.getTitle()));
-      return data;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
-    }
-  }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertMMPriceData(com.ac.games.data.MiniatureMarketPriceData)
-   */
-  public void insertMMPriceData(MiniatureMarketPriceData mmData) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (mmData == null)
-      throw new DatabaseOperationException("The provided price data object was null.");
+    if (mmData == null)
+      throw new DatabaseOperationException("The provided price data object was null.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
@@ -575,7 +968,7 @@ public class MongoGamesDatabase implements GamesDatabase {
     try {
       //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
       //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingMMDocID(mmData.getMmID());
+      ObjectId prevDocID = mmDataStore.readDocID(mongoDB, mmData.getMmID());
       if (prevDocID != null) {
         if (debugMode)
           System.out.println ("Converting insert into update because of prior document");
@@ -587,7 +980,12 @@ public class MongoGamesDatabase implements GamesDatabase {
       DBCollection gameCollection = mongoDB.getCollection("mmdata");
       
       BasicDBObject addObject = MMDataConverter.convertMMToMongo(mmData);
+      if (changeDetectionMode) addObject.append(ContentHash.FIELD, ContentHash.hashDocument(addObject));
       WriteResult result = gameCollection.insert(addObject);
+      recordCountChange("mmdata", 1);
+      applyStatsChange(MMDataStats.MM_DATA_STATS, StatsConverter.convertMMDataChangeToStatsUpdate(null, addObject));
+      if (priceHistoryMode) recordGenericPriceObservation(PriceHistoryConverter.SOURCE_MM, mmData.getMmID(), mmData.getCurPrice(), mmData.getAvailability());
+      if (bestPriceMode)    refreshBestPricesForItem(GameReltnConverter.convertMmIDToReltnQuery(mmData.getMmID()));
       
       if (debugMode) {
         System.out.println ("The number of documents impacted by this operation: " + result.getN());
@@ -620,12 +1018,27 @@ public class MongoGamesDatabase implements GamesDatabase {
       DBCollection gameCollection = mongoDB.getCollection("mmdata");
       BasicDBObject queryObject  = MMDataConverter.convertMMToIDQuery(mmData);
       BasicDBObject updateObject = MMDataConverter.convertMMToMongo(mmData);
-      WriteResult result = gameCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
+      DBObject prevObject = null;
+      if (changeDetectionMode) {
+        HashedWrite write = replaceIfChanged(gameCollection, queryObject, updateObject);
+        if (write == null) {
+          //The price was still seen tonight, even though nothing about the item changed
+          if (priceHistoryMode) recordGenericPriceObservation(PriceHistoryConverter.SOURCE_MM, mmData.getMmID(), mmData.getCurPrice(), mmData.getAvailability());
+          return;
+        }
+        prevObject = write.getPrevObject();
+      } else {
+        //As with bgggame, take the replaced document's stats fields back so the stats deltas stay exact
+        prevObject = gameCollection.findAndModify(queryObject, StatsConverter.convertStatsFieldsProjection(), null, false, updateObject, false, true);
       }
+      if (prevObject == null) recordCountChange("mmdata", 1);
+      applyStatsChange(MMDataStats.MM_DATA_STATS, StatsConverter.convertMMDataChangeToStatsUpdate(prevObject, updateObject));
+      awaitJournal(gameCollection);
+      if (priceHistoryMode) recordGenericPriceObservation(PriceHistoryConverter.SOURCE_MM, mmData.getMmID(), mmData.getCurPrice(), mmData.getAvailability());
+      if (bestPriceMode)    refreshBestPricesForItem(GameReltnConverter.convertMmIDToReltnQuery(mmData.getMmID()));
+      
+      if (debugMode)
+        System.out.println ("Was this update converted to an insert?             " + (prevObject == null));
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
@@ -651,10 +1064,28 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("mmdata");
       BasicDBObject deleteObject  = MMDataConverter.convertMMToIDQuery(mmID);
+      //Read the stats fields of everything the delete matches, then take it all with one remove, so the
+      //stats row moves by the total in a single $inc
+      BasicDBObject statsUpdate = null;
+      int matched = 0;
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(deleteObject, StatsConverter.convertStatsFieldsProjection()));
+      try {
+        while (cursor.hasNext()) {
+          statsUpdate = StatsConverter.combineStatsUpdates(statsUpdate, StatsConverter.convertMMDataChangeToStatsUpdate(cursor.next(), null));
+          matched++;
+        }
+      } finally {
+        cursor.close();
+      }
+      
       WriteResult result = gameCollection.remove(deleteObject);
+      int removed = result.getN();
+      recordCountChange("mmdata", -removed);
+      applyRemovalStatsChange(MMDataStats.MM_DATA_STATS, statsUpdate, matched, removed);
+      if (bestPriceMode && removed > 0) refreshBestPricesForItem(GameReltnConverter.convertMmIDToReltnQuery(mmID));
       
       if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+        System.out.println ("The number of documents impacted by this operation: " + removed);
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
@@ -664,28 +1095,272 @@ public class MongoGamesDatabase implements GamesDatabase {
   }
 
   /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
+   * Appends the current price of a CoolStuffInc item to its price history.  This happens automatically
+   * on insert and update while {@link #setPriceHistoryMode(boolean)} is on.
    * 
-   * @param mmID The game we want to verify if it exists or not.
+   * @param csiData The item, whose curPrice and availability are recorded as of now.
    * 
-   * @return The "_id" key from our existing object, or null if not found
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  private ObjectId queryForExistingMMDocID(long mmID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection gameCollection = mongoDB.getCollection("mmdata");
-    BasicDBObject searchObject  = MMDataConverter.convertMMToIDQuery(mmID);
+  public void recordCSIPriceObservation(CoolStuffIncPriceData csiData) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (csiData == null)
+      throw new DatabaseOperationException("The provided price data object was null.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      recordGenericPriceObservation(PriceHistoryConverter.SOURCE_CSI, csiData.getCsiID(), csiData.getCurPrice(), csiData.getAvailability());
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
+    }
+  }
+  
+  /**
+   * Appends the current price of a Miniature Market item to its price history.  This happens automatically
+   * on insert and update while {@link #setPriceHistoryMode(boolean)} is on.
+   * 
+   * @param mmData The item, whose curPrice and availability are recorded as of now.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public void recordMMPriceObservation(MiniatureMarketPriceData mmData) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (mmData == null)
+      throw new DatabaseOperationException("The provided price data object was null.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
     
-    DBCursor cursor = gameCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
+    //Run the operation
+    try {
+      recordGenericPriceObservation(PriceHistoryConverter.SOURCE_MM, mmData.getMmID(), mmData.getCurPrice(), mmData.getAvailability());
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
     }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
   }
+  
+  /**
+   * Reads the price observations for a CoolStuffInc item made within a date range.
+   * 
+   * @param csiID The item ID.
+   * @param fromDate The start of the range, inclusive.
+   * @param toDate The end of the range, inclusive.
+   * 
+   * @return The observations in date order, which will be empty if there are none.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public List<PriceObservation> readCSIPriceHistory(long csiID, Date fromDate, Date toDate) throws ConfigurationException, DatabaseOperationException {
+    return readGenericPriceHistory(PriceHistoryConverter.SOURCE_CSI, csiID, fromDate, toDate);
+  }
+  
+  /**
+   * Reads the price observations for a Miniature Market item made within a date range.
+   * 
+   * @param mmID The item ID.
+   * @param fromDate The start of the range, inclusive.
+   * @param toDate The end of the range, inclusive.
+   * 
+   * @return The observations in date order, which will be empty if there are none.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public List<PriceObservation> readMMPriceHistory(long mmID, Date fromDate, Date toDate) throws ConfigurationException, DatabaseOperationException {
+    return readGenericPriceHistory(PriceHistoryConverter.SOURCE_MM, mmID, fromDate, toDate);
+  }
+  
+  /**
+   * Works out the lowest, highest and average price of a CoolStuffInc item within a date range.
+   * 
+   * @param csiID The item ID.
+   * @param fromDate The start of the range, inclusive.
+   * @param toDate The end of the range, inclusive.
+   * 
+   * @return The rollup, which has a count of 0 if there were no observations.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public PriceRollup readCSIPriceRollup(long csiID, Date fromDate, Date toDate) throws ConfigurationException, DatabaseOperationException {
+    return readGenericPriceRollup(PriceHistoryConverter.SOURCE_CSI, csiID, fromDate, toDate);
+  }
+  
+  /**
+   * Works out the lowest, highest and average price of a Miniature Market item within a date range.
+   * 
+   * @param mmID The item ID.
+   * @param fromDate The start of the range, inclusive.
+   * @param toDate The end of the range, inclusive.
+   * 
+   * @return The rollup, which has a count of 0 if there were no observations.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public PriceRollup readMMPriceRollup(long mmID, Date fromDate, Date toDate) throws ConfigurationException, DatabaseOperationException {
+    return readGenericPriceRollup(PriceHistoryConverter.SOURCE_MM, mmID, fromDate, toDate);
+  }
+  
+  /**
+   * Builds the index behind the price history range queries.  Safe to call repeatedly.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public void ensurePriceHistoryIndexes() throws ConfigurationException, DatabaseOperationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    try {
+      mongoDB.getCollection(PriceHistoryConverter.HISTORY_COLLECTION).createIndex(PriceHistoryConverter.convertBucketIndexKeys());
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this index build: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened building the indexes", t);
+    }
+  }
+  
+  /**
+   * Helper method that appends one observation to its monthly bucket, creating the bucket if needed.
+   * Items without a known price are skipped.  Callers handle the connection checks and exceptions.
+   * 
+   * @param source The retailer source
+   * @param itemID The retailer item ID
+   * @param price The price seen
+   * @param availability The availability seen, if known
+   */
+  private void recordGenericPriceObservation(String source, long itemID, double price, GameAvailability availability) {
+    if (price < 0) return;
+    
+    PriceObservation observation = new PriceObservation(new Date(), price, availability);
+    DBCollection historyCollection = mongoDB.getCollection(PriceHistoryConverter.HISTORY_COLLECTION);
+    WriteResult result = historyCollection.update(PriceHistoryConverter.convertObservationToBucketQuery(source, itemID, observation.getObservationDate()),
+                                                  PriceHistoryConverter.convertObservationToBucketUpdate(source, itemID, observation), true, false);
+    
+    if (debugMode)
+      System.out.println ("Was a new price history bucket started?             " + !result.isUpdateOfExisting());
+  }
+  
+  /**
+   * Helper method that reads every price bucket for an item overlapping a date range.
+   * 
+   * @param source The retailer source
+   * @param itemID The retailer item ID
+   * @param fromDate The start of the range
+   * @param toDate The end of the range
+   * 
+   * @return The buckets in date order
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  private List<DBObject> readGenericPriceBuckets(String source, long itemID, Date fromDate, Date toDate) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (fromDate == null || toDate == null)
+      throw new DatabaseOperationException("The provided date range was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection historyCollection = mongoDB.getCollection(PriceHistoryConverter.HISTORY_COLLECTION);
+      
+      BasicDBObject queryObject = PriceHistoryConverter.convertRangeToBucketQuery(source, itemID, fromDate, toDate);
+      ManagedCursor cursor = cursorTracker.open(historyCollection.find(queryObject).sort(PriceHistoryConverter.convertBucketSort()));
+      
+      List<DBObject> buckets = new ArrayList<DBObject>();
+      try {
+        while (cursor.hasNext())
+          buckets.add(cursor.next());
+      } finally {
+        cursor.close();
+      }
+      
+      if (debugMode)
+        System.out.println ("Total price history buckets found:                  " + buckets.size());
+      
+      return buckets;
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+  
+  /**
+   * Helper method that reads the observations for an item within a date range.
+   * 
+   * @param source The retailer source
+   * @param itemID The retailer item ID
+   * @param fromDate The start of the range
+   * @param toDate The end of the range
+   * 
+   * @return The observations in date order
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  private List<PriceObservation> readGenericPriceHistory(String source, long itemID, Date fromDate, Date toDate) throws ConfigurationException, DatabaseOperationException {
+    List<PriceObservation> observations = new LinkedList<PriceObservation>();
+    for (DBObject bucket : readGenericPriceBuckets(source, itemID, fromDate, toDate)) {
+      List<?> entries = (List<?>)bucket.get("observations");
+      if (entries == null) continue;
+      
+      for (Object entry : entries) {
+        PriceObservation observation = PriceHistoryConverter.convertMongoToObservation((DBObject)entry);
+        Date date = observation.getObservationDate();
+        if (date != null && !date.before(fromDate) && !date.after(toDate))
+          observations.add(observation);
+      }
+    }
+    return observations;
+  }
+  
+  /**
+   * Helper method that rolls up the prices for an item within a date range.  A bucket that lies wholly
+   * inside the range is folded in from its running summary, so only the buckets at the edges of the
+   * range have their observations walked.
+   * 
+   * @param source The retailer source
+   * @param itemID The retailer item ID
+   * @param fromDate The start of the range
+   * @param toDate The end of the range
+   * 
+   * @return The rollup
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  private PriceRollup readGenericPriceRollup(String source, long itemID, Date fromDate, Date toDate) throws ConfigurationException, DatabaseOperationException {
+    PriceRollup rollup = new PriceRollup();
+    for (DBObject bucket : readGenericPriceBuckets(source, itemID, fromDate, toDate))
+      PriceHistoryConverter.addBucketToRollup(rollup, bucket, fromDate, toDate);
+    return rollup;
+  }
+  
 
   /*
    * (non-Javadoc)
@@ -720,36 +1395,26 @@ public class MongoGamesDatabase implements GamesDatabase {
     if (gameID < 0)
       throw new DatabaseOperationException("The provided game object was not valid.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    return gameStore.read(mongoDB, gameID);
+  }
+  
+  /**
+   * Reads a batch of games by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
+   * 
+   * @param gameIDs The IDs of the games we want.
+   * 
+   * @return The games found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, Game> readGame(long[] gameIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (gameIDs == null)
+      throw new DatabaseOperationException("The provided gameIDs object was not valid.");
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection gameCollection = mongoDB.getCollection("game");
-      BasicDBObject searchObject  = GameConverter.convertGameToIDQuery(gameID);
-      
-      DBCursor cursor = gameCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      Game game = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        game = GameConverter.convertMongoToGame(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      if (debugMode)
-        System.out.println ("The game found by this query was:                   " + (game == null ? "Nothing Found" : game.getName()));
-      return game;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
-    }
+    return gameStore.readAll(mongoDB, gameIDs, multiGetChunkSize);
   }
 
   /*
@@ -761,6 +1426,25 @@ public class MongoGamesDatabase implements GamesDatabase {
     if (bggID < 0)
       throw new DatabaseOperationException("The provided game object was not valid.");
     
+    return gameStore.readOne(mongoDB, GameConverter.convertGameToBGGIDQuery(bggID));
+  }
+
+  /**
+   * Reads a summary of the game: only the fields needed to render a list card are fetched and decoded.
+   * See {@link GameConverter#convertSummaryProjection()} for what is included.
+   * 
+   * @param gameID The gameID of the game we want.
+   * 
+   * @return A partially populated {@link Game}, or null if not found
+   * 
+   * @throws ConfigurationException Thrown if the database connection is not open
+   * @throws DatabaseOperationException Thrown if the query fails
+   */
+  public Game readGameSummary(long gameID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (gameID < 0)
+      throw new DatabaseOperationException("The provided game object was not valid.");
+    
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
@@ -768,20 +1452,20 @@ public class MongoGamesDatabase implements GamesDatabase {
     try {
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("game");
-      BasicDBObject searchObject  = GameConverter.convertGameToBGGIDQuery(bggID);
-      
-      DBCursor cursor = gameCollection.find(searchObject);
+      BasicDBObject searchObject  = GameConverter.convertGameToIDQuery(gameID);
       
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject, GameConverter.convertSummaryProjection()).setDecoderFactory(CodecDBDecoder.FACTORY));
       
       Game game = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        game = GameConverter.convertMongoToGame(object);
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          game = GameConverter.convertMongoToGame(object);
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
+      
       if (debugMode)
         System.out.println ("The game found by this query was:                   " + (game == null ? "Nothing Found" : game.getName()));
       return game;
@@ -792,47 +1476,80 @@ public class MongoGamesDatabase implements GamesDatabase {
       throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertGame(com.ac.games.data.Game)
+  
+  /**
+   * Reads summaries for a batch of games in a single query.  Only the fields needed to render a list
+   * card are fetched and decoded.  See {@link GameConverter#convertSummaryProjection()} for what is included.
+   * 
+   * @param gameIDs The gameIDs of the games we want.
+   * 
+   * @return The partially populated games, in the order requested.  IDs that were not found are skipped.
+   * 
+   * @throws ConfigurationException Thrown if the database connection is not open
+   * @throws DatabaseOperationException Thrown if the query fails
    */
-  public void insertGame(Game game) throws ConfigurationException, DatabaseOperationException {
+  public List<Game> readGameSummaries(long[] gameIDs) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (game == null)
-      throw new DatabaseOperationException("The provided game object was null.");
+    if (gameIDs == null)
+      throw new DatabaseOperationException("The provided gameIDs object was not valid.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
+    if (gameIDs.length == 0)
+      return new ArrayList<Game>(0);
+    
     //Run the operation
     try {
-      //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
-      //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingGameDocID(game.getGameID());
-      if (prevDocID != null) {
-        if (debugMode)
-          System.out.println ("Converting insert into update because of prior document");
-        updateGame(game);
-        return;
-      }
-      
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("game");
+      BasicDBObject searchObject  = GameConverter.convertGameIDsToQuery(gameIDs);
       
-      BasicDBObject addObject = GameConverter.convertGameToMongo(game);
-      WriteResult result = gameCollection.insert(addObject);
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject, GameConverter.convertSummaryProjection()).setDecoderFactory(CodecDBDecoder.FACTORY));
       
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this insert converted to an upsert?             " + result.isUpdateOfExisting());
-        System.out.println ("The new document _id value added:                   " + addObject.get("_id"));
+      Map<Long, Game> gameMap = new HashMap<Long, Game>(gameIDs.length * 2);
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          Game game = GameConverter.convertMongoToGame(object);
+          gameMap.put(game.getGameID(), game);
+        }
+      } finally {
+        cursor.close();
       }
       
+      //Put the results back in the order they were asked for
+      List<Game> games = new ArrayList<Game>(gameMap.size());
+      for (long id : gameIDs) {
+        Game game = gameMap.get(id);
+        if (game != null) games.add(game);
+      }
+      
+      if (debugMode)
+        System.out.println ("Total documents found during this query:            " + games.size());
+      return games;
+      
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#insertGame(com.ac.games.data.Game)
+   */
+  public void insertGame(Game game) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (game == null)
+      throw new DatabaseOperationException("The provided game object was null.");
+    
+    try {
+      if (gameStore.insert(mongoDB, game)) recordCountChange("game", 1);
+      else                                 updateGame(game);
+    } finally {
+      evictCachedGame(game.getGameID());
     }
   }
 
@@ -845,26 +1562,11 @@ public class MongoGamesDatabase implements GamesDatabase {
     if (game == null)
       throw new DatabaseOperationException("The provided game object was null.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
     try {
-      //Open the collection, i.e. table
-      DBCollection gameCollection = mongoDB.getCollection("game");
-      BasicDBObject queryObject  = GameConverter.convertGameToIDQuery(game);
-      BasicDBObject updateObject = GameConverter.convertGameToMongo(game);
-      WriteResult result = gameCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
-      }
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the update", t);
+      WriteResult result = gameStore.update(mongoDB, game);
+      if (result.getUpsertedId() != null) recordCountChange("game", 1);
+    } finally {
+      evictCachedGame(game.getGameID());
     }
   }
 
@@ -877,25 +1579,26 @@ public class MongoGamesDatabase implements GamesDatabase {
     if (gameID < 0)
       throw new DatabaseOperationException("The provided game object was not valid.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
     try {
-      //Open the collection, i.e. table
-      DBCollection gameCollection = mongoDB.getCollection("game");
-      BasicDBObject deleteObject  = GameConverter.convertGameToIDQuery(gameID);
-      WriteResult result = gameCollection.remove(deleteObject);
-      
-      if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the delete", t);
+      recordCountChange("game", -gameStore.delete(mongoDB, gameID));
+    } finally {
+      evictCachedGame(gameID);
     }
   }
+  
+  /**
+   * Drops a game from the game cache once a write to it has finished, whether or not the write worked.
+   * Evicting before the write would leave a gap where a concurrent hydration could read the old document
+   * and cache it again after the eviction, where it would stay until it aged out.  A hydration whose
+   * query finished before the write but whose put lands after this eviction can still cache the old
+   * copy; that narrower window is bounded by the cache's max age and by the oplog tail, when running.
+   * 
+   * @param gameID The ID of the game that was written.
+   */
+  private void evictCachedGame(long gameID) {
+    DocumentCache cache = gameCache;
+    if (cache != null) cache.remove(gameID);
+  }
 
   /*
    * (non-Javadoc)
@@ -905,30 +1608,6 @@ public class MongoGamesDatabase implements GamesDatabase {
     return getGenericIDList("game", "gameID");
   }
 
-  /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
-   * 
-   * @param bggID The game we want to verify if it exists or not.
-   * 
-   * @return The "_id" key from our existing object, or null if not found
-   */
-  private ObjectId queryForExistingGameDocID(long gameID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection gameCollection = mongoDB.getCollection("game");
-    BasicDBObject searchObject  = GameConverter.convertGameToIDQuery(gameID);
-    
-    DBCursor cursor = gameCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
-    }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
-  }
-  
   /*
    * (non-Javadoc)
    * @see com.ac.games.db.GamesDatabase#readGameReltn(long)
@@ -938,36 +1617,32 @@ public class MongoGamesDatabase implements GamesDatabase {
     if (gameID < 0)
       throw new DatabaseOperationException("The provided game relation data was not valid.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection reltnCollection = mongoDB.getCollection("gamereltn");
-      BasicDBObject searchObject  = GameReltnConverter.convertGameReltnToGameIDQuery(gameID);
-      
-      DBCursor cursor = reltnCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      GameReltn gameReltn = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        gameReltn = GameReltnConverter.convertMongoToGameReltn(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      if (debugMode)
-        System.out.println ("The game found by this query was:                   " + (gameReltn == null ? "Nothing Found" : gameReltn.getReltnID()));
-      return gameReltn;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
-    }
+    return gameReltnStore.readOne(mongoDB, GameReltnConverter.convertGameReltnToGameIDQuery(gameID));
+  }
+  
+  /**
+   * Reads the relations for a batch of games, with one $in query per {@link #setMultiGetChunkSize(int) chunk}
+   * of gameIDs.  Like {@link #readGameReltn(long)}, this is keyed by gameID, and if a game has more than one
+   * relation the last one read is kept.
+   * 
+   * @param gameIDs The IDs of the games whose relations we want.
+   * 
+   * @return The relations found, keyed by gameID.  Games without a relation are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, GameReltn> readGameReltn(long[] gameIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (gameIDs == null)
+      throw new DatabaseOperationException("The provided gameIDs object was not valid.");
+    
+    List<GameReltn> reltns = gameReltnStore.readAllBy(mongoDB, "gameID", gameIDs, multiGetChunkSize);
+    Map<Long, GameReltn> reltnMap = new HashMap<Long, GameReltn>(reltns.size() * 2);
+    for (GameReltn reltn : reltns)
+      reltnMap.put(reltn.getGameID(), reltn);
+    return reltnMap;
   }
 
   /*
@@ -986,7 +1661,7 @@ public class MongoGamesDatabase implements GamesDatabase {
     try {
       //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
       //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingGameReltnDocID(gameReltn.getReltnID());
+      ObjectId prevDocID = gameReltnStore.readDocID(mongoDB, gameReltn.getReltnID());
       if (prevDocID != null) {
         if (debugMode)
           System.out.println ("Converting insert into update because of prior document");
@@ -999,6 +1674,8 @@ public class MongoGamesDatabase implements GamesDatabase {
       
       BasicDBObject addObject = GameReltnConverter.convertGameReltnToMongo(gameReltn);
       WriteResult result = reltnCollection.insert(addObject);
+      updateRetailerGameIndex(null, gameReltn);
+      if (bestPriceMode) storeBestPrices(new long[] { gameReltn.getGameID() });
       
       if (debugMode) {
         System.out.println ("The number of documents impacted by this operation: " + result.getN());
@@ -1031,12 +1708,15 @@ public class MongoGamesDatabase implements GamesDatabase {
       DBCollection reltnCollection = mongoDB.getCollection("gamereltn");
       BasicDBObject queryObject  = GameReltnConverter.convertGameReltnToIDQuery(gameReltn);
       BasicDBObject updateObject = GameReltnConverter.convertGameReltnToMongo(gameReltn);
-      WriteResult result = reltnCollection.update(queryObject, updateObject, true, false);
+      //Take the replaced relation's links back, so the in-memory retailer links only drop what it listed
+      DBObject prevObject = reltnCollection.findAndModify(queryObject, GameReltnConverter.convertRetailerLinksProjection(), null, false, updateObject, false, true);
+      awaitJournal(reltnCollection);
+      updateRetailerGameIndex(GameReltnConverter.convertMongoToGameReltn(prevObject), gameReltn);
+      //The full document replace drops any stored best price, so put it straight back
+      if (bestPriceMode) storeBestPrices(new long[] { gameReltn.getGameID() });
       
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
-      }
+      if (debugMode)
+        System.out.println ("Was this update converted to an insert?             " + (prevObject == null));
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
@@ -1062,10 +1742,14 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection reltnCollection = mongoDB.getCollection("gamereltn");
       BasicDBObject deleteObject  = GameReltnConverter.convertGameReltnToReltnIDQuery(reltnID);
-      WriteResult result = reltnCollection.remove(deleteObject);
+      //Take the links back from the removed relation, so the in-memory retailer links can drop them
+      DBObject prevObject = reltnCollection.findAndModify(deleteObject, GameReltnConverter.convertRetailerLinksProjection(), null, true, null, false, false);
+      awaitJournal(reltnCollection);
+      if (prevObject != null)
+        updateRetailerGameIndex(GameReltnConverter.convertMongoToGameReltn(prevObject), null);
       
       if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+        System.out.println ("Was a document removed by this operation?           " + (prevObject != null));
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
@@ -1075,1627 +1759,1675 @@ public class MongoGamesDatabase implements GamesDatabase {
   }
 
   /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
+   * Reads the game relation that lists a CoolStuffInc item.
    * 
-   * @param bggID The game we want to verify if it exists or not.
+   * @param csiID The CoolStuffInc ID.
    * 
-   * @return The "_id" key from our existing object, or null if not found
+   * @return The relation, or null if no game lists the item.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  private ObjectId queryForExistingGameReltnDocID(long reltnID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection reltnCollection = mongoDB.getCollection("gamereltn");
-    BasicDBObject searchObject  = GameReltnConverter.convertGameReltnToReltnIDQuery(reltnID);
-    
-    DBCursor cursor = reltnCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
-    }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
+  public GameReltn readGameReltnByCsiID(long csiID) throws ConfigurationException, DatabaseOperationException {
+    return readGameReltnByQuery(GameReltnConverter.convertCsiIDToReltnQuery(csiID));
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getGameReltnIDList()
+  
+  /**
+   * Reads the game relation that lists a Miniature Market item.
+   * 
+   * @param mmID The Miniature Market ID.
+   * 
+   * @return The relation, or null if no game lists the item.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public List<Long> getGameReltnIDList() throws ConfigurationException, DatabaseOperationException {
-    return getGenericIDList("gamereltn", "reltnID");
+  public GameReltn readGameReltnByMmID(long mmID) throws ConfigurationException, DatabaseOperationException {
+    return readGameReltnByQuery(GameReltnConverter.convertMmIDToReltnQuery(mmID));
   }
   
   /**
-   * Generic Helper method to only perform this code once.
+   * Reads the game relation that lists an Amazon ASIN.
    * 
-   * @param collection The collection, or table name, we are wanting the list of values for
-   * @param fieldName  The field name of the column we want the list of values for
+   * @param asinKey The ASIN.
    * 
-   * @return The List of requested values, or an empty list if nothing found
+   * @return The relation, or null if no game lists the ASIN.
    * 
    * @throws ConfigurationException Throws this exception if the database connection is not active.
    * @throws DatabaseOperationException Throws this exception if there are errors during the execution
    * of the requested operation.
    */
-  private List<Long> getGenericIDList(String collection, String fieldName) {
-    List<Long> resultList = new LinkedList<Long>();
-    try {
-      DBCollection reltnCollection = mongoDB.getCollection(collection);
-      //Limit the result set to reltnIDs
-      BasicDBObject columns = new BasicDBObject();
-      columns.put(fieldName, 1);
-      columns.put("_id", 0);
-      //Search for all documents, return only the bggID values
-      DBCursor cursor = reltnCollection.find(new BasicDBObject(), columns); 
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        long curID = (Long)object.get(fieldName);
-        if (!resultList.contains(curID))
-          resultList.add(curID);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
-    }
+  public GameReltn readGameReltnByAsinKey(String asinKey) throws ConfigurationException, DatabaseOperationException {
+    if (asinKey == null)
+      throw new DatabaseOperationException("The provided asinKey was not valid.");
     
-    return resultList;
+    return readGameReltnByQuery(GameReltnConverter.convertAsinKeyToReltnQuery(asinKey));
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxBGGGameID()
-   */
-  public long getMaxBGGGameID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("bgggame", "bggID");
-  }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxCSIDataID()
-   */
-  public long getMaxCSIDataID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("csidata", "csiID");
-  }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxMMDataID()
-   */
-  public long getMaxMMDataID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("mmdata", "mmID");
-  }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxGameID()
+  
+  /**
+   * Finds the game that lists a CoolStuffInc item.  Once {@link #loadRetailerGameIndex()} has been called
+   * this is answered from memory, otherwise it is a single indexed read.
+   * 
+   * @param csiID The CoolStuffInc ID.
+   * 
+   * @return The gameID, or -1 if no game lists the item.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public long getMaxGameID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("game", "gameID");
+  public long readGameIDByCsiID(long csiID) throws ConfigurationException, DatabaseOperationException {
+    LongLongMap index = csiGameIndex;
+    if (index != null) return index.get(csiID);
+    
+    GameReltn gameReltn = readGameReltnByCsiID(csiID);
+    return (gameReltn == null ? -1 : gameReltn.getGameID());
   }
   
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxGameReltnID()
+  /**
+   * Finds the game that lists a Miniature Market item.  See {@link #readGameIDByCsiID(long)}.
+   * 
+   * @param mmID The Miniature Market ID.
+   * 
+   * @return The gameID, or -1 if no game lists the item.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public long getMaxGameReltnID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("gamereltn", "reltnID");
+  public long readGameIDByMmID(long mmID) throws ConfigurationException, DatabaseOperationException {
+    LongLongMap index = mmGameIndex;
+    if (index != null) return index.get(mmID);
+    
+    GameReltn gameReltn = readGameReltnByMmID(mmID);
+    return (gameReltn == null ? -1 : gameReltn.getGameID());
   }
   
   /**
-   * Generic Helper method to only perform this code once.
-   * 
-   * @param collection The collection, or table name, we are wanting the max value on
-   * @param fieldName  The field name of the column we want the max performed on
+   * Loads every csiID and mmID to gameID link into memory, for crawlers that resolve items in a tight
+   * loop.  The maps hold primitive longs, so a large catalog costs a few megabytes at most.  Relation
+   * writes through this class keep the maps current until {@link #dropRetailerGameIndex()} is called or
+   * the connection is closed.  ASINs are strings, so they always go to the database.
    * 
-   * @return The max id value for this column in this collection, or -1 if not found
+   * @return The number of links loaded.
    * 
    * @throws ConfigurationException Throws this exception if the database connection is not active.
    * @throws DatabaseOperationException Throws this exception if there are errors during the execution
    * of the requested operation.
    */
-  private long getGenericMaxID(String collection, String fieldName) throws ConfigurationException, DatabaseOperationException {
+  public int loadRetailerGameIndex() throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
-    long result = 0;
     try {
-      DBCollection curCollection = mongoDB.getCollection(collection);
+      //Open the collection, i.e. table
+      DBCollection reltnCollection = mongoDB.getCollection("gamereltn");
+      int expected = (int)reltnCollection.count();
       
-      //This is the format we are trying to emulate:
-      //db.bgggame.aggregate( { $group : { _id  : "", maxValue : { $max : "$bggID" } } } )
-
-      DBObject maxObject         = new BasicDBObject("$max", "$" + fieldName);
-      DBObject groupFieldsObject = new BasicDBObject("_id", "");
-      groupFieldsObject.put("maxValue", maxObject);
-      DBObject groupObject       = new BasicDBObject("$group", groupFieldsObject);
+      LongLongMap csiIndex = new LongLongMap(expected);
+      LongLongMap mmIndex  = new LongLongMap(expected);
       
-      List<DBObject> pipeline = new ArrayList<DBObject>(1);
-      pipeline.add(groupObject);
+      ManagedCursor cursor = cursorTracker.open(reltnCollection.find(new BasicDBObject(), GameReltnConverter.convertRetailerLinksProjection()));
+      try {
+        while (cursor.hasNext())
+          indexRetailerLinks(csiIndex, mmIndex, GameReltnConverter.convertMongoToGameReltn(cursor.next()));
+      } finally {
+        cursor.close();
+      }
       
-      AggregationOutput output = curCollection.aggregate(pipeline);
-      for (DBObject object : output.results()) {
-        if (object.containsField("maxValue")) result = (Long)object.get("maxValue");
+      synchronized (retailerIndexLock) {
+        csiGameIndex = csiIndex;
+        mmGameIndex  = mmIndex;
       }
-
-      return result;
+      
+      if (debugMode)
+        System.out.println ("Retailer links loaded into memory:                  " + (csiIndex.size() + mmIndex.size()));
+      
+      return csiIndex.size() + mmIndex.size();
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
       throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
-
-  public int getBGGGameCount() throws ConfigurationException, DatabaseOperationException {
-    return getGenericCount("bgggame");
-  }
-
-  public int getCSIDataCount() throws ConfigurationException, DatabaseOperationException {
-    return getGenericCount("csidata");
-  }
-
-  public int getMMDataCount() throws ConfigurationException, DatabaseOperationException {
-    return getGenericCount("mmdata");
-  }
-
-  public int getGameCount() throws ConfigurationException, DatabaseOperationException {
-    return getGenericCount("game");
+  
+  /**
+   * Drops the in-memory retailer links, so lookups go back to the database.
+   */
+  public void dropRetailerGameIndex() {
+    synchronized (retailerIndexLock) {
+      csiGameIndex = null;
+      mmGameIndex  = null;
+    }
   }
-
+  
   /**
-   * Generic Helper method to only perform this code once.
-   * 
-   * @param collection The collection, or table name, we are wanting the row count
-   * @param fieldName  The field name of the column we want the row count for
-   * 
-   * @return The count of documents in this collection, or -1 if not found
+   * Builds the multikey indexes behind the reverse lookups on csiIDs, mmIDs and asinKeys, plus gameID.
+   * Safe to call repeatedly.
    * 
    * @throws ConfigurationException Throws this exception if the database connection is not active.
    * @throws DatabaseOperationException Throws this exception if there are errors during the execution
    * of the requested operation.
    */
-  private int getGenericCount(String collection) throws ConfigurationException, DatabaseOperationException {
+  public void ensureGameReltnIndexes() throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
-    int result = -1;
     try {
-      DBCollection curCollection = mongoDB.getCollection(collection);
-      
-      //This is the format we are trying to emulate:
-      //db.collection.aggregate( { $group : { _id  : "", count : { $sum : 1 } } } )
-
-      DBObject maxObject         = new BasicDBObject("$sum", 1);
-      DBObject groupFieldsObject = new BasicDBObject("_id", "");
-      groupFieldsObject.put("count", maxObject);
-      DBObject groupObject       = new BasicDBObject("$group", groupFieldsObject);
-      
-      List<DBObject> pipeline = new ArrayList<DBObject>(1);
-      pipeline.add(groupObject);
-      
-      AggregationOutput output = curCollection.aggregate(pipeline);
-      for (DBObject object : output.results()) {
-        if (object.containsField("count")) result = (Integer)object.get("count");
-      }
-      return result;
+      DBCollection reltnCollection = mongoDB.getCollection("gamereltn");
+      for (BasicDBObject indexKeys : GameReltnConverter.convertReverseLookupIndexKeys())
+        reltnCollection.createIndex(indexKeys);
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this index build: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
+      throw new DatabaseOperationException("Something bad happened building the indexes", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readUser(java.lang.String)
+  
+  /**
+   * Helper method that reads the first game relation matching a query.
+   * 
+   * @param searchObject The query
+   * 
+   * @return The relation, or null if none matched
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public User readUser(String userName) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (userName == null)
-      throw new DatabaseOperationException("The provided user name was not valid.");
-    
+  private GameReltn readGameReltnByQuery(BasicDBObject searchObject) throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
     //Run the operation
     try {
       //Open the collection, i.e. table
-      DBCollection userCollection = mongoDB.getCollection("user");
-      BasicDBObject searchObject  = UserConverter.convertUserToNameQuery(userName);
-      
-      DBCursor cursor = userCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
+      DBCollection reltnCollection = mongoDB.getCollection("gamereltn");
+      ManagedCursor cursor = cursorTracker.open(reltnCollection.find(searchObject).limit(1));
       
-      User user = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        user = UserConverter.convertMongoToUser(object);
+      GameReltn gameReltn = null;
+      try {
+        while (cursor.hasNext())
+          gameReltn = GameReltnConverter.convertMongoToGameReltn(cursor.next());
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-      
-      if (debugMode)
-        System.out.println ("The user found by this query was:                   " + (user == null ? "Nothing Found" : user.getUserName()));
-      return user;
       
+      return gameReltn;
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
       throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
+  
+  /**
+   * Helper method that adds a relation's retailer links to the in-memory maps.
+   * 
+   * @param csiIndex The csiID to gameID map
+   * @param mmIndex The mmID to gameID map
+   * @param gameReltn The relation
+   */
+  private static void indexRetailerLinks(LongLongMap csiIndex, LongLongMap mmIndex, GameReltn gameReltn) {
+    if (gameReltn.getCsiIDs() != null)
+      for (Long csiID : gameReltn.getCsiIDs()) csiIndex.put(csiID, gameReltn.getGameID());
+    if (gameReltn.getMmIDs() != null)
+      for (Long mmID : gameReltn.getMmIDs())   mmIndex.put(mmID, gameReltn.getGameID());
+  }
+  
+  /**
+   * Helper method that brings the in-memory retailer links, if loaded, in line with a relation write.
+   * Only the links the previous relation listed are looked at for removal, and links the relation keeps
+   * are overwritten in place rather than removed and added back, so a lookup never misses a link that
+   * survives the write.  Both maps change under {@link #retailerIndexLock}, so a reader holding it sees
+   * the write in both or in neither.
+   * 
+   * @param prevReltn The relation as it was before the write, holding at least its links, or null if new
+   * @param gameReltn The relation as written, or null if it was deleted
+   */
+  private void updateRetailerGameIndex(GameReltn prevReltn, GameReltn gameReltn) {
+    synchronized (retailerIndexLock) {
+      LongLongMap csiIndex = csiGameIndex;
+      LongLongMap mmIndex  = mmGameIndex;
+      if (csiIndex == null || mmIndex == null) return;
+      
+      if (prevReltn != null) {
+        removeDroppedLinks(csiIndex, prevReltn.getGameID(), prevReltn.getCsiIDs(), (gameReltn == null ? null : gameReltn.getCsiIDs()));
+        removeDroppedLinks(mmIndex, prevReltn.getGameID(), prevReltn.getMmIDs(), (gameReltn == null ? null : gameReltn.getMmIDs()));
+      }
+      if (gameReltn != null) indexRetailerLinks(csiIndex, mmIndex, gameReltn);
+    }
+  }
+  
+  /**
+   * Helper method that removes the links a relation no longer lists, provided they still point at its game.
+   * 
+   * @param index The map to update
+   * @param gameID The game the links pointed at
+   * @param prevIDs The retailer IDs the relation listed before the write, or null
+   * @param newIDs The retailer IDs it lists now, or null
+   */
+  private static void removeDroppedLinks(LongLongMap index, long gameID, List<Long> prevIDs, List<Long> newIDs) {
+    if (prevIDs == null) return;
+    for (Long retailerID : prevIDs) {
+      if (newIDs != null && newIDs.contains(retailerID)) continue;
+      if (index.get(retailerID) == gameID) index.remove(retailerID);
+    }
+  }
+  
 
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readUser(java.lang.String)
+  /**
+   * Finds the cheapest in-stock offer for a game across the retailers linked through its {@link GameReltn}.
+   * 
+   * @param gameID The game to look up.
+   * 
+   * @return The best offer, or null if the game has no in-stock, priced offers.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public User readUser(long userID) throws ConfigurationException, DatabaseOperationException {
+  public PriceOffer readBestPrice(long gameID) throws ConfigurationException, DatabaseOperationException {
+    return readBestPrices(new long[] { gameID }).get(gameID);
+  }
+  
+  /**
+   * Finds the cheapest in-stock offer for many games at once.  However many games are asked for, this
+   * costs three round trips: the relationships, then the linked CoolStuffInc items, then the linked
+   * Miniature Market items, each read with $in and a projection.
+   * 
+   * @param gameIDs The games to look up.
+   * 
+   * @return The best offer per gameID.  Games with no in-stock, priced offers are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, PriceOffer> readBestPrices(long[] gameIDs) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (userID < 0)
-      throw new DatabaseOperationException("The provided user ID was not valid.");
+    if (gameIDs == null)
+      throw new DatabaseOperationException("The provided gameIDs were not valid.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
     //Run the operation
     try {
-      //Open the collection, i.e. table
-      DBCollection userCollection = mongoDB.getCollection("user");
-      BasicDBObject searchObject  = UserConverter.convertUserToIDQuery(userID);
-      
-      DBCursor cursor = userCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      User user = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        user = UserConverter.convertMongoToUser(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-      
-      if (debugMode)
-        System.out.println ("The user found by this query was:                   " + (user == null ? "Nothing Found" : user.getUserName()));
-      return user;
-      
+      return computeBestPrices(gameIDs);
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
       throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertUser(com.ac.games.data.User)
+  
+  /**
+   * Reads the best offers stored on the relationships of many games, in a single projected read.  The
+   * stored offers are kept current by {@link #setBestPriceMode(boolean)}, or brought up to date with
+   * {@link #refreshBestPrices(long[])}.
+   * 
+   * @param gameIDs The games to look up.
+   * 
+   * @return The stored best offer per gameID.  Games without one are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public void insertUser(User user) throws ConfigurationException, DatabaseOperationException {
+  public Map<Long, PriceOffer> readStoredBestPrices(long[] gameIDs) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (user == null)
-      throw new DatabaseOperationException("The provided user object was null.");
+    if (gameIDs == null)
+      throw new DatabaseOperationException("The provided gameIDs were not valid.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
     //Run the operation
     try {
-      //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
-      //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingUserDocID(user.getUserID());
-      if (prevDocID != null) {
-        if (debugMode)
-          System.out.println ("Converting insert into update because of prior document");
-        updateUser(user);
-        return;
-      }
-      
       //Open the collection, i.e. table
-      DBCollection userCollection = mongoDB.getCollection("user");
-      
-      BasicDBObject addObject = UserConverter.convertUserToMongo(user);
-      WriteResult result = userCollection.insert(addObject);
+      DBCollection reltnCollection = mongoDB.getCollection("gamereltn");
       
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this insert converted to an upsert?             " + result.isUpdateOfExisting());
-        System.out.println ("The new document _id value added:                   " + addObject.get("_id"));
+      ManagedCursor cursor = cursorTracker.open(reltnCollection.find(BestPriceConverter.convertGameIDsToReltnQuery(gameIDs), BestPriceConverter.convertBestPriceProjection()));
+      Map<Long, PriceOffer> offers = new HashMap<Long, PriceOffer>();
+      try {
+        while (cursor.hasNext()) {
+          PriceOffer offer = BestPriceConverter.convertMongoToBestPrice(cursor.next());
+          if (offer != null) offers.put(offer.getGameID(), offer);
+        }
+      } finally {
+        cursor.close();
       }
       
+      return offers;
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#updateUser(com.ac.games.data.User)
+  
+  /**
+   * Works out the best offer for many games and stores it on their relationships as the bestPrice field.
+   * 
+   * @param gameIDs The games to refresh.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public void updateUser(User user) throws ConfigurationException, DatabaseOperationException {
+  public void refreshBestPrices(long[] gameIDs) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (user == null)
-      throw new DatabaseOperationException("The provided user object was null.");
+    if (gameIDs == null)
+      throw new DatabaseOperationException("The provided gameIDs were not valid.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
     //Run the operation
     try {
-      //Open the collection, i.e. table
-      DBCollection userCollection = mongoDB.getCollection("user");
-      BasicDBObject queryObject  = UserConverter.convertUserToIDQuery(user);
-      BasicDBObject updateObject = UserConverter.convertUserToMongo(user);
-      WriteResult result = userCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
-      }
-      
+      storeBestPrices(gameIDs);
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
     } catch (Throwable t) {
       throw new DatabaseOperationException("Something bad happened executing the update", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#deleteUser(long)
+  
+  /**
+   * Helper method that works out the best offers for many games.  Callers handle the connection checks
+   * and exceptions.
+   * 
+   * @param gameIDs The games to look up
+   * 
+   * @return The best offer per gameID
    */
-  public void deleteUser(long userID) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (userID < 0)
-      throw new DatabaseOperationException("The provided user object was not valid.");
+  private Map<Long, PriceOffer> computeBestPrices(long[] gameIDs) {
+    Map<Long, PriceOffer> offers = new HashMap<Long, PriceOffer>();
+    if (gameIDs.length == 0) return offers;
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    //An item can be linked to more than one game, so map each item to every game it belongs to
+    Map<Long, List<Long>> csiGames = new HashMap<Long, List<Long>>();
+    Map<Long, List<Long>> mmGames  = new HashMap<Long, List<Long>>();
     
-    //Run the operation
+    ManagedCursor cursor = cursorTracker.open(mongoDB.getCollection("gamereltn").find(BestPriceConverter.convertGameIDsToReltnQuery(gameIDs), GameReltnConverter.convertRetailerLinksProjection()));
     try {
-      //Open the collection, i.e. table
-      DBCollection userCollection = mongoDB.getCollection("user");
-      BasicDBObject deleteObject  = UserConverter.convertUserToIDQuery(userID);
-      WriteResult result = userCollection.remove(deleteObject);
-      
-      if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the delete", t);
+      while (cursor.hasNext()) {
+        GameReltn gameReltn = GameReltnConverter.convertMongoToGameReltn(cursor.next());
+        BestPriceConverter.mapItemsToGame(csiGames, gameReltn.getCsiIDs(), gameReltn.getGameID());
+        BestPriceConverter.mapItemsToGame(mmGames, gameReltn.getMmIDs(), gameReltn.getGameID());
+      }
+    } finally {
+      cursor.close();
     }
-  }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxUserID()
-   */
-  public long getMaxUserID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("user", "userID");
+    
+    collectBestOffers(offers, "csidata", "csiID", PriceHistoryConverter.SOURCE_CSI, csiGames);
+    collectBestOffers(offers, "mmdata", "mmID", PriceHistoryConverter.SOURCE_MM, mmGames);
+    
+    if (debugMode)
+      System.out.println ("Best prices found for " + offers.size() + " of " + gameIDs.length + " games");
+    
+    return offers;
   }
   
   /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
-   * 
-   * @param userID The game we want to verify if it exists or not.
+   * Helper method that reads the in-stock offers for a set of retailer items and keeps the cheapest per game.
    * 
-   * @return The "_id" key from our existing object, or null if not found
+   * @param offers The best offer per gameID found so far
+   * @param collection The retailer collection
+   * @param idField The retailer ID field
+   * @param source The retailer source name
+   * @param itemGames The games each retailer item is linked to
    */
-  private ObjectId queryForExistingUserDocID(long userID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection userCollection = mongoDB.getCollection("user");
-    BasicDBObject searchObject  = UserConverter.convertUserToIDQuery(userID);
+  private void collectBestOffers(Map<Long, PriceOffer> offers, String collection, String idField, String source, Map<Long, List<Long>> itemGames) {
+    if (itemGames.isEmpty()) return;
     
-    DBCursor cursor = userCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
+    ManagedCursor cursor = cursorTracker.open(mongoDB.getCollection(collection).find(BestPriceConverter.convertItemIDsToOfferQuery(idField, itemGames.keySet()), 
+                                                             BestPriceConverter.convertOfferProjection(idField)));
+    try {
+      while (cursor.hasNext()) {
+        DBObject object = cursor.next();
+        long   itemID = (Long)object.get(idField);
+        double price  = ((Number)object.get("curPrice")).doubleValue();
+      
+        BestPriceConverter.keepBestOffers(offers, itemGames.get(itemID), source, itemID, price);
+      }
+    } finally {
+      cursor.close();
     }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
   }
   
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readUserDetail(long)
+  /**
+   * Helper method that works out and stores the best offers for many games, clearing the stored offer of
+   * any game that no longer has one.  Callers handle the connection checks and exceptions.
+   * 
+   * @param gameIDs The games to refresh
    */
-  public UserDetail readUserDetail(long userID) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (userID < 0)
-      throw new DatabaseOperationException("The provided User Detail object was not valid.");
+  private void storeBestPrices(long[] gameIDs) {
+    Map<Long, PriceOffer> offers = computeBestPrices(gameIDs);
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
+    DBCollection reltnCollection = mongoDB.getCollection("gamereltn");
+    for (long gameID : gameIDs)
+      reltnCollection.update(GameReltnConverter.convertGameReltnToGameIDQuery(gameID), BestPriceConverter.convertBestPriceToUpdate(offers.get(gameID)), false, true);
+  }
+  
+  /**
+   * Helper method that refreshes the stored best offers of every game linked to a retailer item, after
+   * that item's price or availability may have changed.  Callers handle the connection checks and exceptions.
+   * 
+   * @param reltnQuery The query for the relationships listing the item
+   */
+  private void refreshBestPricesForItem(BasicDBObject reltnQuery) {
+    List<Long> gameIDs = new ArrayList<Long>();
+    ManagedCursor cursor = cursorTracker.open(mongoDB.getCollection("gamereltn").find(reltnQuery, GameReltnConverter.convertRetailerLinksProjection()));
     try {
-      //Open the collection, i.e. table
-      DBCollection userCollection = mongoDB.getCollection("userdetail");
-      BasicDBObject searchObject  = UserDetailConverter.convertUserDetailToIDQuery(userID);
-      
-      DBCursor cursor = userCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      UserDetail user = null;
       while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        user = UserDetailConverter.convertMongoToUserDetail(object);
+        Object gameID = cursor.next().get("gameID");
+        if (gameID != null) gameIDs.add((Long)gameID);
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      if (debugMode)
-        System.out.println ("The user found by this query was:                   " + (user == null ? "Nothing Found" : user.getUserID()));
-      return user;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    } finally {
+      cursor.close();
     }
-  }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertUserDetail(com.ac.games.data.UserDetail)
-   */
-  public void insertUserDetail(UserDetail userDetail) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (userDetail == null)
-      throw new DatabaseOperationException("The provided user detail object was null.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    if (gameIDs.isEmpty()) return;
     
-    //Run the operation
-    try {
-      //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
-      //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingUserDetailDocID(userDetail.getUserID());
-      if (prevDocID != null) {
-        if (debugMode)
-          System.out.println ("Converting insert into update because of prior document");
-        updateUserDetail(userDetail);
-        return;
-      }
-      
-      //Open the collection, i.e. table
-      DBCollection userCollection = mongoDB.getCollection("userdetail");
-      
-      BasicDBObject addObject = UserDetailConverter.convertUserDetailToMongo(userDetail);
-      WriteResult result = userCollection.insert(addObject);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this insert converted to an upsert?             " + result.isUpdateOfExisting());
-        System.out.println ("The new document _id value added:                   " + addObject.get("_id"));
-      }
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
-    }
+    long[] ids = new long[gameIDs.size()];
+    for (int i = 0; i < ids.length; i++)
+      ids[i] = gameIDs.get(i);
+    storeBestPrices(ids);
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#updateUserDetail(com.ac.games.data.UserDetail)
+  
+  /**
+   * Matches the items whose price dropped during a crawl against the wishlists that asked to be notified.
+   * The items are resolved to their games through {@link GameReltn} (from memory if
+   * {@link #loadRetailerGameIndex()} has been called), each game's best in-stock offer is worked out, and
+   * the notifying wishlist entries are read with a projection on the (gameID, notifyUser) index.  Every
+   * step runs in batched $in queries, so the cost grows with the number of batches, not games or users.
+   * <p>
+   * The price reported is the game's best offer, which may come from a different retailer than the item
+   * that dropped.  Games left with no in-stock offer are skipped.
+   * 
+   * @param csiIDs The CoolStuffInc items whose price dropped, or null for none.
+   * @param mmIDs The Miniature Market items whose price dropped, or null for none.
+   * 
+   * @return One match per notifying wishlist entry, or an empty list if none.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public void updateUserDetail(UserDetail userDetail) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (userDetail == null)
-      throw new DatabaseOperationException("The provided game object was null.");
-    
+  public List<PriceDropMatch> matchPriceDropNotifications(long[] csiIDs, long[] mmIDs) throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
     //Run the operation
     try {
+      List<Long> gameIDs = new ArrayList<Long>(resolveDroppedGames(csiIDs, mmIDs));
+      List<PriceDropMatch> matches = new ArrayList<PriceDropMatch>();
+      
       //Open the collection, i.e. table
-      DBCollection userCollection = mongoDB.getCollection("userdetail");
-      BasicDBObject queryObject  = UserDetailConverter.convertUserDetailToIDQuery(userDetail);
-      BasicDBObject updateObject = UserDetailConverter.convertUserDetailToMongo(userDetail);
-      WriteResult result = userCollection.update(queryObject, updateObject, true, false);
+      DBCollection wishCollection = mongoDB.getCollection("wishlist");
       
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
+      for (int start = 0; start < gameIDs.size(); start += NOTIFY_BATCH_SIZE) {
+        List<Long> batch = gameIDs.subList(start, Math.min(start + NOTIFY_BATCH_SIZE, gameIDs.size()));
+        long[] ids = new long[batch.size()];
+        for (int i = 0; i < ids.length; i++)
+          ids[i] = batch.get(i);
+        
+        Map<Long, PriceOffer> offers = computeBestPrices(ids);
+        if (offers.isEmpty()) continue;
+        
+        ManagedCursor cursor = cursorTracker.open(wishCollection.find(WishlistItemConverter.convertGameIDsToNotifyQuery(new ArrayList<Long>(offers.keySet())), 
+                                              WishlistItemConverter.convertNotifyProjection()));
+        try {
+          while (cursor.hasNext()) {
+            DBObject object = cursor.next();
+            long gameID = (Long)object.get("gameID");
+            PriceOffer offer = offers.get(gameID);
+            matches.add(new PriceDropMatch((Long)object.get("userID"), gameID, offer.getPrice(), offer.getSource()));
+          }
+        } finally {
+          cursor.close();
+        }
       }
       
+      if (debugMode)
+        System.out.println ("Price drops on " + gameIDs.size() + " games matched " + matches.size() + " wishlist entries");
+      
+      return matches;
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the update", t);
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#deleteUserDetail(long)
+  
+  /**
+   * Builds the (gameID, notifyUser) index behind {@link #matchPriceDropNotifications(long[], long[])}.
+   * Safe to call repeatedly.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public void deleteUserDetail(long userID) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (userID < 0)
-      throw new DatabaseOperationException("The provided user object was not valid.");
-    
+  public void ensureWishlistIndexes() throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
-    //Run the operation
     try {
-      //Open the collection, i.e. table
-      DBCollection userCollection = mongoDB.getCollection("userdetail");
-      BasicDBObject deleteObject  = UserDetailConverter.convertUserDetailToIDQuery(userID);
-      WriteResult result = userCollection.remove(deleteObject);
-      
-      if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-      
+      mongoDB.getCollection("wishlist").createIndex(WishlistItemConverter.convertNotifyIndexKeys());
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this index build: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the delete", t);
+      throw new DatabaseOperationException("Something bad happened building the indexes", t);
     }
   }
-
+  
   /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
+   * Helper method that resolves retailer items to the distinct games listing them.  The in-memory links
+   * are used when loaded, otherwise the relations are read in batches.  Callers handle the connection
+   * checks and exceptions.
    * 
-   * @param userID The game we want to verify if it exists or not.
+   * @param csiIDs The CoolStuffInc items, or null
+   * @param mmIDs The Miniature Market items, or null
    * 
-   * @return The "_id" key from our existing object, or null if not found
+   * @return The gameIDs, in the order first seen
    */
-  private ObjectId queryForExistingUserDetailDocID(long userID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection userCollection = mongoDB.getCollection("userdetail");
-    BasicDBObject searchObject  = UserDetailConverter.convertUserDetailToIDQuery(userID);
+  private Set<Long> resolveDroppedGames(long[] csiIDs, long[] mmIDs) {
+    if (csiIDs == null) csiIDs = new long[0];
+    if (mmIDs == null)  mmIDs  = new long[0];
+    
+    Set<Long> gameIDs = new LinkedHashSet<Long>();
+    
+    synchronized (retailerIndexLock) {
+      LongLongMap csiIndex = csiGameIndex;
+      LongLongMap mmIndex  = mmGameIndex;
+      if (csiIndex != null && mmIndex != null) {
+        for (long csiID : csiIDs) {
+          long gameID = csiIndex.get(csiID);
+          if (gameID >= 0) gameIDs.add(gameID);
+        }
+        for (long mmID : mmIDs) {
+          long gameID = mmIndex.get(mmID);
+          if (gameID >= 0) gameIDs.add(gameID);
+        }
+        return gameIDs;
+      }
+    }
     
-    DBCursor cursor = userCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
+    DBCollection reltnCollection = mongoDB.getCollection("gamereltn");
+    BasicDBObject projection = new BasicDBObject("_id", 0).append("gameID", 1);
+    int total = Math.max(csiIDs.length, mmIDs.length);
+    for (int start = 0; start < total; start += NOTIFY_BATCH_SIZE) {
+      List<Long> csiBatch = new ArrayList<Long>();
+      for (int i = start; i < Math.min(start + NOTIFY_BATCH_SIZE, csiIDs.length); i++)
+        csiBatch.add(csiIDs[i]);
+      List<Long> mmBatch = new ArrayList<Long>();
+      for (int i = start; i < Math.min(start + NOTIFY_BATCH_SIZE, mmIDs.length); i++)
+        mmBatch.add(mmIDs[i]);
+      
+      ManagedCursor cursor = cursorTracker.open(reltnCollection.find(GameReltnConverter.convertItemIDsToReltnQuery(csiBatch, mmBatch), projection));
+      try {
+        while (cursor.hasNext()) {
+          Object gameID = cursor.next().get("gameID");
+          if (gameID != null) gameIDs.add((Long)gameID);
+        }
+      } finally {
+        cursor.close();
+      }
     }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
+    return gameIDs;
   }
   
+
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readCollection(long)
+   * @see com.ac.games.db.GamesDatabase#getGameReltnIDList()
    */
-  public Collection readCollection(long collectionID) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (collectionID < 0)
-      throw new DatabaseOperationException("The provided collection ID was not valid.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
+  public List<Long> getGameReltnIDList() throws ConfigurationException, DatabaseOperationException {
+    return getGenericIDList("gamereltn", "reltnID");
+  }
+  
+  /**
+   * Generic Helper method to only perform this code once.
+   * 
+   * @param collection The collection, or table name, we are wanting the list of values for
+   * @param fieldName  The field name of the column we want the list of values for
+   * 
+   * @return The List of requested values, or an empty list if nothing found
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  private List<Long> getGenericIDList(String collection, String fieldName) {
+    List<Long> resultList = new LinkedList<Long>();
     try {
-      //Open the collection, i.e. table
-      DBCollection collectionCollection = mongoDB.getCollection("collection");
-      BasicDBObject searchObject        = CollectionConverter.convertCollectionToIDQuery(collectionID);
-      
-      DBCursor cursor = collectionCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      Collection collection = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        collection = CollectionConverter.convertMongoToCollection(object);
+      DBCollection reltnCollection = mongoDB.getCollection(collection);
+      //Limit the result set to reltnIDs
+      BasicDBObject columns = new BasicDBObject();
+      columns.put(fieldName, 1);
+      columns.put("_id", 0);
+      //Search for all documents, return only the bggID values
+      ManagedCursor cursor = cursorTracker.open(reltnCollection.find(new BasicDBObject(), columns));
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          long curID = (Long)object.get(fieldName);
+          if (!resultList.contains(curID))
+            resultList.add(curID);
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
 
-      if (debugMode)
-        System.out.println ("The Collection found by this query was:             " + (collection == null ? "Nothing Found" : collection.getCollectionID()));
-      return collection;
-      
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
       throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
+    
+    return resultList;
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertCollection(com.ac.games.data.Collection)
+   * @see com.ac.games.db.GamesDatabase#getMaxBGGGameID()
    */
-  public void insertCollection(Collection collection) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (collection == null)
-      throw new DatabaseOperationException("The provided collection object was null.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
-    try {
-      //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
-      //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingCollectionDocID(collection.getCollectionID());
-      if (prevDocID != null) {
-        if (debugMode)
-          System.out.println ("Converting insert into update because of prior document");
-        updateCollection(collection);
-        return;
-      }
-      
-      //Open the collection, i.e. table
-      DBCollection collectionCollection = mongoDB.getCollection("collection");
-      
-      BasicDBObject addObject = CollectionConverter.convertCollectionToMongo(collection);
-      WriteResult result = collectionCollection.insert(addObject);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this insert converted to an upsert?             " + result.isUpdateOfExisting());
-        System.out.println ("The new document _id value added:                   " + addObject.get("_id"));
-      }
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
-    }
+  public long getMaxBGGGameID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("bgggame", "bggID");
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#updateCollection(com.ac.games.data.Collection)
+   * @see com.ac.games.db.GamesDatabase#getMaxCSIDataID()
    */
-  public void updateCollection(Collection collection) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (collection == null)
-      throw new DatabaseOperationException("The provided collection object was null.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection collectionCollection = mongoDB.getCollection("collection");
-      BasicDBObject queryObject  = CollectionConverter.convertCollectionToIDQuery(collection);
-      BasicDBObject updateObject = CollectionConverter.convertCollectionToMongo(collection);
-      WriteResult result = collectionCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
-      }
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the update", t);
-    }
+  public long getMaxCSIDataID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("csidata", "csiID");
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#deleteCollection(long)
+   * @see com.ac.games.db.GamesDatabase#getMaxMMDataID()
    */
-  public void deleteCollection(long collectionID) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (collectionID < 0)
-      throw new DatabaseOperationException("The provided collection object was not valid.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection collectionCollection = mongoDB.getCollection("collection");
-      BasicDBObject deleteObject  = CollectionConverter.convertCollectionToIDQuery(collectionID);
-      WriteResult result = collectionCollection.remove(deleteObject);
-      
-      if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the delete", t);
-    }
+  public long getMaxMMDataID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("mmdata", "mmID");
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxCollectionID()
+   * @see com.ac.games.db.GamesDatabase#getMaxGameID()
    */
-  public long getMaxCollectionID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("collection", "collectionID");
+  public long getMaxGameID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("game", "gameID");
   }
-
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#getMaxGameReltnID()
+   */
+  public long getMaxGameReltnID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("gamereltn", "reltnID");
+  }
+  
   /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
+   * Allocates a new gameID.  Unlike {@link #getMaxGameID()} + 1, this is safe under concurrent writers.
    * 
-   * @param userID The game we want to verify if it exists or not.
+   * @return A new, unused gameID
    * 
-   * @return The "_id" key from our existing object, or null if not found
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if the allocation fails.
    */
-  private ObjectId queryForExistingCollectionDocID(long collectionID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection collectionCollection = mongoDB.getCollection("collection");
-    BasicDBObject searchObject  = CollectionConverter.convertCollectionToIDQuery(collectionID);
-    
-    DBCursor cursor = collectionCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
-    }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
+  public long getNextGameID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericNextID("game", "gameID");
   }
   
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readCollectionItem(long)
+  /**
+   * Allocates a new reltnID.  Unlike {@link #getMaxGameReltnID()} + 1, this is safe under concurrent writers.
+   * 
+   * @return A new, unused reltnID
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if the allocation fails.
    */
-  public CollectionItem readCollectionItem(long itemID) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (itemID < 0)
-      throw new DatabaseOperationException("The provided Collection Item object was not valid.");
-    
+  public long getNextGameReltnID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericNextID("gamereltn", "reltnID");
+  }
+  
+  /**
+   * Allocates a new userID.  Unlike {@link #getMaxUserID()} + 1, this is safe under concurrent writers.
+   * 
+   * @return A new, unused userID
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if the allocation fails.
+   */
+  public long getNextUserID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericNextID("user", "userID");
+  }
+  
+  /**
+   * Allocates a new collectionID.  Unlike {@link #getMaxCollectionID()} + 1, this is safe under concurrent writers.
+   * 
+   * @return A new, unused collectionID
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if the allocation fails.
+   */
+  public long getNextCollectionID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericNextID("collection", "collectionID");
+  }
+  
+  /**
+   * Allocates a new itemID.  Unlike {@link #getMaxCollectionItemID()} + 1, this is safe under concurrent writers.
+   * 
+   * @return A new, unused itemID
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if the allocation fails.
+   */
+  public long getNextCollectionItemID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericNextID("collectionitem", "itemID");
+  }
+  
+  /**
+   * Allocates a new mediaID.  Unlike {@link #getMaxMediaItemID()} + 1, this is safe under concurrent writers.
+   * 
+   * @return A new, unused mediaID
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if the allocation fails.
+   */
+  public long getNextMediaItemID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericNextID("media", "mediaID");
+  }
+  
+  /**
+   * Allocates a new wishID.  Unlike {@link #getMaxWishlistItemID()} + 1, this is safe under concurrent writers.
+   * 
+   * @return A new, unused wishID
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if the allocation fails.
+   */
+  public long getNextWishlistItemID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericNextID("wishlist", "wishID");
+  }
+  
+  /**
+   * Allocates a new playthruID.  Unlike {@link #getMaxPlaythruItemID()} + 1, this is safe under concurrent writers.
+   * 
+   * @return A new, unused playthruID
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if the allocation fails.
+   */
+  public long getNextPlaythruItemID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericNextID("playthru", "playthruID");
+  }
+  
+  /**
+   * Sets how many IDs each allocation round trip reserves for this JVM.  Larger blocks mean fewer round
+   * trips, at the cost of larger gaps in the IDs when the JVM restarts.
+   * 
+   * @param blockSize The number of IDs to reserve at a time, at least 1.
+   */
+  public void setIDBlockSize(int blockSize) {
+    idAllocator.setBlockSize(blockSize);
+  }
+  
+  /**
+   * Generic Helper method to only perform this code once.
+   * 
+   * @param collection The collection, or table name, we want a new ID for
+   * @param fieldName  The field name of the ID column in this collection
+   * 
+   * @return A new, unused ID for this collection
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  private long getGenericNextID(String collection, String fieldName) throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
-    //Run the operation
     try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("collectionitem");
-      BasicDBObject searchObject  = CollectionItemConverter.convertCollectionItemToIDQuery(itemID);
-      
-      DBCursor cursor = itemCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      CollectionItem item = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        item = CollectionItemConverter.convertMongoToCollectionItem(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
+      long nextID = idAllocator.nextID(mongoDB, collection, fieldName);
       if (debugMode)
-        System.out.println ("The game found by this query was:                   " + (item == null ? "Nothing Found" : item.getItemID()));
-      return item;
-      
+        System.out.println ("The new ID allocated for " + collection + " was:  " + nextID);
+      return nextID;
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertCollectionItem(com.ac.games.data.CollectionItem)
+  
+  /**
+   * Generic Helper method to only perform this code once.
+   * 
+   * @param collection The collection, or table name, we are wanting the max value on
+   * @param fieldName  The field name of the column we want the max performed on
+   * 
+   * @return The max id value for this column in this collection, or -1 if not found
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public void insertCollectionItem(CollectionItem item) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (item == null)
-      throw new DatabaseOperationException("The provided collection item object was null.");
-    
+  private long getGenericMaxID(String collection, String fieldName) throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
-    //Run the operation
+    long result = 0;
     try {
-      //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
-      //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingCollectionItemDocID(item.getItemID());
-      if (prevDocID != null) {
-        if (debugMode)
-          System.out.println ("Converting insert into update because of prior document");
-        updateCollectionItem(item);
-        return;
-      }
+      DBCollection curCollection = mongoDB.getCollection(collection);
       
-      //Open the collection, i.e. table
-      DBCollection collectionCollection = mongoDB.getCollection("collectionitem");
+      //This is the format we are trying to emulate:
+      //db.bgggame.aggregate( { $group : { _id  : "", maxValue : { $max : "$bggID" } } } )
+
+      DBObject maxObject         = new BasicDBObject("$max", "$" + fieldName);
+      DBObject groupFieldsObject = new BasicDBObject("_id", "");
+      groupFieldsObject.put("maxValue", maxObject);
+      DBObject groupObject       = new BasicDBObject("$group", groupFieldsObject);
       
-      BasicDBObject addObject = CollectionItemConverter.convertCollectionItemToMongo(item);
-      WriteResult result = collectionCollection.insert(addObject);
+      List<DBObject> pipeline = new ArrayList<DBObject>(1);
+      pipeline.add(groupObject);
       
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this insert converted to an upsert?             " + result.isUpdateOfExisting());
-        System.out.println ("The new document _id value added:                   " + addObject.get("_id"));
+      AggregationOutput output = curCollection.aggregate(pipeline);
+      for (DBObject object : output.results()) {
+        if (object.containsField("maxValue")) result = (Long)object.get("maxValue");
       }
-      
+
+      return result;
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
 
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#updateCollectionItem(com.ac.games.data.CollectionItem)
-   */
-  public void updateCollectionItem(CollectionItem item) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (item == null)
-      throw new DatabaseOperationException("The provided collection item object was null.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection collectionCollection = mongoDB.getCollection("collectionitem");
-      BasicDBObject queryObject  = CollectionItemConverter.convertCollectionItemToIDQuery(item);
-      BasicDBObject updateObject = CollectionItemConverter.convertCollectionItemToMongo(item);
-      WriteResult result = collectionCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
-      }
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the update", t);
-    }
+  public int getBGGGameCount() throws ConfigurationException, DatabaseOperationException {
+    return getGenericCount("bgggame");
   }
 
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#deleteCollectionItem(long)
+  public int getCSIDataCount() throws ConfigurationException, DatabaseOperationException {
+    return getGenericCount("csidata");
+  }
+
+  public int getMMDataCount() throws ConfigurationException, DatabaseOperationException {
+    return getGenericCount("mmdata");
+  }
+
+  public int getGameCount() throws ConfigurationException, DatabaseOperationException {
+    return getGenericCount("game");
+  }
+
+  /**
+   * Generic Helper method to only perform this code once.  An empty collection still returns -1, as
+   * the $group/$sum aggregation this replaced did, since callers take -1 to mean there is no data.
+   * 
+   * @param collection The collection, or table name, we are wanting the row count
+   * 
+   * @return The count of documents in this collection, or -1 if the collection is empty or not found
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public void deleteCollectionItem(long itemID) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (itemID < 0)
-      throw new DatabaseOperationException("The provided collection item object was not valid.");
-    
+  private int getGenericCount(String collection) throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
-    //Run the operation
+    //In cached mode, serve the count we already have if it's fresh enough
+    CountCache cache = countCache;
+    if (cache != null) {
+      long cachedCount = cache.get(collection);
+      if (cachedCount >= 0) return (cachedCount == 0 ? -1 : (int)cachedCount);
+    }
+    
     try {
-      //Open the collection, i.e. table
-      DBCollection collectionCollection = mongoDB.getCollection("collectionitem");
-      BasicDBObject deleteObject  = CollectionItemConverter.convertCollectionItemToIDQuery(itemID);
-      WriteResult result = collectionCollection.remove(deleteObject);
+      DBCollection curCollection = mongoDB.getCollection(collection);
       
-      if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+      //An unfiltered count is answered from the collection metadata, so there is no need to scan
+      //every document with $group/$sum as we used to
+      long result = curCollection.count();
       
+      //The cache holds the true count, so our own inserts can take it up from 0
+      if (cache != null) cache.put(collection, result);
+      return (result == 0 ? -1 : (int)result);
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the delete", t);
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxCollectionItemID()
+  
+  /**
+   * Helper method to keep any cached count for a collection in step with one of our own writes.
+   * 
+   * @param collection The collection that was written to.
+   * @param delta The number of documents added, or negative for documents removed.
    */
-  public long getMaxCollectionItemID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("collectionitem", "itemID");
+  private void recordCountChange(String collection, long delta) {
+    CountCache cache = countCache;
+    if (cache != null && delta != 0) cache.adjust(collection, delta);
   }
-
+  
   /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
+   * Helper method to apply a stats delta to its stats row.  The $inc is atomic on the server, so concurrent
+   * writers never lose each other's increments.  If the row hasn't been created yet there is nothing to
+   * adjust, and the next recompute will build it from scratch.
+   * <p>
+   * The delta is a second write after the document write, and the two can't be made atomic.  If the
+   * delta fails, the document write has already happened, so it is not reported as failed; the row is
+   * marked stale instead, and stays off by this delta until it is recomputed.  See
+   * {@link #getStaleStatTypes()}.
    * 
-   * @param userID The game we want to verify if it exists or not.
-   * 
-   * @return The "_id" key from our existing object, or null if not found
+   * @param statType The statType of the row to adjust.
+   * @param statsUpdate The $inc to apply, or null if no count changed.
    */
-  private ObjectId queryForExistingCollectionItemDocID(long itemID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection collectionCollection = mongoDB.getCollection("collectionitem");
-    BasicDBObject searchObject  = CollectionItemConverter.convertCollectionItemToIDQuery(itemID);
+  private void applyStatsChange(String statType, DBObject statsUpdate) {
+    if (statsUpdate == null) return;
     
-    DBCursor cursor = collectionCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
+    try {
+      DBCollection statsCollection = mongoDB.getCollection("stats");
+      statsCollection.update(StatsConverter.convertStatsToTypeQuery(statType), statsUpdate, false, false);
+    } catch (MongoException me) {
+      staleStatTypes.put(statType, Boolean.TRUE);
+      if (debugMode) System.out.println ("The stats change to " + statType + " failed, the row needs a recompute: " + me.getMessage());
+      return;
     }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
+    
+    if (debugMode) System.out.println ("Applied stats change to " + statType + ": " + statsUpdate);
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readMediaItemByMediaID(long)
+  
+  /**
+   * Helper method to apply the stats delta for a multi-document remove.  The delta was built from the
+   * documents read just before the remove, so it is only right if the remove took exactly those.  If the
+   * counts differ, another writer got in between, and the row is marked stale rather than moved by a
+   * delta we know is wrong.  See {@link #getStaleStatTypes()}.
+   * 
+   * @param statType The statType of the row to adjust.
+   * @param statsUpdate The combined $inc for the documents read, or null if no count changed.
+   * @param matched The number of documents read before the remove.
+   * @param removed The number of documents the remove took.
    */
-  public MediaItem readMediaItemByMediaID(long mediaID) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (mediaID < 0)
-      throw new DatabaseOperationException("The provided Media Item object was not valid.");
+  private void applyRemovalStatsChange(String statType, DBObject statsUpdate, int matched, int removed) {
+    if (matched == removed) {
+      applyStatsChange(statType, statsUpdate);
+      return;
+    }
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    staleStatTypes.put(statType, Boolean.TRUE);
+    if (debugMode) System.out.println ("Read " + matched + " documents but removed " + removed + ", " + statType + " needs a recompute");
+  }
+  
+  /**
+   * Helper method that holds a findAndModify to the collection's write concern.  The driver sends
+   * findAndModify as a command, and a command never takes the client's {@link WriteConcern}, so with
+   * the client on {@link WriteConcern#JOURNALED} the write would otherwise come back before it reached
+   * the journal.  A getlasterror with j:true waits for the next group commit of the journal, which
+   * covers every write the server applied before it.
+   * 
+   * @param curCollection The collection that was written
+   * 
+   * @throws MongoException If the server could not confirm the journal commit
+   */
+  private void awaitJournal(DBCollection curCollection) throws MongoException {
+    if (!curCollection.getWriteConcern().getJ()) return;
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("media");
-      BasicDBObject searchObject  = MediaItemConverter.convertMediaItemToGenericIDQuery("mediaID", mediaID);
-      DBCursor cursor = itemCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      MediaItem item = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        item = MediaItemConverter.convertMongoToMediaItem(object);
-      }
-      return item;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
-    }
+    CommandResult result = curCollection.getDB().command(new BasicDBObject("getlasterror", 1).append("j", true));
+    result.throwOnError();
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readMediaItemsByUserID(long)
+  
+  /**
+   * Helper method that runs findAndModify through our codec encoder, so a replacement built by a codec
+   * goes to the wire untouched.  DBCollection.findAndModify always uses the default encoder, which would
+   * walk the codec document field by field.  The write is an upsert, and returns the document as it was
+   * before the write.
+   * 
+   * @param curCollection The collection being written
+   * @param queryObject The query for the document
+   * @param fieldsObject The projection for the document handed back
+   * @param updateObject The replacement document
+   * 
+   * @return The replaced document, cut down to the projection, or null if the write inserted a new one
    */
-  public List<MediaItem> readMediaItemsByUserID(long userID) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (userID < 0)
-      throw new DatabaseOperationException("The provided Media Item object was not valid.");
+  private DBObject findAndReplace(DBCollection curCollection, DBObject queryObject, DBObject fieldsObject, DBObject updateObject) throws MongoException {
+    BasicDBObject commandObject = new BasicDBObject("findandmodify", curCollection.getName());
+    commandObject.append("query", queryObject);
+    commandObject.append("fields", fieldsObject);
+    commandObject.append("update", updateObject);
+    commandObject.append("new", false);
+    commandObject.append("upsert", true);
+    
+    CommandResult result = curCollection.getDB().command(commandObject, CodecDBEncoder.FACTORY.create());
+    if (!result.ok() && !"No matching object found".equals(result.getErrorMessage())) result.throwOnError();
+    return (DBObject)result.get("value");
+  }
+  
+  /**
+   * Helper method for change detection.  Hashes the converted document, adds the hash to it, and then
+   * replaces the stored document only where its hash differs, so the check and the write are the same
+   * atomic findAndModify and two writers with different content can't both pass a stale check.  Nothing
+   * matching means the stored document is either identical or missing; an upsert whose only update is
+   * $setOnInsert tells the two apart, inserting in the second case and leaving the first untouched.
+   * Only a write that changed nothing is counted as skipped.
+   * 
+   * @param curCollection The collection being written
+   * @param queryObject The ID query for the document
+   * @param updateObject The converted document, which gets the hash appended
+   * 
+   * @return what was written, or null if the stored document was already identical
+   * 
+   * @throws MongoException
+   */
+  private HashedWrite replaceIfChanged(DBCollection curCollection, BasicDBObject queryObject, BasicDBObject updateObject) throws MongoException {
+    String contentHash = ContentHash.hashDocument(updateObject);
+    updateObject.append(ContentHash.FIELD, contentHash);
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    DBObject prevObject = curCollection.findAndModify(ContentHash.convertChangedQuery(queryObject, contentHash), StatsConverter.convertStatsFieldsProjection(), 
+                                                      null, false, updateObject, false, false);
+    if (prevObject != null) return new HashedWrite(prevObject);
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("media");
-      BasicDBObject searchObject  = MediaItemConverter.convertMediaItemToGenericIDQuery("userID", userID);
-      DBCursor cursor = itemCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      List<MediaItem> items = new LinkedList<MediaItem>();
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        items.add(MediaItemConverter.convertMongoToMediaItem(object));
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return items;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
-    }
+    WriteResult result = curCollection.update(queryObject, new BasicDBObject("$setOnInsert", updateObject), true, false);
+    if (result.getUpsertedId() != null) return new HashedWrite(null);
+    
+    skippedWriteCount.incrementAndGet();
+    if (debugMode) System.out.println ("Skipping write, the stored document is unchanged:   " + queryObject);
+    return null;
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readMediaItemsByGameID(long)
+  
+  /**
+   * What a change detection write replaced, as returned by {@link MongoGamesDatabase#replaceIfChanged}.
    */
-  public List<MediaItem> readMediaItemsByGameID(long gameID) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (gameID < 0)
-      throw new DatabaseOperationException("The provided Media Item object was not valid.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+  private static class HashedWrite {
+    /** The stats fields of the replaced document, or null if the write inserted a new one. */
+    private final DBObject prevObject;
+    
+    /**
+     * Basic Constructor.
+     * 
+     * @param prevObject The stats fields of the replaced document, or null if the write inserted a new one.
+     */
+    private HashedWrite(DBObject prevObject) {
+      this.prevObject = prevObject;
+    }
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("media");
-      BasicDBObject searchObject  = MediaItemConverter.convertMediaItemToGenericIDQuery("gameID", gameID);
-      DBCursor cursor = itemCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      List<MediaItem> items = new LinkedList<MediaItem>();
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        items.add(MediaItemConverter.convertMongoToMediaItem(object));
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return items;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    /**
+     * @return the prevObject
+     */
+    private DBObject getPrevObject() {
+      return prevObject;
     }
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertMediaItem(com.ac.games.data.MediaItem)
+   * @see com.ac.games.db.GamesDatabase#readUser(java.lang.String)
    */
-  public void insertMediaItem(MediaItem item) throws ConfigurationException, DatabaseOperationException {
+  public User readUser(String userName) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (item == null)
-      throw new DatabaseOperationException("The provided media item object was null.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    if (userName == null)
+      throw new DatabaseOperationException("The provided user name was not valid.");
     
-    //Run the operation
-    try {
-      //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
-      //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingMediaItemDocID(item.getMediaID());
-      if (prevDocID != null) {
-        if (debugMode)
-          System.out.println ("Converting insert into update because of prior document");
-        updateMediaItem(item);
-        return;
-      }
-      
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("media");
-      
-      BasicDBObject addObject = MediaItemConverter.convertMediaItemToMongo(item);
-      WriteResult result = itemCollection.insert(addObject);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this insert converted to an upsert?             " + result.isUpdateOfExisting());
-        System.out.println ("The new document _id value added:                   " + addObject.get("_id"));
-      }
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
-    }
+    return userStore.readOne(mongoDB, UserConverter.convertUserToNameQuery(userName));
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#updateMediaItem(com.ac.games.data.MediaItem)
+   * @see com.ac.games.db.GamesDatabase#readUser(java.lang.String)
    */
-  public void updateMediaItem(MediaItem item) throws ConfigurationException, DatabaseOperationException {
+  public User readUser(long userID) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (item == null)
-      throw new DatabaseOperationException("The provided media item object was null.");
+    if (userID < 0)
+      throw new DatabaseOperationException("The provided user ID was not valid.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    return userStore.read(mongoDB, userID);
+  }
+  
+  /**
+   * Reads a batch of users by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
+   * 
+   * @param userIDs The IDs of the users we want.
+   * 
+   * @return The users found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, User> readUser(long[] userIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (userIDs == null)
+      throw new DatabaseOperationException("The provided userIDs object was not valid.");
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("media");
-      BasicDBObject queryObject  = MediaItemConverter.convertMediaItemToIDQuery(item);
-      BasicDBObject updateObject = MediaItemConverter.convertMediaItemToMongo(item);
-      WriteResult result = itemCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
-      }
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the update", t);
-    }
+    return userStore.readAll(mongoDB, userIDs, multiGetChunkSize);
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#deleteMediaItem(long)
+   * @see com.ac.games.db.GamesDatabase#insertUser(com.ac.games.data.User)
    */
-  public void deleteMediaItem(long mediaID) throws ConfigurationException, DatabaseOperationException {
+  public void insertUser(User user) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (mediaID < 0)
-      throw new DatabaseOperationException("The provided media item object was not valid.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    if (user == null)
+      throw new DatabaseOperationException("The provided user object was null.");
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("media");
-      BasicDBObject deleteObject  = MediaItemConverter.convertMediaItemToGenericIDQuery("mediaID", mediaID);
-      WriteResult result = itemCollection.remove(deleteObject);
-      
-      if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the delete", t);
-    }
+    if (!userStore.insert(mongoDB, user))
+      updateUser(user);
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxMediaItemID()
+   * @see com.ac.games.db.GamesDatabase#updateUser(com.ac.games.data.User)
    */
-  public long getMaxMediaItemID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("media", "mediaID");
+  public void updateUser(User user) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (user == null)
+      throw new DatabaseOperationException("The provided user object was null.");
+    
+    userStore.update(mongoDB, user);
   }
 
   /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
+   * Replaces, or inserts, a batch of users in one unordered bulk write, instead of a round trip each.
    * 
-   * @param mediaID The item we want to verify if it exists or not.
+   * @param users The users we want to write.
    * 
-   * @return The "_id" key from our existing object, or null if not found
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  private ObjectId queryForExistingMediaItemDocID(long mediaID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection itemCollection = mongoDB.getCollection("media");
-    BasicDBObject searchObject  = MediaItemConverter.convertMediaItemToGenericIDQuery("mediaID", mediaID);
+  public void updateUser(List<User> users) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (users == null || users.contains(null))
+      throw new DatabaseOperationException("The provided users object was not valid.");
     
-    DBCursor cursor = itemCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
-    }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
+    userStore.upsertAll(mongoDB, users);
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readWishlistItem(long)
+   * @see com.ac.games.db.GamesDatabase#deleteUser(long)
    */
-  public WishlistItem readWishlistItem(long wishID) throws ConfigurationException, DatabaseOperationException {
+  public void deleteUser(long userID) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (wishID < 0)
-      throw new DatabaseOperationException("The provided Wishlist Item object was not valid.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    if (userID < 0)
+      throw new DatabaseOperationException("The provided user object was not valid.");
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("wishlist");
-      BasicDBObject searchObject  = WishlistItemConverter.convertWishlistItemToIDQuery(wishID);
-      DBCursor cursor = itemCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      WishlistItem item = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        item = WishlistItemConverter.convertMongoToWishlistItem(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return item;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
-    }
-  }
+    userStore.delete(mongoDB, userID);
+  }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertWishlistItem(com.ac.games.data.WishlistItem)
+   * @see com.ac.games.db.GamesDatabase#getMaxUserID()
    */
-  public void insertWishlistItem(WishlistItem item) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (item == null)
-      throw new DatabaseOperationException("The provided wishlist item object was null.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
-    
-    //Run the operation
-    try {
-      //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
-      //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingWishlistItemDocID(item.getWishID());
-      if (prevDocID != null) {
-        if (debugMode)
-          System.out.println ("Converting insert into update because of prior document");
-        updateWishlistItem(item);
-        return;
-      }
-      
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("wishlist");
-      
-      BasicDBObject addObject = WishlistItemConverter.convertWishlistItemToMongo(item);
-      WriteResult result = itemCollection.insert(addObject);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this insert converted to an upsert?             " + result.isUpdateOfExisting());
-        System.out.println ("The new document _id value added:                   " + addObject.get("_id"));
-      }
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
-    }
+  public long getMaxUserID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("user", "userID");
   }
-
+  
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#updateWishlistItem(com.ac.games.data.WishlistItem)
+   * @see com.ac.games.db.GamesDatabase#readUserDetail(long)
    */
-  public void updateWishlistItem(WishlistItem item) throws ConfigurationException, DatabaseOperationException {
+  public UserDetail readUserDetail(long userID) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (item == null)
-      throw new DatabaseOperationException("The provided wishlist item object was null.");
+    if (userID < 0)
+      throw new DatabaseOperationException("The provided User Detail object was not valid.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    return userDetailStore.read(mongoDB, userID);
+  }
+  
+  /**
+   * Reads a batch of user details by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
+   * 
+   * @param userIDs The IDs of the user details we want.
+   * 
+   * @return The user details found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, UserDetail> readUserDetail(long[] userIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (userIDs == null)
+      throw new DatabaseOperationException("The provided userIDs object was not valid.");
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("wishlist");
-      BasicDBObject queryObject  = WishlistItemConverter.convertWishlistItemToIDQuery(item);
-      BasicDBObject updateObject = WishlistItemConverter.convertWishlistItemToMongo(item);
-      WriteResult result = itemCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
-      }
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the update", t);
-    }
+    return userDetailStore.readAll(mongoDB, userIDs, multiGetChunkSize);
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#deleteWishlistItem(long)
+   * @see com.ac.games.db.GamesDatabase#insertUserDetail(com.ac.games.data.UserDetail)
    */
-  public void deleteWishlistItem(long wishID) throws ConfigurationException, DatabaseOperationException {
+  public void insertUserDetail(UserDetail userDetail) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (wishID < 0)
-      throw new DatabaseOperationException("The provided wishlist item object was not valid.");
-    
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    if (userDetail == null)
+      throw new DatabaseOperationException("The provided user detail object was null.");
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("wishlist");
-      BasicDBObject deleteObject  = WishlistItemConverter.convertWishlistItemToIDQuery(wishID);
-      WriteResult result = itemCollection.remove(deleteObject);
-      
-      if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the delete", t);
-    }
+    if (!userDetailStore.insert(mongoDB, userDetail))
+      updateUserDetail(userDetail);
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxWishlistItemID()
+   * @see com.ac.games.db.GamesDatabase#updateUserDetail(com.ac.games.data.UserDetail)
    */
-  public long getMaxWishlistItemID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("wishlist", "wishID");
+  public void updateUserDetail(UserDetail userDetail) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (userDetail == null)
+      throw new DatabaseOperationException("The provided user detail object was null.");
+    
+    userDetailStore.update(mongoDB, userDetail);
   }
 
   /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
+   * Replaces, or inserts, a batch of user details in one unordered bulk write, instead of a round trip each.
    * 
-   * @param wishID The item we want to verify if it exists or not.
+   * @param userDetails The user details we want to write.
    * 
-   * @return The "_id" key from our existing object, or null if not found
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  private ObjectId queryForExistingWishlistItemDocID(long wishID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection itemCollection = mongoDB.getCollection("wishlist");
-    BasicDBObject searchObject  = WishlistItemConverter.convertWishlistItemToIDQuery(wishID);
+  public void updateUserDetail(List<UserDetail> userDetails) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (userDetails == null || userDetails.contains(null))
+      throw new DatabaseOperationException("The provided userDetails object was not valid.");
     
-    DBCursor cursor = itemCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
-    }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
+    userDetailStore.upsertAll(mongoDB, userDetails);
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readPlaythruItem(long)
+   * @see com.ac.games.db.GamesDatabase#deleteUserDetail(long)
    */
-  public PlaythruItem readPlaythruItem(long playthruID) throws ConfigurationException, DatabaseOperationException {
+  public void deleteUserDetail(long userID) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (playthruID < 0)
-      throw new DatabaseOperationException("The provided Playthru Item object was not valid.");
+    if (userID < 0)
+      throw new DatabaseOperationException("The provided user object was not valid.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    userDetailStore.delete(mongoDB, userID);
+  }
+
+  /**
+   * Looks up the games for any collection items that were stored as gameID references, using a single
+   * batched query against the game collection.  Items that already carry an embedded game are left
+   * alone, so collections written before reference mode, or only partially migrated, read the same way.
+   * When the game cache is enabled, it is checked first and filled from the query results.
+   * 
+   * @param items The collection items to hydrate.
+   */
+  private void hydrateCollectionGames(List<CollectionItem> items) throws MongoException {
+    if (items == null || items.isEmpty()) return;
+    
+    //Read the cache once, so the whole pass uses the same one even if it is replaced meanwhile
+    DocumentCache cache = gameCache;
+    
+    //Gather every item still missing its game, grouped by gameID
+    Map<Long, List<CollectionItem>> pendingItems = new HashMap<Long, List<CollectionItem>>();
+    for (CollectionItem item : items) {
+      if (item.getGame() != null || item.getGameID() < 0) continue;
+      
+      if (cache != null) {
+        CodecDBObject cached = cache.get(item.getGameID());
+        if (cached != null) {
+          item.setGame(GameConverter.convertMongoToGame(cached, lazyDecodeMode));
+          continue;
+        }
+      }
+      
+      List<CollectionItem> sameGame = pendingItems.get(item.getGameID());
+      if (sameGame == null) {
+        sameGame = new LinkedList<CollectionItem>();
+        pendingItems.put(item.getGameID(), sameGame);
+      }
+      sameGame.add(item);
+    }
+    if (pendingItems.isEmpty()) return;
     
-    //Run the operation
+    long[] gameIDs = new long[pendingItems.size()];
+    int pos = 0;
+    for (Long gameID : pendingItems.keySet())
+      gameIDs[pos++] = gameID;
+    
+    //Open the collection, i.e. table
+    DBCollection gameCollection = mongoDB.getCollection("game");
+    BasicDBObject searchObject  = GameConverter.convertGameIDsToQuery(gameIDs);
+    
+    ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject).setDecoderFactory(CodecDBDecoder.FACTORY));
     try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("playthru");
-      BasicDBObject searchObject  = PlaythruItemConverter.convertPlaythruItemToIDQuery(playthruID);
-      DBCursor cursor = itemCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      PlaythruItem item = null;
       while (cursor.hasNext()) {
         DBObject object = cursor.next();
-        item = PlaythruItemConverter.convertMongoToPlaythruItem(object);
+        Game game = GameConverter.convertMongoToGame(object, lazyDecodeMode);
+        
+        List<CollectionItem> sameGame = pendingItems.get(game.getGameID());
+        if (sameGame == null) continue;
+        if (cache != null && object instanceof CodecDBObject)
+          cache.put(game.getGameID(), (CodecDBObject)object);
+        
+        //Every item gets its own copy, just as it would have with an embedded game
+        boolean first = true;
+        for (CollectionItem item : sameGame) {
+          item.setGame(first ? game : GameConverter.convertMongoToGame(object, lazyDecodeMode));
+          first = false;
+        }
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return item;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    } finally {
+      cursor.close();
     }
+    
+    if (debugMode)
+      System.out.println ("Games hydrated for collection items:                " + gameIDs.length);
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertPlaythruItem(com.ac.games.data.PlaythruItem)
+  
+  /**
+   * Migrates existing collections to reference storage.  Every collection that still embeds full game
+   * documents is rewritten so its items only carry the gameID and the item overrides.  If an embedded game
+   * is missing from the game collection, the embedded copy is first inserted there, so no game data is lost.
+   * <p>
+   * This is safe to run more than once, and safe to run while reference mode is off (see
+   * {@link #setReferenceCollectionMode(boolean)}), since reads handle embedded and referenced items alike.  It is also safe to run while items are being
+   * added and removed: each rewrite only lands if the items are still the ones that were read, and a
+   * collection that changed in between is read again and rewritten from its current items.  One that keeps
+   * changing through every attempt is left embedded, for the next run to pick up.
+   * 
+   * @return The number of collections that were rewritten.
+   * 
+   * @throws ConfigurationException Thrown if the database connection is not open
+   * @throws DatabaseOperationException Thrown if the migration fails
    */
-  public void insertPlaythruItem(PlaythruItem item) throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (item == null)
-      throw new DatabaseOperationException("The provided playthru item object was null.");
-    
+  public int migrateCollectionsToReferences() throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
     //Run the operation
     try {
-      //Because we are using non-Mongo based primary keys, we need to specifically check first to see if the object
-      //exists, and if it does, we need to do an update instead
-      ObjectId prevDocID = queryForExistingPlaythruItemDocID(item.getPlaythruID());
-      if (prevDocID != null) {
-        if (debugMode)
-          System.out.println ("Converting insert into update because of prior document");
-        updatePlaythruItem(item);
-        return;
-      }
-      
       //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("wishlist");
-      
-      BasicDBObject addObject = PlaythruItemConverter.convertPlaythruItemToMongo(item);
-      WriteResult result = itemCollection.insert(addObject);
+      DBCollection collectionCollection = mongoDB.getCollection("collection");
+      BasicDBObject searchObject        = new BasicDBObject("games.game", new BasicDBObject("$exists", true));
       
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this insert converted to an upsert?             " + result.isUpdateOfExisting());
-        System.out.println ("The new document _id value added:                   " + addObject.get("_id"));
+      int migratedCount = 0;
+      ManagedCursor cursor = cursorTracker.open(collectionCollection.find(searchObject));
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          for (int attempt = 1; object != null; attempt++) {
+            Collection collection = CollectionConverter.convertMongoToCollection(object);
+            if (collection.getGames() == null) break;
+            
+            //Make sure the catalog has every game before we drop the embedded copies
+            for (CollectionItem item : collection.getGames()) {
+              Game game = item.getGame();
+              if (game == null || game.getGameID() < 0) continue;
+              if (gameStore.readDocID(mongoDB, game.getGameID()) == null)
+                insertGame(game);
+            }
+            
+            //Only replace the items we read, so a $push or $pull that lands in between isn't lost
+            BasicDBObject queryObject = CollectionConverter.convertCollectionToIDQuery(collection);
+            queryObject.append("games", object.get("games"));
+            BasicDBObject refObject   = CollectionConverter.convertCollectionToMongo(collection, false);
+            WriteResult result = collectionCollection.update(queryObject, new BasicDBObject("$set", new BasicDBObject("games", refObject.get("games"))));
+            if (result.getN() > 0) {
+              migratedCount += result.getN();
+              break;
+            }
+            
+            if (attempt >= MAX_MIGRATION_ATTEMPTS) {
+              if (debugMode)
+                System.out.println ("Collection " + collection.getCollectionID() + " kept changing, leaving it for the next migration");
+              break;
+            }
+            object = collectionCollection.findOne(CollectionConverter.convertCollectionToIDQuery(collection));
+          }
+        }
+      } finally {
+        cursor.close();
       }
       
+      if (debugMode)
+        System.out.println ("The number of collections migrated to references:   " + migratedCount);
+      return migratedCount;
+      
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
     }
   }
-
+  
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#updatePlaythruItem(com.ac.games.data.PlaythruItem)
+   * @see com.ac.games.db.GamesDatabase#readCollection(long)
    */
-  public void updatePlaythruItem(PlaythruItem item) throws ConfigurationException, DatabaseOperationException {
+  public Collection readCollection(long collectionID) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (item == null)
-      throw new DatabaseOperationException("The provided playthru item object was null.");
+    if (collectionID < 0)
+      throw new DatabaseOperationException("The provided collection ID was not valid.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    Collection collection = collectionStore.read(mongoDB, collectionID);
     
-    //Run the operation
+    //Items stored as references need their games looked up
     try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("playthru");
-      BasicDBObject queryObject  = PlaythruItemConverter.convertPlaythruItemToIDQuery(item);
-      BasicDBObject updateObject = PlaythruItemConverter.convertPlaythruItemToMongo(item);
-      WriteResult result = itemCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
-      }
+      if (collection != null)
+        hydrateCollectionGames(collection.getGames());
+      return collection;
       
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the update", t);
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#deletePlaythruItem(long)
+  
+  /**
+   * Reads a batch of collections by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
+   * 
+   * @param collectionIDs The IDs of the collections we want.
+   * 
+   * @return The collections found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public void deletePlaythruItem(long playthruID) throws ConfigurationException, DatabaseOperationException {
+  public Map<Long, Collection> readCollection(long[] collectionIDs) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (playthruID < 0)
-      throw new DatabaseOperationException("The provided wishlist item object was not valid.");
+    if (collectionIDs == null)
+      throw new DatabaseOperationException("The provided collectionIDs object was not valid.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    Map<Long, Collection> collections = collectionStore.readAll(mongoDB, collectionIDs, multiGetChunkSize);
     
-    //Run the operation
+    //Items stored as references need their games looked up, all in one go
     try {
-      //Open the collection, i.e. table
-      DBCollection itemCollection = mongoDB.getCollection("playthru");
-      BasicDBObject deleteObject  = PlaythruItemConverter.convertPlaythruItemToIDQuery(playthruID);
-      WriteResult result = itemCollection.remove(deleteObject);
-      
-      if (debugMode)
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+      List<CollectionItem> items = new ArrayList<CollectionItem>();
+      for (Collection collection : collections.values()) {
+        if (collection.getGames() != null) items.addAll(collection.getGames());
+      }
+      hydrateCollectionGames(items);
+      return collections;
       
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the delete", t);
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#getMaxPlaythruItemID()
+   * @see com.ac.games.db.GamesDatabase#insertCollection(com.ac.games.data.Collection)
    */
-  public long getMaxPlaythruItemID() throws ConfigurationException, DatabaseOperationException {
-    return getGenericMaxID("playthru", "playthruID");
+  public void insertCollection(Collection collection) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (collection == null)
+      throw new DatabaseOperationException("The provided collection object was null.");
+    
+    if (!collectionStore.insert(mongoDB, collection))
+      updateCollection(collection);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#updateCollection(com.ac.games.data.Collection)
+   */
+  public void updateCollection(Collection collection) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (collection == null)
+      throw new DatabaseOperationException("The provided collection object was null.");
+    
+    collectionStore.update(mongoDB, collection);
   }
 
   /**
-   * We're going to use this method to avoid the work of running our queries.  Because of reliance
-   * on this method in update and insert tasks, we can assume only one other version of this object
-   * can exist in the database.
+   * Replaces, or inserts, a batch of collections in one unordered bulk write, instead of a round trip each.
    * 
-   * @param playthruID The item we want to verify if it exists or not.
+   * @param collections The collections we want to write.
    * 
-   * @return The "_id" key from our existing object, or null if not found
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  private ObjectId queryForExistingPlaythruItemDocID(long playthruID) throws MongoException {
-    //Open the collection, i.e. table
-    DBCollection itemCollection = mongoDB.getCollection("wishlist");
-    BasicDBObject searchObject  = PlaythruItemConverter.convertPlaythruItemToIDQuery(playthruID);
+  public void updateCollection(List<Collection> collections) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (collections == null || collections.contains(null))
+      throw new DatabaseOperationException("The provided collections object was not valid.");
     
-    DBCursor cursor = itemCollection.find(searchObject);
-    ObjectId docID = null;
-    while (cursor.hasNext()) {
-      docID = (ObjectId)cursor.next().get("_id");
-    }
-    try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-    return docID;
+    collectionStore.upsertAll(mongoDB, collections);
   }
 
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#deleteStatsRow(java.lang.String)
+  /**
+   * Adds one item to a collection without rewriting the collection document.  The item is pushed onto the
+   * games array and the matching game count is incremented in the same atomic update, so the write size is
+   * that of the item alone.  Adding an item that is already in the collection does nothing.
+   * 
+   * @param collectionID The collection we want to add to.
+   * @param item The item to add.
+   * 
+   * @return true if the item was added, false if the collection was not found or already held the item.
+   * 
+   * @throws ConfigurationException Thrown if the database connection is not open
+   * @throws DatabaseOperationException Thrown if the update fails
    */
-  public void deleteStatsRow(String statType) throws ConfigurationException, DatabaseOperationException {
+  public boolean addItemToCollection(long collectionID, CollectionItem item) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (statType == null)
-      throw new DatabaseOperationException("The provided wishlist item object was not valid.");
+    if (collectionID < 0)
+      throw new DatabaseOperationException("The provided collection ID was not valid.");
+    if (item == null)
+      throw new DatabaseOperationException("The provided collection item object was null.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
     //Run the operation
     try {
+      GameType gameType = lookupItemGameType(item);
+      
       //Open the collection, i.e. table
-      DBCollection statsCollection = mongoDB.getCollection("stats");
-      BasicDBObject deleteObject  = StatsConverter.convertStatsToTypeQuery(statType);
-      WriteResult result = statsCollection.remove(deleteObject);
+      DBCollection collectionCollection = mongoDB.getCollection("collection");
+      BasicDBObject queryObject  = CollectionConverter.convertCollectionWithoutItemToQuery(collectionID, item.getItemID());
+      BasicDBObject updateObject = CollectionConverter.convertAddItemToUpdate(item, !referenceCollectionMode, gameType);
+      WriteResult result = collectionCollection.update(queryObject, updateObject, false, false);
       
       if (debugMode)
         System.out.println ("The number of documents impacted by this operation: " + result.getN());
+      return result.getN() > 0;
       
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the delete", t);
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readBGGGameStats()
+  
+  /**
+   * Removes one item from a collection without rewriting the collection document.  The item is pulled from
+   * the games array and the matching game count is decremented in the same atomic update.
+   * 
+   * @param collectionID The collection we want to remove from.
+   * @param itemID The item to remove.
+   * 
+   * @return true if the item was removed, false if the collection did not hold the item.
+   * 
+   * @throws ConfigurationException Thrown if the database connection is not open
+   * @throws DatabaseOperationException Thrown if the update fails
    */
-  public BGGGameStats readBGGGameStats() throws ConfigurationException, DatabaseOperationException {
+  public boolean removeItemFromCollection(long collectionID, long itemID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (collectionID < 0 || itemID < 0)
+      throw new DatabaseOperationException("The provided collection or item ID was not valid.");
+    
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
     //Run the operation
     try {
       //Open the collection, i.e. table
-      DBCollection statsCollection = mongoDB.getCollection("stats");
-      BasicDBObject searchObject  = StatsConverter.convertStatsToTypeQuery(BGGGameStats.BGG_GAME_STATS);
-      DBCursor cursor = statsCollection.find(searchObject);
+      DBCollection collectionCollection = mongoDB.getCollection("collection");
+      BasicDBObject queryObject         = CollectionConverter.convertCollectionItemToQuery(collectionID, itemID);
       
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
+      //We need the item's game type to know which count to decrement, so fetch just that one item
+      ManagedCursor cursor = cursorTracker.open(collectionCollection.find(queryObject, CollectionConverter.convertCollectionItemToProjection(itemID)).limit(1));
       
-      BGGGameStats stats = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        stats = StatsConverter.convertMongoToBGGGameStats(object);
+      CollectionItem item = null;
+      try {
+        while (cursor.hasNext()) {
+          Object games = cursor.next().get("games");
+          if (games instanceof BasicDBList && !((BasicDBList)games).isEmpty())
+            item = CollectionItemConverter.convertMongoToCollectionItem((DBObject)((BasicDBList)games).get(0));
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return stats;
+      
+      if (item == null) {
+        if (debugMode)
+          System.out.println ("The item was not found in this collection:          " + itemID);
+        return false;
+      }
+      GameType gameType = lookupItemGameType(item);
+      
+      //The query still requires the item, so a concurrent removal can't decrement the count twice
+      BasicDBObject updateObject = CollectionConverter.convertRemoveItemToUpdate(itemID, gameType);
+      WriteResult result = collectionCollection.update(queryObject, updateObject, false, false);
+      
+      if (debugMode)
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+      return result.getN() > 0;
       
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertBGGGameStats(com.ac.games.data.BGGGameStats)
+  
+  /**
+   * Updates the item level fields (weights, acquisition details and overrides) of one item inside a
+   * collection, using a positional update.  The item's game and the rest of the collection are not
+   * rewritten.
+   * 
+   * @param collectionID The collection holding the item.
+   * @param item The item to write.
+   * 
+   * @return true if the item was found, false otherwise.
+   * 
+   * @throws ConfigurationException Thrown if the database connection is not open
+   * @throws DatabaseOperationException Thrown if the update fails
    */
-  public void insertBGGGameStats(BGGGameStats stats) throws ConfigurationException, DatabaseOperationException {
+  public boolean updateCollectionItemInPlace(long collectionID, CollectionItem item) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (stats == null)
-      throw new DatabaseOperationException("The provided stats object was null.");
+    if (collectionID < 0)
+      throw new DatabaseOperationException("The provided collection ID was not valid.");
+    if (item == null)
+      throw new DatabaseOperationException("The provided collection item object was null.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
@@ -2703,169 +3435,1909 @@ public class MongoGamesDatabase implements GamesDatabase {
     //Run the operation
     try {
       //Open the collection, i.e. table
-      DBCollection statsCollection = mongoDB.getCollection("stats");
-      //Even though this is an insert method, we'll do the upsert to avoid having to implement an addition
-      //'unsupported' update method.  The upsert ensures we have one and only one stat record per type
-      BasicDBObject queryObject  = StatsConverter.convertStatsToTypeQuery(BGGGameStats.BGG_GAME_STATS);
-      BasicDBObject updateObject = StatsConverter.convertStatsToMongo(stats);
-      WriteResult result = statsCollection.update(queryObject, updateObject, true, false);
+      DBCollection collectionCollection = mongoDB.getCollection("collection");
+      BasicDBObject queryObject  = CollectionConverter.convertCollectionItemToQuery(collectionID, item.getItemID());
+      BasicDBObject updateObject = CollectionItemConverter.convertCollectionItemToPositionalUpdate(item);
+      WriteResult result = collectionCollection.update(queryObject, updateObject, false, false);
       
-      if (debugMode) {
+      if (debugMode)
         System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
-      }
+      return result.getN() > 0;
       
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
     }
   }
-
+  
+  /**
+   * Helper method to find the game type of a collection item, from its embedded game if it has one, or
+   * from the game collection if it only holds a reference.
+   * 
+   * @param item The collection item.
+   * 
+   * @return The game type, or null if it can't be determined
+   */
+  private GameType lookupItemGameType(CollectionItem item) throws ConfigurationException, DatabaseOperationException {
+    if (item.getGame() != null && item.getGame().getGameType() != null)
+      return item.getGame().getGameType();
+    
+    long gameID = item.getGameID();
+    if (gameID < 0 && item.getGame() != null) gameID = item.getGame().getGameID();
+    if (gameID < 0) return null;
+    
+    Game game = readGameSummary(gameID);
+    return (game == null ? null : game.getGameType());
+  }
+  
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readCSIDataStats()
+   * @see com.ac.games.db.GamesDatabase#deleteCollection(long)
    */
-  public CSIDataStats readCSIDataStats() throws ConfigurationException, DatabaseOperationException {
+  public void deleteCollection(long collectionID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (collectionID < 0)
+      throw new DatabaseOperationException("The provided collection object was not valid.");
+    
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
     //Run the operation
     try {
       //Open the collection, i.e. table
-      DBCollection statsCollection = mongoDB.getCollection("stats");
-      BasicDBObject searchObject  = StatsConverter.convertStatsToTypeQuery(CSIDataStats.CSI_DATA_STATS);
-      DBCursor cursor = statsCollection.find(searchObject);
+      DBCollection collectionCollection = mongoDB.getCollection("collection");
+      BasicDBObject deleteObject  = CollectionConverter.convertCollectionToIDQuery(collectionID);
+      WriteResult result = collectionCollection.remove(deleteObject);
       
       if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      CSIDataStats stats = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        stats = StatsConverter.convertMongoToCSIDataStats(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return stats;
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
       
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
+      throw new DatabaseOperationException("Something bad happened executing the delete", t);
     }
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertCSIDataStats(com.ac.games.data.CSIDataStats)
+   * @see com.ac.games.db.GamesDatabase#getMaxCollectionID()
    */
-  public void insertCSIDataStats(CSIDataStats stats) throws ConfigurationException, DatabaseOperationException {
+  public long getMaxCollectionID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("collection", "collectionID");
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readCollectionItem(long)
+   */
+  public CollectionItem readCollectionItem(long itemID) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (stats == null)
-      throw new DatabaseOperationException("The provided stats object was null.");
+    if (itemID < 0)
+      throw new DatabaseOperationException("The provided Collection Item object was not valid.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    return collectionItemStore.read(mongoDB, itemID);
+  }
+  
+  /**
+   * Reads a batch of collection items by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
+   * 
+   * @param itemIDs The IDs of the collection items we want.
+   * 
+   * @return The collection items found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, CollectionItem> readCollectionItem(long[] itemIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (itemIDs == null)
+      throw new DatabaseOperationException("The provided itemIDs object was not valid.");
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection statsCollection = mongoDB.getCollection("stats");
-      //Even though this is an insert method, we'll do the upsert to avoid having to implement an addition
-      //'unsupported' update method.  The upsert ensures we have one and only one stat record per type
-      BasicDBObject queryObject  = StatsConverter.convertStatsToTypeQuery(CSIDataStats.CSI_DATA_STATS);
-      BasicDBObject updateObject = StatsConverter.convertStatsToMongo(stats);
-      WriteResult result = statsCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
-      }
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
-    }
+    return collectionItemStore.readAll(mongoDB, itemIDs, multiGetChunkSize);
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readMMDataStats()
+   * @see com.ac.games.db.GamesDatabase#insertCollectionItem(com.ac.games.data.CollectionItem)
    */
-  public MMDataStats readMMDataStats() throws ConfigurationException, DatabaseOperationException {
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+  public void insertCollectionItem(CollectionItem item) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (item == null)
+      throw new DatabaseOperationException("The provided collection item object was null.");
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection statsCollection = mongoDB.getCollection("stats");
-      BasicDBObject searchObject  = StatsConverter.convertStatsToTypeQuery(MMDataStats.MM_DATA_STATS);
-      DBCursor cursor = statsCollection.find(searchObject);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      MMDataStats stats = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        stats = StatsConverter.convertMongoToMMDataStats(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return stats;
-      
-    } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
-    } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
-    }
+    if (!collectionItemStore.insert(mongoDB, item))
+      updateCollectionItem(item);
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#insertMMDataStats(com.ac.games.data.MMDataStats)
+   * @see com.ac.games.db.GamesDatabase#updateCollectionItem(com.ac.games.data.CollectionItem)
    */
-  public void insertMMDataStats(MMDataStats stats) throws ConfigurationException, DatabaseOperationException {
+  public void updateCollectionItem(CollectionItem item) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (stats == null)
-      throw new DatabaseOperationException("The provided stats object was null.");
+    if (item == null)
+      throw new DatabaseOperationException("The provided collection item object was null.");
     
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+    collectionItemStore.update(mongoDB, item);
+  }
+
+  /**
+   * Replaces, or inserts, a batch of collection items in one unordered bulk write, instead of a round trip each.
+   * 
+   * @param items The collection items we want to write.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public void updateCollectionItem(List<CollectionItem> items) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (items == null || items.contains(null))
+      throw new DatabaseOperationException("The provided items object was not valid.");
     
-    //Run the operation
-    try {
-      //Open the collection, i.e. table
-      DBCollection statsCollection = mongoDB.getCollection("stats");
-      //Even though this is an insert method, we'll do the upsert to avoid having to implement an addition
-      //'unsupported' update method.  The upsert ensures we have one and only one stat record per type
-      BasicDBObject queryObject  = StatsConverter.convertStatsToTypeQuery(MMDataStats.MM_DATA_STATS);
-      BasicDBObject updateObject = StatsConverter.convertStatsToMongo(stats);
-      WriteResult result = statsCollection.update(queryObject, updateObject, true, false);
-      
-      if (debugMode) {
-        System.out.println ("The number of documents impacted by this operation: " + result.getN());
-        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
+    collectionItemStore.upsertAll(mongoDB, items);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#deleteCollectionItem(long)
+   */
+  public void deleteCollectionItem(long itemID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (itemID < 0)
+      throw new DatabaseOperationException("The provided collection item object was not valid.");
+    
+    collectionItemStore.delete(mongoDB, itemID);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#getMaxCollectionItemID()
+   */
+  public long getMaxCollectionItemID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("collectionitem", "itemID");
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readMediaItemByMediaID(long)
+   */
+  public MediaItem readMediaItemByMediaID(long mediaID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (mediaID < 0)
+      throw new DatabaseOperationException("The provided Media Item object was not valid.");
+    
+    return mediaItemStore.read(mongoDB, mediaID);
+  }
+  
+  /**
+   * Reads a batch of media items by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
+   * 
+   * @param mediaIDs The IDs of the media items we want.
+   * 
+   * @return The media items found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, MediaItem> readMediaItemByMediaID(long[] mediaIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (mediaIDs == null)
+      throw new DatabaseOperationException("The provided mediaIDs object was not valid.");
+    
+    return mediaItemStore.readAll(mongoDB, mediaIDs, multiGetChunkSize);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readMediaItemsByUserID(long)
+   */
+  public List<MediaItem> readMediaItemsByUserID(long userID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (userID < 0)
+      throw new DatabaseOperationException("The provided Media Item object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection itemCollection = mongoDB.getCollection("media");
+      BasicDBObject searchObject  = MediaItemConverter.convertMediaItemToGenericIDQuery("userID", userID);
+      ManagedCursor cursor = cursorTracker.open(itemCollection.find(searchObject));
+      
+      List<MediaItem> items = new LinkedList<MediaItem>();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          items.add(MediaItemConverter.convertMongoToMediaItem(object));
+        }
+      } finally {
+        cursor.close();
+      }
+      
+      if (debugMode)
+        System.out.println ("Total documents found during this query:            " + items.size());
+
+      return items;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readMediaItemsByGameID(long)
+   */
+  public List<MediaItem> readMediaItemsByGameID(long gameID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (gameID < 0)
+      throw new DatabaseOperationException("The provided Media Item object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection itemCollection = mongoDB.getCollection("media");
+      BasicDBObject searchObject  = MediaItemConverter.convertMediaItemToGenericIDQuery("gameID", gameID);
+      ManagedCursor cursor = cursorTracker.open(itemCollection.find(searchObject));
+      
+      List<MediaItem> items = new LinkedList<MediaItem>();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          items.add(MediaItemConverter.convertMongoToMediaItem(object));
+        }
+      } finally {
+        cursor.close();
+      }
+      
+      if (debugMode)
+        System.out.println ("Total documents found during this query:            " + items.size());
+
+      return items;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#insertMediaItem(com.ac.games.data.MediaItem)
+   */
+  public void insertMediaItem(MediaItem item) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (item == null)
+      throw new DatabaseOperationException("The provided media item object was null.");
+    
+    if (!mediaItemStore.insert(mongoDB, item))
+      updateMediaItem(item);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#updateMediaItem(com.ac.games.data.MediaItem)
+   */
+  public void updateMediaItem(MediaItem item) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (item == null)
+      throw new DatabaseOperationException("The provided media item object was null.");
+    
+    mediaItemStore.update(mongoDB, item);
+  }
+
+  /**
+   * Replaces, or inserts, a batch of media items in one unordered bulk write, instead of a round trip each.
+   * 
+   * @param items The media items we want to write.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public void updateMediaItem(List<MediaItem> items) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (items == null || items.contains(null))
+      throw new DatabaseOperationException("The provided items object was not valid.");
+    
+    mediaItemStore.upsertAll(mongoDB, items);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#deleteMediaItem(long)
+   */
+  public void deleteMediaItem(long mediaID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (mediaID < 0)
+      throw new DatabaseOperationException("The provided media item object was not valid.");
+    
+    mediaItemStore.delete(mongoDB, mediaID);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#getMaxMediaItemID()
+   */
+  public long getMaxMediaItemID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("media", "mediaID");
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readWishlistItem(long)
+   */
+  public WishlistItem readWishlistItem(long wishID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (wishID < 0)
+      throw new DatabaseOperationException("The provided Wishlist Item object was not valid.");
+    
+    return wishlistItemStore.read(mongoDB, wishID);
+  }
+  
+  /**
+   * Reads a batch of wishlist items by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
+   * 
+   * @param wishIDs The IDs of the wishlist items we want.
+   * 
+   * @return The wishlist items found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, WishlistItem> readWishlistItem(long[] wishIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (wishIDs == null)
+      throw new DatabaseOperationException("The provided wishIDs object was not valid.");
+    
+    return wishlistItemStore.readAll(mongoDB, wishIDs, multiGetChunkSize);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#insertWishlistItem(com.ac.games.data.WishlistItem)
+   */
+  public void insertWishlistItem(WishlistItem item) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (item == null)
+      throw new DatabaseOperationException("The provided wishlist item object was null.");
+    
+    if (!wishlistItemStore.insert(mongoDB, item))
+      updateWishlistItem(item);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#updateWishlistItem(com.ac.games.data.WishlistItem)
+   */
+  public void updateWishlistItem(WishlistItem item) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (item == null)
+      throw new DatabaseOperationException("The provided wishlist item object was null.");
+    
+    wishlistItemStore.update(mongoDB, item);
+  }
+
+  /**
+   * Replaces, or inserts, a batch of wishlist items in one unordered bulk write, instead of a round trip each.
+   * 
+   * @param items The wishlist items we want to write.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public void updateWishlistItem(List<WishlistItem> items) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (items == null || items.contains(null))
+      throw new DatabaseOperationException("The provided items object was not valid.");
+    
+    wishlistItemStore.upsertAll(mongoDB, items);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#deleteWishlistItem(long)
+   */
+  public void deleteWishlistItem(long wishID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (wishID < 0)
+      throw new DatabaseOperationException("The provided wishlist item object was not valid.");
+    
+    wishlistItemStore.delete(mongoDB, wishID);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#getMaxWishlistItemID()
+   */
+  public long getMaxWishlistItemID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("wishlist", "wishID");
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readPlaythruItem(long)
+   */
+  public PlaythruItem readPlaythruItem(long playthruID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (playthruID < 0)
+      throw new DatabaseOperationException("The provided Playthru Item object was not valid.");
+    
+    return playthruItemStore.read(mongoDB, playthruID);
+  }
+  
+  /**
+   * Reads a batch of playthru items by ID, with one $in query per {@link #setMultiGetChunkSize(int) chunk} of IDs.
+   * 
+   * @param playthruIDs The IDs of the playthru items we want.
+   * 
+   * @return The playthru items found, keyed by ID.  IDs that were not found are left out.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public Map<Long, PlaythruItem> readPlaythruItem(long[] playthruIDs) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (playthruIDs == null)
+      throw new DatabaseOperationException("The provided playthruIDs object was not valid.");
+    
+    return playthruItemStore.readAll(mongoDB, playthruIDs, multiGetChunkSize);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#insertPlaythruItem(com.ac.games.data.PlaythruItem)
+   */
+  public void insertPlaythruItem(PlaythruItem item) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (item == null)
+      throw new DatabaseOperationException("The provided playthru item object was null.");
+    
+    if (!playthruItemStore.insert(mongoDB, item))
+      updatePlaythruItem(item);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#updatePlaythruItem(com.ac.games.data.PlaythruItem)
+   */
+  public void updatePlaythruItem(PlaythruItem item) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (item == null)
+      throw new DatabaseOperationException("The provided playthru item object was null.");
+    
+    playthruItemStore.update(mongoDB, item);
+  }
+
+  /**
+   * Replaces, or inserts, a batch of playthru items in one unordered bulk write, instead of a round trip each.
+   * 
+   * @param items The playthru items we want to write.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public void updatePlaythruItem(List<PlaythruItem> items) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (items == null || items.contains(null))
+      throw new DatabaseOperationException("The provided items object was not valid.");
+    
+    playthruItemStore.upsertAll(mongoDB, items);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#deletePlaythruItem(long)
+   */
+  public void deletePlaythruItem(long playthruID) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (playthruID < 0)
+      throw new DatabaseOperationException("The provided wishlist item object was not valid.");
+    
+    playthruItemStore.delete(mongoDB, playthruID);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#getMaxPlaythruItemID()
+   */
+  public long getMaxPlaythruItemID() throws ConfigurationException, DatabaseOperationException {
+    return getGenericMaxID("playthru", "playthruID");
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#deleteStatsRow(java.lang.String)
+   */
+  public void deleteStatsRow(String statType) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (statType == null)
+      throw new DatabaseOperationException("The provided wishlist item object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection statsCollection = mongoDB.getCollection("stats");
+      BasicDBObject deleteObject  = StatsConverter.convertStatsToTypeQuery(statType);
+      WriteResult result = statsCollection.remove(deleteObject);
+      
+      if (debugMode)
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this delete: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the delete", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readBGGGameStats()
+   */
+  public BGGGameStats readBGGGameStats() throws ConfigurationException, DatabaseOperationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection statsCollection = mongoDB.getCollection("stats");
+      BasicDBObject searchObject  = StatsConverter.convertStatsToTypeQuery(BGGGameStats.BGG_GAME_STATS);
+      ManagedCursor cursor = cursorTracker.open(statsCollection.find(searchObject));
+      
+      BGGGameStats stats = null;
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          stats = StatsConverter.convertMongoToBGGGameStats(object);
+        }
+      } finally {
+        cursor.close();
+      }
+
+      return stats;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#insertBGGGameStats(com.ac.games.data.BGGGameStats)
+   */
+  public void insertBGGGameStats(BGGGameStats stats) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (stats == null)
+      throw new DatabaseOperationException("The provided stats object was null.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection statsCollection = mongoDB.getCollection("stats");
+      //Even though this is an insert method, we'll do the upsert to avoid having to implement an addition
+      //'unsupported' update method.  The upsert ensures we have one and only one stat record per type
+      BasicDBObject queryObject  = StatsConverter.convertStatsToTypeQuery(BGGGameStats.BGG_GAME_STATS);
+      BasicDBObject updateObject = StatsConverter.convertStatsToVersionedUpdate(StatsConverter.convertStatsToMongo(stats));
+      WriteResult result = statsCollection.update(queryObject, updateObject, true, false);
+      
+      if (debugMode) {
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
+      }
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the insert", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readCSIDataStats()
+   */
+  public CSIDataStats readCSIDataStats() throws ConfigurationException, DatabaseOperationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection statsCollection = mongoDB.getCollection("stats");
+      BasicDBObject searchObject  = StatsConverter.convertStatsToTypeQuery(CSIDataStats.CSI_DATA_STATS);
+      ManagedCursor cursor = cursorTracker.open(statsCollection.find(searchObject));
+      
+      CSIDataStats stats = null;
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          stats = StatsConverter.convertMongoToCSIDataStats(object);
+        }
+      } finally {
+        cursor.close();
+      }
+
+      return stats;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#insertCSIDataStats(com.ac.games.data.CSIDataStats)
+   */
+  public void insertCSIDataStats(CSIDataStats stats) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (stats == null)
+      throw new DatabaseOperationException("The provided stats object was null.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection statsCollection = mongoDB.getCollection("stats");
+      //Even though this is an insert method, we'll do the upsert to avoid having to implement an addition
+      //'unsupported' update method.  The upsert ensures we have one and only one stat record per type
+      BasicDBObject queryObject  = StatsConverter.convertStatsToTypeQuery(CSIDataStats.CSI_DATA_STATS);
+      BasicDBObject updateObject = StatsConverter.convertStatsToVersionedUpdate(StatsConverter.convertStatsToMongo(stats));
+      WriteResult result = statsCollection.update(queryObject, updateObject, true, false);
+      
+      if (debugMode) {
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
+      }
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the insert", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readMMDataStats()
+   */
+  public MMDataStats readMMDataStats() throws ConfigurationException, DatabaseOperationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection statsCollection = mongoDB.getCollection("stats");
+      BasicDBObject searchObject  = StatsConverter.convertStatsToTypeQuery(MMDataStats.MM_DATA_STATS);
+      ManagedCursor cursor = cursorTracker.open(statsCollection.find(searchObject));
+      
+      MMDataStats stats = null;
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          stats = StatsConverter.convertMongoToMMDataStats(object);
+        }
+      } finally {
+        cursor.close();
+      }
+
+      return stats;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#insertMMDataStats(com.ac.games.data.MMDataStats)
+   */
+  public void insertMMDataStats(MMDataStats stats) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (stats == null)
+      throw new DatabaseOperationException("The provided stats object was null.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection statsCollection = mongoDB.getCollection("stats");
+      //Even though this is an insert method, we'll do the upsert to avoid having to implement an addition
+      //'unsupported' update method.  The upsert ensures we have one and only one stat record per type
+      BasicDBObject queryObject  = StatsConverter.convertStatsToTypeQuery(MMDataStats.MM_DATA_STATS);
+      BasicDBObject updateObject = StatsConverter.convertStatsToVersionedUpdate(StatsConverter.convertStatsToMongo(stats));
+      WriteResult result = statsCollection.update(queryObject, updateObject, true, false);
+      
+      if (debugMode) {
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+        System.out.println ("Was this update converted to an insert?             " + !result.isUpdateOfExisting());
+      }
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the insert", t);
+    }
+  }
+
+  /**
+   * Recomputes the {@link BGGGameStats} row from the bgggame collection in a single aggregation pass, then
+   * sets every field of the stored row in one write, so readers see either the old row or the new one,
+   * never neither.
+   * <p>
+   * Writers keep the row current with $inc deltas while the aggregation runs.  The new values are only
+   * written if the row's version hasn't moved since it was read, and otherwise the recompute runs again,
+   * so a delta is never overwritten.  A write whose document lands during the aggregation but whose delta
+   * lands after the recompute can still be counted twice; that is put right by the next recompute, and
+   * can't happen at all if it runs while the writers are quiet.  A successful recompute also takes the
+   * row off {@link #getStaleStatTypes()}.
+   * 
+   * @return The freshly computed stats.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public BGGGameStats recomputeBGGGameStats() throws ConfigurationException, DatabaseOperationException {
+    //Any delta that fails from here on marks the row stale again
+    boolean wasStale = (staleStatTypes.remove(BGGGameStats.BGG_GAME_STATS) != null);
+    boolean written  = false;
+    try {
+      for (int attempt = 1; ; attempt++) {
+        DBObject storedRow   = readStatsVersion(BGGGameStats.BGG_GAME_STATS);
+        DBObject statsObject = computeStatsRow("bgggame", StatsConverter.convertBGGGameStatsToGroup());
+        BGGGameStats stats = (statsObject == null ? new BGGGameStats() : StatsConverter.convertMongoToBGGGameStats(statsObject));
+        if (writeRecomputedStats(BGGGameStats.BGG_GAME_STATS, storedRow, StatsConverter.convertStatsToMongo(stats), attempt)) {
+          written = true;
+          return stats;
+        }
+      }
+    } finally {
+      if (wasStale && !written) staleStatTypes.put(BGGGameStats.BGG_GAME_STATS, Boolean.TRUE);
+    }
+  }
+  
+  /**
+   * Recomputes the {@link CSIDataStats} row from the csidata collection in a single aggregation pass, then
+   * sets every field of the stored row in one write, guarded on its version the same way as
+   * {@link #recomputeBGGGameStats()}.
+   * 
+   * @return The freshly computed stats.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public CSIDataStats recomputeCSIDataStats() throws ConfigurationException, DatabaseOperationException {
+    //Any delta that fails from here on marks the row stale again
+    boolean wasStale = (staleStatTypes.remove(CSIDataStats.CSI_DATA_STATS) != null);
+    boolean written  = false;
+    try {
+      for (int attempt = 1; ; attempt++) {
+        DBObject storedRow   = readStatsVersion(CSIDataStats.CSI_DATA_STATS);
+        DBObject statsObject = computeStatsRow("csidata", StatsConverter.convertCSIDataStatsToGroup());
+        CSIDataStats stats = (statsObject == null ? new CSIDataStats() : StatsConverter.convertMongoToCSIDataStats(statsObject));
+        if (writeRecomputedStats(CSIDataStats.CSI_DATA_STATS, storedRow, StatsConverter.convertStatsToMongo(stats), attempt)) {
+          written = true;
+          return stats;
+        }
+      }
+    } finally {
+      if (wasStale && !written) staleStatTypes.put(CSIDataStats.CSI_DATA_STATS, Boolean.TRUE);
+    }
+  }
+  
+  /**
+   * Recomputes the {@link MMDataStats} row from the mmdata collection in a single aggregation pass, then
+   * sets every field of the stored row in one write, guarded on its version the same way as
+   * {@link #recomputeBGGGameStats()}.
+   * 
+   * @return The freshly computed stats.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public MMDataStats recomputeMMDataStats() throws ConfigurationException, DatabaseOperationException {
+    //Any delta that fails from here on marks the row stale again
+    boolean wasStale = (staleStatTypes.remove(MMDataStats.MM_DATA_STATS) != null);
+    boolean written  = false;
+    try {
+      for (int attempt = 1; ; attempt++) {
+        DBObject storedRow   = readStatsVersion(MMDataStats.MM_DATA_STATS);
+        DBObject statsObject = computeStatsRow("mmdata", StatsConverter.convertMMDataStatsToGroup());
+        MMDataStats stats = (statsObject == null ? new MMDataStats() : StatsConverter.convertMongoToMMDataStats(statsObject));
+        if (writeRecomputedStats(MMDataStats.MM_DATA_STATS, storedRow, StatsConverter.convertStatsToMongo(stats), attempt)) {
+          written = true;
+          return stats;
+        }
+      }
+    } finally {
+      if (wasStale && !written) staleStatTypes.put(MMDataStats.MM_DATA_STATS, Boolean.TRUE);
+    }
+  }
+  
+  /**
+   * Helper method that reads the version of a stats row before a recompute.
+   * 
+   * @param statType The statType of the row.
+   * 
+   * @return The row, holding only its statsVersion, or null if there is no row yet
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  private DBObject readStatsVersion(String statType) throws ConfigurationException, DatabaseOperationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    try {
+      DBCollection statsCollection = mongoDB.getCollection("stats");
+      return statsCollection.findOne(StatsConverter.convertStatsToTypeQuery(statType), StatsConverter.convertVersionProjection());
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+  
+  /**
+   * Helper method that writes a recomputed stats row, but only if no delta has been applied to it since
+   * its version was read.  With no row to guard, the row is simply upserted, since deltas are only ever
+   * applied to a row that already exists.
+   * 
+   * @param statType The statType of the row.
+   * @param storedRow The row as read by {@link #readStatsVersion(String)}, or null if there was none.
+   * @param statsObject The recomputed row.
+   * @param attempt Which attempt this is, starting from 1.
+   * 
+   * @return true if the row was written, false if it moved and the recompute should run again
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation, or if the row kept moving for every attempt.
+   */
+  private boolean writeRecomputedStats(String statType, DBObject storedRow, BasicDBObject statsObject, int attempt) 
+      throws ConfigurationException, DatabaseOperationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    WriteResult result = null;
+    try {
+      DBCollection statsCollection = mongoDB.getCollection("stats");
+      BasicDBObject updateObject   = StatsConverter.convertStatsToVersionedUpdate(statsObject);
+      
+      if (storedRow == null) {
+        result = statsCollection.update(StatsConverter.convertStatsToTypeQuery(statType), updateObject, true, false);
+      } else {
+        BasicDBObject queryObject = StatsConverter.convertStatsToVersionQuery(statType, storedRow.get(StatsConverter.VERSION_FIELD));
+        result = statsCollection.update(queryObject, updateObject, false, false);
+      }
+      
+      if (debugMode)
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
+    }
+    
+    if (result.getN() > 0) return true;
+    if (attempt >= MAX_STATS_RECOMPUTE_ATTEMPTS)
+      throw new DatabaseOperationException("The " + statType + " stats row changed during each of " + attempt + " recomputes.");
+    return false;
+  }
+  
+  /**
+   * Helper method that runs a single $group stage over a whole collection and returns its one result row.
+   * 
+   * @param collection The collection, or table name, we are computing stats for
+   * @param groupObject The $group stage to run
+   * 
+   * @return The result row, or null if the collection is empty
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  private DBObject computeStatsRow(String collection, DBObject groupObject) throws ConfigurationException, DatabaseOperationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    try {
+      DBCollection curCollection = mongoDB.getCollection(collection);
+      
+      List<DBObject> pipeline = new ArrayList<DBObject>(1);
+      pipeline.add(groupObject);
+      
+      DBObject result = null;
+      AggregationOutput output = curCollection.aggregate(pipeline);
+      for (DBObject object : output.results())
+        result = object;
+      
+      if (debugMode) System.out.println ("Computed stats row for " + collection + ": " + result);
+      
+      return result;
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readBGGGameByName(java.lang.String, boolean)
+   */
+  public List<BGGGame> readBGGGameByName(String gameName, boolean addWildCard, GameType gameTypeFilter) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (gameName == null)
+      throw new DatabaseOperationException("The provided gameName object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection gameCollection = mongoDB.getCollection("bgggame");
+      
+      DBObject searchObject = SearchQuery.on(SearchCollection.BGG_GAME).named(gameName, addWildCard).notRejected().ofType(gameTypeFilter).toQuery();
+      
+      if (debugMode)
+        System.out.println ("The query I'm about to run is: db.bgggame.find(" + searchObject + ")");
+      
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject).setDecoderFactory(CodecDBDecoder.FACTORY));
+      
+      List<BGGGame> games = new ArrayList<BGGGame>();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          games.add(BGGGameConverter.convertMongoToGame(object, lazyDecodeMode));
+        }
+      } finally {
+        cursor.close();
+      }
+      
+      if (debugMode)
+        System.out.println ("Total documents found during this query:            " + games.size());
+      
+      return games;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readBGGGameForReview(java.lang.String)
+   */
+  public BGGGame readBGGGameForReview(String reviewType) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (reviewType == null)
+      throw new DatabaseOperationException("The provided reviewType object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection gameCollection = mongoDB.getCollection("bgggame");
+      
+      //Skip records a reviewer is holding through the review queue
+      BasicDBObject findObject = ReviewLeaseConverter.convertClaimableToQuery(new Date());
+      BasicDBObject sortObject = new BasicDBObject("gameType", 1);
+      if (reviewType.equalsIgnoreCase("new")) sortObject.append("bggID", -1);
+      else                                    sortObject.append("bggID", 1);
+      
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(findObject).sort(sortObject).limit(1).setDecoderFactory(CodecDBDecoder.FACTORY));
+      
+      BGGGame game = null;
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          game = BGGGameConverter.convertMongoToGame(object, lazyDecodeMode);
+        }
+      } finally {
+        cursor.close();
+      }
+
+      return game;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readCSIDataByTitle(java.lang.String, boolean)
+   */
+  public List<CoolStuffIncPriceData> readCSIDataByTitle(String title, boolean addWildCard) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (title == null)
+      throw new DatabaseOperationException("The provided title object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection csiCollection = mongoDB.getCollection("csidata");
+      
+      //Retailer records keep their name in the title field
+      DBObject searchObject = SearchQuery.on(SearchCollection.CSI_DATA).named(title, addWildCard).notRejected().toQuery();
+      
+      ManagedCursor cursor = cursorTracker.open(csiCollection.find(searchObject));
+      
+      List<CoolStuffIncPriceData> games = new ArrayList<CoolStuffIncPriceData>();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          games.add(CSIDataConverter.convertMongoToCSI(object));
+        }
+      } finally {
+        cursor.close();
+      }
+      
+      if (debugMode)
+        System.out.println ("Total documents found during this query:            " + games.size());
+
+      return games;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readCSIDataForReview(java.lang.String)
+   */
+  public CoolStuffIncPriceData readCSIDataForReview(String reviewType) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (reviewType == null)
+      throw new DatabaseOperationException("The provided reviewType object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection csiCollection = mongoDB.getCollection("csidata");
+      
+      //Skip records a reviewer is holding through the review queue
+      BasicDBObject findObject = ReviewLeaseConverter.convertClaimableToQuery(new Date());
+      BasicDBObject sortObject = null;
+      if (reviewType.equalsIgnoreCase("new"))
+        sortObject = new BasicDBObject("csiID", -1);
+      else sortObject = new BasicDBObject("csiID", 1);
+      
+      if (debugMode)
+        System.out.println ("The query that is being run is db.csidata.find(" + findObject + ".sort(" + sortObject + ").limit(1)");
+      
+      ManagedCursor cursor = cursorTracker.open(csiCollection.find(findObject).sort(sortObject).limit(1));
+      
+      CoolStuffIncPriceData game = null;
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          game = CSIDataConverter.convertMongoToCSI(object);
+        }
+      } finally {
+        cursor.close();
+      }
+
+      return game;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readMMDataByTitle(java.lang.String, boolean)
+   */
+  public List<MiniatureMarketPriceData> readMMDataByTitle(String title, boolean addWildCard) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (title == null)
+      throw new DatabaseOperationException("The provided title object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection mmCollection = mongoDB.getCollection("mmdata");
+      
+      //Retailer records keep their name in the title field
+      DBObject searchObject = SearchQuery.on(SearchCollection.MM_DATA).named(title, addWildCard).notRejected().toQuery();
+      
+      ManagedCursor cursor = cursorTracker.open(mmCollection.find(searchObject));
+      
+      List<MiniatureMarketPriceData> games = new ArrayList<MiniatureMarketPriceData>();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          games.add(MMDataConverter.convertMongoToMM(object));
+        }
+      } finally {
+        cursor.close();
+      }
+      
+      if (debugMode)
+        System.out.println ("Total documents found during this query:            " + games.size());
+
+      return games;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readMMDataForReview(java.lang.String)
+   */
+  public MiniatureMarketPriceData readMMDataForReview(String reviewType) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (reviewType == null)
+      throw new DatabaseOperationException("The provided reviewType object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection mmCollection = mongoDB.getCollection("mmdata");
+      
+      //Skip records a reviewer is holding through the review queue
+      BasicDBObject findObject = ReviewLeaseConverter.convertClaimableToQuery(new Date());
+      BasicDBObject sortObject = null;
+      if (reviewType.equalsIgnoreCase("new"))
+        sortObject = new BasicDBObject("mmID", -1);
+      else sortObject = new BasicDBObject("mmID", 1);
+      
+      ManagedCursor cursor = cursorTracker.open(mmCollection.find(findObject).sort(sortObject).limit(1));
+      
+      MiniatureMarketPriceData game = null;
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          game = MMDataConverter.convertMongoToMM(object);
+        }
+      } finally {
+        cursor.close();
+      }
+
+      return game;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readGameByName(java.lang.String, boolean, com.ac.games.data.GameType)
+   */
+  public List<Game> readGameByName(String gameName, boolean addWildCard, GameType gameTypeFilter) throws ConfigurationException,
+      DatabaseOperationException {
+    //Check basic pre-conditions
+    if (gameName == null)
+      throw new DatabaseOperationException("The provided gameName object was not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection gameCollection = mongoDB.getCollection("game");
+      
+      DBObject searchObject = SearchQuery.on(SearchCollection.GAME).named(gameName, addWildCard).ofType(gameTypeFilter).toQuery();
+      
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject).setDecoderFactory(CodecDBDecoder.FACTORY));
+      
+      List<Game> games = new ArrayList<Game>();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          games.add(GameConverter.convertMongoToGame(object, lazyDecodeMode));
+        }
+      } finally {
+        cursor.close();
+      }
+      
+      if (debugMode)
+        System.out.println ("Games found by name:                                " + games.size());
+      
+      return games;
+      
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
+  }
+  
+  /**
+   * Claims the next pending bgggame record for review, using the same ordering as
+   * {@link #readBGGGameForReview(String)}.  The claim is a single findAndModify, so two reviewers
+   * asking at the same moment are always handed different records.  The claim lasts until the lease
+   * runs out, the reviewer releases it, or the record is updated.
+   * 
+   * @param reviewType "new" to work from the newest IDs down, anything else to work from the oldest up.
+   * @param reviewer The name of the reviewer taking the lease.
+   * @param leaseMillis How long, in milliseconds, the claim lasts.
+   * 
+   * @return The claimed record, or null if nothing is waiting for review.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public BGGGame claimBGGGameForReview(String reviewType, String reviewer, long leaseMillis) throws ConfigurationException, DatabaseOperationException {
+    List<BGGGame> games = claimBGGGamesForReview(reviewType, reviewer, leaseMillis, 1);
+    return (games.isEmpty() ? null : games.get(0));
+  }
+  
+  /**
+   * Claims up to batchSize pending bgggame records for review in one go.  Records another reviewer wins
+   * while the batch is being claimed are left out, so the batch may come back short.
+   * 
+   * @param reviewType "new" to work from the newest IDs down, anything else to work from the oldest up.
+   * @param reviewer The name of the reviewer taking the leases.
+   * @param leaseMillis How long, in milliseconds, the claims last.
+   * @param batchSize The most records to claim.
+   * 
+   * @return The claimed records, in review order, which will be empty if nothing is waiting for review.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public List<BGGGame> claimBGGGamesForReview(String reviewType, String reviewer, long leaseMillis, int batchSize) throws ConfigurationException, DatabaseOperationException {
+    if (reviewType == null)
+      throw new DatabaseOperationException("The provided reviewType object was not valid.");
+    
+    BasicDBObject sortObject = new BasicDBObject("gameType", 1);
+    if (reviewType.equalsIgnoreCase("new")) sortObject.append("bggID", -1);
+    else                                    sortObject.append("bggID", 1);
+    
+    List<DBObject> objects = claimGenericForReview("bgggame", sortObject, reviewer, leaseMillis, batchSize);
+    List<BGGGame> games = new ArrayList<BGGGame>(objects.size());
+    for (DBObject object : objects)
+      games.add(BGGGameConverter.convertMongoToGame(object, lazyDecodeMode));
+    return games;
+  }
+  
+  /**
+   * Claims the next pending csidata record for review, using the same ordering as
+   * {@link #readCSIDataForReview(String)}.  See {@link #claimBGGGameForReview(String, String, long)}.
+   * 
+   * @param reviewType "new" to work from the newest IDs down, anything else to work from the oldest up.
+   * @param reviewer The name of the reviewer taking the lease.
+   * @param leaseMillis How long, in milliseconds, the claim lasts.
+   * 
+   * @return The claimed record, or null if nothing is waiting for review.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public CoolStuffIncPriceData claimCSIDataForReview(String reviewType, String reviewer, long leaseMillis) throws ConfigurationException, DatabaseOperationException {
+    List<CoolStuffIncPriceData> items = claimCSIDataForReview(reviewType, reviewer, leaseMillis, 1);
+    return (items.isEmpty() ? null : items.get(0));
+  }
+  
+  /**
+   * Claims up to batchSize pending csidata records for review in one go.
+   * See {@link #claimBGGGamesForReview(String, String, long, int)}.
+   * 
+   * @param reviewType "new" to work from the newest IDs down, anything else to work from the oldest up.
+   * @param reviewer The name of the reviewer taking the leases.
+   * @param leaseMillis How long, in milliseconds, the claims last.
+   * @param batchSize The most records to claim.
+   * 
+   * @return The claimed records, in review order, which will be empty if nothing is waiting for review.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public List<CoolStuffIncPriceData> claimCSIDataForReview(String reviewType, String reviewer, long leaseMillis, int batchSize) throws ConfigurationException, DatabaseOperationException {
+    if (reviewType == null)
+      throw new DatabaseOperationException("The provided reviewType object was not valid.");
+    
+    BasicDBObject sortObject = null;
+    if (reviewType.equalsIgnoreCase("new"))
+      sortObject = new BasicDBObject("csiID", -1);
+    else sortObject = new BasicDBObject("csiID", 1);
+    
+    List<DBObject> objects = claimGenericForReview("csidata", sortObject, reviewer, leaseMillis, batchSize);
+    List<CoolStuffIncPriceData> items = new ArrayList<CoolStuffIncPriceData>(objects.size());
+    for (DBObject object : objects)
+      items.add(CSIDataConverter.convertMongoToCSI(object));
+    return items;
+  }
+  
+  /**
+   * Claims the next pending mmdata record for review, using the same ordering as
+   * {@link #readMMDataForReview(String)}.  See {@link #claimBGGGameForReview(String, String, long)}.
+   * 
+   * @param reviewType "new" to work from the newest IDs down, anything else to work from the oldest up.
+   * @param reviewer The name of the reviewer taking the lease.
+   * @param leaseMillis How long, in milliseconds, the claim lasts.
+   * 
+   * @return The claimed record, or null if nothing is waiting for review.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public MiniatureMarketPriceData claimMMDataForReview(String reviewType, String reviewer, long leaseMillis) throws ConfigurationException, DatabaseOperationException {
+    List<MiniatureMarketPriceData> items = claimMMDataForReview(reviewType, reviewer, leaseMillis, 1);
+    return (items.isEmpty() ? null : items.get(0));
+  }
+  
+  /**
+   * Claims up to batchSize pending mmdata records for review in one go.
+   * See {@link #claimBGGGamesForReview(String, String, long, int)}.
+   * 
+   * @param reviewType "new" to work from the newest IDs down, anything else to work from the oldest up.
+   * @param reviewer The name of the reviewer taking the leases.
+   * @param leaseMillis How long, in milliseconds, the claims last.
+   * @param batchSize The most records to claim.
+   * 
+   * @return The claimed records, in review order, which will be empty if nothing is waiting for review.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public List<MiniatureMarketPriceData> claimMMDataForReview(String reviewType, String reviewer, long leaseMillis, int batchSize) throws ConfigurationException, DatabaseOperationException {
+    if (reviewType == null)
+      throw new DatabaseOperationException("The provided reviewType object was not valid.");
+    
+    BasicDBObject sortObject = null;
+    if (reviewType.equalsIgnoreCase("new"))
+      sortObject = new BasicDBObject("mmID", -1);
+    else sortObject = new BasicDBObject("mmID", 1);
+    
+    List<DBObject> objects = claimGenericForReview("mmdata", sortObject, reviewer, leaseMillis, batchSize);
+    List<MiniatureMarketPriceData> items = new ArrayList<MiniatureMarketPriceData>(objects.size());
+    for (DBObject object : objects)
+      items.add(MMDataConverter.convertMongoToMM(object));
+    return items;
+  }
+  
+  /**
+   * Gives up a review lease on a bgggame record, so it goes back in the queue.  Only the reviewer holding
+   * the lease can release it.
+   * 
+   * @param bggID The ID of the record.
+   * @param reviewer The reviewer holding the lease.
+   * 
+   * @return true if the lease was held by this reviewer and has been released.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public boolean releaseBGGGameReviewLease(long bggID, String reviewer) throws ConfigurationException, DatabaseOperationException {
+    return releaseGenericReviewLease("bgggame", "bggID", bggID, reviewer);
+  }
+  
+  /**
+   * Gives up a review lease on a csidata record.  See {@link #releaseBGGGameReviewLease(long, String)}.
+   * 
+   * @param csiID The ID of the record.
+   * @param reviewer The reviewer holding the lease.
+   * 
+   * @return true if the lease was held by this reviewer and has been released.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public boolean releaseCSIDataReviewLease(long csiID, String reviewer) throws ConfigurationException, DatabaseOperationException {
+    return releaseGenericReviewLease("csidata", "csiID", csiID, reviewer);
+  }
+  
+  /**
+   * Gives up a review lease on a mmdata record.  See {@link #releaseBGGGameReviewLease(long, String)}.
+   * 
+   * @param mmID The ID of the record.
+   * @param reviewer The reviewer holding the lease.
+   * 
+   * @return true if the lease was held by this reviewer and has been released.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public boolean releaseMMDataReviewLease(long mmID, String reviewer) throws ConfigurationException, DatabaseOperationException {
+    return releaseGenericReviewLease("mmdata", "mmID", mmID, reviewer);
+  }
+  
+  /**
+   * Clears every review lease that has run out, across bgggame, csidata and mmdata.  Expired leases are
+   * already claimable without this, so it only tidies the documents up.
+   * 
+   * @return The number of leases cleared.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public int releaseExpiredReviewLeases() throws ConfigurationException, DatabaseOperationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    try {
+      Date now = new Date();
+      int released = 0;
+      for (String collection : REVIEW_COLLECTIONS) {
+        WriteResult result = mongoDB.getCollection(collection).updateMulti(ReviewLeaseConverter.convertExpiredLeasesToQuery(now), 
+                                                                           ReviewLeaseConverter.convertReleaseToUpdate());
+        released += result.getN();
+      }
+      
+      if (debugMode)
+        System.out.println ("The number of expired review leases released:       " + released);
+      
+      return released;
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
+    }
+  }
+  
+  /**
+   * Starts a background thread that calls {@link #releaseExpiredReviewLeases()} on a fixed interval.  Any
+   * reaper already running is stopped first.  The reaper is stopped when the connection is closed.
+   * 
+   * @param intervalMillis How often, in milliseconds, to clear expired leases.
+   */
+  public void startReviewLeaseReaper(long intervalMillis) {
+    stopReviewLeaseReaper();
+    
+    ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "review-lease-reaper");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    reaper.scheduleWithFixedDelay(new Runnable() {
+      public void run() {
+        //Swallow everything, or the executor would quietly stop scheduling us
+        try {
+          releaseExpiredReviewLeases();
+        } catch (Throwable t) {
+          if (debugMode) t.printStackTrace();
+        }
+      }
+    }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    leaseReaper = reaper;
+  }
+  
+  /**
+   * Stops the background lease reaper, if one is running.
+   */
+  public void stopReviewLeaseReaper() {
+    ScheduledExecutorService reaper = leaseReaper;
+    leaseReaper = null;
+    if (reaper != null) reaper.shutdownNow();
+  }
+  
+  /**
+   * @return the number of read cursors currently open.  Outside of a read in progress this should be 0.
+   */
+  public int getOpenCursorCount() {
+    return cursorTracker.getOpenCount();
+  }
+  
+  /**
+   * @return the number of read cursors opened since this object was created
+   */
+  public long getOpenedCursorCount() {
+    return cursorTracker.getOpenedCount();
+  }
+  
+  /**
+   * @param thresholdMillis How long, in milliseconds, a cursor may stay open before it counts as leaked.
+   * @return a description of every read cursor open longer than the threshold, oldest first
+   */
+  public List<String> readLeakedCursors(long thresholdMillis) {
+    return cursorTracker.findLeaks(thresholdMillis);
+  }
+  
+  /**
+   * Reports what each entity store has done since this object was created: how many reads, documents,
+   * writes and deletes, and how long they took on average.
+   * 
+   * @return One line per entity store.
+   */
+  public List<String> readEntityStoreStats() {
+    List<String> stats = new ArrayList<String>(entityStores.length);
+    for (EntityStore<?> store : entityStores)
+      stats.add(store.describe());
+    return stats;
+  }
+  
+  /**
+   * Starts a background thread that reports, on standard error, every read cursor left open longer than
+   * the threshold.  While it runs, each cursor records where it was opened, so the report names the
+   * read that leaked it.  Any check already running is stopped first.  The check is stopped when the
+   * connection is closed.
+   * 
+   * @param thresholdMillis How long, in milliseconds, a cursor may stay open before it is reported.
+   */
+  public void startCursorLeakCheck(final long thresholdMillis) {
+    stopCursorLeakCheck();
+    cursorTracker.setRecordOpeners(true);
+    
+    ScheduledExecutorService check = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "cursor-leak-check");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    check.scheduleWithFixedDelay(new Runnable() {
+      public void run() {
+        //Swallow everything, or the executor would quietly stop scheduling us
+        try {
+          for (String leak : cursorTracker.findLeaks(thresholdMillis))
+            System.err.println ("Cursor left open: " + leak);
+        } catch (Throwable t) {
+          if (debugMode) t.printStackTrace();
+        }
+      }
+    }, thresholdMillis, thresholdMillis, TimeUnit.MILLISECONDS);
+    cursorLeakCheck = check;
+  }
+  
+  /**
+   * Stops the background cursor leak check, if one is running.
+   */
+  public void stopCursorLeakCheck() {
+    ScheduledExecutorService check = cursorLeakCheck;
+    cursorLeakCheck = null;
+    cursorTracker.setRecordOpeners(false);
+    if (check != null) check.shutdownNow();
+  }
+  
+  /**
+   * Starts dropping cached documents that other nodes have changed, with a new tail of the oplog.
+   * 
+   * @param fallbackMaxAgeMillis How long a cached game may be served when there is no oplog to tail.
+   * 
+   * @return true if the oplog is being tailed, false if we fell back to expiring cached games by age.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @see #startCacheInvalidation(long, BSONTimestamp)
+   */
+  public boolean startCacheInvalidation(long fallbackMaxAgeMillis) throws ConfigurationException {
+    return startCacheInvalidation(fallbackMaxAgeMillis, null);
+  }
+  
+  /**
+   * Starts dropping cached documents that other nodes have changed.  On a replica set, the oplog is
+   * tailed for changes to the game, bgggame, user and collection tables: changed games are dropped
+   * from the game cache, cached counts are reloaded after inserts and deletes, and every change is
+   * passed on to the listeners added with {@link #addCacheInvalidationListener(CacheInvalidationListener)}.
+   * <p>
+   * A standalone server has no oplog.  In that case cached games are instead served for no longer than
+   * the fallback max age, and the count cache keeps relying on its own max age.
+   * 
+   * @param fallbackMaxAgeMillis How long a cached game may be served when there is no oplog to tail.
+   * @param resumePosition A position from {@link #getCacheInvalidationPosition()} to resume from, or null
+   * to start from the newest oplog entry.
+   * 
+   * @return true if the oplog is being tailed, false if we fell back to expiring cached games by age.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   */
+  public boolean startCacheInvalidation(long fallbackMaxAgeMillis, BSONTimestamp resumePosition) throws ConfigurationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    stopCacheInvalidation();
+    
+    if (!OplogCacheInvalidator.isOplogAvailable(mongoClient)) {
+      if (debugMode) System.out.println ("No oplog available, cached games expire after " + fallbackMaxAgeMillis + "ms");
+      setGameCacheMaxAge(fallbackMaxAgeMillis);
+      return false;
+    }
+    
+    //With the oplog telling us about every change, cached games no longer need to expire
+    setGameCacheMaxAge(0);
+    
+    OplogCacheInvalidator invalidator = new OplogCacheInvalidator(mongoClient, databaseName, INVALIDATION_COLLECTIONS, 
+                                                                  new CacheInvalidationListener() {
+      public void documentChanged(String collection, Object documentID, char operation) {
+        DocumentCache games = gameCache;
+        if (games != null && collection.equals("game")) games.removeByDocumentID(documentID);
+        
+        CountCache counts = countCache;
+        if (counts != null && operation != 'u') counts.remove(collection);
+        
+        for (CacheInvalidationListener listener : invalidationListeners)
+          listener.documentChanged(collection, documentID, operation);
+      }
+      
+      public void collectionChanged(String collection) {
+        DocumentCache games = gameCache;
+        if (games != null && collection.equals("game")) games.clear();
+        
+        CountCache counts = countCache;
+        if (counts != null) counts.remove(collection);
+        
+        for (CacheInvalidationListener listener : invalidationListeners)
+          listener.collectionChanged(collection);
+      }
+    }, resumePosition);
+    
+    invalidator.start();
+    cacheInvalidator = invalidator;
+    return true;
+  }
+  
+  /**
+   * Stops the oplog tail started by {@link #startCacheInvalidation(long)}, if there is one.
+   */
+  public void stopCacheInvalidation() {
+    OplogCacheInvalidator invalidator = cacheInvalidator;
+    cacheInvalidator = null;
+    if (invalidator != null) invalidator.stop();
+  }
+  
+  /**
+   * @return the timestamp of the last oplog entry handled, which can be saved and handed back to
+   * {@link #startCacheInvalidation(long, BSONTimestamp)} to resume from, or null if nothing is tailing
+   */
+  public BSONTimestamp getCacheInvalidationPosition() {
+    OplogCacheInvalidator invalidator = cacheInvalidator;
+    return (invalidator == null ? null : invalidator.getPosition());
+  }
+  
+  /**
+   * @param listener An outside cache to tell about changes other nodes make, i.e. a user or collection cache.
+   */
+  public void addCacheInvalidationListener(CacheInvalidationListener listener) {
+    if (listener != null) invalidationListeners.add(listener);
+  }
+  
+  /**
+   * @param listener The listener to stop telling about changes.
+   */
+  public void removeCacheInvalidationListener(CacheInvalidationListener listener) {
+    invalidationListeners.remove(listener);
+  }
+  
+  /**
+   * Helper method that sets the max age of cached games, now and for any game cache created later.
+   * 
+   * @param maxAgeMillis How long, in milliseconds, a cached game may be served, or 0 for no limit.
+   */
+  private void setGameCacheMaxAge(long maxAgeMillis) {
+    gameCacheMaxAgeMillis = (maxAgeMillis < 0 ? 0 : maxAgeMillis);
+    DocumentCache cache = gameCache;
+    if (cache != null) cache.setMaxAgeMillis(gameCacheMaxAgeMillis);
+  }
+  
+  /**
+   * Builds the indexes the review queue leans on: the pending records in each collection's review order.
+   * Safe to call repeatedly.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public void ensureReviewQueueIndexes() throws ConfigurationException, DatabaseOperationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    try {
+      mongoDB.getCollection("bgggame").createIndex(new BasicDBObject("reviewState", 1).append("gameType", 1).append("bggID", 1));
+      mongoDB.getCollection("csidata").createIndex(new BasicDBObject("reviewState", 1).append("csiID", 1));
+      mongoDB.getCollection("mmdata").createIndex(new BasicDBObject("reviewState", 1).append("mmID", 1));
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this index build: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened building the indexes", t);
+    }
+  }
+  
+  /**
+   * Records a review decision for many bgggame records at once.  Only reviewState and reviewDate are
+   * written, with one multi-update per previous review state, so a whole triage pass costs a few round
+   * trips instead of a full document rewrite per record.  Records already in the decided state are left
+   * alone, and any review leases on the changed records are ended.
+   * 
+   * @param bggIDs The IDs of the records being decided.
+   * @param reviewState The review state decided on.
+   * 
+   * @return The number of records that changed.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public int updateBGGGameReviewStates(long[] bggIDs, ReviewState reviewState) throws ConfigurationException, DatabaseOperationException {
+    return updateGenericReviewStates("bgggame", "bggID", BGGGameStats.BGG_GAME_STATS, bggIDs, reviewState);
+  }
+  
+  /**
+   * Records a review decision for many csidata records at once.
+   * See {@link #updateBGGGameReviewStates(long[], ReviewState)}.
+   * 
+   * @param csiIDs The IDs of the records being decided.
+   * @param reviewState The review state decided on.
+   * 
+   * @return The number of records that changed.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public int updateCSIDataReviewStates(long[] csiIDs, ReviewState reviewState) throws ConfigurationException, DatabaseOperationException {
+    return updateGenericReviewStates("csidata", "csiID", CSIDataStats.CSI_DATA_STATS, csiIDs, reviewState);
+  }
+  
+  /**
+   * Records a review decision for many mmdata records at once.
+   * See {@link #updateBGGGameReviewStates(long[], ReviewState)}.
+   * 
+   * @param mmIDs The IDs of the records being decided.
+   * @param reviewState The review state decided on.
+   * 
+   * @return The number of records that changed.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public int updateMMDataReviewStates(long[] mmIDs, ReviewState reviewState) throws ConfigurationException, DatabaseOperationException {
+    return updateGenericReviewStates("mmdata", "mmID", MMDataStats.MM_DATA_STATS, mmIDs, reviewState);
+  }
+  
+  /**
+   * Helper method that records a review decision for many records in a collection.  Records are moved
+   * one previous review state at a time, so each update's count is exactly the number that left that
+   * state, and the stats row can be adjusted to match.
+   * 
+   * @param collection The collection, or table name, the records are in
+   * @param idField The ID field of the collection
+   * @param statType The statType of the collection's stats row
+   * @param ids The IDs of the records being decided
+   * @param reviewState The review state decided on
+   * 
+   * @return The number of records that changed
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  private int updateGenericReviewStates(String collection, String idField, String statType, long[] ids, ReviewState reviewState) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (ids == null || reviewState == null)
+      throw new DatabaseOperationException("The provided IDs or review state were not valid.");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    if (ids.length == 0) return 0;
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection curCollection = mongoDB.getCollection(collection);
+      BasicDBObject updateObject = ReviewDecisionConverter.convertDecisionToUpdate(reviewState, new Date());
+      int toFlag = ReviewStateConverter.convertReviewStateToFlag(reviewState);
+      
+      int changed = 0;
+      for (ReviewState fromState : ReviewDecisionConverter.convertDecisionToFromStates(reviewState)) {
+        WriteResult result = curCollection.updateMulti(ReviewDecisionConverter.convertDecisionToQuery(idField, ids, fromState), updateObject);
+        if (result.getN() == 0) continue;
+        
+        changed += result.getN();
+        int fromFlag = (fromState == null ? -1 : ReviewStateConverter.convertReviewStateToFlag(fromState));
+        applyStatsChange(statType, StatsConverter.convertReviewStateMoveToStatsUpdate(fromFlag, toFlag, result.getN()));
       }
       
+      if (debugMode)
+        System.out.println ("The number of documents impacted by this operation: " + changed);
+      
+      return changed;
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this insert: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the insert", t);
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readBGGGameByName(java.lang.String, boolean)
+  
+  /**
+   * Helper method that claims up to batchSize pending records from a collection.  A single record is
+   * claimed with one findAndModify.  A batch is claimed in three round trips, however large it is: pick
+   * the candidate _ids, stamp a lease on whichever of them are still free, then read back the ones
+   * this claim won.
+   * 
+   * @param collection The collection, or table name, to claim from
+   * @param sortObject The review order
+   * @param reviewer The reviewer taking the leases
+   * @param leaseMillis How long, in milliseconds, the claims last
+   * @param batchSize The most records to claim
+   * 
+   * @return The claimed documents, in review order
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public List<BGGGame> readBGGGameByName(String gameName, boolean addWildCard, GameType gameTypeFilter) throws ConfigurationException, DatabaseOperationException {
+  private List<DBObject> claimGenericForReview(String collection, DBObject sortObject, String reviewer, long leaseMillis, int batchSize) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (gameName == null)
-      throw new DatabaseOperationException("The provided gameName object was not valid.");
+    if (reviewer == null || leaseMillis <= 0 || batchSize <= 0)
+      throw new DatabaseOperationException("The provided reviewer, lease or batch size was not valid.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
@@ -2873,63 +5345,71 @@ public class MongoGamesDatabase implements GamesDatabase {
     //Run the operation
     try {
       //Open the collection, i.e. table
-      DBCollection gameCollection = mongoDB.getCollection("bgggame");
+      DBCollection curCollection = mongoDB.getCollection(collection);
+      
+      Date now     = new Date();
+      Date expires = new Date(now.getTime() + leaseMillis);
+      List<DBObject> claimed = new ArrayList<DBObject>(batchSize);
       
-      BasicDBObject regexObject = new BasicDBObject();
-      if (addWildCard)   regexObject.append("$regex", "(?i)" + gameName.trim() + ".*");
-      else               regexObject.append("$regex", "(?i)" + gameName.trim());
-      
-      BasicDBObject searchObject  = new BasicDBObject("name", regexObject);
-      BasicDBList ignoreRejectList = new BasicDBList();
-      ignoreRejectList.add(new Integer(ReviewStateConverter.convertReviewStateToFlag(ReviewState.REVIEWED)));
-      ignoreRejectList.add(new Integer(ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING)));
-      searchObject.append("reviewState", new BasicDBObject("$in", ignoreRejectList));
-      
-      if ((gameTypeFilter == null) || (gameTypeFilter == GameType.BASE_AND_COLLECTIBLE)) {
-        BasicDBList filterList = new BasicDBList();
-        filterList.add(GameTypeConverter.convertGameTypeToFlag(GameType.BASE));
-        filterList.add(GameTypeConverter.convertGameTypeToFlag(GameType.COLLECTIBLE));
-        searchObject.append("gameType", new BasicDBObject("$in", filterList));
+      if (batchSize == 1) {
+        DBObject object = curCollection.findAndModify(ReviewLeaseConverter.convertClaimableToQuery(now), null, sortObject, false, 
+                                                      ReviewLeaseConverter.convertClaimToUpdate(reviewer, expires), true, false);
+        awaitJournal(curCollection);
+        if (object != null) claimed.add(object);
       } else {
-        searchObject.append("gameType", GameTypeConverter.convertGameTypeToFlag(gameTypeFilter));
+        List<Object> docIDs = new ArrayList<Object>(batchSize);
+        ManagedCursor cursor = cursorTracker.open(curCollection.find(ReviewLeaseConverter.convertClaimableToQuery(now), ReviewLeaseConverter.convertDocIDProjection())
+                                       .sort(sortObject).limit(batchSize));
+        try {
+          while (cursor.hasNext())
+            docIDs.add(cursor.next().get("_id"));
+        } finally {
+          cursor.close();
+        }
+        
+        if (docIDs.isEmpty()) return claimed;
+        
+        //Re-test the lease in the update, so anything taken since we picked it is skipped
+        curCollection.updateMulti(ReviewLeaseConverter.convertClaimableToQuery(docIDs, now), ReviewLeaseConverter.convertClaimToUpdate(reviewer, expires));
+        
+        cursor = cursorTracker.open(curCollection.find(ReviewLeaseConverter.convertClaimedToQuery(docIDs, reviewer, expires)).sort(sortObject).setDecoderFactory(CodecDBDecoder.FACTORY));
+        try {
+          while (cursor.hasNext())
+            claimed.add(cursor.next());
+        } finally {
+          cursor.close();
+        }
       }
       
-      //DEBUG
-      System.out.println ("The query I'm about to run is: db.bgggame.find(" + searchObject + ")");
-      debugMode = true;
-      
-      DBCursor cursor = gameCollection.find(searchObject);
-      
       if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      List<BGGGame> games = new ArrayList<BGGGame>(cursor.size());
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        games.add(BGGGameConverter.convertMongoToGame(object));
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      debugMode = false;
-      System.out.println ("games.size(): " + games.size());
-      
-      return games;
+        System.out.println ("Review records claimed by " + reviewer + " from " + collection + ":  " + claimed.size());
       
+      return claimed;
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readBGGGameForReview(java.lang.String)
+  
+  /**
+   * Helper method that releases one record's review lease, if the given reviewer holds it.
+   * 
+   * @param collection The collection, or table name, the record is in
+   * @param idField The ID field of the collection
+   * @param id The ID of the record
+   * @param reviewer The reviewer holding the lease
+   * 
+   * @return true if the lease was released
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public BGGGame readBGGGameForReview(String reviewType) throws ConfigurationException, DatabaseOperationException {
+  private boolean releaseGenericReviewLease(String collection, String idField, long id, String reviewer) throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (reviewType == null)
-      throw new DatabaseOperationException("The provided reviewType object was not valid.");
+    if (id < 0 || reviewer == null)
+      throw new DatabaseOperationException("The provided ID or reviewer was not valid.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
@@ -2937,42 +5417,29 @@ public class MongoGamesDatabase implements GamesDatabase {
     //Run the operation
     try {
       //Open the collection, i.e. table
-      DBCollection gameCollection = mongoDB.getCollection("bgggame");
-      
-      BasicDBObject findObject = new BasicDBObject("reviewState", ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING));
-      BasicDBObject sortObject = new BasicDBObject("gameType", 1);
-      if (reviewType.equalsIgnoreCase("new")) sortObject.append("bggID", -1);
-      else                                    sortObject.append("bggID", 1);
-      
-      DBCursor cursor = gameCollection.find(findObject).sort(sortObject).limit(1);
+      DBCollection curCollection = mongoDB.getCollection(collection);
+      WriteResult result = curCollection.update(ReviewLeaseConverter.convertLeaseToQuery(idField, id, reviewer), ReviewLeaseConverter.convertReleaseToUpdate());
       
       if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      BGGGame game = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        game = BGGGameConverter.convertMongoToGame(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return game;
+        System.out.println ("The number of documents impacted by this operation: " + result.getN());
       
+      return result.getN() > 0;
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this update: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
+      throw new DatabaseOperationException("Something bad happened executing the update", t);
     }
   }
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readCSIDataByTitle(java.lang.String, boolean)
+   * @see com.ac.games.db.GamesDatabase#readGameFromAutoName(java.lang.String, java.lang.String, int)
    */
-  public List<CoolStuffIncPriceData> readCSIDataByTitle(String title, boolean addWildCard) throws ConfigurationException, DatabaseOperationException {
+  public CompactSearchData readGameFromAutoName(String gameName, String primaryPublisher, int yearPublished)
+      throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (title == null)
-      throw new DatabaseOperationException("The provided title object was not valid.");
+    if (gameName == null)
+      throw new DatabaseOperationException("The provided gameName object was not valid.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
@@ -2980,32 +5447,32 @@ public class MongoGamesDatabase implements GamesDatabase {
     //Run the operation
     try {
       //Open the collection, i.e. table
-      DBCollection csiCollection = mongoDB.getCollection("csidata");
-      
-      BasicDBObject regexObject = new BasicDBObject();
-      if (addWildCard)   regexObject.append("$regex", "(?i)" + title.trim() + ".*");
-      else               regexObject.append("$regex", "(?i)" + title.trim());
+      DBCollection gameCollection = mongoDB.getCollection("game");
       
-      BasicDBObject searchObject  = new BasicDBObject("name", regexObject);
-      BasicDBList ignoreRejectList = new BasicDBList();
-      ignoreRejectList.add(ReviewStateConverter.convertReviewStateToFlag(ReviewState.REVIEWED));
-      ignoreRejectList.add(ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING));
-      searchObject.append("reviewState", new BasicDBObject("$in", ignoreRejectList));
+      BasicDBObject queryObject = new BasicDBObject("name", gameName);
+      if (primaryPublisher != null)
+        queryObject.append("primaryPublisher", primaryPublisher);
+      if (yearPublished != -1)
+        queryObject.append("yearPublished", yearPublished);
       
-      DBCursor cursor = csiCollection.find(searchObject);
+      DBObject columnsObject = SearchCollection.GAME.getCompactProjection();
       
       if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
+        System.out.println ("The query we are about to run is: db.game.find({" + queryObject + "}, {" + columnsObject + "})");
       
-      List<CoolStuffIncPriceData> games = new ArrayList<CoolStuffIncPriceData>(cursor.size());
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        games.add(CSIDataConverter.convertMongoToCSI(object));
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(queryObject, columnsObject));
+      CompactSearchData data = null;
+      
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          data = GameConverter.convertMongoToCompact(object);
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return games;
       
+      return data;
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
@@ -3013,14 +5480,11 @@ public class MongoGamesDatabase implements GamesDatabase {
     }
   }
 
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readCSIDataForReview(java.lang.String)
-   */
-  public CoolStuffIncPriceData readCSIDataForReview(String reviewType) throws ConfigurationException, DatabaseOperationException {
+  public List<CompactSearchData> readBGGGameByName(String gameName, boolean addWildCard, GameType gameTypeFilter, int resultLimit)
+      throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (reviewType == null)
-      throw new DatabaseOperationException("The provided reviewType object was not valid.");
+    if (gameName == null)
+      throw new DatabaseOperationException("The provided gameName object was not valid.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
@@ -3028,30 +5492,31 @@ public class MongoGamesDatabase implements GamesDatabase {
     //Run the operation
     try {
       //Open the collection, i.e. table
-      DBCollection csiCollection = mongoDB.getCollection("csidata");
-      
-      BasicDBObject findObject = new BasicDBObject("reviewState", ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING));
-      BasicDBObject sortObject = null;
-      if (reviewType.equalsIgnoreCase("new"))
-        sortObject = new BasicDBObject("csiID", -1);
-      else sortObject = new BasicDBObject("csiID", 1);
+      DBCollection gameCollection = mongoDB.getCollection("bgggame");
       
-      //DEBUG
-      System.out.println ("The query that is being run is db.csidata.find(" + findObject + ".sort(" + sortObject + ").limit(1)");
+      DBObject searchObject = SearchQuery.on(SearchCollection.BGG_GAME).named(gameName, addWildCard).notRejected().ofType(gameTypeFilter).toQuery();
       
-      DBCursor cursor = csiCollection.find(findObject).sort(sortObject).limit(1);
+      DBObject columnsObject = SearchCollection.BGG_GAME.getCompactProjection();
       
       if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
+        System.out.println ("The query I'm about to run is: db.bgggame.find({" + searchObject + "}, {" + columnsObject + "})");
       
-      CoolStuffIncPriceData game = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        game = CSIDataConverter.convertMongoToCSI(object);
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject, columnsObject).limit(resultLimit));
+      
+      List<CompactSearchData> games = new ArrayList<CompactSearchData>();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          games.add(BGGGameConverter.convertMongoToCompact(object));
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return game;
+      
+      if (debugMode)
+        System.out.println ("Total documents found during this query:            " + games.size());
+      
+      return games;
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
@@ -3062,9 +5527,10 @@ public class MongoGamesDatabase implements GamesDatabase {
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readMMDataByTitle(java.lang.String, boolean)
+   * @see com.ac.games.db.GamesDatabase#readCSIDataByTitle(java.lang.String, boolean, int)
    */
-  public List<MiniatureMarketPriceData> readMMDataByTitle(String title, boolean addWildCard) throws ConfigurationException, DatabaseOperationException {
+  public List<CompactSearchData> readCSIDataByTitle(String title, boolean addWildCard, int rowLimit)
+      throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
     if (title == null)
       throw new DatabaseOperationException("The provided title object was not valid.");
@@ -3075,30 +5541,21 @@ public class MongoGamesDatabase implements GamesDatabase {
     //Run the operation
     try {
       //Open the collection, i.e. table
-      DBCollection mmCollection = mongoDB.getCollection("mmdata");
-      
-      BasicDBObject regexObject = new BasicDBObject();
-      if (addWildCard)   regexObject.append("$regex", "(?i)" + title.trim() + ".*");
-      else               regexObject.append("$regex", "(?i)" + title.trim());
-      
-      BasicDBObject searchObject  = new BasicDBObject("name", regexObject);
-      BasicDBList ignoreRejectList = new BasicDBList();
-      ignoreRejectList.add(ReviewStateConverter.convertReviewStateToFlag(ReviewState.REVIEWED));
-      ignoreRejectList.add(ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING));
-      searchObject.append("reviewState", new BasicDBObject("$in", ignoreRejectList));
-      
-      DBCursor cursor = mmCollection.find(searchObject);
+      DBCollection csiCollection = mongoDB.getCollection("csidata");
       
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
+      DBObject searchObject = SearchQuery.on(SearchCollection.CSI_DATA).named(title, addWildCard).notRejected().toQuery();
+      ManagedCursor cursor = cursorTracker.open(csiCollection.find(searchObject, SearchCollection.CSI_DATA.getCompactProjection()).limit(rowLimit));
       
-      List<MiniatureMarketPriceData> games = new ArrayList<MiniatureMarketPriceData>(cursor.size());
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        games.add(MMDataConverter.convertMongoToMM(object));
+      List<CompactSearchData> games = new ArrayList<CompactSearchData>();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          games.add(CSIDataConverter.convertMongoToCompact(object));
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
+      
       return games;
       
     } catch (MongoException me) {
@@ -3110,12 +5567,13 @@ public class MongoGamesDatabase implements GamesDatabase {
 
   /*
    * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readMMDataForReview(java.lang.String)
+   * @see com.ac.games.db.GamesDatabase#readMMDataByTitle(java.lang.String, boolean, int)
    */
-  public MiniatureMarketPriceData readMMDataForReview(String reviewType) throws ConfigurationException, DatabaseOperationException {
+  public List<CompactSearchData> readMMDataByTitle(String title, boolean addWildCard, int rowLimit)
+      throws ConfigurationException, DatabaseOperationException {
     //Check basic pre-conditions
-    if (reviewType == null)
-      throw new DatabaseOperationException("The provided reviewType object was not valid.");
+    if (title == null)
+      throw new DatabaseOperationException("The provided title object was not valid.");
     
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
@@ -3125,25 +5583,20 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection mmCollection = mongoDB.getCollection("mmdata");
       
-      BasicDBObject findObject = new BasicDBObject("reviewState", ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING));
-      BasicDBObject sortObject = null;
-      if (reviewType.equalsIgnoreCase("new"))
-        sortObject = new BasicDBObject("mmID", -1);
-      else sortObject = new BasicDBObject("mmID", 1);
-      
-      DBCursor cursor = mmCollection.find(findObject).sort(sortObject).limit(1);
+      DBObject searchObject = SearchQuery.on(SearchCollection.MM_DATA).named(title, addWildCard).notRejected().toQuery();
+      ManagedCursor cursor = cursorTracker.open(mmCollection.find(searchObject, SearchCollection.MM_DATA.getCompactProjection()).limit(rowLimit));
       
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      MiniatureMarketPriceData game = null;
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        game = MMDataConverter.convertMongoToMM(object);
+      List<CompactSearchData> games = new ArrayList<CompactSearchData>();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          games.add(MMDataConverter.convertMongoToCompact(object));
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      return game;
+      
+      return games;
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
@@ -3151,140 +5604,115 @@ public class MongoGamesDatabase implements GamesDatabase {
       throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
-
-  public List<Game> readGameByName(String gameName, boolean addWildCard, GameType gameTypeFilter) throws ConfigurationException,
-      DatabaseOperationException {
-    // TODO Auto-generated method stub
-    return null;
-  }
   
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readGameFromAutoName(java.lang.String, java.lang.String, int)
+  /**
+   * Builds the indexes behind the name and title searches: name on bgggame and game, title on csidata
+   * and mmdata.  The case-insensitive search regex can't seek into an index, but it is matched against
+   * the index keys rather than whole documents, which keeps the scan small.  Safe to call repeatedly.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public CompactSearchData readGameFromAutoName(String gameName, String primaryPublisher, int yearPublished)
-      throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
-    if (gameName == null)
-      throw new DatabaseOperationException("The provided gameName object was not valid.");
-    
+  public void ensureSearchIndexes() throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
-    //Run the operation
     try {
-      //Open the collection, i.e. table
-      DBCollection gameCollection = mongoDB.getCollection("game");
-      
-      BasicDBObject queryObject = new BasicDBObject("name", gameName);
-      if (primaryPublisher != null)
-        queryObject.append("primaryPublisher", primaryPublisher);
-      if (yearPublished != -1)
-        queryObject.append("yearPublished", yearPublished);
-      
-      BasicDBObject columnsObject = new BasicDBObject("gameID", 1);
-      columnsObject.append("name", 1);
-      columnsObject.append("yearPublished", 1);
-      columnsObject.append("imageThumbnailURL", 1);
-      
-      //DEBUG
-      System.out.println ("The query we are about to run is: db.game.find({" + queryObject + "}, {" + columnsObject + "})");
-      
-      DBCursor cursor = gameCollection.find(queryObject, columnsObject);
-      CompactSearchData data = null;
-      
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        data = GameConverter.convertMongoToCompact(object);
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-      
-      return data;
+      mongoDB.getCollection("bgggame").createIndex(new BasicDBObject("name", 1));
+      mongoDB.getCollection("game").createIndex(new BasicDBObject("name", 1));
+      mongoDB.getCollection("csidata").createIndex(new BasicDBObject("title", 1));
+      mongoDB.getCollection("mmdata").createIndex(new BasicDBObject("title", 1));
     } catch (MongoException me) {
-      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+      throw new DatabaseOperationException("Mongo raised an exception to this index build: " + me.getMessage(), me);
     } catch (Throwable t) {
-      throw new DatabaseOperationException("Something bad happened executing the select", t);
+      throw new DatabaseOperationException("Something bad happened building the indexes", t);
     }
   }
-
-  public List<CompactSearchData> readBGGGameByName(String gameName, boolean addWildCard, GameType gameTypeFilter, int resultLimit)
-      throws ConfigurationException, DatabaseOperationException {
-    //Check basic pre-conditions
+  
+  /**
+   * Counts the matches for a BGG name search.  The searches themselves never count, so a caller that
+   * wants to show a total asks for it here, at the cost of one extra round trip.
+   * 
+   * @param gameName The name to search for.
+   * @param addWildCard true to also match names that continue past the text.
+   * @param gameTypeFilter The type of game to match, or null for base and collectible games.
+   * 
+   * @return The number of matching records.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public long countBGGGameByName(String gameName, boolean addWildCard, GameType gameTypeFilter) throws ConfigurationException, DatabaseOperationException {
     if (gameName == null)
       throw new DatabaseOperationException("The provided gameName object was not valid.");
     
+    return countSearchMatches(SearchQuery.on(SearchCollection.BGG_GAME).named(gameName, addWildCard).notRejected().ofType(gameTypeFilter));
+  }
+  
+  /**
+   * Counts the matches for a CoolStuffInc title search.  See {@link #countBGGGameByName(String, boolean, GameType)}.
+   * 
+   * @param title The title to search for.
+   * @param addWildCard true to also match titles that continue past the text.
+   * 
+   * @return The number of matching records.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public long countCSIDataByTitle(String title, boolean addWildCard) throws ConfigurationException, DatabaseOperationException {
+    if (title == null)
+      throw new DatabaseOperationException("The provided title object was not valid.");
+    
+    return countSearchMatches(SearchQuery.on(SearchCollection.CSI_DATA).named(title, addWildCard).notRejected());
+  }
+  
+  /**
+   * Counts the matches for a Miniature Market title search.  See {@link #countBGGGameByName(String, boolean, GameType)}.
+   * 
+   * @param title The title to search for.
+   * @param addWildCard true to also match titles that continue past the text.
+   * 
+   * @return The number of matching records.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public long countMMDataByTitle(String title, boolean addWildCard) throws ConfigurationException, DatabaseOperationException {
+    if (title == null)
+      throw new DatabaseOperationException("The provided title object was not valid.");
+    
+    return countSearchMatches(SearchQuery.on(SearchCollection.MM_DATA).named(title, addWildCard).notRejected());
+  }
+  
+  /**
+   * Helper method that runs a single count command for a search.
+   * 
+   * @param search The search, which knows the collection it runs against
+   * 
+   * @return The number of matching records
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  private long countSearchMatches(SearchQuery search) throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
     
-    //Run the operation
     try {
-      //Open the collection, i.e. table
-      DBCollection gameCollection = mongoDB.getCollection("bgggame");
-      
-      BasicDBObject regexObject = new BasicDBObject();
-      if (addWildCard)   regexObject.append("$regex", "(?i)" + gameName.trim() + ".*");
-      else               regexObject.append("$regex", "(?i)" + gameName.trim());
-      
-      BasicDBObject searchObject  = new BasicDBObject("name", regexObject);
-      BasicDBList ignoreRejectList = new BasicDBList();
-      ignoreRejectList.add(new Integer(ReviewStateConverter.convertReviewStateToFlag(ReviewState.REVIEWED)));
-      ignoreRejectList.add(new Integer(ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING)));
-      searchObject.append("reviewState", new BasicDBObject("$in", ignoreRejectList));
-      
-      if ((gameTypeFilter == null) || (gameTypeFilter == GameType.BASE_AND_COLLECTIBLE)) {
-        BasicDBList filterList = new BasicDBList();
-        filterList.add(GameTypeConverter.convertGameTypeToFlag(GameType.BASE));
-        filterList.add(GameTypeConverter.convertGameTypeToFlag(GameType.COLLECTIBLE));
-        searchObject.append("gameType", new BasicDBObject("$in", filterList));
-      } else {
-        searchObject.append("gameType", GameTypeConverter.convertGameTypeToFlag(gameTypeFilter));
-      }
-      
-      BasicDBObject columnsObject = new BasicDBObject("bggID", 1);
-      columnsObject.append("name", 1);
-      columnsObject.append("yearPublished", 1);
-      columnsObject.append("imageThumbnailURL", 1);
-      
-      //TODO - DEBUG
-      System.out.println ("The query I'm about to run is: db.bgggame.find({" + searchObject + "}, {" + columnsObject + "})");
-      debugMode = true;
-      
-      DBCursor cursor = gameCollection.find(searchObject, columnsObject).limit(resultLimit);
-      
-      if (debugMode)
-        System.out.println ("Total documents found during this query:            " + cursor.size());
-      
-      List<CompactSearchData> games = new ArrayList<CompactSearchData>(cursor.size());
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
-        games.add(BGGGameConverter.convertMongoToCompact(object));
-      }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
-
-      debugMode = false;
-      System.out.println ("games.size(): " + games.size());
-      
-      return games;
-      
+      return mongoDB.getCollection(search.getCollection().getCollectionName()).count(search.toQuery());
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
       throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
-
-  public List<CompactSearchData> readCSIDataByTitle(String title, boolean addWildCard, int rowLimit)
-      throws ConfigurationException, DatabaseOperationException {
-    // TODO Auto-generated method stub
-    return null;
-  }
-
-  public List<CompactSearchData> readMMDataByTitle(String title, boolean addWildCard, int rowLimit)
-      throws ConfigurationException, DatabaseOperationException {
-    // TODO Auto-generated method stub
-    return null;
-  }
-
+  
   public List<String> readGameNamesForAutoComplete() throws ConfigurationException, DatabaseOperationException {
     if (mongoClient == null || mongoDB == null)
       throw new ConfigurationException("There is a problem with the database connection.");
@@ -3294,39 +5722,38 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("game");
       
-      BasicDBObject searchObject = new BasicDBObject("gameID", new BasicDBObject("$gt", 0));
-      
-      BasicDBObject columnsObject = new BasicDBObject("name", 1);
-      columnsObject.append("primaryPublisher", 1);
-      columnsObject.append("yearPublished", 1);
+      DBObject searchObject = SearchQuery.on(SearchCollection.GAME).withID().toQuery();
       
-      DBCursor cursor = gameCollection.find(searchObject, columnsObject);
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject, SearchCollection.GAME.getAutoCompleteProjection()));
       List<String> results = new LinkedList<String>();
       
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
         
-        String gameName   = (String)object.get("name");
-        String primaryPub = (String)object.get("primaryPublisher");
-        int yearPublished = -1;
-        if (object.containsField("yearPublished"))
-          yearPublished = (Integer)object.get("yearPublished");
+          String gameName   = (String)object.get("name");
+          String primaryPub = (String)object.get("primaryPublisher");
+          int yearPublished = -1;
+          if (object.containsField("yearPublished"))
+            yearPublished = (Integer)object.get("yearPublished");
         
-        boolean writePub  = !primaryPub.startsWith("(");
-        boolean writeYear = (yearPublished > 1);
+          boolean writePub  = !primaryPub.startsWith("(");
+          boolean writeYear = (yearPublished > 1);
         
-        String searchResult = gameName;
+          String searchResult = gameName;
         
-        if (writePub && writeYear)
-          searchResult += " (" + primaryPub + " - " + yearPublished + ")";
-        else if (writePub && !writeYear)
-          searchResult += " (" + primaryPub + ")";
-        else if (!writePub && writeYear)
-          searchResult += " (" + writeYear + ")";
+          if (writePub && writeYear)
+            searchResult += " (" + primaryPub + " - " + yearPublished + ")";
+          else if (writePub && !writeYear)
+            searchResult += " (" + primaryPub + ")";
+          else if (!writePub && writeYear)
+            searchResult += " (" + writeYear + ")";
         
-        results.add(searchResult);
+          results.add(searchResult);
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Me */ }
       Collections.sort(results);
       return results;
       
@@ -3346,48 +5773,43 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("bgggame");
       
-      BasicDBObject searchObject = new BasicDBObject();
-      BasicDBList ignoreRejectList = new BasicDBList();
-      ignoreRejectList.add(new Integer(ReviewStateConverter.convertReviewStateToFlag(ReviewState.REVIEWED)));
-      ignoreRejectList.add(new Integer(ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING)));
-      searchObject.append("reviewState", new BasicDBObject("$in", ignoreRejectList));
-
-      BasicDBObject columnsObject = new BasicDBObject("name", 1);
-      columnsObject.append("bggID", 1);
-      columnsObject.append("yearPublished", 1);
+      DBObject searchObject = SearchQuery.on(SearchCollection.BGG_GAME).notRejected().toQuery();
       
-      DBCursor cursor = gameCollection.find(searchObject, columnsObject);
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject, SearchCollection.BGG_GAME.getAutoCompleteProjection()));
       List<String> results = new LinkedList<String>();
       
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
         
-        String gameName   = (String)object.get("name");
-        long bggID        = (Long)object.get("bggID");
+          String gameName   = (String)object.get("name");
+          long bggID        = (Long)object.get("bggID");
         
-        int yearPublished = -1;
-        if (object.containsField("yearPublished"))
-          yearPublished = (Integer)object.get("yearPublished");
+          int yearPublished = -1;
+          if (object.containsField("yearPublished"))
+            yearPublished = (Integer)object.get("yearPublished");
         
-        boolean writeYear = (yearPublished > 1);
+          boolean writeYear = (yearPublished > 1);
         
-        String searchResult = gameName;
+          String searchResult = gameName;
         
-        if (writeYear)
-          searchResult += " (" + bggID + " - " + yearPublished + ")";
-        else 
-          searchResult += " (" + bggID + ")";
+          if (writeYear)
+            searchResult += " (" + bggID + " - " + yearPublished + ")";
+          else 
+            searchResult += " (" + bggID + ")";
         
-        results.add(searchResult);
+          results.add(searchResult);
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Me */ }
       Collections.sort(results);
       return results;
       
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
-      t.printStackTrace();
+      if (debugMode) t.printStackTrace();
       throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
@@ -3401,44 +5823,39 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("csidata");
       
-      BasicDBObject searchObject = new BasicDBObject();
-      BasicDBList ignoreRejectList = new BasicDBList();
-      ignoreRejectList.add(new Integer(ReviewStateConverter.convertReviewStateToFlag(ReviewState.REVIEWED)));
-      ignoreRejectList.add(new Integer(ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING)));
-      searchObject.append("reviewState", new BasicDBObject("$in", ignoreRejectList));
-
-      BasicDBObject columnsObject = new BasicDBObject("title", 1);
-      columnsObject.append("csiID", 1);
-      columnsObject.append("category", 1);
+      DBObject searchObject = SearchQuery.on(SearchCollection.CSI_DATA).notRejected().toQuery();
       
-      DBCursor cursor = gameCollection.find(searchObject, columnsObject);
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject, SearchCollection.CSI_DATA.getAutoCompleteProjection()));
       List<String> results = new LinkedList<String>();
       
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
         
-        String gameName   = (String)object.get("title");
-        long csiID        = (Long)object.get("csiID");
-        int catValue      = (Integer)object.get("category");
-        String category   = null;
+          String gameName   = (String)object.get("title");
+          long csiID        = (Long)object.get("csiID");
+          int catValue      = (Integer)object.get("category");
+          String category   = null;
         
-        switch (catValue) {
-        case CoolStuffIncCategoryConverter.COLLECTIBLE_FLAG : category = "Collectible"; break;
-        case CoolStuffIncCategoryConverter.DICEMASTERS_FLAG : category = "Dice Masters"; break;
-        case CoolStuffIncCategoryConverter.BOARDGAMES_FLAG  : category = "Board Game"; break;
-        case CoolStuffIncCategoryConverter.RPGS_FLAG        : category = "RPG"; break;
-        case CoolStuffIncCategoryConverter.LCGS_FLAG        : category = "LCG"; break;
-        case CoolStuffIncCategoryConverter.SUPPLIES_FLAG    : category = "Supplies"; break;
-        case CoolStuffIncCategoryConverter.MINIATURES_FLAG  : category = "Miniature"; break;
-        case CoolStuffIncCategoryConverter.VIDEOGAMES_FLAG  : category = "Video Game"; break;
-        case CoolStuffIncCategoryConverter.UNKNOWN_FLAG     : category = "Unknown"; break;
-        default : category = null;
-        }
+          switch (catValue) {
+          case CoolStuffIncCategoryConverter.COLLECTIBLE_FLAG : category = "Collectible"; break;
+          case CoolStuffIncCategoryConverter.DICEMASTERS_FLAG : category = "Dice Masters"; break;
+          case CoolStuffIncCategoryConverter.BOARDGAMES_FLAG  : category = "Board Game"; break;
+          case CoolStuffIncCategoryConverter.RPGS_FLAG        : category = "RPG"; break;
+          case CoolStuffIncCategoryConverter.LCGS_FLAG        : category = "LCG"; break;
+          case CoolStuffIncCategoryConverter.SUPPLIES_FLAG    : category = "Supplies"; break;
+          case CoolStuffIncCategoryConverter.MINIATURES_FLAG  : category = "Miniature"; break;
+          case CoolStuffIncCategoryConverter.VIDEOGAMES_FLAG  : category = "Video Game"; break;
+          case CoolStuffIncCategoryConverter.UNKNOWN_FLAG     : category = "Unknown"; break;
+          default : category = null;
+          }
         
-        String searchResult = gameName + " (" + csiID + " - " + category + ")";
-        results.add(searchResult);
+          String searchResult = gameName + " (" + csiID + " - " + category + ")";
+          results.add(searchResult);
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Me */ }
       Collections.sort(results);
       return results;
       
@@ -3458,43 +5875,38 @@ public class MongoGamesDatabase implements GamesDatabase {
       //Open the collection, i.e. table
       DBCollection gameCollection = mongoDB.getCollection("mmdata");
       
-      BasicDBObject searchObject = new BasicDBObject();
-      BasicDBList ignoreRejectList = new BasicDBList();
-      ignoreRejectList.add(new Integer(ReviewStateConverter.convertReviewStateToFlag(ReviewState.REVIEWED)));
-      ignoreRejectList.add(new Integer(ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING)));
-      searchObject.append("reviewState", new BasicDBObject("$in", ignoreRejectList));
-
-      BasicDBObject columnsObject = new BasicDBObject("title", 1);
-      columnsObject.append("mmID", 1);
-      columnsObject.append("category", 1);
+      DBObject searchObject = SearchQuery.on(SearchCollection.MM_DATA).notRejected().toQuery();
       
-      DBCursor cursor = gameCollection.find(searchObject, columnsObject);
+      ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject, SearchCollection.MM_DATA.getAutoCompleteProjection()));
       List<String> results = new LinkedList<String>();
       
-      while (cursor.hasNext()) {
-        DBObject object = cursor.next();
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
         
-        String gameName   = (String)object.get("title");
-        long mmID         = (Long)object.get("mmID");
-        int catValue      = (Integer)object.get("category");
-        String category   = null;
+          String gameName   = (String)object.get("title");
+          long mmID         = (Long)object.get("mmID");
+          int catValue      = (Integer)object.get("category");
+          String category   = null;
         
-        switch (catValue) {
-        case MiniatureMarketCategoryConverter.BOARDGAMES_FLAG   : category = "Board Game"; break;
-        case MiniatureMarketCategoryConverter.TABLETOP_FLAG     : category = "Table Top"; break;
-        case MiniatureMarketCategoryConverter.CCGS_FLAG         : category = "CCG"; break;
-        case MiniatureMarketCategoryConverter.LCGS_FLAG         : category = "LCG"; break;
-        case MiniatureMarketCategoryConverter.COLLECTIBLES_FLAG : category = "Collectibles"; break;
-        case MiniatureMarketCategoryConverter.RPGS_FLAG         : category = "RPG"; break;
-        case MiniatureMarketCategoryConverter.ACCESSORIES_FLAG  : category = "Accessories"; break;
-        case MiniatureMarketCategoryConverter.UNKNOWN_FLAG      : category = "Unknown"; break;
-        default : category = null;
-        }
+          switch (catValue) {
+          case MiniatureMarketCategoryConverter.BOARDGAMES_FLAG   : category = "Board Game"; break;
+          case MiniatureMarketCategoryConverter.TABLETOP_FLAG     : category = "Table Top"; break;
+          case MiniatureMarketCategoryConverter.CCGS_FLAG         : category = "CCG"; break;
+          case MiniatureMarketCategoryConverter.LCGS_FLAG         : category = "LCG"; break;
+          case MiniatureMarketCategoryConverter.COLLECTIBLES_FLAG : category = "Collectibles"; break;
+          case MiniatureMarketCategoryConverter.RPGS_FLAG         : category = "RPG"; break;
+          case MiniatureMarketCategoryConverter.ACCESSORIES_FLAG  : category = "Accessories"; break;
+          case MiniatureMarketCategoryConverter.UNKNOWN_FLAG      : category = "Unknown"; break;
+          default : category = null;
+          }
         
-        String searchResult = gameName + " (" + mmID + " - " + category + ")";
-        results.add(searchResult);
+          String searchResult = gameName + " (" + mmID + " - " + category + ")";
+          results.add(searchResult);
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Me */ }
       Collections.sort(results);
       return results;
       
@@ -3510,7 +5922,7 @@ public class MongoGamesDatabase implements GamesDatabase {
       throw new ConfigurationException("There is a problem with the database connection.");
     
     //DEBUG
-    System.out.println ("The gameIDs list: " + gameIDs);
+    if (debugMode) System.out.println ("The gameIDs list: " + gameIDs);
     
     List<Long> processIDs = new LinkedList<Long>();
     if (gameIDs.indexOf(",") != -1) {
@@ -3543,7 +5955,7 @@ public class MongoGamesDatabase implements GamesDatabase {
     }
     
     //DEBUG
-    System.out.println ("The number of IDs we want to process is: " + processIDs.size());
+    if (debugMode) System.out.println ("The number of IDs we want to process is: " + processIDs.size());
     
     try {
       //Open the collection, i.e. table
@@ -3553,19 +5965,17 @@ public class MongoGamesDatabase implements GamesDatabase {
       for (long curID : processIDs) {
         BasicDBObject searchObject = new BasicDBObject("gameID", curID);
         
-        BasicDBObject columnsObject = new BasicDBObject("gameID", 1);
-        columnsObject.append("name", 1);
-        columnsObject.append("yearPublished", 1);
-        columnsObject.append("imageThumbnailURL", 1);
-        
         CompactSearchData data = null;
-        DBCursor cursor = gameCollection.find(searchObject, columnsObject);
+        ManagedCursor cursor = cursorTracker.open(gameCollection.find(searchObject, SearchCollection.GAME.getCompactProjection()));
         
-        while (cursor.hasNext()) {
-          DBObject object = cursor.next();
-          data = GameConverter.convertMongoToCompact(object);
+        try {
+          while (cursor.hasNext()) {
+            DBObject object = cursor.next();
+            data = GameConverter.convertMongoToCompact(object);
+          }
+        } finally {
+          cursor.close();
         }
-        try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
         
         if (data != null)
           results.add(data);
@@ -3609,6 +6019,8 @@ public class MongoGamesDatabase implements GamesDatabase {
       
       for (CollectionItem item : items) {
         Game game = item.getGame();
+        //A reference to a game that no longer exists has nothing to count
+        if (game == null) continue;
         
         //Start with mechanisms
         List<String> mechanisms = game.getMechanisms();
@@ -3668,6 +6080,7 @@ public class MongoGamesDatabase implements GamesDatabase {
       //We want a second pass through the publishers to see if we can make this count smarter
       for (CollectionItem item : items) {
         Game game = item.getGame();
+        if (game == null) continue;
         
         //Note: we count the primary publisher twice to help weight those higher
         List<String> publishers = game.getPublishers();
@@ -3709,10 +6122,53 @@ public class MongoGamesDatabase implements GamesDatabase {
     }
   }
 
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#getNewestCollectionItems(long, int)
+   */
   public List<CollectionItem> getNewestCollectionItems(long userID, int topX) throws ConfigurationException,
       DatabaseOperationException {
-    // TODO Auto-generated method stub
-    return null;
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    if (userID <= 0)
+      throw new DatabaseOperationException("The provided userID was invalid");
+    if (topX <= 0)
+      throw new DatabaseOperationException("The provided topX was invalid");
+    
+    try {
+      //Only the collectionID is needed from the user
+      ManagedCursor cursor = cursorTracker.open(mongoDB.getCollection("user").find(UserConverter.convertUserToIDQuery(userID), 
+                                                           new BasicDBObject("collectionID", 1)).limit(1));
+      Long collectionID = null;
+      try {
+        while (cursor.hasNext())
+          collectionID = (Long)cursor.next().get("collectionID");
+      } finally {
+        cursor.close();
+      }
+      
+      List<CollectionItem> items = new ArrayList<CollectionItem>(topX);
+      if (collectionID == null) return items;
+      
+      //Open the collection, i.e. table
+      DBCollection collectionCollection = mongoDB.getCollection("collection");
+      AggregationOutput output = collectionCollection.aggregate(CollectionConverter.convertNewestItemsToPipeline(collectionID, topX));
+      for (DBObject object : output.results())
+        items.add(CollectionItemConverter.convertMongoToCollectionItem(object));
+      
+      //Only the chosen few get their games, through the cache or one batched read
+      hydrateCollectionGames(items);
+      
+      if (debugMode)
+        System.out.println ("Newest collection items found for user " + userID + ": " + items.size());
+      
+      return items;
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened executing the select", t);
+    }
   }
   
   /*
@@ -3730,12 +6186,15 @@ public class MongoGamesDatabase implements GamesDatabase {
       DBCollection wishCollection = mongoDB.getCollection("wishlist");
       
       BasicDBObject searchObject = new BasicDBObject("userID", userID);
-      DBCursor cursor = wishCollection.find(searchObject);
+      ManagedCursor cursor = cursorTracker.open(wishCollection.find(searchObject));
       List<WishlistItem> wishlist = new LinkedList<WishlistItem>();
-      while (cursor.hasNext()) {
-        wishlist.add(WishlistItemConverter.convertMongoToWishlistItem(cursor.next()));
+      try {
+        while (cursor.hasNext()) {
+          wishlist.add(WishlistItemConverter.convertMongoToWishlistItem(cursor.next()));
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
       
       return wishlist;
     } catch (MongoException me) {
@@ -3760,12 +6219,15 @@ public class MongoGamesDatabase implements GamesDatabase {
       DBCollection wishCollection = mongoDB.getCollection("wishlist");
       
       BasicDBObject searchObject = new BasicDBObject("gameID", gameID);
-      DBCursor cursor = wishCollection.find(searchObject);
+      ManagedCursor cursor = cursorTracker.open(wishCollection.find(searchObject));
       List<WishlistItem> wishlist = new LinkedList<WishlistItem>();
-      while (cursor.hasNext()) {
-        wishlist.add(WishlistItemConverter.convertMongoToWishlistItem(cursor.next()));
+      try {
+        while (cursor.hasNext()) {
+          wishlist.add(WishlistItemConverter.convertMongoToWishlistItem(cursor.next()));
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
       
       return wishlist;
     } catch (MongoException me) {
@@ -3774,38 +6236,253 @@ public class MongoGamesDatabase implements GamesDatabase {
       throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
-
-  /*
-   * (non-Javadoc)
-   * @see com.ac.games.db.GamesDatabase#readWishlistItem(long, long)
+  
+  /**
+   * Reads one page of a user's media items, newest first.  Backed by {@link #ensurePagingIndexes()}.
+   * 
+   * @param userID The user whose items we want.
+   * @param pageSize The most items to return.
+   * @param continuationToken The token from the previous page, or null for the first page.
+   * 
+   * @return The page, with the token for the next page.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
    */
-  public WishlistItem readWishlistItem(long userID, long gameID)  throws ConfigurationException, DatabaseOperationException {
-    if (mongoClient == null || mongoDB == null)
-      throw new ConfigurationException("There is a problem with the database connection.");
+  public ResultPage<MediaItem> readMediaItemsByUserID(long userID, int pageSize, String continuationToken) throws ConfigurationException, DatabaseOperationException {
+    if (userID < 0)
+      throw new DatabaseOperationException("The provided userID was invalid");
+    
+    ResultPage<DBObject> page = readGenericPage("media", "userID", userID, "addedDate", "mediaID", pageSize, continuationToken);
+    List<MediaItem> items = new ArrayList<MediaItem>(page.getItems().size());
+    for (DBObject object : page.getItems())
+      items.add(MediaItemConverter.convertMongoToMediaItem(object));
+    return new ResultPage<MediaItem>(items, page.getContinuationToken());
+  }
+  
+  /**
+   * Reads one page of a game's media items, newest first.  Backed by {@link #ensurePagingIndexes()}.
+   * 
+   * @param gameID The game whose items we want.
+   * @param pageSize The most items to return.
+   * @param continuationToken The token from the previous page, or null for the first page.
+   * 
+   * @return The page, with the token for the next page.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public ResultPage<MediaItem> readMediaItemsByGameID(long gameID, int pageSize, String continuationToken) throws ConfigurationException, DatabaseOperationException {
+    if (gameID < 0)
+      throw new DatabaseOperationException("The provided gameID was invalid");
     
+    ResultPage<DBObject> page = readGenericPage("media", "gameID", gameID, "addedDate", "mediaID", pageSize, continuationToken);
+    List<MediaItem> items = new ArrayList<MediaItem>(page.getItems().size());
+    for (DBObject object : page.getItems())
+      items.add(MediaItemConverter.convertMongoToMediaItem(object));
+    return new ResultPage<MediaItem>(items, page.getContinuationToken());
+  }
+  
+  /**
+   * Reads one page of a user's wishlist, newest first.  Backed by {@link #ensurePagingIndexes()}.
+   * 
+   * @param userID The user whose wishlist we want.
+   * @param pageSize The most items to return.
+   * @param continuationToken The token from the previous page, or null for the first page.
+   * 
+   * @return The page, with the token for the next page.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public ResultPage<WishlistItem> readWishlistForUser(long userID, int pageSize, String continuationToken) throws ConfigurationException, DatabaseOperationException {
     if (userID <= 0)
       throw new DatabaseOperationException("The provided userID was invalid");
+    
+    ResultPage<DBObject> page = readGenericPage("wishlist", "userID", userID, "dateAdded", "wishID", pageSize, continuationToken);
+    List<WishlistItem> items = new ArrayList<WishlistItem>(page.getItems().size());
+    for (DBObject object : page.getItems())
+      items.add(WishlistItemConverter.convertMongoToWishlistItem(object));
+    return new ResultPage<WishlistItem>(items, page.getContinuationToken());
+  }
+  
+  /**
+   * Reads one page of the wishlist entries for a game, newest first.  Backed by {@link #ensurePagingIndexes()}.
+   * 
+   * @param gameID The game whose wishlist entries we want.
+   * @param pageSize The most items to return.
+   * @param continuationToken The token from the previous page, or null for the first page.
+   * 
+   * @return The page, with the token for the next page.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public ResultPage<WishlistItem> readWishlistByGame(long gameID, int pageSize, String continuationToken) throws ConfigurationException, DatabaseOperationException {
     if (gameID <= 0)
       throw new DatabaseOperationException("The provided gameID was invalid");
-      
+    
+    ResultPage<DBObject> page = readGenericPage("wishlist", "gameID", gameID, "dateAdded", "wishID", pageSize, continuationToken);
+    List<WishlistItem> items = new ArrayList<WishlistItem>(page.getItems().size());
+    for (DBObject object : page.getItems())
+      items.add(WishlistItemConverter.convertMongoToWishlistItem(object));
+    return new ResultPage<WishlistItem>(items, page.getContinuationToken());
+  }
+  
+  /**
+   * Reads one page of a user's playthrus, most recently played first.  Backed by {@link #ensurePagingIndexes()}.
+   * 
+   * @param userID The user whose playthrus we want.
+   * @param pageSize The most items to return.
+   * @param continuationToken The token from the previous page, or null for the first page.
+   * 
+   * @return The page, with the token for the next page.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public ResultPage<PlaythruItem> readPlaythruItemsByUserID(long userID, int pageSize, String continuationToken) throws ConfigurationException, DatabaseOperationException {
+    if (userID <= 0)
+      throw new DatabaseOperationException("The provided userID was invalid");
+    
+    ResultPage<DBObject> page = readGenericPage("playthru", "userID", userID, "datePlayed", "playthruID", pageSize, continuationToken);
+    List<PlaythruItem> items = new ArrayList<PlaythruItem>(page.getItems().size());
+    for (DBObject object : page.getItems())
+      items.add(PlaythruItemConverter.convertMongoToPlaythruItem(object));
+    return new ResultPage<PlaythruItem>(items, page.getContinuationToken());
+  }
+  
+  /**
+   * Reads one page of a game's playthrus, most recently played first.  Backed by {@link #ensurePagingIndexes()}.
+   * 
+   * @param gameID The game whose playthrus we want.
+   * @param pageSize The most items to return.
+   * @param continuationToken The token from the previous page, or null for the first page.
+   * 
+   * @return The page, with the token for the next page.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public ResultPage<PlaythruItem> readPlaythruItemsByGameID(long gameID, int pageSize, String continuationToken) throws ConfigurationException, DatabaseOperationException {
+    if (gameID <= 0)
+      throw new DatabaseOperationException("The provided gameID was invalid");
+    
+    ResultPage<DBObject> page = readGenericPage("playthru", "gameID", gameID, "datePlayed", "playthruID", pageSize, continuationToken);
+    List<PlaythruItem> items = new ArrayList<PlaythruItem>(page.getItems().size());
+    for (DBObject object : page.getItems())
+      items.add(PlaythruItemConverter.convertMongoToPlaythruItem(object));
+    return new ResultPage<PlaythruItem>(items, page.getContinuationToken());
+  }
+  
+  /**
+   * Builds the compound indexes behind the paged media, wishlist and playthru reads, one per filter
+   * field.  Safe to call repeatedly.
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  public void ensurePagingIndexes() throws ConfigurationException, DatabaseOperationException {
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
     try {
-      DBCollection wishCollection = mongoDB.getCollection("wishlist");
-      
-      BasicDBObject searchObject = new BasicDBObject("userID", userID);
-      searchObject.append("gameID", gameID);
+      for (String filterField : new String[] { "userID", "gameID" }) {
+        mongoDB.getCollection("media").createIndex(KeysetConverter.convertPageIndexKeys(filterField, "addedDate", "mediaID"));
+        mongoDB.getCollection("wishlist").createIndex(KeysetConverter.convertPageIndexKeys(filterField, "dateAdded", "wishID"));
+        mongoDB.getCollection("playthru").createIndex(KeysetConverter.convertPageIndexKeys(filterField, "datePlayed", "playthruID"));
+      }
+    } catch (MongoException me) {
+      throw new DatabaseOperationException("Mongo raised an exception to this index build: " + me.getMessage(), me);
+    } catch (Throwable t) {
+      throw new DatabaseOperationException("Something bad happened building the indexes", t);
+    }
+  }
+  
+  /**
+   * Generic helper method that reads one keyset page, newest first on a date field with the record ID
+   * breaking ties.  One record past the page is read to learn whether another page follows, so no count
+   * is ever needed.  Backed by the indexes from {@link #ensurePagingIndexes()}, every page is a bounded
+   * index scan no matter how deep into the results it is.
+   * 
+   * @param collection The collection, or table name, to page through
+   * @param filterField The field selecting the records, i.e. userID
+   * @param filterValue The value of the filter field
+   * @param dateField The date field pages are ordered on
+   * @param idField The ID field breaking ties between equal dates
+   * @param pageSize The most records to return
+   * @param continuationToken The token from the previous page, or null for the first page
+   * 
+   * @return The raw records on the page, with the token for the next page
+   * 
+   * @throws ConfigurationException Throws this exception if the database connection is not active.
+   * @throws DatabaseOperationException Throws this exception if there are errors during the execution
+   * of the requested operation.
+   */
+  private ResultPage<DBObject> readGenericPage(String collection, String filterField, long filterValue, String dateField, String idField, 
+                                               int pageSize, String continuationToken) throws ConfigurationException, DatabaseOperationException {
+    //Check basic pre-conditions
+    if (pageSize <= 0)
+      throw new DatabaseOperationException("The provided pageSize was invalid");
+    
+    if (mongoClient == null || mongoDB == null)
+      throw new ConfigurationException("There is a problem with the database connection.");
+    
+    BasicDBObject searchObject;
+    try {
+      searchObject = KeysetConverter.convertTokenToPageQuery(new BasicDBObject(filterField, filterValue), dateField, idField, continuationToken);
+    } catch (IllegalArgumentException iae) {
+      throw new DatabaseOperationException("The provided continuation token was not valid.", iae);
+    }
+    
+    //Run the operation
+    try {
+      //Open the collection, i.e. table
+      DBCollection itemCollection = mongoDB.getCollection(collection);
+      ManagedCursor cursor = cursorTracker.open(itemCollection.find(searchObject).sort(KeysetConverter.convertPageSort(dateField, idField)).limit(pageSize + 1));
       
-      DBCursor cursor = wishCollection.find(searchObject);
-      WishlistItem wishlist = null;
-      while (cursor.hasNext()) {
-        wishlist = WishlistItemConverter.convertMongoToWishlistItem(cursor.next());
+      List<DBObject> objects = new ArrayList<DBObject>(pageSize);
+      boolean hasMore = false;
+      try {
+        while (cursor.hasNext()) {
+          DBObject object = cursor.next();
+          if (objects.size() == pageSize) {
+            hasMore = true;
+            break;
+          }
+          objects.add(object);
+        }
+      } finally {
+        cursor.close();
       }
-      try { cursor.close(); } catch (Throwable t) { /** Ignore Errors */ }
       
-      return wishlist;
+      String nextToken = null;
+      if (hasMore) nextToken = KeysetConverter.convertRecordToToken(objects.get(objects.size() - 1), dateField, idField);
+      return new ResultPage<DBObject>(objects, nextToken);
     } catch (MongoException me) {
       throw new DatabaseOperationException("Mongo raised an exception to this select: " + me.getMessage(), me);
     } catch (Throwable t) {
       throw new DatabaseOperationException("Something bad happened executing the select", t);
     }
   }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.GamesDatabase#readWishlistItem(long, long)
+   */
+  public WishlistItem readWishlistItem(long userID, long gameID)  throws ConfigurationException, DatabaseOperationException {
+    if (userID <= 0)
+      throw new DatabaseOperationException("The provided userID was invalid");
+    if (gameID <= 0)
+      throw new DatabaseOperationException("The provided gameID was invalid");
+    
+    return wishlistItemStore.readOne(mongoDB, new BasicDBObject("userID", userID).append("gameID", gameID));
+  }
 }
@@ -0,0 +1,293 @@
+package com.ac.games.db.mongo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.types.BSONTimestamp;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.Bytes;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+
+/**
+ * Tails the replica set oplog on a background thread and reports every change to a set of watched
+ * collections to a {@link CacheInvalidationListener}, so each node can drop cached copies of what
+ * another node has written.  The timestamp of the last entry seen is kept as the resume position;
+ * if the oplog has rolled past it by the time a tail is reopened, the entries in between are lost and
+ * every watched collection is reported as changed.
+ * <p>
+ * The oplog only exists on replica set members.  Use {@link #isOplogAvailable(MongoClient)} first, and
+ * fall back to expiring cached documents by age when it isn't there.
+ * 
+ * @author ac010168
+ */
+public class OplogCacheInvalidator implements Runnable {
+
+  /** The database holding the oplog. */
+  public static final String OPLOG_DATABASE   = "local";
+  /** The replica set oplog collection. */
+  public static final String OPLOG_COLLECTION = "oplog.rs";
+
+  /** The shortest wait before reopening a failed tail. */
+  private static final long MIN_RETRY_MILLIS = 1000;
+  /** The longest wait before reopening a failed tail. */
+  private static final long MAX_RETRY_MILLIS = 30000;
+
+  /** The client to read the oplog through. */
+  private final MongoClient mongoClient;
+  /** The name of the database whose collections we watch. */
+  private final String databaseName;
+  /** The collections we watch. */
+  private final String[] collections;
+  /** Who gets told about the changes. */
+  private final CacheInvalidationListener listener;
+
+  /** The timestamp of the last oplog entry handled. */
+  private volatile BSONTimestamp position;
+  /** Set while the invalidator should keep tailing. */
+  private volatile boolean running;
+  /** The open tailable cursor, kept so stop() can break out of a blocked read. */
+  private volatile DBCursor cursor;
+  /** The tailing thread. */
+  private Thread thread;
+
+  /**
+   * Basic Constructor.
+   * 
+   * @param mongoClient The client to read the oplog through.
+   * @param databaseName The name of the database whose collections we watch.
+   * @param collections The collections to watch.
+   * @param listener Who gets told about the changes.
+   * @param position The resume position from an earlier run, or null to start from the newest entry.
+   */
+  public OplogCacheInvalidator(MongoClient mongoClient, String databaseName, String[] collections,
+                               CacheInvalidationListener listener, BSONTimestamp position) {
+    this.mongoClient  = mongoClient;
+    this.databaseName = databaseName;
+    this.collections  = collections;
+    this.listener     = listener;
+    this.position     = position;
+  }
+
+  /**
+   * @param mongoClient The client to check.
+   * @return true if the server has a replica set oplog we can tail
+   */
+  public static boolean isOplogAvailable(MongoClient mongoClient) {
+    try {
+      return mongoClient.getDB(OPLOG_DATABASE).collectionExists(OPLOG_COLLECTION);
+    } catch (Throwable t) {
+      return false;
+    }
+  }
+
+  /**
+   * Starts tailing on a daemon thread.
+   */
+  public synchronized void start() {
+    if (running) return;
+    running = true;
+    thread  = new Thread(this, "oplog-cache-invalidator");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops tailing.  The current cursor is closed, so a blocked read returns straight away.
+   */
+  public synchronized void stop() {
+    if (!running) return;
+    running = false;
+    closeCursor();
+    if (thread != null) thread.interrupt();
+    thread = null;
+  }
+
+  /**
+   * @return true while the invalidator is tailing, or retrying a failed tail
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * @return the timestamp of the last oplog entry handled, which can be handed to a later
+   * invalidator to resume from
+   */
+  public BSONTimestamp getPosition() {
+    return position;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Runnable#run()
+   */
+  public void run() {
+    long retryMillis = MIN_RETRY_MILLIS;
+    while (running) {
+      try {
+        tail();
+        retryMillis = MIN_RETRY_MILLIS;
+      } catch (Throwable t) {
+        if (!running) break;
+        if (MongoGamesDatabase.debugMode)
+          System.out.println ("Oplog tail failed, retrying in " + retryMillis + "ms: " + t.getMessage());
+
+        try {
+          Thread.sleep(retryMillis);
+        } catch (InterruptedException ie) {
+          /** Stopped while waiting */
+        }
+        retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+      } finally {
+        closeCursor();
+      }
+    }
+  }
+
+  /**
+   * Helper method that opens a tailable cursor at the resume position and hands every entry to the
+   * listener until the cursor dies or we are stopped.
+   */
+  private void tail() {
+    //Open the collection, i.e. table
+    DBCollection oplog = mongoClient.getDB(OPLOG_DATABASE).getCollection(OPLOG_COLLECTION);
+
+    if (position == null) position = readEdgeTimestamp(oplog, -1);
+    else                  checkResume(readEdgeTimestamp(oplog, 1));
+
+    DBCursor tailCursor = oplog.find(convertTailQuery());
+    tailCursor.addOption(Bytes.QUERYOPTION_TAILABLE);
+    tailCursor.addOption(Bytes.QUERYOPTION_AWAITDATA);
+    tailCursor.addOption(Bytes.QUERYOPTION_OPLOGREPLAY);
+    cursor = tailCursor;
+
+    while (running && tailCursor.hasNext())
+      handleEntry(tailCursor.next());
+  }
+
+  /**
+   * Checks a reopened tail against the oldest entry still in the oplog.  If that entry is newer than
+   * where we stopped, the oplog has rolled past us and the entries in between are lost, so every
+   * watched collection is reported as changed.
+   * 
+   * @param oldest The timestamp of the oldest oplog entry, or null if the oplog is empty.
+   */
+  public void checkResume(BSONTimestamp oldest) {
+    if (position != null && oldest != null && oldest.compareTo(position) > 0) invalidateAll();
+  }
+
+  /**
+   * @return the query for a tail: entries for the watched collections and the database's commands,
+   * after the resume position if there is one
+   */
+  public BasicDBObject convertTailQuery() {
+    List<String> namespaces = new ArrayList<String>(collections.length + 1);
+    for (String collection : collections)
+      namespaces.add(databaseName + "." + collection);
+    namespaces.add(databaseName + ".$cmd");
+
+    BasicDBObject queryObject = new BasicDBObject("ns", new BasicDBObject("$in", namespaces));
+    if (position != null) queryObject.append("ts", new BasicDBObject("$gt", position));
+    return queryObject;
+  }
+
+  /**
+   * Hands a single oplog entry to the listener, if it touches a watched collection, and moves the
+   * resume position past it.
+   * 
+   * @param entry The oplog entry.
+   */
+  public void handleEntry(DBObject entry) {
+    reportEntry(entry);
+    if (entry.get("ts") instanceof BSONTimestamp)
+      position = (BSONTimestamp)entry.get("ts");
+  }
+
+  /**
+   * Helper method that reports a single oplog entry to the listener.
+   * 
+   * @param entry The oplog entry.
+   */
+  private void reportEntry(DBObject entry) {
+    String namespace = (String)entry.get("ns");
+    String operation = (String)entry.get("op");
+    if (namespace == null || operation == null || operation.length() == 0) return;
+    if (!namespace.startsWith(databaseName + ".")) return;
+
+    String collection = namespace.substring(databaseName.length() + 1);
+    char   op         = operation.charAt(0);
+
+    if (op == 'c') {
+      //Commands name their target as a value, either bare (drop) or as a namespace (renameCollection)
+      DBObject command = (DBObject)entry.get("o");
+      if (command == null) return;
+      Map<?, ?> commandMap = command.toMap();
+      for (String watched : collections) {
+        if (commandMap.containsValue(watched) || commandMap.containsValue(databaseName + "." + watched))
+          listener.collectionChanged(watched);
+      }
+      return;
+    }
+
+    //The tail query already filters on namespace, but an entry from anywhere else is never ours to report
+    if (!isWatched(collection)) return;
+
+    DBObject changed = (DBObject)entry.get(op == 'u' ? "o2" : "o");
+    if (changed == null) return;
+
+    Object documentID = changed.get("_id");
+    if (documentID == null) listener.collectionChanged(collection);
+    else                    listener.documentChanged(collection, documentID, op);
+  }
+
+  /**
+   * @param collection The collection, or table name.
+   * @return true if the collection is one we watch
+   */
+  private boolean isWatched(String collection) {
+    for (String watched : collections) {
+      if (watched.equals(collection)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Helper method that reports every watched collection as changed.
+   */
+  private void invalidateAll() {
+    for (String collection : collections)
+      listener.collectionChanged(collection);
+  }
+
+  /**
+   * Helper method that finds the oldest or newest oplog entry.
+   * 
+   * @param oplog The oplog collection.
+   * @param direction 1 for the oldest entry, -1 for the newest.
+   * @return the entry's timestamp, or null if the oplog is empty
+   */
+  private BSONTimestamp readEdgeTimestamp(DBCollection oplog, int direction) {
+    DBCursor edge = oplog.find(new BasicDBObject(), new BasicDBObject("ts", 1)).sort(new BasicDBObject("$natural", direction)).limit(1);
+    try {
+      if (!edge.hasNext()) return null;
+      return (BSONTimestamp)edge.next().get("ts");
+    } finally {
+      try { edge.close(); } catch (Throwable t) { /** Ignore Errors */ }
+    }
+  }
+
+  /**
+   * Helper method that closes the current tailable cursor, if there is one.
+   */
+  private void closeCursor() {
+    DBCursor current = cursor;
+    cursor = null;
+    if (current != null) {
+      try { current.close(); } catch (Throwable t) { /** Ignore Errors */ }
+    }
+  }
+}
@@ -51,11 +51,11 @@ public class PlaythruItemConverter {
     if (item == null) return null;
     
     BasicDBObject dbObject = new BasicDBObject("playthruID", item.getPlaythruID());
-    if (item.getUserID() <= -1)         dbObject.append("userID", item.getUserID());
-    if (item.getGameID() <= -1)         dbObject.append("gameID", item.getGameID());
+    if (item.getUserID() >= -1)         dbObject.append("userID", item.getUserID());
+    if (item.getGameID() >= -1)         dbObject.append("gameID", item.getGameID());
     if (item.getGameName() != null)     dbObject.append("gameName", item.getGameName());
     if (item.getDatePlayed() != null)   dbObject.append("datePlayed", item.getDatePlayed());
-    if (item.getNumPlayers() <= -1)     dbObject.append("numPlayers", item.getNumPlayers());
+    if (item.getNumPlayers() >= -1)     dbObject.append("numPlayers", item.getNumPlayers());
     if (item.getWinnerText() != null)   dbObject.append("winnerText", item.getWinnerText());
     if (item.getPlaythruText() != null) dbObject.append("playthruText", item.getPlaythruText());
     
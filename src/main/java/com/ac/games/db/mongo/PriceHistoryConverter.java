@@ -0,0 +1,183 @@
+package com.ac.games.db.mongo;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import com.ac.games.data.GameAvailabilityConverter;
+import com.ac.games.db.mongo.price.PriceObservation;
+import com.ac.games.db.mongo.price.PriceRollup;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * @author ac010168
+ * This converter handles the price history buckets.  Each bucket holds one retailer item's price
+ * observations for one calendar month (UTC), plus a running count, sum, min and max, so a whole month
+ * can be rolled up without touching the observations.  A new observation is a single upsert that
+ * appends to the bucket, so the current price documents never grow.
+ *
+ * Buckets are keyed by an _id of source:itemID:yyyymm, which keeps the upsert on the _id index and
+ * safe under concurrent scrapes.  The same values are also stored as fields for range queries.
+ */
+public class PriceHistoryConverter {
+
+  /** The collection holding the price history buckets. */
+  public static final String HISTORY_COLLECTION = "pricehistory";
+  /** The source name for CoolStuffInc observations. */
+  public static final String SOURCE_CSI = "csi";
+  /** The source name for Miniature Market observations. */
+  public static final String SOURCE_MM  = "mm";
+
+  /** Month boundaries are taken in UTC, so buckets don't depend on the server's time zone. */
+  private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+  /**
+   * Helper method that works out the bucket month for a date.
+   *
+   * @param date The date.
+   *
+   * @return The month as a yyyymm value, i.e. 201610.
+   */
+  public static int convertDateToMonth(Date date) {
+    Calendar calendar = Calendar.getInstance(UTC);
+    calendar.setTime(date);
+    return calendar.get(Calendar.YEAR) * 100 + (calendar.get(Calendar.MONTH) + 1);
+  }
+
+  /**
+   * Helper method that builds the query for the bucket an observation belongs in.
+   *
+   * @param source The retailer source, i.e. {@link #SOURCE_CSI}.
+   * @param itemID The retailer item ID.
+   * @param date When the observation was made.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertObservationToBucketQuery(String source, long itemID, Date date) {
+    return new BasicDBObject("_id", source + ":" + itemID + ":" + convertDateToMonth(date));
+  }
+
+  /**
+   * Helper method that builds the upsert appending an observation to its bucket and folding it into the
+   * bucket's running summary.
+   *
+   * @param source The retailer source, i.e. {@link #SOURCE_CSI}.
+   * @param itemID The retailer item ID.
+   * @param observation The observation to append.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this update.
+   */
+  public static BasicDBObject convertObservationToBucketUpdate(String source, long itemID, PriceObservation observation) {
+    Date   date  = observation.getObservationDate();
+    double price = observation.getPrice();
+
+    BasicDBObject insertObject = new BasicDBObject("source", source);
+    insertObject.append("itemID", itemID);
+    insertObject.append("month", convertDateToMonth(date));
+
+    BasicDBObject entryObject = new BasicDBObject("date", date);
+    entryObject.append("price", price);
+    if (observation.getAvailability() != null)
+      entryObject.append("availability", GameAvailabilityConverter.convertGameAvailabilityToFlag(observation.getAvailability()));
+
+    BasicDBObject dbObject = new BasicDBObject("$setOnInsert", insertObject);
+    dbObject.append("$push", new BasicDBObject("observations", entryObject));
+    dbObject.append("$inc", new BasicDBObject("count", 1).append("sumPrice", price));
+    dbObject.append("$min", new BasicDBObject("minPrice", price).append("firstDate", date));
+    dbObject.append("$max", new BasicDBObject("maxPrice", price).append("lastDate", date));
+    return dbObject;
+  }
+
+  /**
+   * Helper method that builds the query for every bucket of an item that overlaps a date range.
+   *
+   * @param source The retailer source, i.e. {@link #SOURCE_CSI}.
+   * @param itemID The retailer item ID.
+   * @param fromDate The start of the range.
+   * @param toDate The end of the range.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertRangeToBucketQuery(String source, long itemID, Date fromDate, Date toDate) {
+    BasicDBObject monthObject = new BasicDBObject("$gte", convertDateToMonth(fromDate));
+    monthObject.append("$lte", convertDateToMonth(toDate));
+
+    BasicDBObject dbObject = new BasicDBObject("source", source);
+    dbObject.append("itemID", itemID);
+    dbObject.append("month", monthObject);
+    return dbObject;
+  }
+
+  /**
+   * @return the sort putting an item's buckets in date order
+   */
+  public static BasicDBObject convertBucketSort() {
+    return new BasicDBObject("month", 1);
+  }
+
+  /**
+   * @return the keys of the index behind the range queries
+   */
+  public static BasicDBObject convertBucketIndexKeys() {
+    return new BasicDBObject("source", 1).append("itemID", 1).append("month", 1);
+  }
+
+  /**
+   * Helper method that tells whether a bucket lies wholly inside a date range, in which case its
+   * running summary can stand in for its observations.
+   *
+   * @param bucketObject The bucket.
+   * @param fromDate The start of the range.
+   * @param toDate The end of the range.
+   *
+   * @return true if every observation in the bucket falls inside the range.
+   */
+  public static boolean isBucketInRange(DBObject bucketObject, Date fromDate, Date toDate) {
+    Date firstDate = (Date)bucketObject.get("firstDate");
+    Date lastDate  = (Date)bucketObject.get("lastDate");
+    if (firstDate == null || lastDate == null) return false;
+
+    return !firstDate.before(fromDate) && !lastDate.after(toDate);
+  }
+
+  /**
+   * Helper method that folds the part of a bucket that lies inside a date range into a rollup.  A bucket
+   * wholly inside the range is folded in from its running summary; a bucket at an edge of the range has
+   * its observations walked, and only those inside the range are counted.
+   *
+   * @param rollup The rollup being built.
+   * @param bucketObject The bucket.
+   * @param fromDate The start of the range.
+   * @param toDate The end of the range.
+   */
+  public static void addBucketToRollup(PriceRollup rollup, DBObject bucketObject, Date fromDate, Date toDate) {
+    if (isBucketInRange(bucketObject, fromDate, toDate)) {
+      rollup.addSummary(((Number)bucketObject.get("count")).intValue(), ((Number)bucketObject.get("minPrice")).doubleValue(),
+                        ((Number)bucketObject.get("maxPrice")).doubleValue(), ((Number)bucketObject.get("sumPrice")).doubleValue());
+      return;
+    }
+
+    List<?> entries = (List<?>)bucketObject.get("observations");
+    if (entries == null) return;
+
+    for (Object entry : entries) {
+      PriceObservation observation = convertMongoToObservation((DBObject)entry);
+      Date date = observation.getObservationDate();
+      if (date != null && !date.before(fromDate) && !date.after(toDate))
+        rollup.addPrice(observation.getPrice());
+    }
+  }
+
+  public static PriceObservation convertMongoToObservation(DBObject dbObject) {
+    if (dbObject == null) return null;
+
+    PriceObservation observation = new PriceObservation();
+    if (dbObject.containsField("date"))         observation.setObservationDate((Date)dbObject.get("date"));
+    if (dbObject.containsField("price"))        observation.setPrice(((Number)dbObject.get("price")).doubleValue());
+    if (dbObject.containsField("availability")) observation.setAvailability(GameAvailabilityConverter.convertFlagToGameAvailability((Integer)dbObject.get("availability")));
+
+    return observation;
+  }
+}
@@ -0,0 +1,49 @@
+package com.ac.games.db.mongo;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated read, plus the continuation token for the page after it.  The token
+ * is opaque to callers: hand it back unchanged to get the next page.
+ * 
+ * @author ac010168
+ */
+public class ResultPage<T> {
+  
+  /** The items on this page, in page order. */
+  private final List<T> items;
+  /** The token for the next page, or null if this is the last page. */
+  private final String continuationToken;
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param items The items on this page.
+   * @param continuationToken The token for the next page, or null if this is the last page.
+   */
+  public ResultPage(List<T> items, String continuationToken) {
+    this.items             = items;
+    this.continuationToken = continuationToken;
+  }
+  
+  /**
+   * @return the items on this page
+   */
+  public List<T> getItems() {
+    return items;
+  }
+  
+  /**
+   * @return the token for the next page, or null if this is the last page
+   */
+  public String getContinuationToken() {
+    return continuationToken;
+  }
+  
+  /**
+   * @return true if there is a page after this one
+   */
+  public boolean hasMore() {
+    return continuationToken != null;
+  }
+}
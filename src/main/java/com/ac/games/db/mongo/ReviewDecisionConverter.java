@@ -0,0 +1,77 @@
+package com.ac.games.db.mongo;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.ac.games.data.ReviewState;
+import com.ac.games.data.ReviewStateConverter;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+
+/**
+ * @author ac010168
+ * This converter builds the targeted queries and updates behind bulk review decisions.  A decision only
+ * touches reviewState and reviewDate (and ends any review lease), so many records can be decided with
+ * a multi-update instead of rewriting each full document.
+ * 
+ * Records are moved one previous review state at a time.  That way each update's count says exactly
+ * how many records left that state, which is what keeps the stats rows correct.
+ */
+public class ReviewDecisionConverter {
+
+  /**
+   * Helper method that builds the query for the records in a decision that are currently in one review state.
+   * 
+   * @param idField The ID field of the collection, i.e. bggID.
+   * @param ids The IDs of the records being decided.
+   * @param fromState The review state to select, or null for records that have no review state.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertDecisionToQuery(String idField, long[] ids, ReviewState fromState) {
+    BasicDBList idList = new BasicDBList();
+    for (long id : ids)
+      idList.add(id);
+    
+    BasicDBObject dbObject = new BasicDBObject(idField, new BasicDBObject("$in", idList));
+    if (fromState == null) dbObject.append("reviewState", null);
+    else                   dbObject.append("reviewState", ReviewStateConverter.convertReviewStateToFlag(fromState));
+    return dbObject;
+  }
+  
+  /**
+   * Helper method that lists the review states a decision moves records out of: every state but the one
+   * decided on, followed by null for records that have never had a review state.
+   * 
+   * @param reviewState The review state decided on.
+   * 
+   * @return The previous review states to select, one update each.
+   */
+  public static List<ReviewState> convertDecisionToFromStates(ReviewState reviewState) {
+    List<ReviewState> fromStates = new ArrayList<ReviewState>();
+    for (ReviewState state : ReviewState.values())
+      if (state != reviewState) fromStates.add(state);
+    fromStates.add(null);
+    return fromStates;
+  }
+  
+  /**
+   * Helper method that builds the update recording a review decision.
+   * 
+   * @param reviewState The review state decided on.
+   * @param reviewDate The time of the decision.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this update.
+   */
+  public static BasicDBObject convertDecisionToUpdate(ReviewState reviewState, Date reviewDate) {
+    BasicDBObject setObject = new BasicDBObject("reviewState", ReviewStateConverter.convertReviewStateToFlag(reviewState));
+    setObject.append("reviewDate", reviewDate);
+    
+    //The stored content hash no longer describes the document, so drop it along with any lease
+    BasicDBObject dbObject = ReviewLeaseConverter.convertReleaseToUpdate();
+    ((BasicDBObject)dbObject.get("$unset")).append(ContentHash.FIELD, "");
+    dbObject.append("$set", setObject);
+    return dbObject;
+  }
+}
@@ -0,0 +1,134 @@
+package com.ac.games.db.mongo;
+
+import java.util.Date;
+import java.util.List;
+
+import com.ac.games.data.ReviewState;
+import com.ac.games.data.ReviewStateConverter;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+
+/**
+ * @author ac010168
+ * This converter builds the queries and updates behind the review work queue.  A claimed record carries
+ * a leaseOwner and a leaseExpires field alongside its normal data.  The other converters ignore these
+ * fields, and a full document update drops them, so recording a review decision also ends the lease.
+ *
+ * A pending record is claimable when it has no lease, or when its lease has expired.
+ */
+public class ReviewLeaseConverter {
+
+  /** The field holding the name of the reviewer who claimed the record. */
+  public static final String LEASE_OWNER   = "leaseOwner";
+  /** The field holding the time the claim runs out. */
+  public static final String LEASE_EXPIRES = "leaseExpires";
+
+  /**
+   * Helper method that builds the query for pending records nobody currently holds a lease on.  A null
+   * test matches records that have never been claimed, and records whose lease was released.
+   *
+   * @param now The current time, used to recognise expired leases.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertClaimableToQuery(Date now) {
+    BasicDBList freeList = new BasicDBList();
+    freeList.add(new BasicDBObject(LEASE_EXPIRES, null));
+    freeList.add(new BasicDBObject(LEASE_EXPIRES, new BasicDBObject("$lt", now)));
+
+    BasicDBObject dbObject = new BasicDBObject("reviewState", ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING));
+    dbObject.append("$or", freeList);
+    return dbObject;
+  }
+
+  /**
+   * Helper method that builds the claimable query, narrowed to the records picked for a batch claim.
+   *
+   * @param docIDs The _id values of the records picked.
+   * @param now The current time, used to recognise expired leases.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertClaimableToQuery(List<Object> docIDs, Date now) {
+    BasicDBObject dbObject = convertClaimableToQuery(now);
+    dbObject.append("_id", new BasicDBObject("$in", docIDs));
+    return dbObject;
+  }
+
+  /**
+   * Helper method that builds the update that claims a record.
+   *
+   * @param reviewer The reviewer taking the lease.
+   * @param expires When the lease runs out.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this update.
+   */
+  public static BasicDBObject convertClaimToUpdate(String reviewer, Date expires) {
+    BasicDBObject setObject = new BasicDBObject(LEASE_OWNER, reviewer);
+    setObject.append(LEASE_EXPIRES, expires);
+    return new BasicDBObject("$set", setObject);
+  }
+
+  /**
+   * Helper method that builds the query for the records one batch claim won.  The expiry is stamped
+   * to the millisecond, which tells this claim apart from the reviewer's earlier ones.
+   *
+   * @param docIDs The _id values of the records picked.
+   * @param reviewer The reviewer holding the lease.
+   * @param expires The expiry written by the claim.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertClaimedToQuery(List<Object> docIDs, String reviewer, Date expires) {
+    BasicDBObject dbObject = new BasicDBObject("_id", new BasicDBObject("$in", docIDs));
+    dbObject.append(LEASE_OWNER, reviewer);
+    dbObject.append(LEASE_EXPIRES, expires);
+    return dbObject;
+  }
+
+  /**
+   * Helper method that builds the query for one record's lease, as long as the given reviewer holds it.
+   *
+   * @param idField The ID field of the collection, i.e. bggID.
+   * @param id The ID of the record.
+   * @param reviewer The reviewer holding the lease.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertLeaseToQuery(String idField, long id, String reviewer) {
+    BasicDBObject dbObject = new BasicDBObject(idField, id);
+    dbObject.append(LEASE_OWNER, reviewer);
+    return dbObject;
+  }
+
+  /**
+   * Helper method that builds the query for every lease that has run out.
+   *
+   * @param now The current time.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertExpiredLeasesToQuery(Date now) {
+    return new BasicDBObject(LEASE_EXPIRES, new BasicDBObject("$lt", now));
+  }
+
+  /**
+   * Helper method that builds the update that gives up a lease.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this update.
+   */
+  public static BasicDBObject convertReleaseToUpdate() {
+    BasicDBObject unsetObject = new BasicDBObject(LEASE_OWNER, "");
+    unsetObject.append(LEASE_EXPIRES, "");
+    return new BasicDBObject("$unset", unsetObject);
+  }
+
+  /**
+   * Helper method that builds the projection used while picking records for a batch claim.
+   *
+   * @return Returns a {@link BasicDBObject} object that represents this projection.
+   */
+  public static BasicDBObject convertDocIDProjection() {
+    return new BasicDBObject("_id", 1);
+  }
+}
@@ -0,0 +1,119 @@
+package com.ac.games.db.mongo;
+
+import com.mongodb.DBObject;
+
+/**
+ * The collections our name and title searches run against, with the fields each one is searched by and
+ * the projections its compact and autocomplete reads use.  The projections are built once, frozen, and
+ * shared by every caller.
+ *
+ * @author ac010168
+ */
+public enum SearchCollection {
+
+  /** Our own games. */
+  GAME("game", "gameID", "name", true, false,
+       ImmutableDBObject.copyOf(GameConverter.convertCompactProjection()),
+       ImmutableDBObject.projectionOf("name", "primaryPublisher", "yearPublished")),
+
+  /** The BoardGameGeek records. */
+  BGG_GAME("bgggame", "bggID", "name", true, true,
+           ImmutableDBObject.copyOf(BGGGameConverter.convertCompactProjection()),
+           ImmutableDBObject.projectionOf("name", "bggID", "yearPublished")),
+
+  /** The CoolStuffInc records. */
+  CSI_DATA("csidata", "csiID", "title", false, true,
+           ImmutableDBObject.copyOf(CSIDataConverter.convertCompactProjection()),
+           ImmutableDBObject.projectionOf("title", "csiID", "category")),
+
+  /** The Miniature Market records. */
+  MM_DATA("mmdata", "mmID", "title", false, true,
+          ImmutableDBObject.copyOf(MMDataConverter.convertCompactProjection()),
+          ImmutableDBObject.projectionOf("title", "mmID", "category"));
+
+  /** The name of the collection. */
+  private final String collectionName;
+  /** The field holding our long ID. */
+  private final String idField;
+  /** The field names and titles are searched on. */
+  private final String nameField;
+  /** true if the records carry a gameType. */
+  private final boolean typed;
+  /** true if the records carry a reviewState. */
+  private final boolean reviewed;
+  /** The projection for compact search results. */
+  private final DBObject compactProjection;
+  /** The projection for autocomplete lists. */
+  private final DBObject autoCompleteProjection;
+
+  /**
+   * Basic Constructor.
+   *
+   * @param collectionName The name of the collection.
+   * @param idField The field holding our long ID.
+   * @param nameField The field names and titles are searched on.
+   * @param typed true if the records carry a gameType.
+   * @param reviewed true if the records carry a reviewState.
+   * @param compactProjection The projection for compact search results.
+   * @param autoCompleteProjection The projection for autocomplete lists.
+   */
+  private SearchCollection(String collectionName, String idField, String nameField, boolean typed, boolean reviewed,
+                           DBObject compactProjection, DBObject autoCompleteProjection) {
+    this.collectionName         = collectionName;
+    this.idField                = idField;
+    this.nameField              = nameField;
+    this.typed                  = typed;
+    this.reviewed               = reviewed;
+    this.compactProjection      = compactProjection;
+    this.autoCompleteProjection = autoCompleteProjection;
+  }
+
+  /**
+   * @return the collectionName
+   */
+  public String getCollectionName() {
+    return collectionName;
+  }
+
+  /**
+   * @return the idField
+   */
+  public String getIDField() {
+    return idField;
+  }
+
+  /**
+   * @return the nameField
+   */
+  public String getNameField() {
+    return nameField;
+  }
+
+  /**
+   * @return true if the records carry a gameType
+   */
+  public boolean isTyped() {
+    return typed;
+  }
+
+  /**
+   * @return true if the records carry a reviewState
+   */
+  public boolean isReviewed() {
+    return reviewed;
+  }
+
+  /**
+   * @return the shared, read-only projection for compact search results
+   */
+  public DBObject getCompactProjection() {
+    return compactProjection;
+  }
+
+  /**
+   * @return the shared, read-only projection for autocomplete lists
+   */
+  public DBObject getAutoCompleteProjection() {
+    return autoCompleteProjection;
+  }
+}
@@ -0,0 +1,144 @@
+package com.ac.games.db.mongo;
+
+import com.ac.games.data.GameType;
+import com.ac.games.data.GameTypeConverter;
+import com.ac.games.data.ReviewStateConverter;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Builds the name, title and autocomplete queries against a {@link SearchCollection}.  The parts that
+ * never change from call to call, like skipping rejected records or matching base and collectible games,
+ * are frozen fragments built once and shared across threads; each call only allocates the outer query
+ * and its own name match.
+ * <p>
+ * Fields are always written in the same order, whatever order the builder methods are called in, so
+ * equivalent searches reach the server with the same shape.
+ * <pre>
+ *   DBObject query = SearchQuery.on(SearchCollection.BGG_GAME).named(gameName, true).notRejected().ofType(null).toQuery();
+ * </pre>
+ * A builder is meant to be used once, on one thread.
+ *
+ * @author ac010168
+ */
+public class SearchQuery {
+
+  /** Matches records whose reviewState is not rejected, i.e. {$in: [REVIEWED, PENDING]}. */
+  public static final DBObject NOT_REJECTED = ImmutableDBObject.of("$in",
+      ImmutableDBObject.listOf(ReviewStateConverter.REVIEWED_FLAG, ReviewStateConverter.PENDING_FLAG));
+
+  /** Matches games that are base games or collectibles, i.e. {$in: [BASE, COLLECTIBLE]}. */
+  public static final DBObject BASE_OR_COLLECTIBLE = ImmutableDBObject.of("$in",
+      ImmutableDBObject.listOf(GameTypeConverter.BASE_FLAG, GameTypeConverter.COLLECTIBLE_FLAG));
+
+  /** Matches records that have been given an ID, i.e. {$gt: 0}. */
+  public static final DBObject HAS_ID = ImmutableDBObject.of("$gt", 0);
+
+  /** The gameType value to match for each {@link GameType}, indexed by ordinal. */
+  private static final Object[] TYPE_FILTERS;
+  static {
+    GameType[] gameTypes = GameType.values();
+    TYPE_FILTERS = new Object[gameTypes.length];
+    for (GameType gameType : gameTypes) {
+      if (gameType == GameType.BASE_AND_COLLECTIBLE) TYPE_FILTERS[gameType.ordinal()] = BASE_OR_COLLECTIBLE;
+      else                                           TYPE_FILTERS[gameType.ordinal()] = Integer.valueOf(GameTypeConverter.convertGameTypeToFlag(gameType));
+    }
+  }
+
+  /** The collection being searched. */
+  private final SearchCollection collection;
+  /** The name or title match, or null for none. */
+  private DBObject nameMatch;
+  /** The reviewState match, or null for none. */
+  private DBObject reviewMatch;
+  /** The gameType match, or null for none. */
+  private Object typeMatch;
+  /** The ID match, or null for none. */
+  private DBObject idMatch;
+
+  /**
+   * Basic Constructor.
+   *
+   * @param collection The collection being searched.
+   */
+  private SearchQuery(SearchCollection collection) {
+    this.collection = collection;
+  }
+
+  /**
+   * @param collection The collection to search.
+   * @return a new, empty builder for the collection
+   */
+  public static SearchQuery on(SearchCollection collection) {
+    if (collection == null)
+      throw new IllegalArgumentException("A search collection is required.");
+    return new SearchQuery(collection);
+  }
+
+  /**
+   * Matches the collection's name or title field against the text, ignoring case, the same way the BGG
+   * search always has.
+   *
+   * @param text The text to search for.
+   * @param addWildCard true to also match names that continue past the text.
+   * @return this builder
+   */
+  public SearchQuery named(String text, boolean addWildCard) {
+    nameMatch = new BasicDBObject("$regex", addWildCard ? "(?i)" + text.trim() + ".*" : "(?i)" + text.trim());
+    return this;
+  }
+
+  /**
+   * Skips rejected records.
+   *
+   * @return this builder
+   */
+  public SearchQuery notRejected() {
+    if (!collection.isReviewed())
+      throw new IllegalStateException("The " + collection.getCollectionName() + " collection has no reviewState.");
+    reviewMatch = NOT_REJECTED;
+    return this;
+  }
+
+  /**
+   * Matches one type of game.
+   *
+   * @param gameTypeFilter The type of game to match, or null for base and collectible games.
+   * @return this builder
+   */
+  public SearchQuery ofType(GameType gameTypeFilter) {
+    if (!collection.isTyped())
+      throw new IllegalStateException("The " + collection.getCollectionName() + " collection has no gameType.");
+    typeMatch = TYPE_FILTERS[(gameTypeFilter == null ? GameType.BASE_AND_COLLECTIBLE : gameTypeFilter).ordinal()];
+    return this;
+  }
+
+  /**
+   * Skips records that have not been given an ID yet.
+   *
+   * @return this builder
+   */
+  public SearchQuery withID() {
+    idMatch = HAS_ID;
+    return this;
+  }
+
+  /**
+   * @return the query, with its fields in a fixed order: ID, name, reviewState and gameType
+   */
+  public DBObject toQuery() {
+    BasicDBObject queryObject = new BasicDBObject();
+    if (idMatch != null)     queryObject.append(collection.getIDField(), idMatch);
+    if (nameMatch != null)   queryObject.append(collection.getNameField(), nameMatch);
+    if (reviewMatch != null) queryObject.append("reviewState", reviewMatch);
+    if (typeMatch != null)   queryObject.append("gameType", typeMatch);
+    return queryObject;
+  }
+
+  /**
+   * @return the collection being searched
+   */
+  public SearchCollection getCollection() {
+    return collection;
+  }
+}
@@ -2,7 +2,12 @@ package com.ac.games.db.mongo;
 
 import com.ac.games.data.BGGGameStats;
 import com.ac.games.data.CSIDataStats;
+import com.ac.games.data.CoolStuffIncCategoryConverter;
+import com.ac.games.data.GameTypeConverter;
 import com.ac.games.data.MMDataStats;
+import com.ac.games.data.MiniatureMarketCategoryConverter;
+import com.ac.games.data.ReviewStateConverter;
+import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 
@@ -11,12 +16,25 @@ import com.mongodb.DBObject;
  * Unlike many of the other Converter classes, this one will process all the basic stats objects, 
  * with the assumption that all values in the stats blocks are not optional.
  * 
- * This is also operating under the assumption that we never update stats.  We will always
- * be performing delete/reinsert with this data.  The other assumption is that only one row will
- * exist per statType, with the statType values being defined as static constants in the
- * corresponding data class.
+ * This is also operating under the assumption that we never update stats field by field.  We will
+ * always set every field of the row in a single upsert, so readers never see a missing row.  The other
+ * assumption is that only one row will exist per statType, with the statType values being defined 
+ * as static constants in the corresponding data class.
+ * 
+ * Every write to a row, full or delta, also bumps its statsVersion, so a recompute can tell whether
+ * a delta landed while it was aggregating and avoid overwriting it.
+ * 
+ * The convertXxxStatsToGroup methods build the $group stage that computes a full stats row in one
+ * pass over the source collection.  Every count is a conditional $sum, so the result of the stage can
+ * be read back with the matching convertMongoToXxxStats method.
+ * 
+ * The convertXxxChangeToStatsUpdate methods build the $inc that moves a stats row from one version
+ * of a source document to the next, so the rows can be kept current as the data is written.
  */
 public class StatsConverter {
+  
+  /** The field bumped by every write to a stats row. */
+  public static final String VERSION_FIELD = "statsVersion";
 
   /**
    * Helper method that will construct a basic query using the gameID from the provided game.
@@ -31,6 +49,45 @@ public class StatsConverter {
     BasicDBObject dbObject = new BasicDBObject("statType", statType);
     return dbObject;
   }
+  
+  /**
+   * Helper method that builds the query for a stats row, guarded on the version it had when it was read.
+   * 
+   * @param statType The statType of the row.
+   * @param version The statsVersion read from the row, or null if the row had none.
+   * 
+   * @return Returns a {@link BasicDBObject} object that matches the row only if it hasn't been written since
+   */
+  public static BasicDBObject convertStatsToVersionQuery(String statType, Object version) {
+    BasicDBObject dbObject = convertStatsToTypeQuery(statType);
+    dbObject.append(VERSION_FIELD, version);
+    return dbObject;
+  }
+  
+  /**
+   * Helper method that builds the projection for reading a stats row's version.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the projection.
+   */
+  public static BasicDBObject convertVersionProjection() {
+    return new BasicDBObject(VERSION_FIELD, 1);
+  }
+  
+  /**
+   * Helper method that turns a full stats row from one of the convertStatsToMongo methods into an update
+   * setting every field and bumping the version.
+   * 
+   * @param statsObject The full stats row.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the update, or null if no row was provided
+   */
+  public static BasicDBObject convertStatsToVersionedUpdate(BasicDBObject statsObject) {
+    if (statsObject == null) return null;
+    
+    BasicDBObject dbObject = new BasicDBObject("$set", statsObject);
+    dbObject.append("$inc", new BasicDBObject(VERSION_FIELD, 1));
+    return dbObject;
+  }
 
   public static BasicDBObject convertStatsToMongo(BGGGameStats stats) {
     if (stats == null) return null;
@@ -141,4 +198,306 @@ public class StatsConverter {
 
     return stats;
   }
+  
+  /**
+   * Helper method that builds the $group stage computing a {@link BGGGameStats} row from the bgggame collection.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the $group stage.
+   */
+  public static BasicDBObject convertBGGGameStatsToGroup() {
+    BasicDBObject groupFields = new BasicDBObject("_id", "");
+    groupFields.append("baseGameCount", countWhere("gameType", GameTypeConverter.BASE_FLAG));
+    groupFields.append("expansionGameCount", countWhere("gameType", GameTypeConverter.EXPANSION_FLAG));
+    groupFields.append("collectibleGameCount", countWhere("gameType", GameTypeConverter.COLLECTIBLE_FLAG));
+    appendReviewStateCounts(groupFields);
+    
+    return new BasicDBObject("$group", groupFields);
+  }
+  
+  /**
+   * Helper method that builds the $group stage computing a {@link CSIDataStats} row from the csidata collection.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the $group stage.
+   */
+  public static BasicDBObject convertCSIDataStatsToGroup() {
+    BasicDBObject groupFields = new BasicDBObject("_id", "");
+    groupFields.append("boardGameCount", countWhere("category", CoolStuffIncCategoryConverter.BOARDGAMES_FLAG));
+    groupFields.append("collectibleGameCount", countWhere("category", CoolStuffIncCategoryConverter.COLLECTIBLE_FLAG));
+    groupFields.append("diceMastersCount", countWhere("category", CoolStuffIncCategoryConverter.DICEMASTERS_FLAG));
+    groupFields.append("rpgCount", countWhere("category", CoolStuffIncCategoryConverter.RPGS_FLAG));
+    groupFields.append("lcgCount", countWhere("category", CoolStuffIncCategoryConverter.LCGS_FLAG));
+    groupFields.append("suppliesCount", countWhere("category", CoolStuffIncCategoryConverter.SUPPLIES_FLAG));
+    groupFields.append("miniatureCount", countWhere("category", CoolStuffIncCategoryConverter.MINIATURES_FLAG));
+    groupFields.append("videoGameCount", countWhere("category", CoolStuffIncCategoryConverter.VIDEOGAMES_FLAG));
+    groupFields.append("unknownCount", countWhere("category", CoolStuffIncCategoryConverter.UNKNOWN_FLAG));
+    appendReviewStateCounts(groupFields);
+    
+    return new BasicDBObject("$group", groupFields);
+  }
+  
+  /**
+   * Helper method that builds the $group stage computing a {@link MMDataStats} row from the mmdata collection.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the $group stage.
+   */
+  public static BasicDBObject convertMMDataStatsToGroup() {
+    BasicDBObject groupFields = new BasicDBObject("_id", "");
+    groupFields.append("boardGameCount", countWhere("category", MiniatureMarketCategoryConverter.BOARDGAMES_FLAG));
+    groupFields.append("tableTopCount", countWhere("category", MiniatureMarketCategoryConverter.TABLETOP_FLAG));
+    groupFields.append("ccgCount", countWhere("category", MiniatureMarketCategoryConverter.CCGS_FLAG));
+    groupFields.append("lcgCount", countWhere("category", MiniatureMarketCategoryConverter.LCGS_FLAG));
+    groupFields.append("collectiblesCount", countWhere("category", MiniatureMarketCategoryConverter.COLLECTIBLES_FLAG));
+    groupFields.append("rpgCount", countWhere("category", MiniatureMarketCategoryConverter.RPGS_FLAG));
+    groupFields.append("accessoriesCount", countWhere("category", MiniatureMarketCategoryConverter.ACCESSORIES_FLAG));
+    groupFields.append("unknownCount", countWhere("category", MiniatureMarketCategoryConverter.UNKNOWN_FLAG));
+    appendReviewStateCounts(groupFields);
+    
+    return new BasicDBObject("$group", groupFields);
+  }
+  
+
+  /**
+   * Helper method that builds the projection for the fields that feed the stats rows.  This is the
+   * projection we ask for on the document a write replaces or removes.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the projection.
+   */
+  public static BasicDBObject convertStatsFieldsProjection() {
+    BasicDBObject dbObject = new BasicDBObject("_id", 0);
+    dbObject.append("gameType", 1);
+    dbObject.append("category", 1);
+    dbObject.append("reviewState", 1);
+    
+    return dbObject;
+  }
+  
+  /**
+   * Helper method that builds the $inc moving the {@link BGGGameStats} row from one version of a bgggame
+   * document to the next.
+   * 
+   * @param oldObject The document as it was before the write, or null if the write created it.
+   * @param newObject The document as it is after the write, or null if the write removed it.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the $inc, or null if no count changes.
+   */
+  public static BasicDBObject convertBGGGameChangeToStatsUpdate(DBObject oldObject, DBObject newObject) {
+    BasicDBObject incFields = new BasicDBObject();
+    adjustCount(incFields, getBGGGameTypeCountField(getFlag(oldObject, "gameType")), -1);
+    adjustCount(incFields, getBGGGameTypeCountField(getFlag(newObject, "gameType")), 1);
+    adjustReviewStateCounts(incFields, oldObject, newObject);
+    
+    return convertIncToStatsUpdate(incFields);
+  }
+  
+  /**
+   * Helper method that builds the $inc moving the {@link CSIDataStats} row from one version of a csidata
+   * document to the next.
+   * 
+   * @param oldObject The document as it was before the write, or null if the write created it.
+   * @param newObject The document as it is after the write, or null if the write removed it.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the $inc, or null if no count changes.
+   */
+  public static BasicDBObject convertCSIDataChangeToStatsUpdate(DBObject oldObject, DBObject newObject) {
+    BasicDBObject incFields = new BasicDBObject();
+    adjustCount(incFields, getCSICategoryCountField(getFlag(oldObject, "category")), -1);
+    adjustCount(incFields, getCSICategoryCountField(getFlag(newObject, "category")), 1);
+    adjustReviewStateCounts(incFields, oldObject, newObject);
+    
+    return convertIncToStatsUpdate(incFields);
+  }
+  
+  /**
+   * Helper method that builds the $inc moving the {@link MMDataStats} row from one version of a mmdata
+   * document to the next.
+   * 
+   * @param oldObject The document as it was before the write, or null if the write created it.
+   * @param newObject The document as it is after the write, or null if the write removed it.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the $inc, or null if no count changes.
+   */
+  public static BasicDBObject convertMMDataChangeToStatsUpdate(DBObject oldObject, DBObject newObject) {
+    BasicDBObject incFields = new BasicDBObject();
+    adjustCount(incFields, getMMCategoryCountField(getFlag(oldObject, "category")), -1);
+    adjustCount(incFields, getMMCategoryCountField(getFlag(newObject, "category")), 1);
+    adjustReviewStateCounts(incFields, oldObject, newObject);
+    
+    return convertIncToStatsUpdate(incFields);
+  }
+  
+  /**
+   * Helper method that builds the $inc moving a number of records from one review state to another.
+   * 
+   * @param fromFlag The review state flag the records left, or -1 if they had none.
+   * @param toFlag The review state flag the records moved to.
+   * @param count The number of records moved.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the $inc, or null if no count changes.
+   */
+  public static BasicDBObject convertReviewStateMoveToStatsUpdate(int fromFlag, int toFlag, int count) {
+    BasicDBObject incFields = new BasicDBObject();
+    adjustCount(incFields, getReviewStateCountField(fromFlag), -count);
+    adjustCount(incFields, getReviewStateCountField(toFlag), count);
+    
+    return convertIncToStatsUpdate(incFields);
+  }
+  
+  /**
+   * Helper method that adds one stats $inc into another, so the changes for a batch of documents can go
+   * to the row as a single write.
+   * 
+   * @param totalUpdate The $inc built so far, or null if no count has changed yet.
+   * @param statsUpdate The $inc to add in, or null if no count changed.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the combined $inc, or null if no count changes.
+   */
+  public static BasicDBObject combineStatsUpdates(BasicDBObject totalUpdate, BasicDBObject statsUpdate) {
+    if (statsUpdate == null) return totalUpdate;
+    if (totalUpdate == null) return statsUpdate;
+    
+    BasicDBObject totalFields = (BasicDBObject)totalUpdate.get("$inc");
+    BasicDBObject incFields   = (BasicDBObject)statsUpdate.get("$inc");
+    for (String fieldName : incFields.keySet())
+      adjustCount(totalFields, fieldName, incFields.getInt(fieldName));
+    
+    return totalUpdate;
+  }
+  
+  /**
+   * Helper method that wraps the counter deltas in a $inc that also bumps the row's version.
+   * 
+   * @param incFields The counter deltas.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the $inc, or null if no count changes.
+   */
+  private static BasicDBObject convertIncToStatsUpdate(BasicDBObject incFields) {
+    if (incFields.isEmpty()) return null;
+    
+    incFields.append(VERSION_FIELD, 1);
+    return new BasicDBObject("$inc", incFields);
+  }
+  
+  /**
+   * Helper method that moves the review state counts from the old document's state to the new one's.
+   * 
+   * @param incFields The $inc fields being built.
+   * @param oldObject The document before the write, or null.
+   * @param newObject The document after the write, or null.
+   */
+  private static void adjustReviewStateCounts(BasicDBObject incFields, DBObject oldObject, DBObject newObject) {
+    adjustCount(incFields, getReviewStateCountField(getFlag(oldObject, "reviewState")), -1);
+    adjustCount(incFields, getReviewStateCountField(getFlag(newObject, "reviewState")), 1);
+  }
+  
+  /**
+   * Helper method that adds a delta to one counter in the $inc being built, dropping the counter if the
+   * deltas cancel out.
+   * 
+   * @param incFields The $inc fields being built.
+   * @param fieldName The counter to adjust, or null if the value isn't counted.
+   * @param delta The amount to adjust by.
+   */
+  private static void adjustCount(BasicDBObject incFields, String fieldName, int delta) {
+    if (fieldName == null) return;
+    
+    int newDelta = incFields.getInt(fieldName, 0) + delta;
+    if (newDelta == 0) incFields.removeField(fieldName);
+    else               incFields.put(fieldName, newDelta);
+  }
+  
+  /**
+   * Helper method that reads a flag field from a document.
+   * 
+   * @param dbObject The document, or null.
+   * @param fieldName The flag field to read.
+   * 
+   * @return The flag value, or -1 if there is no document or no value.
+   */
+  private static int getFlag(DBObject dbObject, String fieldName) {
+    if (dbObject == null) return -1;
+    
+    Object value = dbObject.get(fieldName);
+    return (value instanceof Number ? ((Number)value).intValue() : -1);
+  }
+  
+  private static String getBGGGameTypeCountField(int flag) {
+    switch (flag) {
+      case GameTypeConverter.BASE_FLAG:        return "baseGameCount";
+      case GameTypeConverter.EXPANSION_FLAG:   return "expansionGameCount";
+      case GameTypeConverter.COLLECTIBLE_FLAG: return "collectibleGameCount";
+      default:                                 return null;
+    }
+  }
+  
+  private static String getCSICategoryCountField(int flag) {
+    switch (flag) {
+      case CoolStuffIncCategoryConverter.BOARDGAMES_FLAG:  return "boardGameCount";
+      case CoolStuffIncCategoryConverter.COLLECTIBLE_FLAG: return "collectibleGameCount";
+      case CoolStuffIncCategoryConverter.DICEMASTERS_FLAG: return "diceMastersCount";
+      case CoolStuffIncCategoryConverter.RPGS_FLAG:        return "rpgCount";
+      case CoolStuffIncCategoryConverter.LCGS_FLAG:        return "lcgCount";
+      case CoolStuffIncCategoryConverter.SUPPLIES_FLAG:    return "suppliesCount";
+      case CoolStuffIncCategoryConverter.MINIATURES_FLAG:  return "miniatureCount";
+      case CoolStuffIncCategoryConverter.VIDEOGAMES_FLAG:  return "videoGameCount";
+      case CoolStuffIncCategoryConverter.UNKNOWN_FLAG:     return "unknownCount";
+      default:                                             return null;
+    }
+  }
+  
+  private static String getMMCategoryCountField(int flag) {
+    switch (flag) {
+      case MiniatureMarketCategoryConverter.BOARDGAMES_FLAG:   return "boardGameCount";
+      case MiniatureMarketCategoryConverter.TABLETOP_FLAG:     return "tableTopCount";
+      case MiniatureMarketCategoryConverter.CCGS_FLAG:         return "ccgCount";
+      case MiniatureMarketCategoryConverter.LCGS_FLAG:         return "lcgCount";
+      case MiniatureMarketCategoryConverter.COLLECTIBLES_FLAG: return "collectiblesCount";
+      case MiniatureMarketCategoryConverter.RPGS_FLAG:         return "rpgCount";
+      case MiniatureMarketCategoryConverter.ACCESSORIES_FLAG:  return "accessoriesCount";
+      case MiniatureMarketCategoryConverter.UNKNOWN_FLAG:      return "unknownCount";
+      default:                                                 return null;
+    }
+  }
+  
+  private static String getReviewStateCountField(int flag) {
+    switch (flag) {
+      case ReviewStateConverter.REVIEWED_FLAG: return "approvedCount";
+      case ReviewStateConverter.REJECTED_FLAG: return "rejectedCount";
+      case ReviewStateConverter.PENDING_FLAG:  return "pendingCount";
+      default:                                 return null;
+    }
+  }
+
+  /**
+   * Helper method that appends the approved, rejected and pending counts shared by every stats row.
+   * 
+   * @param groupFields The $group fields being built.
+   */
+  private static void appendReviewStateCounts(BasicDBObject groupFields) {
+    groupFields.append("approvedCount", countWhere("reviewState", ReviewStateConverter.REVIEWED_FLAG));
+    groupFields.append("rejectedCount", countWhere("reviewState", ReviewStateConverter.REJECTED_FLAG));
+    groupFields.append("pendingCount", countWhere("reviewState", ReviewStateConverter.PENDING_FLAG));
+  }
+  
+  /**
+   * Helper method that builds a $group accumulator counting the documents whose field holds the given flag.
+   * This is the form we are building:
+   * <pre>{ $sum : { $cond : [ { $eq : [ "$field", flag ] }, 1, 0 ] } }</pre>
+   * 
+   * @param fieldName The document field to test.
+   * @param flag The flag value being counted.
+   * 
+   * @return Returns a {@link BasicDBObject} holding the accumulator.
+   */
+  private static BasicDBObject countWhere(String fieldName, int flag) {
+    BasicDBList eqArgs = new BasicDBList();
+    eqArgs.add("$" + fieldName);
+    eqArgs.add(flag);
+    
+    BasicDBList condArgs = new BasicDBList();
+    condArgs.add(new BasicDBObject("$eq", eqArgs));
+    condArgs.add(1);
+    condArgs.add(0);
+    
+    return new BasicDBObject("$sum", new BasicDBObject("$cond", condArgs));
+  }
 }
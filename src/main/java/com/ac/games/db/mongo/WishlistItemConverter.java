@@ -1,6 +1,7 @@
 package com.ac.games.db.mongo;
 
 import java.util.Date;
+import java.util.List;
 
 import com.ac.games.data.WishlistItem;
 import com.mongodb.BasicDBObject;
@@ -40,6 +41,39 @@ public class WishlistItemConverter {
     return dbObject;
   }
   
+  /**
+   * Helper method that will construct a query for the wishlist entries that asked to be notified about
+   * any of a batch of games.
+   * 
+   * @param gameIDs The games we want to build a query for.
+   * 
+   * @return Returns a {@link BasicDBObject} object that represents this query.
+   */
+  public static BasicDBObject convertGameIDsToNotifyQuery(List<Long> gameIDs) {
+    BasicDBObject dbObject = new BasicDBObject("gameID", new BasicDBObject("$in", gameIDs));
+    dbObject.append("notifyUser", true);
+    return dbObject;
+  }
+  
+  /**
+   * @return the projection for the user and game of a wishlist entry, which the notify index covers
+   * along with its userID
+   */
+  public static BasicDBObject convertNotifyProjection() {
+    BasicDBObject dbObject = new BasicDBObject("_id", 0);
+    dbObject.append("userID", 1);
+    dbObject.append("gameID", 1);
+    return dbObject;
+  }
+  
+  /**
+   * @return the keys of the index behind the notify query.  The userID is included so the query can be
+   * answered from the index alone.
+   */
+  public static BasicDBObject convertNotifyIndexKeys() {
+    return new BasicDBObject("gameID", 1).append("notifyUser", 1).append("userID", 1);
+  }
+  
   /**
    * Helper method that will construct a basic database object representing the provided data.
    * 
@@ -0,0 +1,341 @@
+package com.ac.games.db.mongo.codec;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.BSON;
+import org.bson.io.Bits;
+import org.bson.types.ObjectId;
+
+/**
+ * Forward-only cursor over the elements of a single BSON document held in a byte array.  Nothing
+ * is decoded until one of the read methods is called for the current element, and element names
+ * are matched against a {@link BSONFieldNames} table without building Strings.
+ * <p>
+ * The numeric read methods are lenient in the same way our converters were: any numeric BSON
+ * type is accepted and narrowed or widened to the requested type.
+ * 
+ * @author ac010168
+ */
+public class BSONDocumentReader {
+  
+  /** The buffer holding the document. */
+  private final byte[] buffer;
+  /** The offset of the document's size prefix. */
+  private final int    start;
+  /** The offset of the document's trailing 0. */
+  private final int    end;
+  
+  /** Offset of the next element to be visited. */
+  private int  nextOffset;
+  /** Offset of the current element. */
+  private int  elementOffset;
+  /** BSON type of the current element. */
+  private byte type;
+  /** Offset of the current element's name. */
+  private int  nameOffset;
+  /** Length of the current element's name, without the trailing 0. */
+  private int  nameLength;
+  /** Offset of the current element's value. */
+  private int  valueOffset;
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param buffer The buffer holding the document.
+   * @param offset The offset of the document's size prefix within the buffer.
+   */
+  public BSONDocumentReader(byte[] buffer, int offset) {
+    this.buffer     = buffer;
+    this.start      = offset;
+    this.end        = offset + Bits.readInt(buffer, offset) - 1;
+    this.nextOffset = offset + 4;
+  }
+  
+  /**
+   * @return the buffer
+   */
+  public byte[] getBuffer() {
+    return buffer;
+  }
+  
+  /**
+   * @return the offset of the document within the buffer
+   */
+  public int getStart() {
+    return start;
+  }
+  
+  /**
+   * Moves back to the first element, so the document can be walked again.
+   */
+  public void reset() {
+    nextOffset = start + 4;
+  }
+  
+  /**
+   * Advances to the next element of the document.
+   * 
+   * @return true if positioned on an element, false if the document is exhausted.
+   */
+  public boolean next() {
+    if (nextOffset >= end) return false;
+    
+    elementOffset = nextOffset;
+    type          = buffer[nextOffset];
+    nameOffset    = nextOffset + 1;
+    int pos       = nameOffset;
+    while (buffer[pos] != 0) pos++;
+    nameLength  = pos - nameOffset;
+    valueOffset = pos + 1;
+    nextOffset  = valueOffset + valueSize();
+    return true;
+  }
+  
+  /**
+   * Positions the reader on the element found at an offset previously returned by
+   * {@link #getElementOffset()}, so a single field can be decoded out of order.
+   * 
+   * @param offset The offset of the element within the buffer.
+   * @return true if positioned on an element.
+   */
+  public boolean seek(int offset) {
+    nextOffset = offset;
+    return next();
+  }
+  
+  /**
+   * @return the offset of the current element, suitable for {@link #seek(int)}
+   */
+  public int getElementOffset() {
+    return elementOffset;
+  }
+  
+  /**
+   * @return the BSON type of the current element
+   */
+  public byte getType() {
+    return type;
+  }
+  
+  /**
+   * @return the offset of the current element's value
+   */
+  public int getValueOffset() {
+    return valueOffset;
+  }
+  
+  /**
+   * @return true if the current element holds a BSON null
+   */
+  public boolean isNull() {
+    return type == BSON.NULL || type == BSON.UNDEFINED;
+  }
+  
+  /**
+   * Resolves the current element's name against a field table.
+   * 
+   * @param names The field table for this document type.
+   * @return The index of the field, or -1 if it is not in the table.
+   */
+  public int fieldIndex(BSONFieldNames names) {
+    return names.indexOf(buffer, nameOffset, nameLength);
+  }
+  
+  /**
+   * @return the name of the current element, decoded as a String
+   */
+  public String fieldName() {
+    return new String(buffer, nameOffset, nameLength, BSONFieldNames.UTF8);
+  }
+  
+  /**
+   * @return the current element as an int, from any numeric BSON type, or -1 if it is not numeric
+   */
+  public int readInt() {
+    switch (type) {
+      case BSON.NUMBER_INT:  return Bits.readInt(buffer, valueOffset);
+      case BSON.NUMBER_LONG: return (int)readRawLong(valueOffset);
+      case BSON.NUMBER:      return (int)Double.longBitsToDouble(readRawLong(valueOffset));
+      default:               return -1;
+    }
+  }
+
+  /**
+   * @return the current element as a long, from any numeric BSON type, or -1 if it is not numeric
+   */
+  public long readLong() {
+    switch (type) {
+      case BSON.NUMBER_INT:  return Bits.readInt(buffer, valueOffset);
+      case BSON.NUMBER_LONG: return readRawLong(valueOffset);
+      case BSON.NUMBER:      return (long)Double.longBitsToDouble(readRawLong(valueOffset));
+      default:               return -1L;
+    }
+  }
+
+  /**
+   * @return the current element as a double, from any numeric BSON type, or -1.0 if it is not numeric
+   */
+  public double readDouble() {
+    switch (type) {
+      case BSON.NUMBER_INT:  return Bits.readInt(buffer, valueOffset);
+      case BSON.NUMBER_LONG: return readRawLong(valueOffset);
+      case BSON.NUMBER:      return Double.longBitsToDouble(readRawLong(valueOffset));
+      default:               return -1.0;
+    }
+  }
+  
+  /**
+   * @return the current element as a boolean, where a number counts as true if it is above 0, or false
+   * if it is neither a boolean nor numeric
+   */
+  public boolean readBoolean() {
+    if (type == BSON.BOOLEAN) return buffer[valueOffset] != 0;
+    return readLong() > 0;
+  }
+  
+  /**
+   * @return the current element as a String, from a string, symbol or code element, or null if it is
+   * none of those
+   */
+  public String readString() {
+    if (type != BSON.STRING && type != BSON.SYMBOL && type != BSON.CODE) return null;
+    int length = Bits.readInt(buffer, valueOffset);
+    return new String(buffer, valueOffset + 4, length - 1, BSONFieldNames.UTF8);
+  }
+  
+  /**
+   * @return the current element as a Date, or null if it is not a BSON date
+   */
+  public Date readDate() {
+    if (type != BSON.DATE) return null;
+    return new Date(readRawLong(valueOffset));
+  }
+  
+  /**
+   * @return the current element as an ObjectId, or null if it is not a BSON ObjectId
+   */
+  public ObjectId readObjectId() {
+    if (type != BSON.OID) return null;
+    byte[] raw = new byte[12];
+    System.arraycopy(buffer, valueOffset, raw, 0, 12);
+    return new ObjectId(raw);
+  }
+  
+  /**
+   * @return a reader over the embedded document or array held by the current element, or null if
+   * the current element is not a document
+   */
+  public BSONDocumentReader readDocument() {
+    if (type != BSON.OBJECT && type != BSON.ARRAY) return null;
+    return new BSONDocumentReader(buffer, valueOffset);
+  }
+  
+  /**
+   * @return the current array element decoded as a list of Strings, or null if it is not an array
+   */
+  public List<String> readStringList() {
+    BSONDocumentReader array = readArray();
+    if (array == null) return null;
+    
+    List<String> values = new ArrayList<String>();
+    while (array.next())
+      values.add(array.readString());
+    return values;
+  }
+  
+  /**
+   * @return the current array element decoded as a list of Longs, or null if it is not an array
+   */
+  public List<Long> readLongList() {
+    BSONDocumentReader array = readArray();
+    if (array == null) return null;
+    
+    List<Long> values = new ArrayList<Long>();
+    while (array.next())
+      values.add(array.isNull() ? null : array.readLong());
+    return values;
+  }
+  
+  /**
+   * @return the current array element decoded as a list of Integers, or null if it is not an array
+   */
+  public List<Integer> readIntList() {
+    BSONDocumentReader array = readArray();
+    if (array == null) return null;
+    
+    List<Integer> values = new ArrayList<Integer>();
+    while (array.next())
+      values.add(array.isNull() ? null : array.readInt());
+    return values;
+  }
+  
+  /**
+   * Helper method to get a reader over the current element only if it is an array.
+   * 
+   * @return The reader, or null if the current element is not an array.
+   */
+  private BSONDocumentReader readArray() {
+    if (type != BSON.ARRAY) return null;
+    return new BSONDocumentReader(buffer, valueOffset);
+  }
+  
+  /**
+   * Helper method to read a little-endian int64.
+   * 
+   * @param offset The offset of the first byte.
+   * @return The value.
+   */
+  private long readRawLong(int offset) {
+    return (Bits.readInt(buffer, offset) & 0xFFFFFFFFL) | ((long)Bits.readInt(buffer, offset + 4) << 32);
+  }
+  
+  /**
+   * Helper method to compute how many bytes the current element's value occupies.
+   * 
+   * @return The size in bytes of the value.
+   */
+  private int valueSize() {
+    switch (type) {
+      case BSON.NUMBER:
+      case BSON.DATE:
+      case BSON.TIMESTAMP:
+      case BSON.NUMBER_LONG:
+        return 8;
+      case BSON.NUMBER_INT:
+        return 4;
+      case BSON.BOOLEAN:
+        return 1;
+      case BSON.OID:
+        return 12;
+      case BSON.STRING:
+      case BSON.CODE:
+      case BSON.SYMBOL:
+        return 4 + Bits.readInt(buffer, valueOffset);
+      case BSON.OBJECT:
+      case BSON.ARRAY:
+      case BSON.CODE_W_SCOPE:
+        return Bits.readInt(buffer, valueOffset);
+      case BSON.BINARY:
+        return 4 + Bits.readInt(buffer, valueOffset) + 1;
+      case BSON.REF:
+        return 4 + Bits.readInt(buffer, valueOffset) + 12;
+      case BSON.REGEX: {
+        int pos = valueOffset;
+        while (buffer[pos] != 0) pos++;
+        pos++;
+        while (buffer[pos] != 0) pos++;
+        return pos + 1 - valueOffset;
+      }
+      case 0x13:
+        return 16;
+      case BSON.NULL:
+      case BSON.UNDEFINED:
+      case BSON.MINKEY:
+      case BSON.MAXKEY:
+      default:
+        return 0;
+    }
+  }
+}
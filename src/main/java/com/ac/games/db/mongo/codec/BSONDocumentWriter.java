@@ -0,0 +1,194 @@
+package com.ac.games.db.mongo.codec;
+
+import java.util.Date;
+import java.util.List;
+
+import org.bson.BSON;
+import org.bson.io.OutputBuffer;
+import org.bson.types.ObjectId;
+
+/**
+ * Streaming BSON writer used by our {@link DocumentCodec} implementations.  Values are written
+ * straight into the {@link OutputBuffer} in the same element types the default driver encoder
+ * produces for our boxed values, so codec output is byte-for-byte identical to converter output.
+ * 
+ * @author ac010168
+ */
+public class BSONDocumentWriter {
+  
+  /** Number of array index names we keep precomputed. */
+  private static final int CACHED_INDEX_COUNT = 256;
+  /** Precomputed array index cstrings ("0", "1", ...). */
+  private static final byte[][] INDEX_NAMES = new byte[CACHED_INDEX_COUNT][];
+  static {
+    for (int i = 0; i < CACHED_INDEX_COUNT; i++)
+      INDEX_NAMES[i] = BSONFieldNames.encodeCString(Integer.toString(i));
+  }
+  
+  /** The buffer we are writing into. */
+  private final OutputBuffer buffer;
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param buffer The buffer we want to write into.
+   */
+  public BSONDocumentWriter(OutputBuffer buffer) {
+    this.buffer = buffer;
+  }
+  
+  /**
+   * @return the buffer
+   */
+  public OutputBuffer getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Opens a new top level document.
+   * 
+   * @return The start position, which must be handed back to {@link #endDocument(int)}.
+   */
+  public int startDocument() {
+    int start = buffer.getPosition();
+    buffer.writeInt(0);
+    return start;
+  }
+  
+  /**
+   * Opens an embedded document field.
+   * 
+   * @param name The encoded field name.
+   * @return The start position, which must be handed back to {@link #endDocument(int)}.
+   */
+  public int startDocument(byte[] name) {
+    writeElementHeader(BSON.OBJECT, name);
+    return startDocument();
+  }
+  
+  /**
+   * Opens an array field.
+   * 
+   * @param name The encoded field name.
+   * @return The start position, which must be handed back to {@link #endDocument(int)}.
+   */
+  public int startArray(byte[] name) {
+    writeElementHeader(BSON.ARRAY, name);
+    return startDocument();
+  }
+  
+  /**
+   * Closes a document or array, back-patching its size.
+   * 
+   * @param start The position returned when the document was opened.
+   */
+  public void endDocument(int start) {
+    buffer.write(BSON.EOO);
+    buffer.backpatchSize(buffer.getPosition() - start);
+  }
+  
+  public void writeObjectId(byte[] name, ObjectId value) {
+    writeElementHeader(BSON.OID, name);
+    buffer.write(value.toByteArray());
+  }
+
+  public void writeInt32(byte[] name, int value) {
+    writeElementHeader(BSON.NUMBER_INT, name);
+    buffer.writeInt(value);
+  }
+  
+  public void writeInt64(byte[] name, long value) {
+    writeElementHeader(BSON.NUMBER_LONG, name);
+    buffer.writeLong(value);
+  }
+  
+  public void writeDouble(byte[] name, double value) {
+    writeElementHeader(BSON.NUMBER, name);
+    buffer.writeDouble(value);
+  }
+  
+  public void writeBoolean(byte[] name, boolean value) {
+    writeElementHeader(BSON.BOOLEAN, name);
+    buffer.write(value ? 1 : 0);
+  }
+  
+  public void writeString(byte[] name, String value) {
+    writeElementHeader(BSON.STRING, name);
+    buffer.writeString(value);
+  }
+  
+  public void writeDate(byte[] name, Date value) {
+    writeElementHeader(BSON.DATE, name);
+    buffer.writeLong(value.getTime());
+  }
+  
+  /**
+   * Writes a list of Strings as a BSON array.
+   * 
+   * @param name The encoded field name.
+   * @param values The values (not null) to write.
+   */
+  public void writeStringArray(byte[] name, List<String> values) {
+    int start = startArray(name);
+    int index = 0;
+    for (String value : values) {
+      if (value == null) writeElementHeader(BSON.NULL, indexName(index));
+      else               writeString(indexName(index), value);
+      index++;
+    }
+    endDocument(start);
+  }
+  
+  /**
+   * Writes a list of Longs as a BSON array.
+   * 
+   * @param name The encoded field name.
+   * @param values The values (not null) to write.
+   */
+  public void writeInt64Array(byte[] name, List<Long> values) {
+    int start = startArray(name);
+    int index = 0;
+    for (Long value : values) {
+      if (value == null) writeElementHeader(BSON.NULL, indexName(index));
+      else               writeInt64(indexName(index), value);
+      index++;
+    }
+    endDocument(start);
+  }
+  
+  /**
+   * Writes an array of ints as a BSON array.
+   * 
+   * @param name The encoded field name.
+   * @param values The values (not null) to write.
+   * @param count The number of values to write.
+   */
+  public void writeInt32Array(byte[] name, int[] values, int count) {
+    int start = startArray(name);
+    for (int index = 0; index < count; index++)
+      writeInt32(indexName(index), values[index]);
+    endDocument(start);
+  }
+  
+  /**
+   * Helper method to write the type byte and the name of an element.
+   * 
+   * @param type The BSON type of this element.
+   * @param name The encoded field name.
+   */
+  private void writeElementHeader(byte type, byte[] name) {
+    buffer.write(type);
+    buffer.write(name);
+  }
+  
+  /**
+   * Helper method to look up the encoded name for an array index.
+   * 
+   * @param index The array position.
+   * @return The encoded cstring of this index.
+   */
+  private static byte[] indexName(int index) {
+    if (index < CACHED_INDEX_COUNT) return INDEX_NAMES[index];
+    return BSONFieldNames.encodeCString(Integer.toString(index));
+  }
+}
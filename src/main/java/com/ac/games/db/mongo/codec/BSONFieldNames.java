@@ -0,0 +1,95 @@
+package com.ac.games.db.mongo.codec;
+
+import java.nio.charset.Charset;
+
+/**
+ * Precomputed table of field names for a document type.  Each name is held both as a String
+ * and as its encoded BSON cstring, so writers never have to re-encode a name and readers can
+ * match an element name against the table without allocating a String.
+ * 
+ * @author ac010168
+ */
+public final class BSONFieldNames {
+  
+  /** Charset used for all BSON names and strings. */
+  static final Charset UTF8 = Charset.forName("UTF-8");
+  
+  /** The field names, in index order. */
+  private final String[] names;
+  /** The encoded cstring (including the trailing 0) for each field name. */
+  private final byte[][] encoded;
+  
+  /**
+   * Builds the table.  The position of each name becomes its index.
+   * 
+   * @param names The field names for this document type.
+   */
+  public BSONFieldNames(String... names) {
+    this.names   = names.clone();
+    this.encoded = new byte[names.length][];
+    for (int i = 0; i < names.length; i++)
+      encoded[i] = encodeCString(names[i]);
+  }
+
+  /**
+   * @return the number of names in this table
+   */
+  public int size() {
+    return names.length;
+  }
+  
+  /**
+   * @param index The field index.
+   * @return the field name at this index
+   */
+  public String name(int index) {
+    return names[index];
+  }
+  
+  /**
+   * @param index The field index.
+   * @return the encoded cstring for the field at this index
+   */
+  public byte[] encoded(int index) {
+    return encoded[index];
+  }
+  
+  /**
+   * Finds the index of the name stored in the buffer.
+   * 
+   * @param buffer The buffer holding the encoded name.
+   * @param offset The offset of the first byte of the name.
+   * @param length The length of the name, not counting the trailing 0.
+   * 
+   * @return The index of the matching name, or -1 if this table does not contain it
+   */
+  public int indexOf(byte[] buffer, int offset, int length) {
+    for (int i = 0; i < encoded.length; i++) {
+      byte[] candidate = encoded[i];
+      if (candidate.length - 1 != length) continue;
+      
+      boolean match = true;
+      for (int j = 0; j < length; j++) {
+        if (candidate[j] != buffer[offset + j]) {
+          match = false;
+          break;
+        }
+      }
+      if (match) return i;
+    }
+    return -1;
+  }
+  
+  /**
+   * Helper method to encode a name into a BSON cstring.
+   * 
+   * @param name The name to encode.
+   * @return The UTF-8 bytes of the name followed by a 0 byte.
+   */
+  static byte[] encodeCString(String name) {
+    byte[] raw    = name.getBytes(UTF8);
+    byte[] result = new byte[raw.length + 1];
+    System.arraycopy(raw, 0, result, 0, raw.length);
+    return result;
+  }
+}
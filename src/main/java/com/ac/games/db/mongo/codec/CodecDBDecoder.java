@@ -0,0 +1,51 @@
+package com.ac.games.db.mongo.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.bson.io.Bits;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBDecoder;
+import com.mongodb.DBDecoderFactory;
+import com.mongodb.DBObject;
+import com.mongodb.LazyDBDecoder;
+
+/**
+ * Decoder that leaves each result document as raw bytes wrapped in a {@link CodecDBObject}.  The
+ * converters detect these and hand them to the matching codec instead of walking a map.
+ * 
+ * @author ac010168
+ */
+public class CodecDBDecoder extends LazyDBDecoder {
+  
+  /** Factory to hand to a cursor or collection. */
+  public static final DBDecoderFactory FACTORY = new DBDecoderFactory() {
+    public DBDecoder create() {
+      return new CodecDBDecoder();
+    }
+  };
+  
+  /*
+   * (non-Javadoc)
+   * @see com.mongodb.LazyDBDecoder#decode(byte[], com.mongodb.DBCollection)
+   */
+  public DBObject decode(byte[] data, DBCollection collection) {
+    return new CodecDBObject(data, 0);
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.mongodb.LazyDBDecoder#decode(java.io.InputStream, com.mongodb.DBCollection)
+   */
+  public DBObject decode(InputStream in, DBCollection collection) throws IOException {
+    byte[] sizeBytes = new byte[4];
+    Bits.readFully(in, sizeBytes);
+    int size = Bits.readInt(sizeBytes);
+    
+    byte[] data = new byte[size];
+    System.arraycopy(sizeBytes, 0, data, 0, 4);
+    Bits.readFully(in, data, 4, size - 4);
+    return new CodecDBObject(data, 0);
+  }
+}
@@ -0,0 +1,66 @@
+package com.ac.games.db.mongo.codec;
+
+import org.bson.BSON;
+import org.bson.BSONObject;
+import org.bson.io.OutputBuffer;
+
+import com.mongodb.DBEncoder;
+import com.mongodb.DBEncoderFactory;
+import com.mongodb.DefaultDBEncoder;
+
+/**
+ * Encoder that copies {@link CodecDBObject} documents to the wire as-is, and hands every other
+ * document to the default driver encoder.  Codec documents nested inside another document, like the
+ * update of a findAndModify command, are copied as-is too.
+ * 
+ * @author ac010168
+ */
+public class CodecDBEncoder implements DBEncoder {
+  
+  /** Factory to hand to the driver. */
+  public static final DBEncoderFactory FACTORY = new DBEncoderFactory() {
+    public DBEncoder create() {
+      return new CodecDBEncoder();
+    }
+  };
+  
+  /** Encoder used for anything that was not produced by a codec. */
+  private final DBEncoder fallback = new NestedCodecEncoder();
+  
+  /*
+   * (non-Javadoc)
+   * @see com.mongodb.DBEncoder#writeObject(org.bson.io.OutputBuffer, org.bson.BSONObject)
+   */
+  public int writeObject(OutputBuffer buffer, BSONObject document) {
+    if (!(document instanceof CodecDBObject)) 
+      return fallback.writeObject(buffer, document);
+    
+    CodecDBObject codecObject = (CodecDBObject)document;
+    int size = codecObject.getBSONSize();
+    buffer.write(codecObject.getDocumentBytes(), codecObject.getDocumentOffset(), size);
+    return size;
+  }
+  
+  /**
+   * The default driver encoder, except that any {@link CodecDBObject} found as a field value is copied
+   * as-is instead of being walked field by field.
+   */
+  private static class NestedCodecEncoder extends DefaultDBEncoder {
+    
+    /*
+     * (non-Javadoc)
+     * @see org.bson.BasicBSONEncoder#putObject(java.lang.String, org.bson.BSONObject)
+     */
+    protected int putObject(String name, BSONObject document) {
+      if (name == null || !(document instanceof CodecDBObject))
+        return super.putObject(name, document);
+      
+      CodecDBObject codecObject = (CodecDBObject)document;
+      int start = getOutputBuffer().getPosition();
+      getOutputBuffer().write(BSON.OBJECT);
+      getOutputBuffer().writeCString(name);
+      getOutputBuffer().write(codecObject.getDocumentBytes(), codecObject.getDocumentOffset(), codecObject.getBSONSize());
+      return getOutputBuffer().getPosition() - start;
+    }
+  }
+}
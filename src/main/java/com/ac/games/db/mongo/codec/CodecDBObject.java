@@ -0,0 +1,38 @@
+package com.ac.games.db.mongo.codec;
+
+import com.mongodb.LazyDBCallback;
+import com.mongodb.LazyDBObject;
+
+/**
+ * A {@link LazyDBObject} that exposes its raw bytes, so that our codecs can decode query results
+ * and our encoder can pipe codec output to the wire without ever building a map.  Callers that
+ * do not know about codecs can still treat it as any other read-only DBObject.
+ * 
+ * @author ac010168
+ */
+public class CodecDBObject extends LazyDBObject {
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param data The buffer holding the document.
+   * @param offset The offset of the document within the buffer.
+   */
+  public CodecDBObject(byte[] data, int offset) {
+    super(data, offset, new LazyDBCallback(null));
+  }
+  
+  /**
+   * @return the buffer holding this document
+   */
+  public byte[] getDocumentBytes() {
+    return getBytes();
+  }
+  
+  /**
+   * @return the offset of this document within its buffer
+   */
+  public int getDocumentOffset() {
+    return getOffset();
+  }
+}
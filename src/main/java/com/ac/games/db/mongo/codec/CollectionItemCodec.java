@@ -0,0 +1,134 @@
+package com.ac.games.db.mongo.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ac.games.data.CollectionItem;
+import com.ac.games.data.GameWeight;
+import com.ac.games.data.GameWeightConverter;
+
+/**
+ * Codec for {@link CollectionItem} documents, including the embedded game, which is streamed
+ * through {@link GameCodec}.  Mirrors the field order and omission rules of
+ * {@link com.ac.games.db.mongo.CollectionItemConverter}.
+ * 
+ * @author ac010168
+ */
+public class CollectionItemCodec extends DocumentCodec<CollectionItem> {
+  
+  /** Shared instance, the codec holds no state. */
+  public static final CollectionItemCodec INSTANCE = new CollectionItemCodec();
+  
+  static final int ITEM_ID              = 0;
+  static final int GAME_ID              = 1;
+  static final int GAME                 = 2;
+  static final int WEIGHTS              = 3;
+  static final int DATE_ACQUIRED        = 4;
+  static final int WHERE_ACQUIRED       = 5;
+  static final int OVERRIDE_MIN_PLAYERS = 6;
+  static final int OVERRIDE_MAX_PLAYERS = 7;
+  static final int OVERRIDE_MIN_TIME    = 8;
+  static final int OVERRIDE_MAX_TIME    = 9;
+  
+  /** Field names, indexed by the constants above. */
+  static final BSONFieldNames FIELDS = new BSONFieldNames(
+      "itemID", "gameID", "game", "weights", "dateAcquired", "whereAcquired",
+      "overrideMinPlayers", "overrideMaxPlayers", "overrideMinTime", "overrideMaxTime");
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.mongo.codec.DocumentCodec#encodeFields(com.ac.games.db.mongo.codec.BSONDocumentWriter, java.lang.Object)
+   */
+  public void encodeFields(BSONDocumentWriter writer, CollectionItem item) {
+    writer.writeInt64(FIELDS.encoded(ITEM_ID), item.getItemID());
+    
+    if (item.getGameID() != -1)          writer.writeInt64(FIELDS.encoded(GAME_ID), item.getGameID());
+    if (item.getGame() != null)          GameCodec.INSTANCE.encodeEmbedded(writer, FIELDS.encoded(GAME), item.getGame());
+    if (item.getWeights() != null)       writeWeights(writer, item.getWeights());
+    if (item.getDateAcquired() != null)  writer.writeDate(FIELDS.encoded(DATE_ACQUIRED), item.getDateAcquired());
+    if (item.getWhereAcquired() != null) writer.writeString(FIELDS.encoded(WHERE_ACQUIRED), item.getWhereAcquired());
+    
+    if (item.getOverrideMinPlayers() != -1) writer.writeInt32(FIELDS.encoded(OVERRIDE_MIN_PLAYERS), item.getOverrideMinPlayers());
+    if (item.getOverrideMaxPlayers() != -1) writer.writeInt32(FIELDS.encoded(OVERRIDE_MAX_PLAYERS), item.getOverrideMaxPlayers());
+    if (item.getOverrideMinTime() != -1)    writer.writeInt32(FIELDS.encoded(OVERRIDE_MIN_TIME), item.getOverrideMinTime());
+    if (item.getOverrideMaxTime() != -1)    writer.writeInt32(FIELDS.encoded(OVERRIDE_MAX_TIME), item.getOverrideMaxTime());
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.mongo.codec.DocumentCodec#decode(com.ac.games.db.mongo.codec.BSONDocumentReader)
+   */
+  public CollectionItem decode(BSONDocumentReader reader) {
+    return decode(reader, false);
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.mongo.codec.DocumentCodec#decodeLazy(com.ac.games.db.mongo.codec.BSONDocumentReader)
+   */
+  public CollectionItem decodeLazy(BSONDocumentReader reader) {
+    return decode(reader, true);
+  }
+  
+  /**
+   * Helper method that does the actual decoding.  The item itself is small, so laziness only
+   * applies to the embedded game.
+   * 
+   * @param reader A reader over the document.
+   * @param lazy true to defer decoding of the large fields of the embedded game.
+   * @return The decoded item.
+   */
+  private CollectionItem decode(BSONDocumentReader reader, boolean lazy) {
+    CollectionItem item = new CollectionItem();
+    
+    while (reader.next()) {
+      if (reader.isNull()) continue;
+      
+      switch (reader.fieldIndex(FIELDS)) {
+        case ITEM_ID:              item.setItemID(reader.readLong());                                  break;
+        case GAME_ID:              item.setGameID(reader.readLong());                                  break;
+        case GAME:                 item.setGame(GameCodec.INSTANCE.decodeEmbedded(reader, lazy));     break;
+        case WEIGHTS:              item.setWeights(readWeights(reader));                               break;
+        case DATE_ACQUIRED:        item.setDateAcquired(reader.readDate());                            break;
+        case WHERE_ACQUIRED:       item.setWhereAcquired(reader.readString());                         break;
+        case OVERRIDE_MIN_PLAYERS: item.setOverrideMinPlayers(reader.readInt());                       break;
+        case OVERRIDE_MAX_PLAYERS: item.setOverrideMaxPlayers(reader.readInt());                       break;
+        case OVERRIDE_MIN_TIME:    item.setOverrideMinTime(reader.readInt());                          break;
+        case OVERRIDE_MAX_TIME:    item.setOverrideMaxTime(reader.readInt());                          break;
+        default:                   break;
+      }
+    }
+    
+    return item;
+  }
+  
+  /**
+   * Helper method to write the weights as an array of flags.
+   * 
+   * @param writer The writer to stream into.
+   * @param weights The weights (not null) to write.
+   */
+  private static void writeWeights(BSONDocumentWriter writer, List<GameWeight> weights) {
+    int[] flags = new int[weights.size()];
+    int   count = 0;
+    for (GameWeight weight : weights)
+      flags[count++] = GameWeightConverter.convertGameWeightToFlag(weight);
+    writer.writeInt32Array(FIELDS.encoded(WEIGHTS), flags, count);
+  }
+  
+  /**
+   * Helper method to read the weights back from an array of flags.
+   * 
+   * @param reader The reader positioned on the weights array.
+   * @return The weights, or null if the element was not an array.
+   */
+  private static List<GameWeight> readWeights(BSONDocumentReader reader) {
+    List<Integer> flags = reader.readIntList();
+    if (flags == null) return null;
+    
+    List<GameWeight> weights = new ArrayList<GameWeight>(flags.size());
+    for (Integer flag : flags)
+      weights.add(GameWeightConverter.convertFlagToGameWeight(flag));
+    return weights;
+  }
+}
@@ -0,0 +1,87 @@
+package com.ac.games.db.mongo.codec;
+
+/**
+ * Bookkeeping for lazily decoded objects.  Holds a reader over the raw document along with the
+ * element offset of every field whose decoding has been deferred.  A field is decoded at most
+ * once; after that, or after the field is set directly, its offset is forgotten.
+ * <p>
+ * Like the domain objects themselves, this is not thread safe.
+ * 
+ * @author ac010168
+ */
+public class DeferredFields {
+  
+  /** Marker for a field that is not deferred. */
+  private static final int NOT_DEFERRED = -1;
+  
+  /** Reader over the raw document. */
+  private final BSONDocumentReader reader;
+  /** Element offset of each deferred field, indexed by field index. */
+  private final int[] offsets;
+  /** The number of fields still waiting to be decoded. */
+  private int pendingCount;
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param reader Reader over the raw document.
+   * @param fieldCount The number of fields in the document's field table.
+   */
+  public DeferredFields(BSONDocumentReader reader, int fieldCount) {
+    this.reader  = reader;
+    this.offsets = new int[fieldCount];
+    for (int i = 0; i < fieldCount; i++)
+      offsets[i] = NOT_DEFERRED;
+    this.pendingCount = 0;
+  }
+  
+  /**
+   * Records the element the reader is currently positioned on as deferred.
+   * 
+   * @param field The field index of that element.
+   */
+  public void defer(int field) {
+    if (offsets[field] == NOT_DEFERRED) pendingCount++;
+    offsets[field] = reader.getElementOffset();
+  }
+  
+  /**
+   * Checks whether a field is still waiting to be decoded, and if so, positions the reader on it
+   * and forgets it.  The caller is expected to decode the field from {@link #getReader()} right away.
+   * 
+   * @param field The field index to check.
+   * @return true if the reader is now positioned on the field and it must be decoded.
+   */
+  public boolean take(int field) {
+    if (offsets[field] == NOT_DEFERRED) return false;
+    
+    int offset = offsets[field];
+    clear(field);
+    return reader.seek(offset);
+  }
+  
+  /**
+   * Forgets a deferred field without decoding it, used when the field is set directly.
+   * 
+   * @param field The field index to forget.
+   */
+  public void clear(int field) {
+    if (offsets[field] == NOT_DEFERRED) return;
+    offsets[field] = NOT_DEFERRED;
+    pendingCount--;
+  }
+  
+  /**
+   * @return the number of fields still waiting to be decoded
+   */
+  public int getPendingCount() {
+    return pendingCount;
+  }
+  
+  /**
+   * @return the reader over the raw document
+   */
+  public BSONDocumentReader getReader() {
+    return reader;
+  }
+}
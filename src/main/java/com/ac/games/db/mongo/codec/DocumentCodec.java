@@ -0,0 +1,143 @@
+package com.ac.games.db.mongo.codec;
+
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+
+/**
+ * Base class for our hand-written codecs.  A codec knows how to stream the fields of one domain
+ * object to a {@link BSONDocumentWriter} and how to rebuild that object from a
+ * {@link BSONDocumentReader}, with no intermediate map of boxed values in either direction.
+ * <p>
+ * Implementations must write fields in the same order and with the same omission rules as the
+ * matching converter, so that documents are byte-compatible no matter which path stored them.
+ * 
+ * @author ac010168
+ *
+ * @param <T> The domain object this codec handles.
+ */
+public abstract class DocumentCodec<T> {
+  
+  /** Name of the Mongo primary key field. */
+  private static final byte[] ID_NAME = BSONFieldNames.encodeCString("_id");
+  
+  /**
+   * Writes the fields of the value into the currently open document.  Does not open or close
+   * the document itself, so the same method serves top level and embedded documents.
+   * 
+   * @param writer The writer to stream into.
+   * @param value The value (not null) to encode.
+   */
+  public abstract void encodeFields(BSONDocumentWriter writer, T value);
+  
+  /**
+   * Rebuilds a value from the document the reader is positioned on.
+   * 
+   * @param reader A reader over the document.
+   * @return The decoded value.
+   */
+  public abstract T decode(BSONDocumentReader reader);
+  
+  /**
+   * Rebuilds a value from the document the reader is positioned on, leaving its large fields as
+   * raw bytes to be decoded on first access.  Codecs with nothing worth deferring just decode.
+   * 
+   * @param reader A reader over the document.
+   * @return The decoded value.
+   */
+  public T decodeLazy(BSONDocumentReader reader) {
+    return decode(reader);
+  }
+  
+  /**
+   * Writes the value as an embedded document field.
+   * 
+   * @param writer The writer to stream into.
+   * @param name The encoded field name.
+   * @param value The value (not null) to encode.
+   */
+  public void encodeEmbedded(BSONDocumentWriter writer, byte[] name, T value) {
+    int start = writer.startDocument(name);
+    encodeFields(writer, value);
+    writer.endDocument(start);
+  }
+  
+  /**
+   * Reads the embedded document the reader is positioned on.
+   * 
+   * @param reader A reader positioned on an embedded document field.
+   * @return The decoded value, or null if the field does not hold a document.
+   */
+  public T decodeEmbedded(BSONDocumentReader reader) {
+    return decodeEmbedded(reader, false);
+  }
+  
+  /**
+   * Reads the embedded document the reader is positioned on.
+   * 
+   * @param reader A reader positioned on an embedded document field.
+   * @param lazy true to defer decoding of the large fields.
+   * @return The decoded value, or null if the field does not hold a document.
+   */
+  public T decodeEmbedded(BSONDocumentReader reader, boolean lazy) {
+    BSONDocumentReader embedded = reader.readDocument();
+    if (embedded == null) return null;
+    return lazy ? decodeLazy(embedded) : decode(embedded);
+  }
+  
+  /**
+   * Encodes the value into a document with no _id, suitable as an update replacement document.
+   * 
+   * @param value The value to encode.
+   * @return The encoded document, or null if no value was provided.
+   */
+  public CodecDBObject toDBObject(T value) {
+    return toDBObject(value, null);
+  }
+  
+  /**
+   * Encodes the value into a document, writing the provided _id first the same way the default
+   * driver encoder does.  Inserts must provide an id, because the encoded document cannot be
+   * modified by the driver afterwards.
+   * 
+   * @param value The value to encode.
+   * @param id The _id to write, or null to leave it out.
+   * @return The encoded document, or null if no value was provided.
+   */
+  public CodecDBObject toDBObject(T value, ObjectId id) {
+    if (value == null) return null;
+    
+    BasicOutputBuffer  buffer = new BasicOutputBuffer();
+    BSONDocumentWriter writer = new BSONDocumentWriter(buffer);
+    
+    int start = writer.startDocument();
+    if (id != null) writer.writeObjectId(ID_NAME, id);
+    encodeFields(writer, value);
+    writer.endDocument(start);
+    
+    return new CodecDBObject(buffer.toByteArray(), 0);
+  }
+  
+  /**
+   * Decodes a value straight from the raw bytes of a {@link CodecDBObject}.
+   * 
+   * @param dbObject The raw document.
+   * @return The decoded value, or null if no document was provided.
+   */
+  public T fromDBObject(CodecDBObject dbObject) {
+    return fromDBObject(dbObject, false);
+  }
+  
+  /**
+   * Decodes a value straight from the raw bytes of a {@link CodecDBObject}.
+   * 
+   * @param dbObject The raw document.
+   * @param lazy true to defer decoding of the large fields until they are first read.
+   * @return The decoded value, or null if no document was provided.
+   */
+  public T fromDBObject(CodecDBObject dbObject, boolean lazy) {
+    if (dbObject == null) return null;
+    
+    BSONDocumentReader reader = new BSONDocumentReader(dbObject.getDocumentBytes(), dbObject.getDocumentOffset());
+    return lazy ? decodeLazy(reader) : decode(reader);
+  }
+}
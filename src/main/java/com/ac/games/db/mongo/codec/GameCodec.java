@@ -0,0 +1,147 @@
+package com.ac.games.db.mongo.codec;
+
+import com.ac.games.data.Game;
+import com.ac.games.data.GameTypeConverter;
+
+/**
+ * Codec for {@link Game} documents in the game collection, and for the game embedded in each
+ * collection item.  Mirrors the field order and omission rules of
+ * {@link com.ac.games.db.mongo.GameConverter}.
+ * 
+ * @author ac010168
+ */
+public class GameCodec extends DocumentCodec<Game> {
+  
+  /** Shared instance, the codec holds no state. */
+  public static final GameCodec INSTANCE = new GameCodec();
+  
+  static final int GAME_ID             = 0;
+  static final int BGG_ID              = 1;
+  static final int NAME                = 2;
+  static final int YEAR_PUBLISHED      = 3;
+  static final int MIN_PLAYERS         = 4;
+  static final int MAX_PLAYERS         = 5;
+  static final int MIN_PLAYING_TIME    = 6;
+  static final int MAX_PLAYING_TIME    = 7;
+  static final int IMAGE_URL           = 8;
+  static final int IMAGE_THUMBNAIL_URL = 9;
+  static final int DESCRIPTION         = 10;
+  static final int PRIMARY_PUBLISHER   = 11;
+  static final int PUBLISHERS          = 12;
+  static final int DESIGNERS           = 13;
+  static final int CATEGORIES          = 14;
+  static final int MECHANISMS          = 15;
+  static final int EXPANSION_IDS       = 16;
+  static final int PARENT_GAME_ID      = 17;
+  static final int GAME_TYPE           = 18;
+  static final int ADD_DATE            = 19;
+  
+  /** Field names, indexed by the constants above. */
+  static final BSONFieldNames FIELDS = new BSONFieldNames(
+      "gameID", "bggID", "name", "yearPublished", "minPlayers", "maxPlayers", "minPlayingTime",
+      "maxPlayingTime", "imageURL", "imageThumbnailURL", "description", "primaryPublisher", "publishers",
+      "designers", "categories", "mechanisms", "expansionIDs", "parentGameID", "gameType", "addDate");
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.mongo.codec.DocumentCodec#encodeFields(com.ac.games.db.mongo.codec.BSONDocumentWriter, java.lang.Object)
+   */
+  public void encodeFields(BSONDocumentWriter writer, Game game) {
+    writer.writeInt64(FIELDS.encoded(GAME_ID), game.getGameID());
+    
+    if (game.getBggID() != -1)               writer.writeInt64(FIELDS.encoded(BGG_ID), game.getBggID());
+    if (game.getName() != null)              writer.writeString(FIELDS.encoded(NAME), game.getName());
+    if (game.getYearPublished() != -1)       writer.writeInt32(FIELDS.encoded(YEAR_PUBLISHED), game.getYearPublished());
+    if (game.getMinPlayers() != -1)          writer.writeInt32(FIELDS.encoded(MIN_PLAYERS), game.getMinPlayers());
+    if (game.getMaxPlayers() != -1)          writer.writeInt32(FIELDS.encoded(MAX_PLAYERS), game.getMaxPlayers());
+    if (game.getMinPlayingTime() != -1)      writer.writeInt32(FIELDS.encoded(MIN_PLAYING_TIME), game.getMinPlayingTime());
+    if (game.getMaxPlayingTime() != -1)      writer.writeInt32(FIELDS.encoded(MAX_PLAYING_TIME), game.getMaxPlayingTime());
+    if (game.getImageURL() != null)          writer.writeString(FIELDS.encoded(IMAGE_URL), game.getImageURL());
+    if (game.getImageThumbnailURL() != null) writer.writeString(FIELDS.encoded(IMAGE_THUMBNAIL_URL), game.getImageThumbnailURL());
+    if (game.getDescription() != null)       writer.writeString(FIELDS.encoded(DESCRIPTION), game.getDescription());
+    if (game.getPrimaryPublisher() != null)  writer.writeString(FIELDS.encoded(PRIMARY_PUBLISHER), game.getPrimaryPublisher());
+    if (game.getPublishers() != null)        writer.writeStringArray(FIELDS.encoded(PUBLISHERS), game.getPublishers());
+    if (game.getDesigners() != null)         writer.writeStringArray(FIELDS.encoded(DESIGNERS), game.getDesigners());
+    if (game.getCategories() != null)        writer.writeStringArray(FIELDS.encoded(CATEGORIES), game.getCategories());
+    if (game.getMechanisms() != null)        writer.writeStringArray(FIELDS.encoded(MECHANISMS), game.getMechanisms());
+    if (game.getExpansionIDs() != null)      writer.writeInt64Array(FIELDS.encoded(EXPANSION_IDS), game.getExpansionIDs());
+    if (game.getParentGameID() != -1)        writer.writeInt64(FIELDS.encoded(PARENT_GAME_ID), game.getParentGameID());
+    if (game.getGameType() != null)          writer.writeInt32(FIELDS.encoded(GAME_TYPE), GameTypeConverter.convertGameTypeToFlag(game.getGameType()));
+    if (game.getAddDate() != null)           writer.writeDate(FIELDS.encoded(ADD_DATE), game.getAddDate());
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.mongo.codec.DocumentCodec#decode(com.ac.games.db.mongo.codec.BSONDocumentReader)
+   */
+  public Game decode(BSONDocumentReader reader) {
+    return decode(reader, null);
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.db.mongo.codec.DocumentCodec#decodeLazy(com.ac.games.db.mongo.codec.BSONDocumentReader)
+   */
+  public Game decodeLazy(BSONDocumentReader reader) {
+    return decode(reader, new DeferredFields(reader, FIELDS.size()));
+  }
+  
+  /**
+   * Helper method that does the actual decoding.  When deferred fields are provided, the large
+   * fields are only recorded and a {@link LazyGame} is returned.
+   * 
+   * @param reader A reader over the document.
+   * @param deferred The deferred field tracker, or null to decode everything now.
+   * @return The decoded game.
+   */
+  private Game decode(BSONDocumentReader reader, DeferredFields deferred) {
+    Game game = (deferred == null ? new Game() : new LazyGame(deferred));
+    
+    while (reader.next()) {
+      if (reader.isNull()) continue;
+      
+      int field = reader.fieldIndex(FIELDS);
+      if (deferred != null && isDeferred(field)) {
+        deferred.defer(field);
+        continue;
+      }
+      
+      switch (field) {
+        case GAME_ID:             game.setGameID(reader.readLong());                  break;
+        case BGG_ID:              game.setBggID(reader.readLong());                   break;
+        case NAME:                game.setName(reader.readString());                  break;
+        case YEAR_PUBLISHED:      game.setYearPublished(reader.readInt());            break;
+        case MIN_PLAYERS:         game.setMinPlayers(reader.readInt());               break;
+        case MAX_PLAYERS:         game.setMaxPlayers(reader.readInt());               break;
+        case MIN_PLAYING_TIME:    game.setMinPlayingTime(reader.readInt());           break;
+        case MAX_PLAYING_TIME:    game.setMaxPlayingTime(reader.readInt());           break;
+        case IMAGE_URL:           game.setImageURL(reader.readString());              break;
+        case IMAGE_THUMBNAIL_URL: game.setImageThumbnailURL(reader.readString());     break;
+        case DESCRIPTION:         game.setDescription(reader.readString());           break;
+        case PRIMARY_PUBLISHER:   game.setPrimaryPublisher(reader.readString());      break;
+        case PUBLISHERS:          game.setPublishers(reader.readStringList());        break;
+        case DESIGNERS:           game.setDesigners(reader.readStringList());         break;
+        case CATEGORIES:          game.setCategories(reader.readStringList());        break;
+        case MECHANISMS:          game.setMechanisms(reader.readStringList());        break;
+        case EXPANSION_IDS:       game.setExpansionIDs(reader.readLongList());        break;
+        case PARENT_GAME_ID:      game.setParentGameID(reader.readLong());            break;
+        case GAME_TYPE:           game.setGameType(GameTypeConverter.convertFlagToGameType(reader.readInt())); break;
+        case ADD_DATE:            game.setAddDate(reader.readDate());                 break;
+        default:                  break;
+      }
+    }
+    
+    return game;
+  }
+  
+  /**
+   * Helper method to identify the large fields that lazy decoding skips.
+   * 
+   * @param field The field index.
+   * @return true if this field is only decoded on first access.
+   */
+  private static boolean isDeferred(int field) {
+    return field == DESCRIPTION || field == PUBLISHERS || field == DESIGNERS
+        || field == CATEGORIES  || field == MECHANISMS;
+  }
+}
@@ -0,0 +1,138 @@
+package com.ac.games.db.mongo.codec;
+
+import java.util.List;
+
+import com.ac.games.data.BGGGame;
+
+/**
+ * A {@link BGGGame} that holds on to its raw document and only decodes the description and the
+ * publisher, designer, category and mechanism lists the first time they are read.  Every other
+ * field is decoded up front by {@link BGGGameCodec}, since those are cheap.
+ * <p>
+ * Setting a deferred field replaces it outright, and the raw value is never decoded.
+ * 
+ * @author ac010168
+ */
+public class LazyBGGGame extends BGGGame {
+  
+  /** The fields still waiting to be decoded. */
+  private DeferredFields deferred;
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param deferred The fields that will be decoded on first access.
+   */
+  LazyBGGGame(DeferredFields deferred) {
+    super();
+    this.deferred = deferred;
+  }
+  
+  /**
+   * Decodes every field that is still deferred and drops the raw document, for callers that are
+   * about to hold this object for a long time or hand it to another thread.
+   */
+  public void decodeAll() {
+    getDescription();
+    getPublishers();
+    getDesigners();
+    getCategories();
+    getMechanisms();
+    deferred = null;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.BGGGame#getDescription()
+   */
+  public String getDescription() {
+    if (deferred != null && deferred.take(BGGGameCodec.DESCRIPTION))
+      super.setDescription(deferred.getReader().readString());
+    return super.getDescription();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.BGGGame#setDescription(java.lang.String)
+   */
+  public void setDescription(String description) {
+    if (deferred != null) deferred.clear(BGGGameCodec.DESCRIPTION);
+    super.setDescription(description);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.BGGGame#getPublishers()
+   */
+  public List<String> getPublishers() {
+    if (deferred != null && deferred.take(BGGGameCodec.PUBLISHERS))
+      super.setPublishers(deferred.getReader().readStringList());
+    return super.getPublishers();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.BGGGame#setPublishers(java.util.List)
+   */
+  public void setPublishers(List<String> publishers) {
+    if (deferred != null) deferred.clear(BGGGameCodec.PUBLISHERS);
+    super.setPublishers(publishers);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.BGGGame#getDesigners()
+   */
+  public List<String> getDesigners() {
+    if (deferred != null && deferred.take(BGGGameCodec.DESIGNERS))
+      super.setDesigners(deferred.getReader().readStringList());
+    return super.getDesigners();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.BGGGame#setDesigners(java.util.List)
+   */
+  public void setDesigners(List<String> designers) {
+    if (deferred != null) deferred.clear(BGGGameCodec.DESIGNERS);
+    super.setDesigners(designers);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.BGGGame#getCategories()
+   */
+  public List<String> getCategories() {
+    if (deferred != null && deferred.take(BGGGameCodec.CATEGORIES))
+      super.setCategories(deferred.getReader().readStringList());
+    return super.getCategories();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.BGGGame#setCategories(java.util.List)
+   */
+  public void setCategories(List<String> categories) {
+    if (deferred != null) deferred.clear(BGGGameCodec.CATEGORIES);
+    super.setCategories(categories);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.BGGGame#getMechanisms()
+   */
+  public List<String> getMechanisms() {
+    if (deferred != null && deferred.take(BGGGameCodec.MECHANISMS))
+      super.setMechanisms(deferred.getReader().readStringList());
+    return super.getMechanisms();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.BGGGame#setMechanisms(java.util.List)
+   */
+  public void setMechanisms(List<String> mechanisms) {
+    if (deferred != null) deferred.clear(BGGGameCodec.MECHANISMS);
+    super.setMechanisms(mechanisms);
+  }
+}
@@ -0,0 +1,138 @@
+package com.ac.games.db.mongo.codec;
+
+import java.util.List;
+
+import com.ac.games.data.Game;
+
+/**
+ * A {@link Game} that holds on to its raw document and only decodes the description and the
+ * publisher, designer, category and mechanism lists the first time they are read.  Every other
+ * field is decoded up front by {@link GameCodec}, since those are cheap.
+ * <p>
+ * Setting a deferred field replaces it outright, and the raw value is never decoded.
+ * 
+ * @author ac010168
+ */
+public class LazyGame extends Game {
+  
+  /** The fields still waiting to be decoded. */
+  private DeferredFields deferred;
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param deferred The fields that will be decoded on first access.
+   */
+  LazyGame(DeferredFields deferred) {
+    super();
+    this.deferred = deferred;
+  }
+  
+  /**
+   * Decodes every field that is still deferred and drops the raw document, for callers that are
+   * about to hold this object for a long time or hand it to another thread.
+   */
+  public void decodeAll() {
+    getDescription();
+    getPublishers();
+    getDesigners();
+    getCategories();
+    getMechanisms();
+    deferred = null;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.Game#getDescription()
+   */
+  public String getDescription() {
+    if (deferred != null && deferred.take(GameCodec.DESCRIPTION))
+      super.setDescription(deferred.getReader().readString());
+    return super.getDescription();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.Game#setDescription(java.lang.String)
+   */
+  public void setDescription(String description) {
+    if (deferred != null) deferred.clear(GameCodec.DESCRIPTION);
+    super.setDescription(description);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.Game#getPublishers()
+   */
+  public List<String> getPublishers() {
+    if (deferred != null && deferred.take(GameCodec.PUBLISHERS))
+      super.setPublishers(deferred.getReader().readStringList());
+    return super.getPublishers();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.Game#setPublishers(java.util.List)
+   */
+  public void setPublishers(List<String> publishers) {
+    if (deferred != null) deferred.clear(GameCodec.PUBLISHERS);
+    super.setPublishers(publishers);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.Game#getDesigners()
+   */
+  public List<String> getDesigners() {
+    if (deferred != null && deferred.take(GameCodec.DESIGNERS))
+      super.setDesigners(deferred.getReader().readStringList());
+    return super.getDesigners();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.Game#setDesigners(java.util.List)
+   */
+  public void setDesigners(List<String> designers) {
+    if (deferred != null) deferred.clear(GameCodec.DESIGNERS);
+    super.setDesigners(designers);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.Game#getCategories()
+   */
+  public List<String> getCategories() {
+    if (deferred != null && deferred.take(GameCodec.CATEGORIES))
+      super.setCategories(deferred.getReader().readStringList());
+    return super.getCategories();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.Game#setCategories(java.util.List)
+   */
+  public void setCategories(List<String> categories) {
+    if (deferred != null) deferred.clear(GameCodec.CATEGORIES);
+    super.setCategories(categories);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.Game#getMechanisms()
+   */
+  public List<String> getMechanisms() {
+    if (deferred != null && deferred.take(GameCodec.MECHANISMS))
+      super.setMechanisms(deferred.getReader().readStringList());
+    return super.getMechanisms();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * @see com.ac.games.data.Game#setMechanisms(java.util.List)
+   */
+  public void setMechanisms(List<String> mechanisms) {
+    if (deferred != null) deferred.clear(GameCodec.MECHANISMS);
+    super.setMechanisms(mechanisms);
+  }
+}
@@ -0,0 +1,7 @@
+/**
+ * This package holds the hand-written BSON codecs used to stream our hottest domain objects
+ * directly to and from the wire, bypassing the intermediate {@link com.mongodb.BasicDBObject} maps.
+ * 
+ * @author ac010168
+ */
+package com.ac.games.db.mongo.codec;
@@ -0,0 +1,99 @@
+package com.ac.games.db.mongo.price;
+
+/**
+ * A wishlist entry to notify about a price drop: who to tell, which game, and its new best price.
+ * 
+ * @author ac010168
+ */
+public class PriceDropMatch {
+  
+  /** The user who wished for the game. */
+  private long userID;
+  /** The game whose price dropped. */
+  private long gameID;
+  /** The game's best in-stock price after the drop. */
+  private double price;
+  /** The retailer source of the best price, i.e. "csi" or "mm". */
+  private String source;
+  
+  /**
+   * Basic Constructor.
+   */
+  public PriceDropMatch() {
+    userID = -1;
+    gameID = -1;
+    price  = -1.0;
+    source = null;
+  }
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param userID The user who wished for the game.
+   * @param gameID The game whose price dropped.
+   * @param price The game's best in-stock price.
+   * @param source The retailer source of the best price.
+   */
+  public PriceDropMatch(long userID, long gameID, double price, String source) {
+    this.userID = userID;
+    this.gameID = gameID;
+    this.price  = price;
+    this.source = source;
+  }
+
+  /**
+   * @return the userID
+   */
+  public long getUserID() {
+    return userID;
+  }
+
+  /**
+   * @param userID the userID to set
+   */
+  public void setUserID(long userID) {
+    this.userID = userID;
+  }
+
+  /**
+   * @return the gameID
+   */
+  public long getGameID() {
+    return gameID;
+  }
+
+  /**
+   * @param gameID the gameID to set
+   */
+  public void setGameID(long gameID) {
+    this.gameID = gameID;
+  }
+
+  /**
+   * @return the price
+   */
+  public double getPrice() {
+    return price;
+  }
+
+  /**
+   * @param price the price to set
+   */
+  public void setPrice(double price) {
+    this.price = price;
+  }
+
+  /**
+   * @return the source
+   */
+  public String getSource() {
+    return source;
+  }
+
+  /**
+   * @param source the source to set
+   */
+  public void setSource(String source) {
+    this.source = source;
+  }
+}
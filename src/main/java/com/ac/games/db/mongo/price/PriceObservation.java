@@ -0,0 +1,84 @@
+package com.ac.games.db.mongo.price;
+
+import java.util.Date;
+
+import com.ac.games.data.GameAvailability;
+
+/**
+ * One scraped price for a retailer item, as stored in its price history.
+ * 
+ * @author ac010168
+ */
+public class PriceObservation {
+  
+  /** When the price was seen. */
+  private Date observationDate;
+  /** The price seen. */
+  private double price;
+  /** The availability seen alongside the price, if known. */
+  private GameAvailability availability;
+  
+  /**
+   * Basic Constructor.
+   */
+  public PriceObservation() {
+    observationDate = null;
+    price           = -1.0;
+    availability    = null;
+  }
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param observationDate When the price was seen.
+   * @param price The price seen.
+   * @param availability The availability seen alongside the price, if known.
+   */
+  public PriceObservation(Date observationDate, double price, GameAvailability availability) {
+    this.observationDate = observationDate;
+    this.price           = price;
+    this.availability    = availability;
+  }
+
+  /**
+   * @return the observationDate
+   */
+  public Date getObservationDate() {
+    return observationDate;
+  }
+
+  /**
+   * @param observationDate the observationDate to set
+   */
+  public void setObservationDate(Date observationDate) {
+    this.observationDate = observationDate;
+  }
+
+  /**
+   * @return the price
+   */
+  public double getPrice() {
+    return price;
+  }
+
+  /**
+   * @param price the price to set
+   */
+  public void setPrice(double price) {
+    this.price = price;
+  }
+
+  /**
+   * @return the availability
+   */
+  public GameAvailability getAvailability() {
+    return availability;
+  }
+
+  /**
+   * @param availability the availability to set
+   */
+  public void setAvailability(GameAvailability availability) {
+    this.availability = availability;
+  }
+}
@@ -0,0 +1,99 @@
+package com.ac.games.db.mongo.price;
+
+/**
+ * An in-stock offer for a game from one of the retailers we track.
+ * 
+ * @author ac010168
+ */
+public class PriceOffer {
+  
+  /** The game the offer is for. */
+  private long gameID;
+  /** The retailer source, i.e. "csi" or "mm". */
+  private String source;
+  /** The retailer's item ID (csiID or mmID). */
+  private long itemID;
+  /** The retailer's current price. */
+  private double price;
+  
+  /**
+   * Basic Constructor.
+   */
+  public PriceOffer() {
+    gameID = -1;
+    source = null;
+    itemID = -1;
+    price  = -1.0;
+  }
+  
+  /**
+   * Basic Constructor.
+   * 
+   * @param gameID The game the offer is for.
+   * @param source The retailer source.
+   * @param itemID The retailer's item ID.
+   * @param price The retailer's current price.
+   */
+  public PriceOffer(long gameID, String source, long itemID, double price) {
+    this.gameID = gameID;
+    this.source = source;
+    this.itemID = itemID;
+    this.price  = price;
+  }
+
+  /**
+   * @return the gameID
+   */
+  public long getGameID() {
+    return gameID;
+  }
+
+  /**
+   * @param gameID the gameID to set
+   */
+  public void setGameID(long gameID) {
+    this.gameID = gameID;
+  }
+
+  /**
+   * @return the source
+   */
+  public String getSource() {
+    return source;
+  }
+
+  /**
+   * @param source the source to set
+   */
+  public void setSource(String source) {
+    this.source = source;
+  }
+
+  /**
+   * @return the itemID
+   */
+  public long getItemID() {
+    return itemID;
+  }
+
+  /**
+   * @param itemID the itemID to set
+   */
+  public void setItemID(long itemID) {
+    this.itemID = itemID;
+  }
+
+  /**
+   * @return the price
+   */
+  public double getPrice() {
+    return price;
+  }
+
+  /**
+   * @param price the price to set
+   */
+  public void setPrice(double price) {
+    this.price = price;
+  }
+}
@@ -0,0 +1,82 @@
+package com.ac.games.db.mongo.price;
+
+/**
+ * The lowest, highest and average price seen for a retailer item over a span of time.
+ * 
+ * @author ac010168
+ */
+public class PriceRollup {
+  
+  /** The number of observations the rollup covers. */
+  private int observationCount;
+  /** The lowest price seen, or -1 if there were no observations. */
+  private double minPrice;
+  /** The highest price seen, or -1 if there were no observations. */
+  private double maxPrice;
+  /** The sum of every price seen, used to work out the average. */
+  private double sumPrice;
+  
+  /**
+   * Basic Constructor.
+   */
+  public PriceRollup() {
+    observationCount = 0;
+    minPrice         = -1.0;
+    maxPrice         = -1.0;
+    sumPrice         = 0.0;
+  }
+  
+  /**
+   * Folds a single price into the rollup.
+   * 
+   * @param price The price seen.
+   */
+  public void addPrice(double price) {
+    addSummary(1, price, price, price);
+  }
+  
+  /**
+   * Folds an already summarised group of prices into the rollup.
+   * 
+   * @param count The number of prices in the group.
+   * @param min The lowest price in the group.
+   * @param max The highest price in the group.
+   * @param sum The sum of the prices in the group.
+   */
+  public void addSummary(int count, double min, double max, double sum) {
+    if (count <= 0) return;
+    
+    if (observationCount == 0 || min < minPrice) minPrice = min;
+    if (observationCount == 0 || max > maxPrice) maxPrice = max;
+    observationCount += count;
+    sumPrice         += sum;
+  }
+
+  /**
+   * @return the observationCount
+   */
+  public int getObservationCount() {
+    return observationCount;
+  }
+
+  /**
+   * @return the minPrice
+   */
+  public double getMinPrice() {
+    return minPrice;
+  }
+
+  /**
+   * @return the maxPrice
+   */
+  public double getMaxPrice() {
+    return maxPrice;
+  }
+
+  /**
+   * @return the average price, or -1 if there were no observations
+   */
+  public double getAvgPrice() {
+    return (observationCount == 0 ? -1.0 : sumPrice / observationCount);
+  }
+}
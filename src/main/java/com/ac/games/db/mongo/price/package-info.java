@@ -0,0 +1,7 @@
+/**
+ * This package holds the small value objects returned by the price queries (price history, rollups,
+ * best offers and price drop matches) that have no counterpart in the shared data classes.
+ * 
+ * @author ac010168
+ */
+package com.ac.games.db.mongo.price;
@@ -0,0 +1,117 @@
+package com.ac.games.db.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import com.ac.games.data.GameAvailabilityConverter;
+import com.ac.games.db.mongo.BestPriceConverter;
+import com.ac.games.db.mongo.PriceHistoryConverter;
+import com.ac.games.db.mongo.price.PriceOffer;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Checks the batched queries {@link BestPriceConverter} builds for the best price lookups, and how the
+ * cheapest offer is picked for each game.  None of these tests need a database; looking up and storing
+ * real offers is covered by TestMongoGamesDatabase.
+ *
+ * @author ac010168
+ */
+public class TestBestPriceConverter extends TestCase {
+
+  /**
+   * Method to test that the lookups read every requested relationship in one $in, and only the in-stock,
+   * priced retailer items in another.
+   */
+  @Test
+  public void testOfferQueries() {
+    BasicDBObject reltnQuery = BestPriceConverter.convertGameIDsToReltnQuery(new long[] { 1234L, 2345L });
+    List<?> gameList = (List<?>)((DBObject)reltnQuery.get("gameID")).get("$in");
+    assertEquals("The wrong number of games are read", 2, gameList.size());
+    assertEquals("The wrong game is read", 2345L, gameList.get(1));
+
+    List<Long> itemIDs = new ArrayList<Long>();
+    itemIDs.add(203495L);
+    BasicDBObject offerQuery = BestPriceConverter.convertItemIDsToOfferQuery("csiID", itemIDs);
+    assertEquals("The wrong items are read", itemIDs, ((DBObject)offerQuery.get("csiID")).get("$in"));
+    assertEquals("Items out of stock are read", GameAvailabilityConverter.INSTOCK_FLAG, offerQuery.get("availability"));
+    assertEquals("Unpriced items are read", 0.0, ((DBObject)offerQuery.get("curPrice")).get("$gte"));
+
+    BasicDBObject projection = BestPriceConverter.convertOfferProjection("csiID");
+    assertEquals("The projection returns the _id", 0, projection.get("_id"));
+    assertEquals("The wrong number of fields are projected", 3, projection.keySet().size());
+    assertTrue("The item ID isn't projected", projection.containsField("csiID"));
+    assertTrue("The price isn't projected", projection.containsField("curPrice"));
+  }
+
+  /**
+   * Method to test that an item linked to several games is offered to each of them, and that each game
+   * keeps its cheapest offer across retailers, the first found winning a tie.
+   */
+  @Test
+  public void testBestOfferSelection() {
+    Map<Long, List<Long>> csiGames = new HashMap<Long, List<Long>>();
+    BestPriceConverter.mapItemsToGame(csiGames, toList(203495L, 203496L), 1234L);
+    BestPriceConverter.mapItemsToGame(csiGames, toList(203496L), 2345L);
+    BestPriceConverter.mapItemsToGame(csiGames, null, 3456L);
+    assertEquals("The wrong number of items are mapped", 2, csiGames.size());
+    assertEquals("A shared item isn't mapped to both games", 2, csiGames.get(203496L).size());
+
+    Map<Long, PriceOffer> offers = new HashMap<Long, PriceOffer>();
+    BestPriceConverter.keepBestOffers(offers, csiGames.get(203495L), PriceHistoryConverter.SOURCE_CSI, 203495L, 40.99);
+    BestPriceConverter.keepBestOffers(offers, csiGames.get(203496L), PriceHistoryConverter.SOURCE_CSI, 203496L, 30.00);
+    BestPriceConverter.keepBestOffers(offers, toList(1234L, 2345L), PriceHistoryConverter.SOURCE_MM, 40693L, 35.00);
+    BestPriceConverter.keepBestOffers(offers, toList(2345L), PriceHistoryConverter.SOURCE_MM, 40694L, 30.00);
+    BestPriceConverter.keepBestOffers(offers, null, PriceHistoryConverter.SOURCE_MM, 40695L, 1.00);
+
+    assertEquals("The wrong number of games have offers", 2, offers.size());
+    PriceOffer abyssOffer = offers.get(1234L);
+    assertEquals("The cheaper item wasn't kept", 203496L, abyssOffer.getItemID());
+    assertEquals("The offer has the wrong source", PriceHistoryConverter.SOURCE_CSI, abyssOffer.getSource());
+    assertEquals("The offer has the wrong game", 1234L, abyssOffer.getGameID());
+
+    PriceOffer cosmicOffer = offers.get(2345L);
+    assertEquals("A tie didn't keep the first offer", 203496L, cosmicOffer.getItemID());
+    assertTrue("The offer has the wrong price", cosmicOffer.getPrice() == 30.00);
+  }
+
+  /**
+   * Method to test that a stored best offer round trips through the relationship, and that a game without
+   * an offer has its stored one cleared.
+   */
+  @Test
+  public void testStoredBestPrice() {
+    PriceOffer offer = new PriceOffer(1234L, PriceHistoryConverter.SOURCE_MM, 40693L, 41.39);
+    BasicDBObject updateObject = BestPriceConverter.convertBestPriceToUpdate(offer);
+    DBObject priceObject = (DBObject)((DBObject)updateObject.get("$set")).get("bestPrice");
+    assertNotNull("The offer wasn't set", priceObject);
+
+    PriceOffer storedOffer = BestPriceConverter.convertMongoToBestPrice(new BasicDBObject("gameID", 1234L).append("bestPrice", priceObject));
+    assertEquals("The stored offer has the wrong game", 1234L, storedOffer.getGameID());
+    assertEquals("The stored offer has the wrong source", PriceHistoryConverter.SOURCE_MM, storedOffer.getSource());
+    assertEquals("The stored offer has the wrong item", 40693L, storedOffer.getItemID());
+    assertTrue("The stored offer has the wrong price", storedOffer.getPrice() == 41.39);
+
+    assertTrue("A missing offer wasn't cleared", ((DBObject)BestPriceConverter.convertBestPriceToUpdate(null).get("$unset")).containsField("bestPrice"));
+    assertNull("A relationship without an offer read one", BestPriceConverter.convertMongoToBestPrice(new BasicDBObject("gameID", 1234L)));
+    assertNull("A null relationship read an offer", BestPriceConverter.convertMongoToBestPrice(null));
+  }
+
+  /**
+   * Helper method that boxes a list of IDs.
+   *
+   * @return the list
+   */
+  private static List<Long> toList(long... ids) {
+    List<Long> list = new ArrayList<Long>(ids.length);
+    for (long id : ids)
+      list.add(id);
+    return list;
+  }
+}
@@ -0,0 +1,135 @@
+package com.ac.games.db.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import com.ac.games.data.CollectionItem;
+import com.ac.games.data.GameType;
+import com.ac.games.data.GameWeight;
+import com.ac.games.db.mongo.CollectionConverter;
+import com.ac.games.db.mongo.CollectionItemConverter;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Checks the queries and updates {@link CollectionConverter} and {@link CollectionItemConverter} build
+ * for the collection delta updates.  None of these tests need a database; the updates themselves are
+ * covered by TestMongoGamesDatabase.
+ *
+ * @author ac010168
+ */
+public class TestCollectionConverter extends TestCase {
+
+  /**
+   * Method to test the item query, the query guarding against adding an item twice, and the projection
+   * that returns a single item.
+   */
+  @Test
+  public void testItemQueries() {
+    BasicDBObject itemQuery = CollectionConverter.convertCollectionItemToQuery(2233L, 4455L);
+    assertEquals("The item query has the wrong collection", 2233L, itemQuery.get("collectionID"));
+    assertEquals("The item query has the wrong item", 4455L, itemQuery.get("games.itemID"));
+
+    BasicDBObject withoutQuery = CollectionConverter.convertCollectionWithoutItemToQuery(2233L, 4455L);
+    assertEquals("The add query has the wrong collection", 2233L, withoutQuery.get("collectionID"));
+    assertEquals("The add query doesn't exclude the item", 4455L, ((DBObject)withoutQuery.get("games.itemID")).get("$ne"));
+
+    BasicDBObject projection = CollectionConverter.convertCollectionItemToProjection(4455L);
+    assertEquals("The projection returns the _id", 0, projection.get("_id"));
+    DBObject elemMatch = (DBObject)((DBObject)projection.get("games")).get("$elemMatch");
+    assertEquals("The projection matches the wrong item", 4455L, elemMatch.get("itemID"));
+  }
+
+  /**
+   * Method to test that adding an item pushes it and counts its game type, that a referenced item is pushed
+   * without its game, and that an item of unknown type changes no count.
+   */
+  @Test
+  public void testAddItemUpdate() {
+    CollectionItem item = createItem();
+
+    BasicDBObject updateObject = CollectionConverter.convertAddItemToUpdate(item, false, GameType.EXPANSION);
+    DBObject pushed = (DBObject)((DBObject)updateObject.get("$push")).get("games");
+    assertEquals("The wrong item was pushed", 4455L, pushed.get("itemID"));
+    assertEquals("The pushed item lost its gameID", 1234L, pushed.get("gameID"));
+    assertFalse("A referenced item was pushed with its game", pushed.containsField("game"));
+    assertEquals("The expansion count wasn't incremented", 1, ((DBObject)updateObject.get("$inc")).get("expansionGameCount"));
+
+    BasicDBObject untypedObject = CollectionConverter.convertAddItemToUpdate(item, false, null);
+    assertNotNull("An untyped item wasn't pushed", untypedObject.get("$push"));
+    assertNull("An untyped item changed a count", untypedObject.get("$inc"));
+
+    BasicDBObject bothObject = CollectionConverter.convertAddItemToUpdate(item, false, GameType.BASE_AND_COLLECTIBLE);
+    assertNull("A type without a count changed a count", bothObject.get("$inc"));
+  }
+
+  /**
+   * Method to test that removing an item pulls it by ID and takes it off the count for its game type.
+   */
+  @Test
+  public void testRemoveItemUpdate() {
+    BasicDBObject updateObject = CollectionConverter.convertRemoveItemToUpdate(4455L, GameType.BASE);
+    DBObject pulled = (DBObject)((DBObject)updateObject.get("$pull")).get("games");
+    assertEquals("The wrong item was pulled", 4455L, pulled.get("itemID"));
+    assertEquals("The base count wasn't decremented", -1, ((DBObject)updateObject.get("$inc")).get("baseGameCount"));
+
+    assertNull("An untyped item changed a count", CollectionConverter.convertRemoveItemToUpdate(4455L, null).get("$inc"));
+    assertEquals("The wrong collectible count field", "collectibleGameCount", CollectionConverter.convertGameTypeToCountField(GameType.COLLECTIBLE));
+  }
+
+  /**
+   * Method to test that the positional update sets every item field that has a value and unsets every one
+   * that doesn't, all through "games.$", and never touches the game.
+   */
+  @Test
+  public void testPositionalUpdate() {
+    CollectionItem item = createItem();
+
+    BasicDBObject updateObject = CollectionItemConverter.convertCollectionItemToPositionalUpdate(item);
+    DBObject setObject   = (DBObject)updateObject.get("$set");
+    DBObject unsetObject = (DBObject)updateObject.get("$unset");
+    assertNotNull("Nothing was set", setObject);
+    assertNotNull("Nothing was unset", unsetObject);
+
+    assertEquals("The wrong number of fields were set", 3, setObject.keySet().size());
+    assertEquals("The whereAcquired wasn't set", "Amazon", setObject.get("games.$.whereAcquired"));
+    assertEquals("The overrideMinPlayers wasn't set", 2, setObject.get("games.$.overrideMinPlayers"));
+    assertTrue("The weights weren't set", setObject.containsField("games.$.weights"));
+
+    assertEquals("The wrong number of fields were unset", 4, unsetObject.keySet().size());
+    assertTrue("The dateAcquired wasn't unset", unsetObject.containsField("games.$.dateAcquired"));
+    assertTrue("The overrideMaxPlayers wasn't unset", unsetObject.containsField("games.$.overrideMaxPlayers"));
+    assertTrue("The overrideMinTime wasn't unset", unsetObject.containsField("games.$.overrideMinTime"));
+    assertTrue("The overrideMaxTime wasn't unset", unsetObject.containsField("games.$.overrideMaxTime"));
+
+    for (String fieldName : setObject.keySet())
+      assertFalse("The game was written", fieldName.startsWith("games.$.game"));
+    assertNull("A null item built an update", CollectionItemConverter.convertCollectionItemToPositionalUpdate(null));
+  }
+
+  /**
+   * Helper method that builds an item referencing its game, with some fields set and the rest empty.
+   *
+   * @return the item
+   */
+  private static CollectionItem createItem() {
+    CollectionItem item = new CollectionItem();
+    item.setItemID(4455L);
+    item.setGameID(1234L);
+    item.setGame(null);
+    List<GameWeight> weights = new ArrayList<GameWeight>(1);
+    weights.add(GameWeight.MEDIUM);
+    item.setWeights(weights);
+    item.setDateAcquired(null);
+    item.setWhereAcquired("Amazon");
+    item.setOverrideMinPlayers(2);
+    item.setOverrideMaxPlayers(-1);
+    item.setOverrideMinTime(-1);
+    item.setOverrideMaxTime(-1);
+    return item;
+  }
+}
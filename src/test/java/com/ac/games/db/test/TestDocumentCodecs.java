@@ -0,0 +1,191 @@
+package com.ac.games.db.test;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.bson.BSONObject;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import com.ac.games.data.BGGGame;
+import com.ac.games.data.CollectionItem;
+import com.ac.games.data.Game;
+import com.ac.games.db.mock.MockDataFactory;
+import com.ac.games.db.mongo.BGGGameConverter;
+import com.ac.games.db.mongo.CollectionItemConverter;
+import com.ac.games.db.mongo.GameConverter;
+import com.ac.games.db.mongo.codec.BGGGameCodec;
+import com.ac.games.db.mongo.codec.CodecDBEncoder;
+import com.ac.games.db.mongo.codec.CodecDBObject;
+import com.ac.games.db.mongo.codec.CollectionItemCodec;
+import com.ac.games.db.mongo.codec.GameCodec;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DefaultDBEncoder;
+
+/**
+ * Checks that the hand-written codecs write exactly the bytes the default driver encoder writes for our
+ * converter documents, and that what they write reads back into the same bytes again.  None of these
+ * tests need a database.
+ *
+ * @author ac010168
+ */
+public class TestDocumentCodecs extends TestCase {
+
+  /**
+   * Method to test that BGG games encode the same way through the codec and the converter, with and
+   * without an _id, and survive a decode and re-encode, both eager and lazy.
+   */
+  @Test
+  public void testBGGGameCodec() {
+    long[] bggIDs = { MockDataFactory.BGG_ABYSS_ID, MockDataFactory.BGG_COSMIC_ENCOUNTER_ID, MockDataFactory.BGG_COSMIC_INCURSION_ID };
+    for (long bggID : bggIDs) {
+      BGGGame game = MockDataFactory.createBGGGame(bggID);
+      ObjectId docID = new ObjectId();
+
+      byte[] converterBytes = encodeDefault(BGGGameConverter.convertGameToMongo(game), null);
+      assertBytesEqual("BGG game " + bggID, converterBytes, encodeCodec(BGGGameCodec.INSTANCE.toDBObject(game)));
+      assertBytesEqual("BGG game " + bggID + " with _id", encodeDefault(BGGGameConverter.convertGameToMongo(game), docID),
+                       encodeCodec(BGGGameCodec.INSTANCE.toDBObject(game, docID)));
+
+      BGGGame eager = BGGGameCodec.INSTANCE.fromDBObject(new CodecDBObject(converterBytes, 0), false);
+      assertBytesEqual("BGG game " + bggID + " eager round trip", converterBytes, encodeCodec(BGGGameCodec.INSTANCE.toDBObject(eager)));
+      BGGGame lazy = BGGGameCodec.INSTANCE.fromDBObject(new CodecDBObject(converterBytes, 0), true);
+      assertBytesEqual("BGG game " + bggID + " lazy round trip", converterBytes, encodeCodec(BGGGameCodec.INSTANCE.toDBObject(lazy)));
+    }
+  }
+
+  /**
+   * Method to test that games encode the same way through the codec and the converter, with and without
+   * an _id, and survive a decode and re-encode, both eager and lazy.
+   */
+  @Test
+  public void testGameCodec() {
+    long[] gameIDs = { MockDataFactory.ABYSS_ID, MockDataFactory.COSMIC_ENCOUNTER_ID, MockDataFactory.COSMIC_INCURSION_ID };
+    for (long gameID : gameIDs) {
+      Game game = MockDataFactory.createGameData(gameID);
+      ObjectId docID = new ObjectId();
+
+      byte[] converterBytes = encodeDefault(GameConverter.convertGameToMongo(game), null);
+      assertBytesEqual("Game " + gameID, converterBytes, encodeCodec(GameCodec.INSTANCE.toDBObject(game)));
+      assertBytesEqual("Game " + gameID + " with _id", encodeDefault(GameConverter.convertGameToMongo(game), docID),
+                       encodeCodec(GameCodec.INSTANCE.toDBObject(game, docID)));
+
+      Game eager = GameCodec.INSTANCE.fromDBObject(new CodecDBObject(converterBytes, 0), false);
+      assertBytesEqual("Game " + gameID + " eager round trip", converterBytes, encodeCodec(GameCodec.INSTANCE.toDBObject(eager)));
+      Game lazy = GameCodec.INSTANCE.fromDBObject(new CodecDBObject(converterBytes, 0), true);
+      assertBytesEqual("Game " + gameID + " lazy round trip", converterBytes, encodeCodec(GameCodec.INSTANCE.toDBObject(lazy)));
+    }
+  }
+
+  /**
+   * Method to test that collection items, with their embedded games, encode the same way through the
+   * codec and the converter, and survive a decode and re-encode, both eager and lazy.
+   */
+  @Test
+  public void testCollectionItemCodec() {
+    long[] itemIDs = { MockDataFactory.COLLECTION_ITEM_ONE_ID, MockDataFactory.COLLECTION_ITEM_TWO_ID, MockDataFactory.COLLECTION_ITEM_THREE_ID };
+    for (long itemID : itemIDs) {
+      CollectionItem item = MockDataFactory.createCollectionItemData(itemID);
+
+      byte[] converterBytes = encodeDefault(CollectionItemConverter.convertCollectionItemToMongo(item), null);
+      assertBytesEqual("Item " + itemID, converterBytes, encodeCodec(CollectionItemCodec.INSTANCE.toDBObject(item)));
+
+      CollectionItem eager = CollectionItemCodec.INSTANCE.fromDBObject(new CodecDBObject(converterBytes, 0), false);
+      assertBytesEqual("Item " + itemID + " eager round trip", converterBytes, encodeCodec(CollectionItemCodec.INSTANCE.toDBObject(eager)));
+      CollectionItem lazy = CollectionItemCodec.INSTANCE.fromDBObject(new CodecDBObject(converterBytes, 0), true);
+      assertBytesEqual("Item " + itemID + " lazy round trip", converterBytes, encodeCodec(CollectionItemCodec.INSTANCE.toDBObject(lazy)));
+    }
+  }
+
+  /**
+   * Method to test that the sizes written for nested documents and arrays are right, by decoding a game
+   * whose lists are empty and missing.
+   */
+  @Test
+  public void testEmptyAndMissingLists() {
+    Game game = MockDataFactory.createGameData(MockDataFactory.COSMIC_ENCOUNTER_ID);
+    game.getPublishers().clear();
+    game.setDesigners(null);
+
+    byte[] converterBytes = encodeDefault(GameConverter.convertGameToMongo(game), null);
+    assertBytesEqual("Game with empty lists", converterBytes, encodeCodec(GameCodec.INSTANCE.toDBObject(game)));
+
+    Game decoded = GameCodec.INSTANCE.fromDBObject(new CodecDBObject(converterBytes, 0));
+    assertNotNull("The empty list was not read back", decoded.getPublishers());
+    assertEquals("The empty list was not read back empty", 0, decoded.getPublishers().size());
+    assertNull("The missing list was read back", decoded.getDesigners());
+    assertEquals("The names are not equal", game.getName(), decoded.getName());
+  }
+
+  /**
+   * Method to test that a codec document nested inside a command, as the update of a findAndModify is,
+   * is written the same as the converter document would be.
+   */
+  @Test
+  public void testNestedCodecDocument() {
+    BGGGame game = MockDataFactory.createBGGGame(MockDataFactory.BGG_ABYSS_ID);
+
+    BasicDBObject converterCommand = new BasicDBObject("findandmodify", "bgggame");
+    converterCommand.append("query", BGGGameConverter.convertGameToIDQuery(game));
+    converterCommand.append("update", BGGGameConverter.convertGameToMongo(game));
+    converterCommand.append("upsert", true);
+
+    BasicDBObject codecCommand = new BasicDBObject("findandmodify", "bgggame");
+    codecCommand.append("query", BGGGameConverter.convertGameToIDQuery(game));
+    codecCommand.append("update", BGGGameCodec.INSTANCE.toDBObject(game));
+    codecCommand.append("upsert", true);
+
+    BasicOutputBuffer buffer = new BasicOutputBuffer();
+    CodecDBEncoder.FACTORY.create().writeObject(buffer, codecCommand);
+    assertBytesEqual("Nested BGG game", encodeDefault(converterCommand, null), buffer.toByteArray());
+  }
+
+  /**
+   * Helper method that encodes a converter document the way the driver would.
+   *
+   * @param document The document.
+   * @param docID The _id to put first, or null to leave it off.
+   * @return the encoded bytes
+   */
+  private static byte[] encodeDefault(BasicDBObject document, ObjectId docID) {
+    BSONObject toEncode = document;
+    if (docID != null) {
+      BasicDBObject withID = new BasicDBObject("_id", docID);
+      withID.putAll((BSONObject)document);
+      toEncode = withID;
+    }
+    BasicOutputBuffer buffer = new BasicOutputBuffer();
+    DefaultDBEncoder.FACTORY.create().writeObject(buffer, toEncode);
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Helper method that encodes a codec document through our encoder, the way the driver would.
+   *
+   * @param document The document.
+   * @return the encoded bytes
+   */
+  private static byte[] encodeCodec(CodecDBObject document) {
+    BasicOutputBuffer buffer = new BasicOutputBuffer();
+    CodecDBEncoder.FACTORY.create().writeObject(buffer, document);
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Helper method that fails with the first differing offset if two encodings don't match.
+   *
+   * @param label What was encoded.
+   * @param expected The converter bytes.
+   * @param actual The codec bytes.
+   */
+  private static void assertBytesEqual(String label, byte[] expected, byte[] actual) {
+    if (Arrays.equals(expected, actual)) return;
+
+    int offset = 0;
+    while (offset < expected.length && offset < actual.length && expected[offset] == actual[offset])
+      offset++;
+    fail(label + " encodes differently from byte " + offset + " (" + expected.length + " bytes expected, " + actual.length + " written)");
+  }
+}
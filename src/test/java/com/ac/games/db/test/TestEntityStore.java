@@ -0,0 +1,146 @@
+package com.ac.games.db.test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import com.ac.games.data.MediaItem;
+import com.ac.games.data.PlaythruItem;
+import com.ac.games.data.User;
+import com.ac.games.db.exception.ConfigurationException;
+import com.ac.games.db.mock.MockDataFactory;
+import com.ac.games.db.mongo.CursorTracker;
+import com.ac.games.db.mongo.EntityMapping;
+import com.ac.games.db.mongo.EntityMappings;
+import com.ac.games.db.mongo.EntityStore;
+import com.mongodb.DBObject;
+
+/**
+ * Checks the {@link EntityMappings} every {@link EntityStore} is driven by, and the parts of the store
+ * that never reach the server.  None of these tests need a database; the stores' reads and writes are
+ * covered through MongoGamesDatabase by TestMongoGamesDatabase.
+ *
+ * @author ac010168
+ */
+public class TestEntityStore extends TestCase {
+
+  /**
+   * Method to test that every mapping encodes an entity with its ID, puts the _id only where asked, and
+   * decodes the document back into the same entity.
+   */
+  @Test
+  public void testMappingRoundTrips() {
+    assertRoundTrip(EntityMappings.BGG_GAME, MockDataFactory.createBGGGame(MockDataFactory.BGG_ABYSS_ID));
+    assertRoundTrip(EntityMappings.CSI_DATA, MockDataFactory.createCSIData(MockDataFactory.CSI_ABYSS_ID));
+    assertRoundTrip(EntityMappings.MM_DATA, MockDataFactory.createMMData(MockDataFactory.MM_ABYSS_ID));
+    assertRoundTrip(EntityMappings.GAME, MockDataFactory.createGameData(MockDataFactory.ABYSS_ID));
+    assertRoundTrip(EntityMappings.GAME_RELTN, MockDataFactory.createGameReltnData(MockDataFactory.ABYSS_RELTN_ID));
+    assertRoundTrip(EntityMappings.USER, MockDataFactory.createUserData(MockDataFactory.USER_ONE_ID));
+    assertRoundTrip(EntityMappings.USER_DETAIL, MockDataFactory.createUserDetailData(MockDataFactory.USER_ONE_ID));
+    assertRoundTrip(new EntityMappings.CollectionMapping(), MockDataFactory.createCollectionData(MockDataFactory.COLLECTION_ONE_ID));
+    assertRoundTrip(EntityMappings.COLLECTION_ITEM, MockDataFactory.createCollectionItemData(MockDataFactory.COLLECTION_ITEM_ONE_ID));
+
+    MediaItem mediaItem = new MediaItem();
+    mediaItem.setMediaID(900101);
+    mediaItem.setUserID(MockDataFactory.USER_ONE_ID);
+    mediaItem.setGameID(MockDataFactory.ABYSS_ID);
+    mediaItem.setMediaLink("http://example.com/media/900101");
+    mediaItem.setAddedDate(new Date(1445251978000L));
+    assertRoundTrip(EntityMappings.MEDIA_ITEM, mediaItem);
+
+    PlaythruItem playthruItem = new PlaythruItem();
+    playthruItem.setPlaythruID(900201);
+    playthruItem.setUserID(MockDataFactory.USER_ONE_ID);
+    playthruItem.setGameID(MockDataFactory.ABYSS_ID);
+    playthruItem.setDatePlayed(new Date(1445251978000L));
+    assertRoundTrip(EntityMappings.PLAYTHRU_ITEM, playthruItem);
+  }
+
+  /**
+   * Method to test that a store refuses to run without a connection, for reads and bulk writes alike, and
+   * that a new store reports nothing done.
+   */
+  @Test
+  public void testStoreWithoutConnection() {
+    EntityStore<User> store = new EntityStore<User>(EntityMappings.USER, new CursorTracker());
+    assertEquals("A new store reported work done", "user: 0 reads (0 documents, 0us avg), 0 writes, 0 deletes (0us avg)", store.describe());
+
+    try {
+      store.read(null, MockDataFactory.USER_ONE_ID);
+      fail("A read ran without a connection");
+    } catch (ConfigurationException ce) {
+      /** Expected */
+    } catch (Throwable t) {
+      fail("A read without a connection failed the wrong way: " + t);
+    }
+
+    try {
+      store.upsertAll(null, Collections.singletonList(MockDataFactory.createUserData(MockDataFactory.USER_ONE_ID)));
+      fail("A bulk write ran without a connection");
+    } catch (ConfigurationException ce) {
+      /** Expected */
+    } catch (Throwable t) {
+      fail("A bulk write without a connection failed the wrong way: " + t);
+    }
+
+    assertEquals("A refused call was counted", 0, store.getReadCount() + store.getWriteCount());
+  }
+
+  /**
+   * Method to test that a multi-get's IDs are split into full chunks plus a remainder, in order, with
+   * nothing lost or repeated.
+   */
+  @Test
+  public void testSplitIntoChunks() {
+    long[] ids = new long[2501];
+    for (int i = 0; i < ids.length; i++)
+      ids[i] = 10000 + i;
+
+    int[][] cases = { { 1000, 3, 501 }, { 2501, 1, 2501 }, { 2500, 2, 1 }, { 5000, 1, 2501 }, { 1, 2501, 1 } };
+    for (int[] test : cases) {
+      int chunkSize = test[0];
+      List<Long[]> chunks = EntityStore.splitIntoChunks(ids, chunkSize);
+      assertEquals("Chunk size " + chunkSize + " gave the wrong number of chunks", test[1], chunks.size());
+      assertEquals("Chunk size " + chunkSize + " gave the wrong last chunk", test[2], chunks.get(chunks.size() - 1).length);
+
+      int next = 0;
+      for (int c = 0; c < chunks.size(); c++) {
+        Long[] chunk = chunks.get(c);
+        if (c < chunks.size() - 1)
+          assertEquals("Chunk size " + chunkSize + " gave a short chunk " + c, chunkSize, chunk.length);
+        for (Long id : chunk)
+          assertEquals("Chunk size " + chunkSize + " lost the order", ids[next++], id.longValue());
+      }
+      assertEquals("Chunk size " + chunkSize + " lost IDs", ids.length, next);
+    }
+
+    assertTrue("An empty batch gave chunks", EntityStore.splitIntoChunks(new long[0], 1000).isEmpty());
+  }
+
+  /**
+   * Helper method that checks one mapping against one entity.
+   *
+   * @param mapping The mapping.
+   * @param entity The entity.
+   */
+  private static <T> void assertRoundTrip(EntityMapping<T> mapping, T entity) {
+    String label = mapping.getCollectionName();
+    long id      = mapping.getID(entity);
+    ObjectId docID = new ObjectId();
+
+    DBObject withID = mapping.encode(entity, docID);
+    assertEquals(label + " lost the _id", docID, withID.get("_id"));
+    assertEquals(label + " lost the ID", id, ((Number)withID.get(mapping.getIDField())).longValue());
+    assertFalse(label + " wrote an _id it wasn't given", mapping.encode(entity, null).containsField("_id"));
+
+    T decoded = mapping.decode(withID, false);
+    assertNotNull(label + " didn't decode", decoded);
+    assertEquals(label + " decoded the wrong ID", id, mapping.getID(decoded));
+    assertEquals(label + " decoded differently", mapping.describe(entity), mapping.describe(decoded));
+  }
+}
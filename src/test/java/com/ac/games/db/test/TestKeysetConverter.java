@@ -0,0 +1,94 @@
+package com.ac.games.db.test;
+
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import com.ac.games.db.mongo.KeysetConverter;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Checks the continuation tokens and page queries written by {@link KeysetConverter}.  None of these
+ * tests need a database; paging through real records is covered by TestMongoGamesDatabase.
+ *
+ * @author ac010168
+ */
+public class TestKeysetConverter extends TestCase {
+
+  /**
+   * Method to test that a token written for a dated record reads back as a query for the records after
+   * it: older dates, the same date with a lower ID, and every undated record.
+   */
+  @Test
+  public void testTokenRoundTrip() {
+    Date lastDate = new Date(1445251978123L);
+    long lastID   = 1234567L;
+    BasicDBObject lastObject = new BasicDBObject("mediaID", lastID).append("addedDate", lastDate);
+
+    String token = KeysetConverter.convertRecordToToken(lastObject, "addedDate", "mediaID");
+    assertNotNull("No token was written", token);
+
+    BasicDBObject filterObject = new BasicDBObject("userID", 42L);
+    BasicDBObject queryObject  = KeysetConverter.convertTokenToPageQuery(filterObject, "addedDate", "mediaID", token);
+    assertEquals("The filter was lost", 42L, queryObject.get("userID"));
+    assertNull("The filter was changed in place", filterObject.get("$or"));
+
+    List<?> afterList = (List<?>)queryObject.get("$or");
+    assertNotNull("There is no $or for a dated token", afterList);
+    assertEquals("The $or has the wrong number of branches", 3, afterList.size());
+
+    DBObject olderBranch = (DBObject)afterList.get(0);
+    assertEquals("The older branch has the wrong date", lastDate, ((DBObject)olderBranch.get("addedDate")).get("$lt"));
+
+    DBObject tieBranch = (DBObject)afterList.get(1);
+    assertEquals("The tie branch has the wrong date", lastDate, tieBranch.get("addedDate"));
+    assertEquals("The tie branch has the wrong ID", lastID, ((DBObject)tieBranch.get("mediaID")).get("$lt"));
+
+    DBObject undatedBranch = (DBObject)afterList.get(2);
+    assertTrue("The undated branch doesn't match missing dates", undatedBranch.containsField("addedDate"));
+    assertNull("The undated branch doesn't match missing dates", undatedBranch.get("addedDate"));
+  }
+
+  /**
+   * Method to test that a token written for an undated record uses the ~ marker, and reads back as a
+   * query for the undated records with a lower ID only.
+   */
+  @Test
+  public void testNoDateToken() {
+    BasicDBObject lastObject = new BasicDBObject("playthruID", 77L);
+
+    String token = KeysetConverter.convertRecordToToken(lastObject, "datePlayed", "playthruID");
+    assertTrue("The undated token doesn't start with the marker: " + token, token.startsWith("~"));
+
+    BasicDBObject queryObject = KeysetConverter.convertTokenToPageQuery(new BasicDBObject("gameID", 9L), "datePlayed", "playthruID", token);
+    assertEquals("The filter was lost", 9L, queryObject.get("gameID"));
+    assertNull("An undated token should not go back to dated records", queryObject.get("$or"));
+    assertTrue("The query doesn't stay among undated records", queryObject.containsField("datePlayed"));
+    assertNull("The query doesn't stay among undated records", queryObject.get("datePlayed"));
+    assertEquals("The query has the wrong ID", 77L, ((DBObject)queryObject.get("playthruID")).get("$lt"));
+  }
+
+  /**
+   * Method to test that the first page is just the filter, and that tokens we never wrote are refused.
+   */
+  @Test
+  public void testFirstPageAndMalformedTokens() {
+    BasicDBObject filterObject = new BasicDBObject("userID", 42L);
+    assertSame("The first page should use the filter as it is", filterObject,
+               KeysetConverter.convertTokenToPageQuery(filterObject, "addedDate", "mediaID", null));
+
+    String[] badTokens = { "", ".", "abc", "abc.", ".abc", "~.", "zz.!!" };
+    for (String badToken : badTokens) {
+      try {
+        KeysetConverter.convertTokenToPageQuery(filterObject, "addedDate", "mediaID", badToken);
+        fail("The token '" + badToken + "' was accepted");
+      } catch (IllegalArgumentException iae) {
+        /** Expected */
+      }
+    }
+  }
+}
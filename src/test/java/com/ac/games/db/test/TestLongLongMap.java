@@ -0,0 +1,156 @@
+package com.ac.games.db.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import com.ac.games.db.mongo.LongLongMap;
+
+/**
+ * Checks the open addressing in {@link LongLongMap}, in particular that removing from the middle of a
+ * probe run shifts the rest of the run back so every remaining key can still be found.  None of these
+ * tests need a database.
+ *
+ * @author ac010168
+ */
+public class TestLongLongMap extends TestCase {
+
+  /** The table size a map starts with for a small expected size. */
+  private static final int SMALL_CAPACITY = 16;
+
+  /**
+   * Method to test the basic put, overwrite, get and remove operations.
+   */
+  @Test
+  public void testPutGetRemove() {
+    LongLongMap map = new LongLongMap(4);
+    assertEquals("An empty map found a value", -1, map.get(42));
+
+    map.put(42, 7);
+    map.put(43, 8);
+    assertEquals("The first value was not found", 7, map.get(42));
+    assertEquals("The second value was not found", 8, map.get(43));
+    assertEquals("The size is wrong", 2, map.size());
+
+    map.put(42, 9);
+    assertEquals("The overwritten value was not found", 9, map.get(42));
+    assertEquals("An overwrite changed the size", 2, map.size());
+
+    map.remove(42);
+    map.remove(42);
+    map.remove(1000);
+    assertEquals("The removed value was still found", -1, map.get(42));
+    assertEquals("The remaining value was lost", 8, map.get(43));
+    assertEquals("The size is wrong after the removes", 1, map.size());
+  }
+
+  /**
+   * Method to test removals inside a single collision chain that wraps around the end of the table.
+   * Every key is picked to share one home slot near the end, so the chain runs off the end and back to
+   * the start, and each removal has to shift the rest of the chain back across the wrap.
+   */
+  @Test
+  public void testCollisionChainRemoval() {
+    int homeSlot = SMALL_CAPACITY - 2;
+    List<Long> chain = findKeysWithHomeSlot(homeSlot, 6);
+
+    for (int removeAt = 0; removeAt < chain.size(); removeAt++) {
+      LongLongMap map = new LongLongMap(1);
+      for (Long key : chain)
+        map.put(key, key * 10);
+
+      map.remove(chain.get(removeAt));
+      assertEquals("The size is wrong after removing entry " + removeAt, chain.size() - 1, map.size());
+      for (int i = 0; i < chain.size(); i++) {
+        long expected = (i == removeAt ? -1 : chain.get(i) * 10);
+        assertEquals("Entry " + i + " is wrong after removing entry " + removeAt, expected, map.get(chain.get(i)));
+      }
+
+      //The freed slot has to be reusable without losing anything
+      map.put(chain.get(removeAt), 1);
+      for (int i = 0; i < chain.size(); i++) {
+        long expected = (i == removeAt ? 1 : chain.get(i) * 10);
+        assertEquals("Entry " + i + " is wrong after re-adding entry " + removeAt, expected, map.get(chain.get(i)));
+      }
+    }
+  }
+
+  /**
+   * Method to test two interleaved chains, where removing from one must not move entries of the other
+   * in front of their home slot.
+   */
+  @Test
+  public void testInterleavedChains() {
+    List<Long> first  = findKeysWithHomeSlot(3, 3);
+    List<Long> second = findKeysWithHomeSlot(4, 3);
+
+    LongLongMap map = new LongLongMap(1);
+    for (int i = 0; i < 3; i++) {
+      map.put(first.get(i), 100 + i);
+      map.put(second.get(i), 200 + i);
+    }
+
+    map.remove(first.get(0));
+    map.remove(second.get(1));
+    assertEquals("The first chain lost an entry", 101, map.get(first.get(1)));
+    assertEquals("The first chain lost an entry", 102, map.get(first.get(2)));
+    assertEquals("The second chain lost an entry", 200, map.get(second.get(0)));
+    assertEquals("The second chain lost an entry", 202, map.get(second.get(2)));
+    assertEquals("A removed entry was found", -1, map.get(first.get(0)));
+    assertEquals("A removed entry was found", -1, map.get(second.get(1)));
+    assertEquals("The size is wrong", 4, map.size());
+  }
+
+  /**
+   * Method to test a long run of random puts and removes against a HashMap, starting small so the table
+   * is rehashed several times and the probe runs get long.
+   */
+  @Test
+  public void testAgainstHashMap() {
+    Random random = new Random(20151019L);
+    LongLongMap map = new LongLongMap(1);
+    Map<Long, Long> expected = new HashMap<Long, Long>();
+
+    for (int step = 0; step < 50000; step++) {
+      //Small keys, like our IDs, and a narrow range so removes often hit
+      long key = random.nextInt(2000);
+      if (random.nextInt(3) == 0) {
+        map.remove(key);
+        expected.remove(key);
+      } else {
+        long value = random.nextInt(1000000);
+        map.put(key, value);
+        expected.put(key, value);
+      }
+    }
+
+    assertEquals("The sizes differ", expected.size(), map.size());
+    for (long key = 0; key < 2000; key++) {
+      Long value = expected.get(key);
+      assertEquals("Key " + key + " differs", (value == null ? -1 : value.longValue()), map.get(key));
+    }
+  }
+
+  /**
+   * Helper method that finds keys whose home slot in a new table of {@link #SMALL_CAPACITY} is the one
+   * given.  This repeats the map's hash, which spreads the bits of small sequential IDs.
+   *
+   * @param homeSlot The slot the keys should all hash to.
+   * @param count How many keys to find.
+   * @return the keys
+   */
+  private static List<Long> findKeysWithHomeSlot(int homeSlot, int count) {
+    List<Long> found = new ArrayList<Long>(count);
+    for (long key = 1; found.size() < count; key++) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      if ((((int)(h ^ (h >>> 32))) & (SMALL_CAPACITY - 1)) == homeSlot) found.add(key);
+    }
+    return found;
+  }
+}
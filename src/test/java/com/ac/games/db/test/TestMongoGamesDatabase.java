@@ -3,6 +3,7 @@ package com.ac.games.db.test;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import junit.framework.TestCase;
 
@@ -18,15 +19,27 @@ import com.ac.games.data.Game;
 import com.ac.games.data.GameAvailability;
 import com.ac.games.data.GameReltn;
 import com.ac.games.data.GameWeight;
+import com.ac.games.data.MediaItem;
 import com.ac.games.data.MMDataStats;
 import com.ac.games.data.MiniatureMarketPriceData;
+import com.ac.games.data.PlaythruItem;
+import com.ac.games.data.ReviewState;
 import com.ac.games.data.User;
 import com.ac.games.data.UserDetail;
+import com.ac.games.data.WishlistItem;
 import com.ac.games.db.GamesDatabase;
 import com.ac.games.db.MongoDBFactory;
 import com.ac.games.db.exception.ConfigurationException;
 import com.ac.games.db.exception.DatabaseOperationException;
 import com.ac.games.db.mock.MockDataFactory;
+import com.ac.games.db.mongo.IDAllocator;
+import com.ac.games.db.mongo.MongoGamesDatabase;
+import com.ac.games.db.mongo.PriceHistoryConverter;
+import com.ac.games.db.mongo.ResultPage;
+import com.ac.games.db.mongo.price.PriceDropMatch;
+import com.ac.games.db.mongo.price.PriceObservation;
+import com.ac.games.db.mongo.price.PriceOffer;
+import com.ac.games.db.mongo.price.PriceRollup;
 
 /**
  * @author ac010168
@@ -85,6 +98,7 @@ public class TestMongoGamesDatabase extends TestCase {
    * <li>Modify Abyss Data</li>
    * <li>Update Abyss</li>
    * <li>Read Abyss and Verify</li>
+   * <li>Read Summaries and Verify</li>
    * <li>Run the IDs select and verify all three games found</li>
    * <li>Run the Max ID Query and verify that the largest id value is returned</li>
    * <li>Run the Count Query and Verify we got three games</li>
@@ -192,6 +206,17 @@ public class TestMongoGamesDatabase extends TestCase {
       assertTrue("The bggRatingsUsers are not equal", abyss.getBggRating() == abyss3.getBggRating());
       assertTrue("The bggRanks are not equal", abyss.getBggRank() == abyss3.getBggRank());
       
+      //Read Summaries and Verify
+      System.out.println ("===  Read Summaries and Verify  ===");
+      List<BGGGame> summaries = ((MongoGamesDatabase)database).readBGGGameSummaries(new long[] { abyss.getBggID(), cosmicEncounter.getBggID() });
+      assertNotNull("I didn't get a summary List", summaries);
+      assertTrue("I didn't get both summaries", summaries.size() == 2);
+      assertTrue("The summaries came back out of order", summaries.get(0).getBggID() == abyss.getBggID());
+      assertTrue("The names are not equal", abyss.getName().equalsIgnoreCase(summaries.get(0).getName()));
+      assertTrue("The maxPlayingTimes are not equal", abyss.getMaxPlayingTime() == summaries.get(0).getMaxPlayingTime());
+      assertNull("The summary should not carry a description", summaries.get(0).getDescription());
+      assertNull("The summary should not carry publishers", summaries.get(1).getPublishers());
+      
       //Run the IDs select and verify all three games found
       System.out.println ("===  Run the IDs select and verify all three games found  ===");
       List<Long> bggIDList = database.getBggIDList();
@@ -1600,4 +1625,980 @@ public class TestMongoGamesDatabase extends TestCase {
       fail("I failed for some gorram reason: " + t.getLocalizedMessage());
     }
   }
+  
+  /**
+   * Method to test that change detection skips rewrites of identical documents, and only those.  The
+   * basic steps of this test are:
+   * <ol>
+   * <li>Upsert Abyss BGG Data, which inserts and is not skipped</li>
+   * <li>Update Abyss unchanged, which is skipped</li>
+   * <li>Modify Abyss and Update, which is not skipped</li>
+   * <li>Read Abyss and Verify</li>
+   * <li>Update Abyss unchanged again, which is skipped</li>
+   * <li>Insert and Update Abyss CSI Data, then update it unchanged, which is skipped</li>
+   * <li>Modify Abyss CSI Data and Update, which is not skipped</li>
+   * <li>Delete Abyss BGG and CSI Data</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testChangeDetection() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    mongoDatabase.setChangeDetectionMode(true);
+    try {
+      mongoDatabase.resetSkippedWriteCount();
+      
+      //Upsert Abyss BGG Data
+      System.out.println ("===  Upsert Abyss BGG Data  ===");
+      BGGGame abyss = MockDataFactory.createBGGGame(MockDataFactory.BGG_ABYSS_ID);
+      database.updateBGGGameData(abyss);
+      assertEquals("The upsert was skipped", 0, mongoDatabase.getSkippedWriteCount());
+      assertNotNull("The upsert didn't insert Abyss", database.readBGGGameData(abyss.getBggID()));
+      
+      //Update Abyss unchanged
+      System.out.println ("===  Update Abyss unchanged  ===");
+      database.updateBGGGameData(abyss);
+      assertEquals("The unchanged update was not skipped", 1, mongoDatabase.getSkippedWriteCount());
+      
+      //Modify Abyss and Update
+      System.out.println ("===  Modify Abyss and Update  ===");
+      abyss.setBggRank(abyss.getBggRank() + 17);
+      database.updateBGGGameData(abyss);
+      assertEquals("The changed update was skipped", 1, mongoDatabase.getSkippedWriteCount());
+      
+      //Read Abyss and Verify
+      System.out.println ("===  Read Abyss and Verify  ===");
+      BGGGame abyss2 = database.readBGGGameData(abyss.getBggID());
+      assertNotNull("I didn't find my result", abyss2);
+      assertTrue("The bggRanks are not equal", abyss.getBggRank() == abyss2.getBggRank());
+      
+      //Update Abyss unchanged again
+      System.out.println ("===  Update Abyss unchanged again  ===");
+      database.updateBGGGameData(abyss);
+      assertEquals("The second unchanged update was not skipped", 2, mongoDatabase.getSkippedWriteCount());
+      
+      //Insert and Update Abyss CSI Data unchanged
+      System.out.println ("===  Insert and Update Abyss CSI Data unchanged  ===");
+      CoolStuffIncPriceData csiAbyss = MockDataFactory.createCSIData(MockDataFactory.CSI_ABYSS_ID);
+      database.insertCSIPriceData(csiAbyss);
+      database.updateCSIPriceData(csiAbyss);
+      assertEquals("The unchanged CSI update was not skipped", 3, mongoDatabase.getSkippedWriteCount());
+      
+      //Modify Abyss CSI Data and Update
+      System.out.println ("===  Modify Abyss CSI Data and Update  ===");
+      csiAbyss.setCurPrice(csiAbyss.getCurPrice() + 12.75);
+      database.updateCSIPriceData(csiAbyss);
+      assertEquals("The changed CSI update was skipped", 3, mongoDatabase.getSkippedWriteCount());
+      assertTrue("The curPrices are not equal", csiAbyss.getCurPrice() == database.readCSIPriceData(csiAbyss.getCsiID()).getCurPrice());
+      
+      //Delete Abyss BGG and CSI Data
+      System.out.println ("===  Delete Abyss BGG and CSI Data  ===");
+      database.deleteBGGGameData(abyss.getBggID());
+      database.deleteCSIPriceData(csiAbyss.getCsiID());
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Method to test walking a user's and a game's media items page by page.  The basic steps of this
+   * test are:
+   * <ol>
+   * <li>Insert seven media items, two sharing a date and one without a date</li>
+   * <li>Page through the user's items two at a time and Verify order, with no repeats or gaps</li>
+   * <li>Page through the game's items three at a time and Verify the same order</li>
+   * <li>Read a page past the end and Verify it is empty</li>
+   * <li>Delete the media items</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testPagedMediaItems() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    long userID = 900001;
+    long gameID = 900002;
+    long[] mediaIDs = { 900101, 900102, 900103, 900104, 900105, 900106, 900107 };
+    long baseTime   = 1445251978000L;
+    //Days back from baseTime for each item, or -1 for no date; items 2 and 3 share a date
+    int[] daysBack  = { 3, 1, 1, 5, -1, 0, 2 };
+    //The page order: newest first, the higher ID first on a shared date, the undated item last
+    long[] expected = { 900106, 900103, 900102, 900107, 900101, 900104, 900105 };
+    try {
+      //Insert seven media items
+      System.out.println ("===  Insert seven media items  ===");
+      mongoDatabase.ensurePagingIndexes();
+      for (int i = 0; i < mediaIDs.length; i++) {
+        MediaItem item = new MediaItem();
+        item.setMediaID(mediaIDs[i]);
+        item.setUserID(userID);
+        item.setGameID(gameID);
+        item.setMediaLink("http://example.com/media/" + mediaIDs[i]);
+        if (daysBack[i] >= 0) item.setAddedDate(new Date(baseTime - daysBack[i] * 86400000L));
+        database.insertMediaItem(item);
+      }
+      
+      //Page through the user's items two at a time and Verify
+      System.out.println ("===  Page through the user's items two at a time and Verify  ===");
+      List<Long> userOrder = new ArrayList<Long>();
+      String token = null;
+      int pages = 0;
+      do {
+        ResultPage<MediaItem> page = mongoDatabase.readMediaItemsByUserID(userID, 2, token);
+        assertTrue("A page was larger than the page size", page.getItems().size() <= 2);
+        for (MediaItem item : page.getItems())
+          userOrder.add(item.getMediaID());
+        token = page.getContinuationToken();
+        pages++;
+      } while (token != null && pages < 10);
+      assertEquals("The wrong number of pages was read", 4, pages);
+      assertEquals("The user's items came back in the wrong order", toList(expected), userOrder);
+      
+      //Page through the game's items three at a time and Verify
+      System.out.println ("===  Page through the game's items three at a time and Verify  ===");
+      List<Long> gameOrder = new ArrayList<Long>();
+      token = null;
+      pages = 0;
+      do {
+        ResultPage<MediaItem> page = mongoDatabase.readMediaItemsByGameID(gameID, 3, token);
+        for (MediaItem item : page.getItems())
+          gameOrder.add(item.getMediaID());
+        token = page.getContinuationToken();
+        pages++;
+      } while (token != null && pages < 10);
+      assertEquals("The wrong number of pages was read", 3, pages);
+      assertEquals("The game's items came back in the wrong order", toList(expected), gameOrder);
+      
+      //Read a page past the end and Verify
+      System.out.println ("===  Read a page past the end and Verify  ===");
+      ResultPage<MediaItem> lastPage = mongoDatabase.readMediaItemsByUserID(userID, expected.length, null);
+      assertFalse("A page holding every item should be the last", lastPage.hasMore());
+      
+      //Delete the media items
+      System.out.println ("===  Delete the media items  ===");
+      for (long mediaID : mediaIDs)
+        database.deleteMediaItem(mediaID);
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Method to test that playthru items are written to the playthru collection, where their reads look,
+   * and not to the wishlist collection.  The basic steps of this test are:
+   * <ol>
+   * <li>Insert a playthru item</li>
+   * <li>Read it by playthruID and Verify</li>
+   * <li>Read it through the paged reads by user and game and Verify</li>
+   * <li>Verify the user has no wishlist items</li>
+   * <li>Reinsert it, which becomes an update, and Verify there is still one</li>
+   * <li>Delete the playthru item</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testPlaythruCollection() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    long userID = 900011;
+    long gameID = 900012;
+    try {
+      //Insert a playthru item
+      System.out.println ("===  Insert a playthru item  ===");
+      PlaythruItem item = new PlaythruItem();
+      item.setPlaythruID(900201);
+      item.setUserID(userID);
+      item.setGameID(gameID);
+      item.setGameName("Abyss");
+      item.setDatePlayed(new Date(1445251978000L));
+      item.setNumPlayers(4);
+      item.setWinnerText("Everyone but me");
+      database.insertPlaythruItem(item);
+      
+      //Read it by playthruID and Verify
+      System.out.println ("===  Read it by playthruID and Verify  ===");
+      PlaythruItem item2 = database.readPlaythruItem(item.getPlaythruID());
+      assertNotNull("I didn't find my result", item2);
+      assertTrue("The userIDs are not equal", item.getUserID() == item2.getUserID());
+      assertTrue("The gameIDs are not equal", item.getGameID() == item2.getGameID());
+      assertTrue("The numPlayers are not equal", item.getNumPlayers() == item2.getNumPlayers());
+      
+      //Read it through the paged reads by user and game and Verify
+      System.out.println ("===  Read it through the paged reads by user and game and Verify  ===");
+      ResultPage<PlaythruItem> userPage = mongoDatabase.readPlaythruItemsByUserID(userID, 10, null);
+      assertEquals("The user's page didn't hold the item", 1, userPage.getItems().size());
+      assertFalse("The user's page should be the last", userPage.hasMore());
+      ResultPage<PlaythruItem> gamePage = mongoDatabase.readPlaythruItemsByGameID(gameID, 10, null);
+      assertEquals("The game's page didn't hold the item", 1, gamePage.getItems().size());
+      
+      //Verify the user has no wishlist items
+      System.out.println ("===  Verify the user has no wishlist items  ===");
+      ResultPage<WishlistItem> wishPage = mongoDatabase.readWishlistForUser(userID, 10, null);
+      assertTrue("The playthru item was written to the wishlist", wishPage.getItems().isEmpty());
+      
+      //Reinsert it, which becomes an update, and Verify there is still one
+      System.out.println ("===  Reinsert it and Verify there is still one  ===");
+      item.setNumPlayers(5);
+      database.insertPlaythruItem(item);
+      userPage = mongoDatabase.readPlaythruItemsByUserID(userID, 10, null);
+      assertEquals("The reinsert added a second item", 1, userPage.getItems().size());
+      assertTrue("The reinsert didn't update the item", userPage.getItems().get(0).getNumPlayers() == 5);
+      
+      //Delete the playthru item
+      System.out.println ("===  Delete the playthru item  ===");
+      database.deletePlaythruItem(item.getPlaythruID());
+      assertNull("I shouldn't have found the playthru item, but did.", database.readPlaythruItem(item.getPlaythruID()));
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Method to test writing a batch of users in one bulk write.  The basic steps of this test are:
+   * <ol>
+   * <li>Bulk upsert User One and User Two, which inserts both</li>
+   * <li>Read both by ID and Verify</li>
+   * <li>Modify User Two and bulk upsert it with User Three</li>
+   * <li>Read all three by ID and Verify there is one of each, with User Two changed</li>
+   * <li>Verify the user store counted every document written</li>
+   * <li>Delete the three users</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testBulkUpserts() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    long[] userIDs = { MockDataFactory.USER_ONE_ID, MockDataFactory.USER_TWO_ID, MockDataFactory.USER_THREE_ID };
+    try {
+      //Bulk upsert User One and User Two
+      System.out.println ("===  Bulk upsert User One and User Two  ===");
+      User userOne = MockDataFactory.createUserData(MockDataFactory.USER_ONE_ID);
+      User userTwo = MockDataFactory.createUserData(MockDataFactory.USER_TWO_ID);
+      List<User> firstBatch = new ArrayList<User>();
+      firstBatch.add(userOne);
+      firstBatch.add(userTwo);
+      mongoDatabase.updateUser(firstBatch);
+      
+      //Read both by ID and Verify
+      System.out.println ("===  Read both by ID and Verify  ===");
+      Map<Long, User> users = mongoDatabase.readUser(new long[] { userOne.getUserID(), userTwo.getUserID() });
+      assertEquals("I didn't find both users", 2, users.size());
+      assertTrue("The userNames are not equal", userOne.getUserName().equals(users.get(userOne.getUserID()).getUserName()));
+      
+      //Modify User Two and bulk upsert it with User Three
+      System.out.println ("===  Modify User Two and bulk upsert it with User Three  ===");
+      userTwo.setEmailAddress("usertwo@changed.com");
+      User userThree = MockDataFactory.createUserData(MockDataFactory.USER_THREE_ID);
+      List<User> secondBatch = new ArrayList<User>();
+      secondBatch.add(userTwo);
+      secondBatch.add(userThree);
+      mongoDatabase.updateUser(secondBatch);
+      
+      //Read all three by ID and Verify
+      System.out.println ("===  Read all three by ID and Verify  ===");
+      users = mongoDatabase.readUser(userIDs);
+      assertEquals("I didn't find all three users", 3, users.size());
+      assertTrue("The emailAddresses are not equal", userTwo.getEmailAddress().equals(users.get(userTwo.getUserID()).getEmailAddress()));
+      assertTrue("The userNames are not equal", userThree.getUserName().equals(users.get(userThree.getUserID()).getUserName()));
+      
+      //Verify the user store counted every document written
+      System.out.println ("===  Verify the user store counted every document written  ===");
+      boolean found = false;
+      for (String line : mongoDatabase.readEntityStoreStats()) {
+        if (line.startsWith("user: ")) {
+          assertTrue("The user store didn't count the bulk writes: " + line, line.contains(" 4 writes"));
+          found = true;
+        }
+      }
+      assertTrue("There is no user store line", found);
+      
+      //Delete the three users
+      System.out.println ("===  Delete the three users  ===");
+      for (long userID : userIDs)
+        database.deleteUser(userID);
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Method to test reading game relations for a batch of games, split over several queries.  The basic
+   * steps of this test are:
+   * <ol>
+   * <li>Insert the Abyss, Cosmic Encounter and Cosmic Incursion relations</li>
+   * <li>Set the chunk size to 2, so three games take two queries</li>
+   * <li>Read the relations by gameID, with one missing game, and Verify</li>
+   * <li>Verify the relation store ran one read per chunk</li>
+   * <li>Delete the relations</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testGameReltnMultiGet() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    long[] reltnIDs = { MockDataFactory.ABYSS_RELTN_ID, MockDataFactory.COSMIC_ENCOUNTER_RELTN_ID, MockDataFactory.COSMIC_INCURSION_RELTN_ID };
+    int chunkSize = mongoDatabase.getMultiGetChunkSize();
+    try {
+      //Insert the three relations
+      System.out.println ("===  Insert the three relations  ===");
+      List<GameReltn> reltns = new ArrayList<GameReltn>();
+      for (long reltnID : reltnIDs) {
+        GameReltn reltn = MockDataFactory.createGameReltnData(reltnID);
+        database.insertGameReltn(reltn);
+        reltns.add(reltn);
+      }
+      
+      //Set the chunk size to 2
+      System.out.println ("===  Set the chunk size to 2  ===");
+      mongoDatabase.setMultiGetChunkSize(2);
+      
+      //Read the relations by gameID, with one missing game, and Verify
+      System.out.println ("===  Read the relations by gameID, with one missing game, and Verify  ===");
+      long missingGameID = 987654321L;
+      long[] gameIDs = { reltns.get(0).getGameID(), reltns.get(1).getGameID(), missingGameID, reltns.get(2).getGameID() };
+      Map<Long, GameReltn> reltnMap = mongoDatabase.readGameReltn(gameIDs);
+      assertEquals("I didn't find all three relations", 3, reltnMap.size());
+      assertFalse("I found a relation for a missing game", reltnMap.containsKey(missingGameID));
+      for (GameReltn reltn : reltns) {
+        GameReltn found = reltnMap.get(reltn.getGameID());
+        assertNotNull("I didn't find the relation for game " + reltn.getGameID(), found);
+        assertTrue("The reltnIDs are not equal", reltn.getReltnID() == found.getReltnID());
+        assertTrue("The bggIDs are not equal", reltn.getBggID() == found.getBggID());
+      }
+      
+      //Verify the relation store ran one read per chunk
+      System.out.println ("===  Verify the relation store ran one read per chunk  ===");
+      boolean found = false;
+      for (String line : mongoDatabase.readEntityStoreStats()) {
+        if (line.startsWith("gamereltn: ")) {
+          assertTrue("The relation store didn't run two reads: " + line, line.contains(": 2 reads (3 documents"));
+          found = true;
+        }
+      }
+      assertTrue("There is no relation store line", found);
+      
+      //Delete the relations
+      System.out.println ("===  Delete the relations  ===");
+      for (long reltnID : reltnIDs)
+        database.deleteGameReltn(reltnID);
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    } finally {
+      mongoDatabase.setMultiGetChunkSize(chunkSize);
+    }
+  }
+  
+  /**
+   * Method to test adding, updating and removing single collection items without rewriting the collection.
+   * The basic steps of this test are:
+   * <ol>
+   * <li>Insert Collection One, which is empty</li>
+   * <li>Add Cosmic Incursion, then add it again, which is refused</li>
+   * <li>Read Collection One and Verify the item and its count</li>
+   * <li>Modify the item and Update it in place</li>
+   * <li>Read Collection One and Verify the change, with the game untouched</li>
+   * <li>Update an item the collection doesn't hold, which is refused</li>
+   * <li>Remove the item, then remove it again, which is refused</li>
+   * <li>Read Collection One and Verify it is empty again</li>
+   * <li>Delete Collection One</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testCollectionDeltaUpdates() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    try {
+      //Insert Collection One
+      System.out.println ("===  Insert Collection One  ===");
+      Collection collectionOne = MockDataFactory.createCollectionData(MockDataFactory.COLLECTION_ONE_ID);
+      database.insertCollection(collectionOne);
+      
+      //Add Cosmic Incursion, then add it again
+      System.out.println ("===  Add Cosmic Incursion, then add it again  ===");
+      CollectionItem item = MockDataFactory.createCollectionItemData(MockDataFactory.COLLECTION_ITEM_TWO_ID);
+      assertTrue("The item wasn't added", mongoDatabase.addItemToCollection(collectionOne.getCollectionID(), item));
+      assertFalse("The item was added twice", mongoDatabase.addItemToCollection(collectionOne.getCollectionID(), item));
+      
+      //Read Collection One and Verify
+      System.out.println ("===  Read Collection One and Verify  ===");
+      Collection collectionOne2 = database.readCollection(collectionOne.getCollectionID());
+      assertNotNull("I didn't find my result", collectionOne2);
+      assertEquals("The games list size is wrong", 1, collectionOne2.getGames().size());
+      assertTrue("The itemIDs are not equal", item.getItemID() == collectionOne2.getGames().get(0).getItemID());
+      assertEquals("The game counts don't add up to one", 1, collectionOne2.getBaseGameCount() + collectionOne2.getExpansionGameCount() + collectionOne2.getCollectibleGameCount());
+      
+      //Modify the item and Update it in place
+      System.out.println ("===  Modify the item and Update it in place  ===");
+      item.setWhereAcquired("Game Store");
+      item.setOverrideMaxPlayers(6);
+      assertTrue("The item wasn't found", mongoDatabase.updateCollectionItemInPlace(collectionOne.getCollectionID(), item));
+      
+      //Read Collection One and Verify the change
+      System.out.println ("===  Read Collection One and Verify the change  ===");
+      Collection collectionOne3 = database.readCollection(collectionOne.getCollectionID());
+      CollectionItem item2 = collectionOne3.getGames().get(0);
+      assertEquals("The whereAcquired are not equal", item.getWhereAcquired(), item2.getWhereAcquired());
+      assertTrue("The overrideMaxPlayers are not equal", item.getOverrideMaxPlayers() == item2.getOverrideMaxPlayers());
+      assertTrue("The gameIDs are not equal", item.getGameID() == item2.getGameID());
+      assertNotNull("The game was lost", item2.getGame());
+      assertEquals("The game names are not equal", item.getGame().getName(), item2.getGame().getName());
+      
+      //Update an item the collection doesn't hold
+      System.out.println ("===  Update an item the collection doesn't hold  ===");
+      CollectionItem otherItem = MockDataFactory.createCollectionItemData(MockDataFactory.COLLECTION_ITEM_ONE_ID);
+      assertFalse("An item not in the collection was updated", mongoDatabase.updateCollectionItemInPlace(collectionOne.getCollectionID(), otherItem));
+      
+      //Remove the item, then remove it again
+      System.out.println ("===  Remove the item, then remove it again  ===");
+      assertTrue("The item wasn't removed", mongoDatabase.removeItemFromCollection(collectionOne.getCollectionID(), item.getItemID()));
+      assertFalse("The item was removed twice", mongoDatabase.removeItemFromCollection(collectionOne.getCollectionID(), item.getItemID()));
+      
+      //Read Collection One and Verify it is empty again
+      System.out.println ("===  Read Collection One and Verify it is empty again  ===");
+      Collection collectionOne4 = database.readCollection(collectionOne.getCollectionID());
+      assertTrue("The games list isn't empty", collectionOne4.getGames() == null || collectionOne4.getGames().isEmpty());
+      assertEquals("The game counts don't add up to zero", 0, collectionOne4.getBaseGameCount() + collectionOne4.getExpansionGameCount() + collectionOne4.getCollectibleGameCount());
+      
+      //Delete Collection One
+      System.out.println ("===  Delete Collection One  ===");
+      database.deleteCollection(collectionOne.getCollectionID());
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Method to test that new IDs are handed out in blocks from the counters, and that a counter is raised
+   * past IDs stored by other means once the allocator starts over.  The basic steps of this test are:
+   * <ol>
+   * <li>Insert Abyss Game Data</li>
+   * <li>Set the block size to 3 and allocate three gameIDs, which come from one block</li>
+   * <li>Allocate a fourth gameID, which comes from a new block</li>
+   * <li>Insert a game with an ID well past the counter</li>
+   * <li>Reconnect, which drops the reserved blocks, and allocate a gameID past the stored one</li>
+   * <li>Delete both games</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testIDAllocation() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    try {
+      //Insert Abyss Game Data
+      System.out.println ("===  Insert Abyss Game Data  ===");
+      Game abyss = MockDataFactory.createGameData(MockDataFactory.ABYSS_ID);
+      database.insertGame(abyss);
+      
+      //Set the block size to 3 and allocate three gameIDs
+      System.out.println ("===  Set the block size to 3 and allocate three gameIDs  ===");
+      mongoDatabase.setIDBlockSize(3);
+      long firstID = mongoDatabase.getNextGameID();
+      assertTrue("The new ID isn't past the stored games", firstID > abyss.getGameID());
+      assertEquals("The second ID didn't come from the same block", firstID + 1, mongoDatabase.getNextGameID());
+      assertEquals("The third ID didn't come from the same block", firstID + 2, mongoDatabase.getNextGameID());
+      
+      //Allocate a fourth gameID
+      System.out.println ("===  Allocate a fourth gameID  ===");
+      long fourthID = mongoDatabase.getNextGameID();
+      assertTrue("The new block reused an ID", fourthID > firstID + 2);
+      
+      //Insert a game with an ID well past the counter
+      System.out.println ("===  Insert a game with an ID well past the counter  ===");
+      Game farGame = MockDataFactory.createGameData(MockDataFactory.ABYSS_ID);
+      farGame.setGameID(fourthID + 100);
+      database.insertGame(farGame);
+      
+      //Reconnect and allocate a gameID past the stored one
+      System.out.println ("===  Reconnect and allocate a gameID past the stored one  ===");
+      database.closeDBConnection();
+      database.initializeDBConnection();
+      long reseededID = mongoDatabase.getNextGameID();
+      assertTrue("The counter wasn't raised past the stored game", reseededID > farGame.getGameID());
+      
+      //Delete both games
+      System.out.println ("===  Delete both games  ===");
+      database.deleteGame(abyss.getGameID());
+      database.deleteGame(farGame.getGameID());
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    } finally {
+      mongoDatabase.setIDBlockSize(IDAllocator.DEFAULT_BLOCK_SIZE);
+    }
+  }
+  
+  /**
+   * Method to test claiming records from the review queue, releasing them, and leases running out.  The
+   * basic steps of this test are:
+   * <ol>
+   * <li>Insert Abyss, Cosmic Encounter and Cosmic Incursion MM Data, all pending review</li>
+   * <li>Reviewer One claims a single record</li>
+   * <li>Reviewer Two claims a batch, and gets the other two records</li>
+   * <li>Reviewer Two claims again, and gets nothing</li>
+   * <li>Reviewer Two can't release Reviewer One's lease, but Reviewer One can</li>
+   * <li>Reviewer Two claims the released record</li>
+   * <li>Release Reviewer Two's leases, claim one with a short lease and let it run out</li>
+   * <li>Reviewer One claims the expired record, and the reaper clears another expired lease</li>
+   * <li>Delete the MM Data</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testReviewLeases() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    long[] mmIDs = { MockDataFactory.MM_ABYSS_ID, MockDataFactory.MM_COSMIC_ENCOUNTER_ID, MockDataFactory.MM_COSMIC_INCURSION_ID };
+    String reviewerOne = "leaseReviewerOne";
+    String reviewerTwo = "leaseReviewerTwo";
+    try {
+      //Insert the MM Data, all pending review
+      System.out.println ("===  Insert the MM Data, all pending review  ===");
+      for (long mmID : mmIDs) {
+        MiniatureMarketPriceData mmData = MockDataFactory.createMMData(mmID);
+        mmData.setReviewState(ReviewState.PENDING);
+        database.insertMMPriceData(mmData);
+      }
+      
+      //Reviewer One claims a single record
+      System.out.println ("===  Reviewer One claims a single record  ===");
+      MiniatureMarketPriceData claimOne = mongoDatabase.claimMMDataForReview("new", reviewerOne, 60000L);
+      assertNotNull("Reviewer One didn't get a record", claimOne);
+      
+      //Reviewer Two claims a batch
+      System.out.println ("===  Reviewer Two claims a batch  ===");
+      List<MiniatureMarketPriceData> claimTwo = mongoDatabase.claimMMDataForReview("new", reviewerTwo, 60000L, 5);
+      assertEquals("Reviewer Two didn't get the other two records", 2, claimTwo.size());
+      for (MiniatureMarketPriceData mmData : claimTwo)
+        assertFalse("Reviewer Two got Reviewer One's record", mmData.getMmID() == claimOne.getMmID());
+      
+      //Reviewer Two claims again
+      System.out.println ("===  Reviewer Two claims again  ===");
+      assertNull("A leased record was claimed twice", mongoDatabase.claimMMDataForReview("new", reviewerTwo, 60000L));
+      
+      //Reviewer Two can't release Reviewer One's lease, but Reviewer One can
+      System.out.println ("===  Release Reviewer One's lease  ===");
+      assertFalse("Reviewer Two released a lease it doesn't hold", mongoDatabase.releaseMMDataReviewLease(claimOne.getMmID(), reviewerTwo));
+      assertTrue("Reviewer One couldn't release its lease", mongoDatabase.releaseMMDataReviewLease(claimOne.getMmID(), reviewerOne));
+      
+      //Reviewer Two claims the released record
+      System.out.println ("===  Reviewer Two claims the released record  ===");
+      MiniatureMarketPriceData reclaim = mongoDatabase.claimMMDataForReview("new", reviewerTwo, 60000L);
+      assertNotNull("The released record wasn't claimable", reclaim);
+      assertTrue("Reviewer Two got the wrong record", reclaim.getMmID() == claimOne.getMmID());
+      
+      //Release Reviewer Two's leases, claim one with a short lease and let it run out
+      System.out.println ("===  Claim with a short lease and let it run out  ===");
+      for (long mmID : mmIDs)
+        assertTrue("Reviewer Two couldn't release its lease", mongoDatabase.releaseMMDataReviewLease(mmID, reviewerTwo));
+      List<MiniatureMarketPriceData> shortClaim = mongoDatabase.claimMMDataForReview("new", reviewerTwo, 1L, 2);
+      assertEquals("Reviewer Two didn't get two short leases", 2, shortClaim.size());
+      Thread.sleep(50);
+      
+      //Reviewer One claims the expired record, and the reaper clears another expired lease
+      System.out.println ("===  Claim the expired record and reap the rest  ===");
+      MiniatureMarketPriceData expired = mongoDatabase.claimMMDataForReview("new", reviewerOne, 60000L);
+      assertNotNull("The expired record wasn't claimable", expired);
+      assertTrue("Reviewer One didn't get the first expired record", expired.getMmID() == shortClaim.get(0).getMmID());
+      assertTrue("The reaper didn't clear the expired lease", mongoDatabase.releaseExpiredReviewLeases() >= 1);
+      assertFalse("The reaper left an expired lease", mongoDatabase.releaseMMDataReviewLease(shortClaim.get(1).getMmID(), reviewerTwo));
+      assertTrue("The reaper cleared a live lease", mongoDatabase.releaseMMDataReviewLease(expired.getMmID(), reviewerOne));
+      
+      //Delete the MM Data
+      System.out.println ("===  Delete the MM Data  ===");
+      for (long mmID : mmIDs)
+        database.deleteMMPriceData(mmID);
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Method to test recording a review decision for many records at once.  The basic steps of this test are:
+   * <ol>
+   * <li>Insert Abyss (reviewed), Cosmic Encounter (pending) and Cosmic Incursion (rejected) MM Data</li>
+   * <li>Approve all three and a missing ID, and Verify only the two that moved are counted</li>
+   * <li>Read the MM Data and Verify every record is reviewed, with a review date</li>
+   * <li>Approve all three again, and Verify nothing moved</li>
+   * <li>Send all three back to pending, and claim one for review</li>
+   * <li>Reject the claimed record, and Verify its lease ended</li>
+   * <li>Delete the MM Data</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testReviewDecisions() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    long[] mmIDs = { MockDataFactory.MM_ABYSS_ID, MockDataFactory.MM_COSMIC_ENCOUNTER_ID, MockDataFactory.MM_COSMIC_INCURSION_ID };
+    ReviewState[] startStates = { ReviewState.REVIEWED, ReviewState.PENDING, ReviewState.REJECTED };
+    try {
+      //Insert the MM Data
+      System.out.println ("===  Insert the MM Data  ===");
+      for (int i = 0; i < mmIDs.length; i++) {
+        MiniatureMarketPriceData mmData = MockDataFactory.createMMData(mmIDs[i]);
+        mmData.setReviewState(startStates[i]);
+        database.insertMMPriceData(mmData);
+      }
+      
+      //Approve all three and a missing ID
+      System.out.println ("===  Approve all three and a missing ID  ===");
+      long[] decisionIDs = { mmIDs[0], mmIDs[1], mmIDs[2], 987654321L };
+      assertEquals("The wrong number of records moved", 2, mongoDatabase.updateMMDataReviewStates(decisionIDs, ReviewState.REVIEWED));
+      
+      //Read the MM Data and Verify
+      System.out.println ("===  Read the MM Data and Verify  ===");
+      for (long mmID : mmIDs) {
+        MiniatureMarketPriceData mmData = database.readMMPriceData(mmID);
+        assertNotNull("I didn't find my result", mmData);
+        assertEquals("The record wasn't reviewed", ReviewState.REVIEWED, mmData.getReviewState());
+      }
+      assertNotNull("The moved record has no review date", database.readMMPriceData(mmIDs[1]).getReviewDate());
+      
+      //Approve all three again
+      System.out.println ("===  Approve all three again  ===");
+      assertEquals("Records already reviewed were moved", 0, mongoDatabase.updateMMDataReviewStates(mmIDs, ReviewState.REVIEWED));
+      
+      //Send all three back to pending, and claim one for review
+      System.out.println ("===  Send all three back to pending, and claim one  ===");
+      assertEquals("The wrong number of records moved", 3, mongoDatabase.updateMMDataReviewStates(mmIDs, ReviewState.PENDING));
+      MiniatureMarketPriceData claimed = mongoDatabase.claimMMDataForReview("new", "decisionReviewer", 60000L);
+      assertNotNull("Nothing was claimable", claimed);
+      
+      //Reject the claimed record, and Verify its lease ended
+      System.out.println ("===  Reject the claimed record  ===");
+      assertEquals("The claimed record didn't move", 1, mongoDatabase.updateMMDataReviewStates(new long[] { claimed.getMmID() }, ReviewState.REJECTED));
+      assertEquals("The record wasn't rejected", ReviewState.REJECTED, database.readMMPriceData(claimed.getMmID()).getReviewState());
+      assertFalse("The decision left the lease in place", mongoDatabase.releaseMMDataReviewLease(claimed.getMmID(), "decisionReviewer"));
+      
+      //Delete the MM Data
+      System.out.println ("===  Delete the MM Data  ===");
+      for (long mmID : mmIDs)
+        database.deleteMMPriceData(mmID);
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Method to test recording a CoolStuffInc item's prices and rolling them up over a range, both from
+   * whole buckets and from a bucket the range cuts through.  Observations are stamped with the time they
+   * were recorded, so each range starts when the test does and earlier runs' observations stay out of it.
+   * The basic steps of this test are:
+   * <ol>
+   * <li>Record three Abyss CSI prices, noting the time before the second</li>
+   * <li>Read the price history and Verify the observations and their order</li>
+   * <li>Roll up the whole range and Verify the lowest, highest and average prices</li>
+   * <li>Roll up from the second price on and Verify the first is left out</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testPriceHistoryRollup() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    try {
+      mongoDatabase.ensurePriceHistoryIndexes();
+      CoolStuffIncPriceData csiAbyss = MockDataFactory.createCSIData(MockDataFactory.CSI_ABYSS_ID);
+      
+      //Record three Abyss CSI prices
+      System.out.println ("===  Record three Abyss CSI prices  ===");
+      Date startDate = new Date();
+      Thread.sleep(20L);
+      csiAbyss.setCurPrice(20.0);
+      mongoDatabase.recordCSIPriceObservation(csiAbyss);
+      Thread.sleep(20L);
+      Date middleDate = new Date();
+      Thread.sleep(20L);
+      csiAbyss.setCurPrice(30.0);
+      mongoDatabase.recordCSIPriceObservation(csiAbyss);
+      csiAbyss.setCurPrice(40.0);
+      mongoDatabase.recordCSIPriceObservation(csiAbyss);
+      Date endDate = new Date(System.currentTimeMillis() + 60000L);
+      
+      //Read the price history and Verify
+      System.out.println ("===  Read the price history and Verify  ===");
+      List<PriceObservation> history = mongoDatabase.readCSIPriceHistory(csiAbyss.getCsiID(), startDate, endDate);
+      assertEquals("The wrong number of observations were read", 3, history.size());
+      assertTrue("The first price is wrong", history.get(0).getPrice() == 20.0);
+      assertTrue("The last price is wrong", history.get(2).getPrice() == 40.0);
+      
+      //Roll up the whole range and Verify
+      System.out.println ("===  Roll up the whole range and Verify  ===");
+      PriceRollup rollup = mongoDatabase.readCSIPriceRollup(csiAbyss.getCsiID(), startDate, endDate);
+      assertEquals("The wrong number of observations were rolled up", 3, rollup.getObservationCount());
+      assertTrue("The minPrice is wrong", rollup.getMinPrice() == 20.0);
+      assertTrue("The maxPrice is wrong", rollup.getMaxPrice() == 40.0);
+      assertTrue("The average is wrong", rollup.getAvgPrice() == 30.0);
+      
+      //Roll up from the second price on and Verify
+      System.out.println ("===  Roll up from the second price on and Verify  ===");
+      PriceRollup edgeRollup = mongoDatabase.readCSIPriceRollup(csiAbyss.getCsiID(), middleDate, endDate);
+      assertEquals("The edge of the range wasn't respected", 2, edgeRollup.getObservationCount());
+      assertTrue("The minPrice came from outside the range", edgeRollup.getMinPrice() == 30.0);
+      assertTrue("The average is wrong", edgeRollup.getAvgPrice() == 35.0);
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Method to test looking up the best in-stock offer for Abyss across both retailers, and keeping the
+   * stored offer on its relationship current as the retailer items change.  The basic steps of this test are:
+   * <ol>
+   * <li>Insert the Abyss CSI and MM Data, then the Abyss GameReltn</li>
+   * <li>Read the best price and Verify it is the cheaper CSI offer</li>
+   * <li>Read the stored best price and Verify it matches</li>
+   * <li>Take the Abyss CSI Data out of stock and Verify both best prices move to the MM offer</li>
+   * <li>Delete the Abyss MM Data and Verify there is no best price left</li>
+   * <li>Delete the Abyss CSI Data and GameReltn</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testBestPrices() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    mongoDatabase.setBestPriceMode(true);
+    try {
+      //Insert the Abyss CSI and MM Data, then the Abyss GameReltn
+      System.out.println ("===  Insert the Abyss CSI and MM Data, then the Abyss GameReltn  ===");
+      CoolStuffIncPriceData csiAbyss = MockDataFactory.createCSIData(MockDataFactory.CSI_ABYSS_ID);
+      MiniatureMarketPriceData mmAbyss = MockDataFactory.createMMData(MockDataFactory.MM_ABYSS_ID);
+      GameReltn abyssReltn = MockDataFactory.createGameReltnData(MockDataFactory.ABYSS_ID);
+      database.insertCSIPriceData(csiAbyss);
+      database.insertMMPriceData(mmAbyss);
+      database.insertGameReltn(abyssReltn);
+      
+      //Read the best price and Verify
+      System.out.println ("===  Read the best price and Verify  ===");
+      PriceOffer offer = mongoDatabase.readBestPrice(abyssReltn.getGameID());
+      assertNotNull("No best price was found", offer);
+      assertEquals("The best price has the wrong source", PriceHistoryConverter.SOURCE_CSI, offer.getSource());
+      assertEquals("The best price has the wrong item", csiAbyss.getCsiID(), offer.getItemID());
+      assertTrue("The best price is wrong", offer.getPrice() == csiAbyss.getCurPrice());
+      
+      //Read the stored best price and Verify
+      System.out.println ("===  Read the stored best price and Verify  ===");
+      PriceOffer storedOffer = mongoDatabase.readStoredBestPrices(new long[] { abyssReltn.getGameID() }).get(abyssReltn.getGameID());
+      assertNotNull("No best price was stored", storedOffer);
+      assertEquals("The stored best price has the wrong item", csiAbyss.getCsiID(), storedOffer.getItemID());
+      
+      //Take the Abyss CSI Data out of stock and Verify
+      System.out.println ("===  Take the Abyss CSI Data out of stock and Verify  ===");
+      csiAbyss.setAvailability(GameAvailability.OUTOFSTOCK);
+      database.updateCSIPriceData(csiAbyss);
+      offer = mongoDatabase.readBestPrice(abyssReltn.getGameID());
+      assertNotNull("The MM offer wasn't found", offer);
+      assertEquals("An out of stock item is still the best price", PriceHistoryConverter.SOURCE_MM, offer.getSource());
+      assertTrue("The best price is wrong", offer.getPrice() == mmAbyss.getCurPrice());
+      storedOffer = mongoDatabase.readStoredBestPrices(new long[] { abyssReltn.getGameID() }).get(abyssReltn.getGameID());
+      assertNotNull("The stored best price was dropped", storedOffer);
+      assertEquals("The stored best price wasn't refreshed", mmAbyss.getMmID(), storedOffer.getItemID());
+      
+      //Delete the Abyss MM Data and Verify
+      System.out.println ("===  Delete the Abyss MM Data and Verify  ===");
+      database.deleteMMPriceData(mmAbyss.getMmID());
+      assertNull("A best price was found with nothing in stock", mongoDatabase.readBestPrice(abyssReltn.getGameID()));
+      assertNull("The stored best price wasn't cleared", mongoDatabase.readStoredBestPrices(new long[] { abyssReltn.getGameID() }).get(abyssReltn.getGameID()));
+      
+      //Delete the Abyss CSI Data and GameReltn
+      System.out.println ("===  Delete the Abyss CSI Data and GameReltn  ===");
+      database.deleteCSIPriceData(csiAbyss.getCsiID());
+      database.deleteGameReltn(abyssReltn.getReltnID());
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Method to test matching price drops on the Abyss retailer items against wishlist entries, both by
+   * reading the relationships and through the in-memory retailer index.  Other data may also be linked to
+   * Abyss, so only this test's users are checked.  The basic steps of this test are:
+   * <ol>
+   * <li>Insert the Abyss CSI and MM Data and GameReltn, and three wishlist entries: one notifying on Abyss,
+   * one not notifying on Abyss, and one notifying on another game</li>
+   * <li>Match a CSI drop and Verify only the notifying Abyss entry matches, at the CSI price</li>
+   * <li>Match an MM drop and Verify the match still carries the cheaper CSI offer</li>
+   * <li>Load the retailer index, match both drops and Verify the single match, then drop the index</li>
+   * <li>Take both items out of stock and Verify nothing matches</li>
+   * <li>Delete the wishlist entries, the Abyss CSI and MM Data and GameReltn</li>
+   * <li>Test Complete</li></ol>
+   */
+  @Test
+  public void testPriceDropNotifications() {
+    MongoGamesDatabase mongoDatabase = (MongoGamesDatabase)database;
+    long notifyUserID = 900031;
+    long quietUserID  = 900032;
+    long otherUserID  = 900033;
+    try {
+      //Insert the Abyss data and three wishlist entries
+      System.out.println ("===  Insert the Abyss data and three wishlist entries  ===");
+      CoolStuffIncPriceData csiAbyss = MockDataFactory.createCSIData(MockDataFactory.CSI_ABYSS_ID);
+      MiniatureMarketPriceData mmAbyss = MockDataFactory.createMMData(MockDataFactory.MM_ABYSS_ID);
+      GameReltn abyssReltn = MockDataFactory.createGameReltnData(MockDataFactory.ABYSS_ID);
+      database.insertCSIPriceData(csiAbyss);
+      database.insertMMPriceData(mmAbyss);
+      database.insertGameReltn(abyssReltn);
+      mongoDatabase.ensureWishlistIndexes();
+      
+      long[] userIDs = { notifyUserID, quietUserID, otherUserID };
+      long[] gameIDs = { abyssReltn.getGameID(), abyssReltn.getGameID(), 900034 };
+      for (int i = 0; i < userIDs.length; i++) {
+        WishlistItem item = new WishlistItem();
+        item.setWishID(900301 + i);
+        item.setUserID(userIDs[i]);
+        item.setGameID(gameIDs[i]);
+        item.setDateAdded(new Date(1445251978000L));
+        item.setNotifyUser(userIDs[i] != quietUserID);
+        database.insertWishlistItem(item);
+      }
+      
+      //Match a CSI drop and Verify
+      System.out.println ("===  Match a CSI drop and Verify  ===");
+      List<PriceDropMatch> matches = mongoDatabase.matchPriceDropNotifications(new long[] { csiAbyss.getCsiID() }, null);
+      PriceDropMatch match = null;
+      for (PriceDropMatch candidate : matches) {
+        assertFalse("An entry not asking to be notified matched", candidate.getUserID() == quietUserID);
+        assertFalse("An entry on another game matched", candidate.getUserID() == otherUserID);
+        if (candidate.getUserID() == notifyUserID) {
+          assertNull("The notifying entry matched twice", match);
+          match = candidate;
+        }
+      }
+      assertNotNull("The notifying entry didn't match", match);
+      assertEquals("The match has the wrong game", abyssReltn.getGameID(), match.getGameID());
+      assertEquals("The match has the wrong source", PriceHistoryConverter.SOURCE_CSI, match.getSource());
+      assertTrue("The match has the wrong price", match.getPrice() == csiAbyss.getCurPrice());
+      
+      //Match an MM drop and Verify
+      System.out.println ("===  Match an MM drop and Verify  ===");
+      match = null;
+      for (PriceDropMatch candidate : mongoDatabase.matchPriceDropNotifications(null, new long[] { mmAbyss.getMmID() }))
+        if (candidate.getUserID() == notifyUserID) match = candidate;
+      assertNotNull("The MM drop didn't match", match);
+      assertEquals("The match isn't the best offer", PriceHistoryConverter.SOURCE_CSI, match.getSource());
+      
+      //Load the retailer index, match both drops and Verify
+      System.out.println ("===  Load the retailer index, match both drops and Verify  ===");
+      mongoDatabase.loadRetailerGameIndex();
+      try {
+        int count = 0;
+        for (PriceDropMatch candidate : mongoDatabase.matchPriceDropNotifications(new long[] { csiAbyss.getCsiID() }, new long[] { mmAbyss.getMmID() }))
+          if (candidate.getUserID() == notifyUserID) count++;
+        assertEquals("Drops on both of a game's items didn't match once", 1, count);
+      } finally {
+        mongoDatabase.dropRetailerGameIndex();
+      }
+      
+      //Take both items out of stock and Verify
+      System.out.println ("===  Take both items out of stock and Verify  ===");
+      csiAbyss.setAvailability(GameAvailability.OUTOFSTOCK);
+      mmAbyss.setAvailability(GameAvailability.OUTOFSTOCK);
+      database.updateCSIPriceData(csiAbyss);
+      database.updateMMPriceData(mmAbyss);
+      for (PriceDropMatch candidate : mongoDatabase.matchPriceDropNotifications(new long[] { csiAbyss.getCsiID() }, new long[] { mmAbyss.getMmID() }))
+        assertFalse("A game with nothing in stock matched", candidate.getUserID() == notifyUserID);
+      
+      //Delete the wishlist entries and the Abyss data
+      System.out.println ("===  Delete the wishlist entries and the Abyss data  ===");
+      for (int i = 0; i < userIDs.length; i++)
+        database.deleteWishlistItem(900301 + i);
+      database.deleteCSIPriceData(csiAbyss.getCsiID());
+      database.deleteMMPriceData(mmAbyss.getMmID());
+      database.deleteGameReltn(abyssReltn.getReltnID());
+      
+    } catch (ConfigurationException ce) {
+      ce.printStackTrace();
+      fail("I failed with a ConfigurationException: " + ce.getLocalizedMessage());
+    } catch (DatabaseOperationException doe) {
+      doe.printStackTrace();
+      fail("I failed with a DatabaseOperationException: " + doe.getLocalizedMessage());
+    } catch (Throwable t) {
+      t.printStackTrace();
+      fail("I failed for some gorram reason: " + t.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Helper method that boxes an array of IDs, to compare with a list of them.
+   * 
+   * @param ids The IDs.
+   * @return the IDs, in the same order
+   */
+  private static List<Long> toList(long[] ids) {
+    List<Long> list = new ArrayList<Long>(ids.length);
+    for (long id : ids)
+      list.add(id);
+    return list;
+  }
 }
@@ -0,0 +1,180 @@
+package com.ac.games.db.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.bson.types.BSONTimestamp;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import com.ac.games.db.mongo.CacheInvalidationListener;
+import com.ac.games.db.mongo.MongoGamesDatabase;
+import com.ac.games.db.mongo.OplogCacheInvalidator;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Checks which oplog entries the {@link OplogCacheInvalidator} reports, and where it picks up again
+ * after its tailable cursor is dropped.  The entries are built by hand, so none of these tests need a
+ * replica set.
+ *
+ * @author ac010168
+ */
+public class TestOplogCacheInvalidator extends TestCase {
+
+  /** Database name the entries are written against. */
+  private static final String DATABASE_NAME = "mockDB";
+
+  /**
+   * Method to test that the tail query asks only for the watched collections and the command
+   * namespace.
+   */
+  @Test
+  public void testTailQueryNamespaces() {
+    OplogCacheInvalidator invalidator = createInvalidator(new RecordingListener(), null);
+
+    DBObject queryObject = invalidator.convertTailQuery();
+    assertNull("A fresh tail should not have a resume position", queryObject.get("ts"));
+
+    List<String> expected = new ArrayList<String>();
+    for (String collection : MongoGamesDatabase.INVALIDATION_COLLECTIONS)
+      expected.add(DATABASE_NAME + "." + collection);
+    expected.add(DATABASE_NAME + ".$cmd");
+    Object namespaces = ((DBObject)queryObject.get("ns")).get("$in");
+    assertEquals("The tail query watches the wrong namespaces", expected, namespaces);
+  }
+
+  /**
+   * Method to test that writes, updates and deletes on watched collections are reported by _id, and
+   * that entries for other collections and other databases are not reported at all.
+   */
+  @Test
+  public void testEntryFiltering() {
+    RecordingListener listener = new RecordingListener();
+    OplogCacheInvalidator invalidator = createInvalidator(listener, null);
+    ObjectId gameDocID = new ObjectId();
+    ObjectId userDocID = new ObjectId();
+
+    invalidator.handleEntry(createEntry(1, "game", "i", new BasicDBObject("_id", gameDocID), null));
+    invalidator.handleEntry(createEntry(2, "user", "u", new BasicDBObject("$set", new BasicDBObject("emailAddress", "x")), new BasicDBObject("_id", userDocID)));
+    invalidator.handleEntry(createEntry(3, "bgggame", "d", new BasicDBObject("_id", 7), null));
+    invalidator.handleEntry(createEntry(4, "csidata", "i", new BasicDBObject("_id", new ObjectId()), null));
+    invalidator.handleEntry(createEntry(5, "wishlist", "u", new BasicDBObject(), new BasicDBObject("_id", new ObjectId())));
+
+    BasicDBObject otherDatabase = createEntry(6, "game", "i", new BasicDBObject("_id", new ObjectId()), null);
+    otherDatabase.put("ns", "otherDB.game");
+    invalidator.handleEntry(otherDatabase);
+
+    assertEquals("The wrong documents were reported",
+                 Arrays.asList("game:" + gameDocID + ":i", "user:" + userDocID + ":u", "bgggame:7:d"), listener.documents);
+    assertTrue("A collection was reported as changed", listener.collections.isEmpty());
+  }
+
+  /**
+   * Method to test that commands are reported only when they name a watched collection, either bare or
+   * as a namespace.
+   */
+  @Test
+  public void testCommandFiltering() {
+    RecordingListener listener = new RecordingListener();
+    OplogCacheInvalidator invalidator = createInvalidator(listener, null);
+
+    invalidator.handleEntry(createEntry(1, "$cmd", "c", new BasicDBObject("drop", "collection"), null));
+    invalidator.handleEntry(createEntry(2, "$cmd", "c", new BasicDBObject("drop", "mmdata"), null));
+    invalidator.handleEntry(createEntry(3, "$cmd", "c", new BasicDBObject("renameCollection", DATABASE_NAME + ".game")
+                                                          .append("to", DATABASE_NAME + ".oldgame"), null));
+
+    assertEquals("The wrong collections were reported", Arrays.asList("collection", "game"), listener.collections);
+    assertTrue("A document was reported as changed", listener.documents.isEmpty());
+  }
+
+  /**
+   * Method to test that a reopened tail resumes after the last entry handled, reports nothing extra when
+   * the oplog still reaches back that far, and reports every watched collection when it doesn't.
+   */
+  @Test
+  public void testResumeAfterDroppedCursor() {
+    RecordingListener listener = new RecordingListener();
+    OplogCacheInvalidator invalidator = createInvalidator(listener, new BSONTimestamp(100, 0));
+
+    //The first cursor hands over two entries and is then dropped
+    invalidator.handleEntry(createEntry(101, "game", "i", new BasicDBObject("_id", 1), null));
+    invalidator.handleEntry(createEntry(102, "wishlist", "i", new BasicDBObject("_id", 2), null));
+    assertEquals("The position didn't follow the entries, watched or not", new BSONTimestamp(102, 0), invalidator.getPosition());
+
+    DBObject queryObject = invalidator.convertTailQuery();
+    assertEquals("The tail didn't resume after the last entry", new BSONTimestamp(102, 0), ((DBObject)queryObject.get("ts")).get("$gt"));
+
+    //The oplog still holds everything since then
+    invalidator.checkResume(new BSONTimestamp(50, 0));
+    invalidator.checkResume(new BSONTimestamp(102, 0));
+    assertTrue("A collection was reported although nothing was missed", listener.collections.isEmpty());
+
+    //The oplog has rolled past the resume position
+    invalidator.checkResume(new BSONTimestamp(140, 0));
+    assertEquals("Every watched collection should be reported", Arrays.asList(MongoGamesDatabase.INVALIDATION_COLLECTIONS), listener.collections);
+    assertEquals("Only the first entry should be reported by _id", 1, listener.documents.size());
+
+    //A later invalidator handed the position picks up from the same place
+    OplogCacheInvalidator resumed = createInvalidator(new RecordingListener(), invalidator.getPosition());
+    assertEquals("The handed over position was not used", new BSONTimestamp(102, 0), ((DBObject)resumed.convertTailQuery().get("ts")).get("$gt"));
+  }
+
+  /**
+   * Helper method that creates an invalidator over our watched collections without a client, which is
+   * only needed to open a real tail.
+   *
+   * @param listener Who gets told about the changes.
+   * @param position The resume position, or null.
+   * @return the invalidator
+   */
+  private static OplogCacheInvalidator createInvalidator(CacheInvalidationListener listener, BSONTimestamp position) {
+    return new OplogCacheInvalidator(null, DATABASE_NAME, MongoGamesDatabase.INVALIDATION_COLLECTIONS, listener, position);
+  }
+
+  /**
+   * Helper method that builds an oplog entry the way the server writes them.
+   *
+   * @param time The seconds part of the entry's timestamp.
+   * @param collection The collection, or $cmd for a command.
+   * @param op The operation.
+   * @param o The document, update or command.
+   * @param o2 The query of an update, or null.
+   * @return the entry
+   */
+  private static BasicDBObject createEntry(int time, String collection, String op, DBObject o, DBObject o2) {
+    BasicDBObject entry = new BasicDBObject("ts", new BSONTimestamp(time, 0));
+    entry.append("op", op);
+    entry.append("ns", DATABASE_NAME + "." + collection);
+    entry.append("o", o);
+    if (o2 != null) entry.append("o2", o2);
+    return entry;
+  }
+
+  /**
+   * Listener that records what it is told, in order.
+   */
+  private static class RecordingListener implements CacheInvalidationListener {
+    /** Each document change, as collection:_id:op. */
+    private final List<String> documents   = new ArrayList<String>();
+    /** Each collection change. */
+    private final List<String> collections = new ArrayList<String>();
+
+    /* (non-Javadoc)
+     * @see com.ac.games.db.mongo.CacheInvalidationListener#documentChanged(java.lang.String, java.lang.Object, char)
+     */
+    public void documentChanged(String collection, Object documentID, char operation) {
+      documents.add(collection + ":" + documentID + ":" + operation);
+    }
+
+    /* (non-Javadoc)
+     * @see com.ac.games.db.mongo.CacheInvalidationListener#collectionChanged(java.lang.String)
+     */
+    public void collectionChanged(String collection) {
+      collections.add(collection);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.ac.games.db.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import com.ac.games.db.mongo.GameReltnConverter;
+import com.ac.games.db.mongo.WishlistItemConverter;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Checks the queries behind price drop matching, built by {@link GameReltnConverter} to resolve dropped
+ * items to their games and by {@link WishlistItemConverter} to find the wishlist entries to notify.  None
+ * of these tests need a database; matching real drops is covered by TestMongoGamesDatabase.
+ *
+ * @author ac010168
+ */
+public class TestPriceDropConverter extends TestCase {
+
+  /**
+   * Method to test that a batch of dropped items resolves through the retailer lists it has items for,
+   * using an $or only when both retailers dropped.
+   */
+  @Test
+  public void testDroppedItemQuery() {
+    List<Long> csiIDs = new ArrayList<Long>();
+    csiIDs.add(203495L);
+    List<Long> mmIDs = new ArrayList<Long>();
+    mmIDs.add(40693L);
+    List<Long> noIDs = new ArrayList<Long>();
+
+    BasicDBObject csiQuery = GameReltnConverter.convertItemIDsToReltnQuery(csiIDs, noIDs);
+    assertNull("A single retailer used an $or", csiQuery.get("$or"));
+    assertEquals("The CSI items aren't looked up", csiIDs, ((DBObject)csiQuery.get("csiIDs")).get("$in"));
+    assertFalse("The MM list was searched without MM items", csiQuery.containsField("mmIDs"));
+
+    BasicDBObject mmQuery = GameReltnConverter.convertItemIDsToReltnQuery(noIDs, mmIDs);
+    assertEquals("The MM items aren't looked up", mmIDs, ((DBObject)mmQuery.get("mmIDs")).get("$in"));
+
+    List<?> orList = (List<?>)GameReltnConverter.convertItemIDsToReltnQuery(csiIDs, mmIDs).get("$or");
+    assertNotNull("Both retailers didn't use an $or", orList);
+    assertEquals("The $or has the wrong number of branches", 2, orList.size());
+    assertEquals("The CSI branch is wrong", csiIDs, ((DBObject)((DBObject)orList.get(0)).get("csiIDs")).get("$in"));
+    assertEquals("The MM branch is wrong", mmIDs, ((DBObject)((DBObject)orList.get(1)).get("mmIDs")).get("$in"));
+  }
+
+  /**
+   * Method to test that only the entries asking to be notified are read, and that the projection stays
+   * inside the notify index so the read is covered.
+   */
+  @Test
+  public void testNotifyQuery() {
+    List<Long> gameIDs = new ArrayList<Long>();
+    gameIDs.add(1234L);
+    gameIDs.add(2345L);
+
+    BasicDBObject queryObject = WishlistItemConverter.convertGameIDsToNotifyQuery(gameIDs);
+    assertEquals("The wrong games are read", gameIDs, ((DBObject)queryObject.get("gameID")).get("$in"));
+    assertEquals("Entries not asking to be notified are read", Boolean.TRUE, queryObject.get("notifyUser"));
+
+    BasicDBObject indexKeys  = WishlistItemConverter.convertNotifyIndexKeys();
+    BasicDBObject projection = WishlistItemConverter.convertNotifyProjection();
+    assertEquals("The projection returns the _id", 0, projection.get("_id"));
+    for (String fieldName : projection.keySet()) {
+      if ("_id".equals(fieldName)) continue;
+      assertTrue("The index doesn't cover " + fieldName, indexKeys.containsField(fieldName));
+    }
+    for (String fieldName : queryObject.keySet())
+      assertTrue("The index doesn't cover " + fieldName, indexKeys.containsField(fieldName));
+  }
+}
@@ -0,0 +1,182 @@
+package com.ac.games.db.test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import com.ac.games.data.GameAvailability;
+import com.ac.games.db.mongo.PriceHistoryConverter;
+import com.ac.games.db.mongo.price.PriceObservation;
+import com.ac.games.db.mongo.price.PriceRollup;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Checks the month buckets {@link PriceHistoryConverter} builds for the price history, and how a
+ * {@link PriceRollup} is folded together from whole and edge buckets.  None of these tests need a
+ * database; recording and rolling up real observations is covered by TestMongoGamesDatabase.
+ *
+ * @author ac010168
+ */
+public class TestPriceHistoryConverter extends TestCase {
+
+  /**
+   * Method to test that observations are bucketed by their UTC month, either side of a month boundary.
+   */
+  @Test
+  public void testMonthBuckets() {
+    Date lastOfOctober  = createDate(2015, Calendar.OCTOBER, 31, 23, 59);
+    Date firstOfNovember = createDate(2015, Calendar.NOVEMBER, 1, 0, 0);
+    assertEquals("The last minute of October is in the wrong month", 201510, PriceHistoryConverter.convertDateToMonth(lastOfOctober));
+    assertEquals("The first minute of November is in the wrong month", 201511, PriceHistoryConverter.convertDateToMonth(firstOfNovember));
+    assertEquals("December is in the wrong month", 201512, PriceHistoryConverter.convertDateToMonth(createDate(2015, Calendar.DECEMBER, 15, 12, 0)));
+
+    assertEquals("The bucket _id is wrong", "csi:203495:201510",
+                 PriceHistoryConverter.convertObservationToBucketQuery(PriceHistoryConverter.SOURCE_CSI, 203495L, lastOfOctober).get("_id"));
+    assertEquals("The bucket _id is wrong", "mm:40693:201511",
+                 PriceHistoryConverter.convertObservationToBucketQuery(PriceHistoryConverter.SOURCE_MM, 40693L, firstOfNovember).get("_id"));
+  }
+
+  /**
+   * Method to test that recording an observation pushes it into its bucket and keeps the bucket's running
+   * summary, stamping the bucket's identity only when it is first created.
+   */
+  @Test
+  public void testBucketUpdate() {
+    Date date = createDate(2015, Calendar.OCTOBER, 19, 10, 30);
+    PriceObservation observation = new PriceObservation(date, 42.5, GameAvailability.INSTOCK);
+    BasicDBObject updateObject = PriceHistoryConverter.convertObservationToBucketUpdate(PriceHistoryConverter.SOURCE_CSI, 203495L, observation);
+
+    DBObject insertObject = (DBObject)updateObject.get("$setOnInsert");
+    assertEquals("The bucket has the wrong source", PriceHistoryConverter.SOURCE_CSI, insertObject.get("source"));
+    assertEquals("The bucket has the wrong item", 203495L, insertObject.get("itemID"));
+    assertEquals("The bucket has the wrong month", 201510, insertObject.get("month"));
+
+    DBObject entryObject = (DBObject)((DBObject)updateObject.get("$push")).get("observations");
+    assertEquals("The pushed observation has the wrong date", date, entryObject.get("date"));
+    assertEquals("The pushed observation has the wrong price", 42.5, entryObject.get("price"));
+    assertTrue("The pushed observation lost its availability", entryObject.containsField("availability"));
+
+    DBObject incObject = (DBObject)updateObject.get("$inc");
+    assertEquals("The count wasn't incremented", 1, incObject.get("count"));
+    assertEquals("The price wasn't summed", 42.5, incObject.get("sumPrice"));
+    assertEquals("The minPrice isn't kept", 42.5, ((DBObject)updateObject.get("$min")).get("minPrice"));
+    assertEquals("The firstDate isn't kept", date, ((DBObject)updateObject.get("$min")).get("firstDate"));
+    assertEquals("The maxPrice isn't kept", 42.5, ((DBObject)updateObject.get("$max")).get("maxPrice"));
+    assertEquals("The lastDate isn't kept", date, ((DBObject)updateObject.get("$max")).get("lastDate"));
+
+    PriceObservation unknownObservation = new PriceObservation(date, 42.5, null);
+    DBObject unknownEntry = (DBObject)((DBObject)PriceHistoryConverter.convertObservationToBucketUpdate(PriceHistoryConverter.SOURCE_CSI, 203495L, unknownObservation)
+                                                                      .get("$push")).get("observations");
+    assertFalse("An unknown availability was written", unknownEntry.containsField("availability"));
+  }
+
+  /**
+   * Method to test that a range reads every bucket from the month of its start to the month of its end.
+   */
+  @Test
+  public void testRangeQuery() {
+    BasicDBObject queryObject = PriceHistoryConverter.convertRangeToBucketQuery(PriceHistoryConverter.SOURCE_MM, 40693L,
+                                                                                createDate(2015, Calendar.OCTOBER, 20, 0, 0),
+                                                                                createDate(2015, Calendar.DECEMBER, 5, 0, 0));
+    assertEquals("The range has the wrong source", PriceHistoryConverter.SOURCE_MM, queryObject.get("source"));
+    assertEquals("The range has the wrong item", 40693L, queryObject.get("itemID"));
+    DBObject monthObject = (DBObject)queryObject.get("month");
+    assertEquals("The range starts in the wrong month", 201510, monthObject.get("$gte"));
+    assertEquals("The range ends in the wrong month", 201512, monthObject.get("$lte"));
+  }
+
+  /**
+   * Method to test that a bucket only counts as inside a range when its first and last observations both
+   * are, the bounds themselves included, and never when it has no dates.
+   */
+  @Test
+  public void testBucketInRange() {
+    Date fromDate = createDate(2015, Calendar.OCTOBER, 10, 0, 0);
+    Date toDate   = createDate(2015, Calendar.OCTOBER, 20, 0, 0);
+
+    assertTrue("A bucket inside the range isn't",
+               PriceHistoryConverter.isBucketInRange(createBucket(createDate(2015, Calendar.OCTOBER, 12, 0, 0), createDate(2015, Calendar.OCTOBER, 18, 0, 0)), fromDate, toDate));
+    assertTrue("A bucket on the bounds isn't inside the range",
+               PriceHistoryConverter.isBucketInRange(createBucket(fromDate, toDate), fromDate, toDate));
+    assertFalse("A bucket straddling the start is inside the range",
+                PriceHistoryConverter.isBucketInRange(createBucket(createDate(2015, Calendar.OCTOBER, 1, 0, 0), createDate(2015, Calendar.OCTOBER, 18, 0, 0)), fromDate, toDate));
+    assertFalse("A bucket straddling the end is inside the range",
+                PriceHistoryConverter.isBucketInRange(createBucket(createDate(2015, Calendar.OCTOBER, 12, 0, 0), createDate(2015, Calendar.OCTOBER, 25, 0, 0)), fromDate, toDate));
+    assertFalse("A bucket without dates is inside the range",
+                PriceHistoryConverter.isBucketInRange(new BasicDBObject("count", 3), fromDate, toDate));
+  }
+
+  /**
+   * Method to test the rollup folding: a whole bucket is taken from its summary, while an edge bucket only
+   * counts its observations inside the range.
+   */
+  @Test
+  public void testBucketRollup() {
+    Date fromDate = createDate(2015, Calendar.OCTOBER, 10, 0, 0);
+    Date toDate   = createDate(2015, Calendar.NOVEMBER, 20, 0, 0);
+
+    //The October bucket straddles the start, so only its 12th and 25th observations count
+    BasicDBObject octoberBucket = createBucket(createDate(2015, Calendar.OCTOBER, 1, 0, 0), createDate(2015, Calendar.OCTOBER, 25, 0, 0));
+    List<DBObject> observations = new ArrayList<DBObject>();
+    observations.add(new BasicDBObject("date", createDate(2015, Calendar.OCTOBER, 1, 0, 0)).append("price", 10.0));
+    observations.add(new BasicDBObject("date", createDate(2015, Calendar.OCTOBER, 12, 0, 0)).append("price", 30.0));
+    observations.add(new BasicDBObject("date", createDate(2015, Calendar.OCTOBER, 25, 0, 0)).append("price", 40.0));
+    octoberBucket.append("observations", observations);
+    octoberBucket.append("count", 3).append("minPrice", 10.0).append("maxPrice", 40.0).append("sumPrice", 80.0);
+
+    //The November bucket lies inside the range, so its summary stands in for observations it doesn't carry
+    BasicDBObject novemberBucket = createBucket(createDate(2015, Calendar.NOVEMBER, 2, 0, 0), createDate(2015, Calendar.NOVEMBER, 18, 0, 0));
+    novemberBucket.append("count", 2).append("minPrice", 20.0).append("maxPrice", 50.0).append("sumPrice", 70.0);
+
+    PriceRollup rollup = new PriceRollup();
+    assertEquals("An empty rollup has observations", 0, rollup.getObservationCount());
+    assertEquals("An empty rollup has a minPrice", -1.0, rollup.getMinPrice());
+    assertEquals("An empty rollup has an average", -1.0, rollup.getAvgPrice());
+
+    PriceHistoryConverter.addBucketToRollup(rollup, octoberBucket, fromDate, toDate);
+    assertEquals("The edge bucket counted observations outside the range", 2, rollup.getObservationCount());
+    assertEquals("The edge bucket's minPrice came from outside the range", 30.0, rollup.getMinPrice());
+
+    PriceHistoryConverter.addBucketToRollup(rollup, novemberBucket, fromDate, toDate);
+    assertEquals("The whole bucket wasn't counted", 4, rollup.getObservationCount());
+    assertEquals("The minPrice is wrong", 20.0, rollup.getMinPrice());
+    assertEquals("The maxPrice is wrong", 50.0, rollup.getMaxPrice());
+    assertEquals("The average is wrong", 35.0, rollup.getAvgPrice());
+
+    rollup.addSummary(0, 1.0, 99.0, 0.0);
+    assertEquals("An empty summary changed the count", 4, rollup.getObservationCount());
+    assertEquals("An empty summary changed the minPrice", 20.0, rollup.getMinPrice());
+
+    PriceRollup emptyRollup = new PriceRollup();
+    PriceHistoryConverter.addBucketToRollup(emptyRollup, createBucket(createDate(2015, Calendar.OCTOBER, 1, 0, 0), createDate(2015, Calendar.OCTOBER, 25, 0, 0)), fromDate, toDate);
+    assertEquals("An edge bucket without observations was counted", 0, emptyRollup.getObservationCount());
+  }
+
+  /**
+   * Helper method that builds a UTC date.
+   *
+   * @return the date
+   */
+  private static Date createDate(int year, int month, int day, int hour, int minute) {
+    Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    calendar.clear();
+    calendar.set(year, month, day, hour, minute);
+    return calendar.getTime();
+  }
+
+  /**
+   * Helper method that builds a bucket holding observations from firstDate to lastDate.
+   *
+   * @return the bucket
+   */
+  private static BasicDBObject createBucket(Date firstDate, Date lastDate) {
+    return new BasicDBObject("firstDate", firstDate).append("lastDate", lastDate);
+  }
+}
@@ -0,0 +1,100 @@
+package com.ac.games.db.test;
+
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import com.ac.games.data.ReviewState;
+import com.ac.games.data.ReviewStateConverter;
+import com.ac.games.db.mongo.ContentHash;
+import com.ac.games.db.mongo.ReviewDecisionConverter;
+import com.ac.games.db.mongo.ReviewLeaseConverter;
+import com.ac.games.db.mongo.StatsConverter;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Checks the queries and updates behind bulk review decisions, built by {@link ReviewDecisionConverter},
+ * and the stats moves that go with them, built by {@link StatsConverter}.  None of these tests need a
+ * database; deciding real records is covered by TestMongoGamesDatabase.
+ *
+ * @author ac010168
+ */
+public class TestReviewDecisionConverter extends TestCase {
+
+  /**
+   * Method to test that a decision moves records out of every other review state, and out of no state at
+   * all, but never selects the state decided on.
+   */
+  @Test
+  public void testFromStates() {
+    for (ReviewState reviewState : ReviewState.values()) {
+      List<ReviewState> fromStates = ReviewDecisionConverter.convertDecisionToFromStates(reviewState);
+      assertEquals("The wrong number of previous states for " + reviewState, ReviewState.values().length, fromStates.size());
+      assertFalse("The decided state is selected for " + reviewState, fromStates.contains(reviewState));
+      assertNull("Records with no state are missed for " + reviewState, fromStates.get(fromStates.size() - 1));
+    }
+  }
+
+  /**
+   * Method to test that the decision query selects the given IDs in one previous state, with null selecting
+   * records that have no review state.
+   */
+  @Test
+  public void testDecisionQuery() {
+    long[] ids = { 40693L, 15138L };
+
+    BasicDBObject queryObject = ReviewDecisionConverter.convertDecisionToQuery("mmID", ids, ReviewState.PENDING);
+    List<?> idList = (List<?>)((DBObject)queryObject.get("mmID")).get("$in");
+    assertEquals("The wrong number of IDs are selected", 2, idList.size());
+    assertEquals("The wrong ID is selected", 40693L, idList.get(0));
+    assertEquals("The wrong state is selected", ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING), queryObject.get("reviewState"));
+
+    BasicDBObject noStateObject = ReviewDecisionConverter.convertDecisionToQuery("mmID", ids, null);
+    assertTrue("Records with no state aren't selected", noStateObject.containsField("reviewState"));
+    assertNull("Records with no state aren't selected", noStateObject.get("reviewState"));
+  }
+
+  /**
+   * Method to test that a decision only sets the review state and date, and ends any lease and the stored
+   * content hash.
+   */
+  @Test
+  public void testDecisionUpdate() {
+    Date reviewDate = new Date(1445251978000L);
+    BasicDBObject updateObject = ReviewDecisionConverter.convertDecisionToUpdate(ReviewState.REJECTED, reviewDate);
+
+    DBObject setObject = (DBObject)updateObject.get("$set");
+    assertEquals("The wrong number of fields are set", 2, setObject.keySet().size());
+    assertEquals("The wrong state is set", ReviewStateConverter.convertReviewStateToFlag(ReviewState.REJECTED), setObject.get("reviewState"));
+    assertEquals("The wrong date is set", reviewDate, setObject.get("reviewDate"));
+
+    DBObject unsetObject = (DBObject)updateObject.get("$unset");
+    assertTrue("The lease owner isn't cleared", unsetObject.containsField(ReviewLeaseConverter.LEASE_OWNER));
+    assertTrue("The lease expiry isn't cleared", unsetObject.containsField(ReviewLeaseConverter.LEASE_EXPIRES));
+    assertTrue("The content hash isn't cleared", unsetObject.containsField(ContentHash.FIELD));
+  }
+
+  /**
+   * Method to test the stats move for a decision: the count leaves the previous state's counter and joins
+   * the new one's, records with no previous state only join, and a move within one state changes nothing.
+   */
+  @Test
+  public void testReviewStateMove() {
+    BasicDBObject moveObject = StatsConverter.convertReviewStateMoveToStatsUpdate(ReviewStateConverter.PENDING_FLAG, ReviewStateConverter.REVIEWED_FLAG, 3);
+    DBObject incObject = (DBObject)moveObject.get("$inc");
+    assertEquals("The pending count wasn't reduced", -3, incObject.get("pendingCount"));
+    assertEquals("The approved count wasn't raised", 3, incObject.get("approvedCount"));
+    assertEquals("The row version wasn't bumped", 1, incObject.get(StatsConverter.VERSION_FIELD));
+
+    DBObject noStateObject = (DBObject)StatsConverter.convertReviewStateMoveToStatsUpdate(-1, ReviewStateConverter.REJECTED_FLAG, 2).get("$inc");
+    assertEquals("The rejected count wasn't raised", 2, noStateObject.get("rejectedCount"));
+    assertFalse("A count was reduced for records with no state", noStateObject.containsField("pendingCount"));
+
+    assertNull("A move within one state changed a count",
+               StatsConverter.convertReviewStateMoveToStatsUpdate(ReviewStateConverter.PENDING_FLAG, ReviewStateConverter.PENDING_FLAG, 4));
+  }
+}
@@ -0,0 +1,93 @@
+package com.ac.games.db.test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import com.ac.games.data.ReviewState;
+import com.ac.games.data.ReviewStateConverter;
+import com.ac.games.db.mongo.ReviewLeaseConverter;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Checks the queries and updates {@link ReviewLeaseConverter} builds for the review work queue.  None of
+ * these tests need a database; claiming and expiring real leases is covered by TestMongoGamesDatabase.
+ *
+ * @author ac010168
+ */
+public class TestReviewLeaseConverter extends TestCase {
+
+  /**
+   * Method to test that a record is claimable only while pending, and only when it has no lease or its
+   * lease ran out before now.
+   */
+  @Test
+  public void testClaimableQuery() {
+    Date now = new Date(1445251978000L);
+    BasicDBObject queryObject = ReviewLeaseConverter.convertClaimableToQuery(now);
+    assertEquals("The query isn't limited to pending records", ReviewStateConverter.convertReviewStateToFlag(ReviewState.PENDING), queryObject.get("reviewState"));
+
+    List<?> freeList = (List<?>)queryObject.get("$or");
+    assertNotNull("There is no $or for the free leases", freeList);
+    assertEquals("The $or has the wrong number of branches", 2, freeList.size());
+
+    DBObject unleasedBranch = (DBObject)freeList.get(0);
+    assertTrue("The unleased branch doesn't match missing leases", unleasedBranch.containsField(ReviewLeaseConverter.LEASE_EXPIRES));
+    assertNull("The unleased branch doesn't match missing leases", unleasedBranch.get(ReviewLeaseConverter.LEASE_EXPIRES));
+
+    DBObject expiredBranch = (DBObject)freeList.get(1);
+    assertEquals("The expired branch has the wrong time", now, ((DBObject)expiredBranch.get(ReviewLeaseConverter.LEASE_EXPIRES)).get("$lt"));
+  }
+
+  /**
+   * Method to test that a batch claim re-tests the lease on just the records it picked, and reads back only
+   * the ones stamped with its own reviewer and expiry.
+   */
+  @Test
+  public void testBatchClaimQueries() {
+    Date now     = new Date(1445251978000L);
+    Date expires = new Date(now.getTime() + 60000L);
+    List<Object> docIDs = new ArrayList<Object>();
+    docIDs.add("first");
+    docIDs.add("second");
+
+    BasicDBObject claimableObject = ReviewLeaseConverter.convertClaimableToQuery(docIDs, now);
+    assertNotNull("The picked records lost the lease test", claimableObject.get("$or"));
+    assertEquals("The picked records aren't the only ones claimed", docIDs, ((DBObject)claimableObject.get("_id")).get("$in"));
+
+    BasicDBObject claimObject = ReviewLeaseConverter.convertClaimToUpdate("reviewer", expires);
+    DBObject setObject = (DBObject)claimObject.get("$set");
+    assertEquals("The claim has the wrong owner", "reviewer", setObject.get(ReviewLeaseConverter.LEASE_OWNER));
+    assertEquals("The claim has the wrong expiry", expires, setObject.get(ReviewLeaseConverter.LEASE_EXPIRES));
+
+    BasicDBObject claimedObject = ReviewLeaseConverter.convertClaimedToQuery(docIDs, "reviewer", expires);
+    assertEquals("The read back isn't limited to the picked records", docIDs, ((DBObject)claimedObject.get("_id")).get("$in"));
+    assertEquals("The read back isn't limited to this reviewer", "reviewer", claimedObject.get(ReviewLeaseConverter.LEASE_OWNER));
+    assertEquals("The read back isn't limited to this claim", expires, claimedObject.get(ReviewLeaseConverter.LEASE_EXPIRES));
+  }
+
+  /**
+   * Method to test that a release only matches the holder's lease, that the reaper only matches leases that
+   * ran out, and that both clear the lease fields.
+   */
+  @Test
+  public void testReleaseQueries() {
+    Date now = new Date(1445251978000L);
+
+    BasicDBObject leaseObject = ReviewLeaseConverter.convertLeaseToQuery("mmID", 40693L, "reviewer");
+    assertEquals("The release has the wrong record", 40693L, leaseObject.get("mmID"));
+    assertEquals("The release isn't limited to the holder", "reviewer", leaseObject.get(ReviewLeaseConverter.LEASE_OWNER));
+
+    BasicDBObject expiredObject = ReviewLeaseConverter.convertExpiredLeasesToQuery(now);
+    assertEquals("The reaper has the wrong time", now, ((DBObject)expiredObject.get(ReviewLeaseConverter.LEASE_EXPIRES)).get("$lt"));
+
+    DBObject unsetObject = (DBObject)ReviewLeaseConverter.convertReleaseToUpdate().get("$unset");
+    assertTrue("The release doesn't clear the owner", unsetObject.containsField(ReviewLeaseConverter.LEASE_OWNER));
+    assertTrue("The release doesn't clear the expiry", unsetObject.containsField(ReviewLeaseConverter.LEASE_EXPIRES));
+  }
+}